@@ -61,6 +61,7 @@ import org.n52.shetland.ogc.om.values.QuantityValue;
 import org.n52.shetland.ogc.om.values.Value;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.netcdf.data.dataset.IdentifierDatasetSensor;
+import org.n52.sos.netcdf.data.dataset.SensorDataValues;
 import org.n52.sos.netcdf.data.dataset.TimeSeriesProfileSensorDataset;
 import org.n52.sos.netcdf.data.dataset.TimeSeriesSensorDataset;
 import org.n52.sos.netcdf.data.dataset.TrajectoryProfileSensorDataset;
@@ -95,7 +96,12 @@ public interface NetCDFUtil {
 
     /**
      * Organizes OmObservation collection into a list of NetCDFObservation
-     * blocks, each of which contain a single feature type
+     * blocks, each of which contain a single feature type.
+     *
+     * The feature type and the dimensions of each sensor are only known after
+     * the whole stream was read, so the values are kept until then. They are
+     * held as primitive columns per sensor, observed property and sub sensor
+     * (see {@link SensorDataValues}) instead of value objects.
      *
      * @param omObservations
      *            The collection of observations to transform
@@ -105,9 +111,9 @@ public interface NetCDFUtil {
      */
     default List<NetCDFObservation> createNetCDFSosObservations(ObservationStream omObservations)
             throws EncodingException, OwsExceptionReport {
-        // the main map of observation value strings by asset, time, phenomenon,
-        // and subsensor (height, profile bin, etc)
-        Map<String, Map<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>>> obsValuesMap = new HashMap<>();
+        // the observation values by asset, columns by phenomenon and subsensor
+        // (height, profile bin, etc)
+        Map<String, SensorDataValues> obsValuesMap = new HashMap<>();
 
         SetMultimap<String, OmObservableProperty> sensorPhens = HashMultimap.create();
         Map<String, AbstractFeature> sensorProcedure = Maps.newHashMap();
@@ -173,12 +179,10 @@ public interface NetCDFUtil {
         Envelope trajectoryEnvelope = new Envelope();
         Envelope trajectoryProfileEnvelope = new Envelope();
 
-        for (Map.Entry<String, Map<Time, Map<OmObservableProperty,
-                Map<SubSensor, Value<?>>>>> obsValuesEntry : obsValuesMap
-                .entrySet()) {
+        for (Map.Entry<String, SensorDataValues> obsValuesEntry : obsValuesMap.entrySet()) {
             IdentifierDatasetSensor datasetSensor = new IdentifierDatasetSensor(obsValuesEntry.getKey());
             String sensor = datasetSensor.getSensorIdentifier();
-            Set<Time> sensorTimes = obsValuesEntry.getValue().keySet();
+            List<Time> sensorTimes = obsValuesEntry.getValue().getTimes();
 
             int lngCount = sensorLngs.get(sensor).size();
             int latCount = sensorLats.get(sensor).size();
@@ -301,8 +305,7 @@ public interface NetCDFUtil {
     default void processObservation(OmObservation sosObs, SetMultimap<String, OmObservableProperty> sensorPhens,
             Map<String, AbstractFeature> sensorProcedure, SetMultimap<String, Double> sensorLngs,
             SetMultimap<String, Double> sensorLats, SetMultimap<String, Double> sensorHeights,
-            Map<String, Map<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>>> obsValuesMap)
-            throws EncodingException {
+            Map<String, SensorDataValues> obsValuesMap) throws EncodingException {
 
         OmObservationConstellation obsConst = sosObs.getObservationConstellation();
 
@@ -415,33 +418,21 @@ public interface NetCDFUtil {
             }
         }
 
-        // get the sensor's data map
-        Map<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>> sensorObsMap = obsValuesMap.get(sensor);
-        if (sensorObsMap == null) {
-            sensorObsMap = new HashMap<>();
-            obsValuesMap.put(sensor, sensorObsMap);
-        }
-
-        // get the map of the asset's phenomena by time
-        Map<OmObservableProperty, Map<SubSensor, Value<?>>> obsPropMap = sensorObsMap.get(obsTime);
-        if (obsPropMap == null) {
-            obsPropMap = new HashMap<>();
-            sensorObsMap.put(obsTime, obsPropMap);
-        }
-
-        OmObservableProperty phen = phenomenaMap.get(phenId);
-        Map<SubSensor, Value<?>> subSensorMap = obsPropMap.get(phen);
-        if (subSensorMap == null) {
-            subSensorMap = new HashMap<>();
-            obsPropMap.put(phen, subSensorMap);
+        if (!quantityValue.isSetValue()) {
+            // left as fill value
+            return;
         }
 
-        // add obs value to subsensor map (null subsensors are ok)
+        // add obs value to the sensor's column of the phenomenon and
+        // subsensor (null subsensors are ok)
+        SubSensor subSensor;
         if (sosObs.isSetParameter() && hasSamplingGeometry(sosObs)) {
-            subSensorMap.put(createSubSensor(sensor, getSamplingGeometryGeometry(sosObs)), obsValue);
+            subSensor = createSubSensor(sensor, getSamplingGeometryGeometry(sosObs));
         } else {
-            subSensorMap.put(createSubSensor(sensor, foi), obsValue);
+            subSensor = createSubSensor(sensor, foi);
         }
+        obsValuesMap.computeIfAbsent(sensor, k -> new SensorDataValues()).add(obsTime, phenomenaMap.get(phenId),
+                subSensor, quantityValue.getValue().doubleValue());
     }
 
     default void expandEnvelopeToInclude(Envelope env, Set<Double> lngs, Set<Double> lats) {
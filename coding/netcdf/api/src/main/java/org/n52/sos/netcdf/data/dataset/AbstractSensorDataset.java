@@ -31,14 +31,11 @@ package org.n52.sos.netcdf.data.dataset;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.gml.time.Time;
 import org.n52.shetland.ogc.om.OmObservableProperty;
-import org.n52.shetland.ogc.om.values.Value;
 import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.netcdf.data.subsensor.SubSensor;
 
@@ -69,39 +66,27 @@ public abstract class AbstractSensorDataset implements Comparable<AbstractSensor
 
     private List<SubSensor> subSensors;
 
-    private Map<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>> dataValues;
+    private SensorDataValues dataValues;
 
-    public AbstractSensorDataset(CF.FeatureType featureType, DatasetSensor sensor,
-            Map<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>> dataValues, AbstractFeature procedure) {
+    public AbstractSensorDataset(CF.FeatureType featureType, DatasetSensor sensor, SensorDataValues dataValues,
+            AbstractFeature procedure) {
         this.featureType = featureType;
         this.sensor = sensor;
         this.procedure = procedure;
-        // make the sensorDataValues unmodifiable, since some data summaries
-        // will be made below and we don't want the data changing
-        this.dataValues = Collections.unmodifiableMap(dataValues);
+        this.dataValues = dataValues;
 
         // set times, phenomena, and subsensors
-        Set<Time> timeSet = Sets.newHashSet();
-        Set<OmObservableProperty> obsPropSet = Sets.newHashSet();
+        Set<OmObservableProperty> obsPropSet = dataValues.getObservableProperties();
         Set<SubSensor> subSensorSet = Sets.newHashSet();
-        for (Entry<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>> dataValuesEntry : dataValues
-                .entrySet()) {
-            Time time = dataValuesEntry.getKey();
-            timeSet.add(time);
-            for (Map.Entry<OmObservableProperty, Map<SubSensor, Value<?>>> phenObsEntry : dataValuesEntry.getValue()
-                    .entrySet()) {
-                OmObservableProperty phen = phenObsEntry.getKey();
-                Set<SubSensor> phenSubSensors = phenObsEntry.getValue().keySet();
-                obsPropSet.add(phen);
-                for (SubSensor subSensor : phenSubSensors) {
-                    if (subSensor != null) {
-                        subSensorSet.add(subSensor);
-                    }
+        for (OmObservableProperty phen : obsPropSet) {
+            for (SubSensor subSensor : dataValues.getColumns(phen).keySet()) {
+                if (subSensor != null) {
+                    subSensorSet.add(subSensor);
                 }
             }
         }
 
-        List<Time> timeList = Lists.newArrayList(timeSet);
+        List<Time> timeList = Lists.newArrayList(dataValues.getTimes());
         Collections.sort(timeList);
         times = Collections.unmodifiableList(timeList);
 
@@ -142,7 +127,7 @@ public abstract class AbstractSensorDataset implements Comparable<AbstractSensor
         return times;
     }
 
-    public Map<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>> getDataValues() {
+    public SensorDataValues getDataValues() {
         return dataValues;
     }
 
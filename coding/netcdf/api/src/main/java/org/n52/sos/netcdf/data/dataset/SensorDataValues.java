@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.netcdf.data.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.om.OmObservableProperty;
+import org.n52.sos.netcdf.data.subsensor.SubSensor;
+
+/**
+ * Values of a sensor held in primitive columns per observed property and sub
+ * sensor. Each time is assigned a row when it is added first, so the values
+ * only need a <code>double</code> per row instead of a map entry and a value
+ * object.
+ *
+ * @since 5.0.3
+ */
+public class SensorDataValues {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<Time, Integer> rows = new HashMap<>();
+
+    private final List<Time> times = new ArrayList<>();
+
+    private final Map<OmObservableProperty, Map<SubSensor, Column>> columns = new HashMap<>();
+
+    /**
+     * Add a value, an existing value for the same time, observed property and
+     * sub sensor is replaced.
+     *
+     * @param time
+     *            the time
+     * @param observableProperty
+     *            the observed property
+     * @param subSensor
+     *            the sub sensor, may be <code>null</code>
+     * @param value
+     *            the value
+     */
+    public void add(Time time, OmObservableProperty observableProperty, SubSensor subSensor, double value) {
+        Integer row = rows.get(time);
+        if (row == null) {
+            row = times.size();
+            rows.put(time, row);
+            times.add(time);
+        }
+        columns.computeIfAbsent(observableProperty, k -> new HashMap<>())
+                .computeIfAbsent(subSensor, k -> new Column()).set(row, value);
+    }
+
+    /**
+     * @return the times in the order the rows were assigned
+     */
+    public List<Time> getTimes() {
+        return Collections.unmodifiableList(times);
+    }
+
+    /**
+     * @param time
+     *            the time
+     * @return the row of the time or <code>-1</code> if there are no values
+     *         for it
+     */
+    public int getRow(Time time) {
+        Integer row = rows.get(time);
+        return row == null ? -1 : row;
+    }
+
+    public Set<OmObservableProperty> getObservableProperties() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * @param observableProperty
+     *            the observed property
+     * @return the columns of the observed property by sub sensor, the sub
+     *         sensor may be <code>null</code>
+     */
+    public Map<SubSensor, Column> getColumns(OmObservableProperty observableProperty) {
+        Map<SubSensor, Column> map = columns.get(observableProperty);
+        return map == null ? Collections.emptyMap() : Collections.unmodifiableMap(map);
+    }
+
+    public boolean isEmpty() {
+        return times.isEmpty();
+    }
+
+    /**
+     * Growable column of <code>double</code> values indexed by row.
+     */
+    public static class Column {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        private final BitSet set = new BitSet();
+
+        void set(int row, double value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, row + 1));
+            }
+            values[row] = value;
+            set.set(row);
+        }
+
+        /**
+         * @param row
+         *            the row
+         * @return <code>true</code>, if the column has a value for the row
+         */
+        public boolean isSet(int row) {
+            return set.get(row);
+        }
+
+        public double get(int row) {
+            return values[row];
+        }
+    }
+}
@@ -28,13 +28,7 @@
  */
 package org.n52.sos.netcdf.data.dataset;
 
-import java.util.Map;
-
 import org.n52.shetland.ogc.gml.AbstractFeature;
-import org.n52.shetland.ogc.gml.time.Time;
-import org.n52.shetland.ogc.om.OmObservableProperty;
-import org.n52.shetland.ogc.om.values.Value;
-import org.n52.sos.netcdf.data.subsensor.SubSensor;
 
 import ucar.nc2.constants.CF;
 
@@ -53,7 +47,7 @@ public class TimeSeriesProfileSensorDataset extends AbstractSensorDataset implem
     private Double lat;
 
     public TimeSeriesProfileSensorDataset(DatasetSensor sensor, Double lng, Double lat,
-            Map<Time, Map<OmObservableProperty, Map<SubSensor, Value<?>>>> dataValues, AbstractFeature procedure) {
+            SensorDataValues dataValues, AbstractFeature procedure) {
         super(CF.FeatureType.timeSeriesProfile, sensor, dataValues, procedure);
         this.lng = lng;
         this.lat = lat;
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.netcdf.data.dataset;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.om.OmObservableProperty;
+import org.n52.sos.netcdf.data.dataset.SensorDataValues.Column;
+import org.n52.sos.netcdf.data.subsensor.PointProfileSubSensor;
+import org.n52.sos.netcdf.data.subsensor.SubSensor;
+
+public class SensorDataValuesTest {
+
+    private final OmObservableProperty temperature = new OmObservableProperty("temperature");
+
+    private final OmObservableProperty salinity = new OmObservableProperty("salinity");
+
+    private final Time first = new TimeInstant(new DateTime(2020, 1, 1, 0, 0, DateTimeZone.UTC));
+
+    private final Time second = new TimeInstant(new DateTime(2020, 1, 2, 0, 0, DateTimeZone.UTC));
+
+    @Test
+    public void should_share_rows_between_columns() {
+        SensorDataValues values = new SensorDataValues();
+        values.add(second, temperature, null, 2.0);
+        values.add(first, temperature, null, 1.0);
+        values.add(second, salinity, null, 35.0);
+
+        Assert.assertEquals(2, values.getTimes().size());
+        Assert.assertEquals(0, values.getRow(second));
+        Assert.assertEquals(1, values.getRow(first));
+
+        Column temperatureColumn = values.getColumns(temperature).get(null);
+        Assert.assertEquals(2.0, temperatureColumn.get(values.getRow(second)), 0.0);
+        Assert.assertEquals(1.0, temperatureColumn.get(values.getRow(first)), 0.0);
+
+        Column salinityColumn = values.getColumns(salinity).get(null);
+        Assert.assertTrue(salinityColumn.isSet(values.getRow(second)));
+        Assert.assertFalse(salinityColumn.isSet(values.getRow(first)));
+    }
+
+    @Test
+    public void should_keep_columns_per_sub_sensor() {
+        SubSensor top = new PointProfileSubSensor(0.0);
+        SubSensor bottom = new PointProfileSubSensor(-10.0);
+        SensorDataValues values = new SensorDataValues();
+        values.add(first, temperature, top, 20.0);
+        values.add(first, temperature, bottom, 4.0);
+
+        Assert.assertEquals(1, values.getTimes().size());
+        Assert.assertEquals(20.0, values.getColumns(temperature).get(top).get(0), 0.0);
+        Assert.assertEquals(4.0, values.getColumns(temperature).get(bottom).get(0), 0.0);
+    }
+
+    @Test
+    public void should_grow_columns() {
+        SensorDataValues values = new SensorDataValues();
+        for (int i = 0; i < 1000; i++) {
+            values.add(new TimeInstant(new DateTime(2020, 1, 1, 0, 0, DateTimeZone.UTC).plusMinutes(i)), temperature,
+                    null, i);
+        }
+        Column column = values.getColumns(temperature).get(null);
+        Assert.assertEquals(1000, values.getTimes().size());
+        Assert.assertEquals(999.0, column.get(999), 0.0);
+        Assert.assertTrue(column.isSet(999));
+        Assert.assertFalse(values.isEmpty());
+    }
+
+    @Test
+    public void should_return_no_row_for_unknown_time() {
+        SensorDataValues values = new SensorDataValues();
+        Assert.assertTrue(values.isEmpty());
+        Assert.assertEquals(-1, values.getRow(first));
+        Assert.assertTrue(values.getColumns(temperature).isEmpty());
+    }
+}
@@ -59,7 +59,6 @@ import org.n52.shetland.ogc.gml.time.TimeInstant;
 import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.om.OmObservableProperty;
-import org.n52.shetland.ogc.om.values.Value;
 import org.n52.shetland.ogc.ows.OwsAddress;
 import org.n52.shetland.ogc.ows.OwsContact;
 import org.n52.shetland.ogc.ows.OwsOnlineResource;
@@ -93,6 +92,8 @@ import org.n52.sos.netcdf.NetCDFUtil;
 import org.n52.sos.netcdf.NetcdfConstants;
 import org.n52.sos.netcdf.NetcdfHelper;
 import org.n52.sos.netcdf.data.dataset.AbstractSensorDataset;
+import org.n52.sos.netcdf.data.dataset.SensorDataValues;
+import org.n52.sos.netcdf.data.dataset.SensorDataValues.Column;
 import org.n52.sos.netcdf.data.dataset.StaticLocationDataset;
 import org.n52.sos.netcdf.data.subsensor.BinProfileSubSensor;
 import org.n52.sos.netcdf.data.subsensor.ProfileSubSensor;
@@ -321,6 +322,24 @@ public abstract class AbstractNetcdfEncoder
     protected abstract void addProfileSpecificGlobalAttributes(NetcdfFileWriter writer,
             AbstractSensorDataset sensorDataset) throws EncodingException;
 
+    /**
+     * Delete a temporary directory and the files in it, used if the encoding
+     * failed before the files were handed over to the response.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @return <code>true</code>, if the directory was deleted
+     */
+    protected boolean deleteTemporaryDirectory(File tempDir) {
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        return tempDir.delete();
+    }
+
     protected NetcdfFileWriter getNetcdfFileWriter(File netcdfFile) throws IOException {
         return getNetcdfFileWriter(netcdfFile, getNetcdfHelper().getNetcdfVersion());
     }
@@ -337,6 +356,15 @@ public abstract class AbstractNetcdfEncoder
                 getProcedureDescription(sensor, sensorDataset.getProcedureDescription()));
 
         NetcdfFileWriter writer = getNetcdfFileWriter(netcdfFile, version);
+        try {
+            encodeSensorDataToNetcdf(writer, sensorDataset);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void encodeSensorDataToNetcdf(NetcdfFileWriter writer, AbstractSensorDataset sensorDataset)
+            throws EncodingException, IOException {
         // set fill on, doesn't seem to have any effect though
         writer.setFill(true);
 
@@ -398,8 +426,6 @@ public abstract class AbstractNetcdfEncoder
         if (numTimes > 1 && writer.getVersion().isNetdf4format()) {
             vTime.addAttribute(new Attribute(CDM.CHUNK_SIZES, getNetcdfHelper().getChunkSizeTime()));
         }
-        ArrayDouble timeArray = new ArrayDouble(getDimShapes(timeDims));
-        initArrayWithFillValue(timeArray, getNetcdfHelper().getFillValue());
 
         Array latArray = getLatitudeArray(sensorDataset);
         Array lonArray = getLongitudeArray(sensorDataset);
@@ -447,16 +473,10 @@ public abstract class AbstractNetcdfEncoder
                                 vHeightDepth.getFullName()));
 
         Map<OmObservableProperty, Variable> obsPropVarMap = Maps.newHashMap();
-        Map<Variable, Array> varDataArrayMap = Maps.newHashMap();
         for (OmObservableProperty obsProp : sensorDataset.getPhenomena()) {
             // obs prop var
-            Variable vObsProp = addVariableForObservedProperty(writer, obsProp, obsPropDims, coordinateString);
-            obsPropVarMap.put(obsProp, vObsProp);
-
-            // init obs prop data array
-            Array obsPropArray = getArray(obsPropDims);
-            initArrayWithFillValue(obsPropArray, getNetcdfHelper().getFillValue());
-            varDataArrayMap.put(vObsProp, obsPropArray);
+            obsPropVarMap.put(obsProp, addVariableForObservedProperty(writer, obsProp, obsPropDims,
+                    coordinateString));
         }
 
         // populate heights array for profile
@@ -477,60 +497,7 @@ public abstract class AbstractNetcdfEncoder
 
         }
 
-        // iterate through sensorDataset, set values
-        int timeCounter = 0;
-        for (Time time : sensorDataset.getTimes()) {
-            // set time value
-            Index timeIndex = timeArray.getIndex();
-            int timeIndexCounter = 0;
-            // if (hasDimension(timeDims, dFeatureTypeInstance)) {
-            // timeIndex.setDim(timeIndexCounter++, 0);
-            // }
-            if (hasDimension(timeDims, dTime)) {
-                timeIndex.setDim(timeIndexCounter++, timeCounter++);
-            }
-            timeArray.set(timeIndex, getTimeValue(time));
-
-            // data values
-            Map<OmObservableProperty, Map<SubSensor, Value<?>>> obsPropMap = sensorDataset.getDataValues().get(time);
-            for (Entry<OmObservableProperty, Map<SubSensor, Value<?>>> entry : obsPropMap.entrySet()) {
-                OmObservableProperty obsProp = entry.getKey();
-                Variable variable = obsPropVarMap.get(obsProp);
-                Array array = varDataArrayMap.get(variable);
-                for (Entry<SubSensor, Value<?>> subSensorEntry : obsPropMap.get(obsProp).entrySet()) {
-                    SubSensor subSensor = subSensorEntry.getKey();
-                    Value<?> value = subSensorEntry.getValue();
-                    Object valObj = value.getValue();
-                    if (!(valObj instanceof Number)) {
-                        throw new EncodingException("Value class %s not supported",
-                                valObj.getClass().getCanonicalName());
-                    }
-                    Index index = array.getIndex();
-                    int obsPropDimCounter = 0;
-                    for (Dimension dim : obsPropDims) {
-                        // if (dim.equals(dFeatureTypeInstance)){
-                        // feature type instance index
-                        // index.setDim(obsPropDimCounter++, 0);
-                        // } else if (dim.equals(dTime)){
-                        if (dim.equals(dTime)) {
-                            // time index dim
-                            index.setDim(obsPropDimCounter++, timeCounter - 1);
-                        } else if (dim.equals(dZ) && dim.getLength() > 1) {
-                            // height/depth index dim
-                            index.setDim(obsPropDimCounter++, sensorDataset.getSubSensors().indexOf(subSensor));
-                        }
-                    }
-                    if (array instanceof ArrayFloat) {
-                        ((ArrayFloat) array).set(index, ((Number) valObj).floatValue());
-                    } else {
-                        ((ArrayDouble) array).set(index, ((Number) valObj).doubleValue());
-                    }
-                }
-            }
-        }
-
         // create the empty netCDF with dims/vars/attributes defined
-        variableArrayMap.put(vTime, timeArray);
         if (latArray != null) {
             variableArrayMap.put(vLat, latArray);
         }
@@ -540,10 +507,9 @@ public abstract class AbstractNetcdfEncoder
         if (heightDephtArray != null) {
             variableArrayMap.put(vHeightDepth, heightDephtArray);
         }
-        variableArrayMap.putAll(varDataArrayMap);
-        // create the empty netCDF with dims/vars/attributes defined
         writeToFile(writer, variableArrayMap);
-        writer.close();
+        // the time and data values are written in time slices
+        writeTimeSlices(writer, sensorDataset, vTime, obsPropVarMap, dZ);
     }
 
     protected void addGlobaleAttributes(NetcdfFileWriter writer, AbstractSensorDataset sensorDataset)
@@ -849,6 +815,54 @@ public abstract class AbstractNetcdfEncoder
         }
     }
 
+    /**
+     * Write the time and the observed property variables in slices of the
+     * time chunk size, so that only the arrays of one slice are allocated in
+     * addition to the columns of the dataset.
+     */
+    private void writeTimeSlices(NetcdfFileWriter writer, AbstractSensorDataset sensorDataset, Variable vTime,
+            Map<OmObservableProperty, Variable> obsPropVarMap, Dimension dZ) throws EncodingException, IOException {
+        List<Time> times = sensorDataset.getTimes();
+        SensorDataValues dataValues = sensorDataset.getDataValues();
+        int numHeightDepth = dZ.getLength();
+        int sliceSize = Math.max(getNetcdfHelper().getChunkSizeTime(), 1);
+        try {
+            for (int start = 0; start < times.size(); start += sliceSize) {
+                int length = Math.min(sliceSize, times.size() - start);
+                int[] rows = new int[length];
+                ArrayDouble.D1 timeArray = new ArrayDouble.D1(length);
+                for (int i = 0; i < length; i++) {
+                    Time time = times.get(start + i);
+                    rows[i] = dataValues.getRow(time);
+                    timeArray.set(i, getTimeValue(time));
+                }
+                writer.write(vTime, new int[] { start }, timeArray);
+
+                for (Entry<OmObservableProperty, Variable> entry : obsPropVarMap.entrySet()) {
+                    Array array = getArray(new int[] { length, numHeightDepth });
+                    initArrayWithFillValue(array, getNetcdfHelper().getFillValue());
+                    for (Entry<SubSensor, Column> column : dataValues.getColumns(entry.getKey()).entrySet()) {
+                        // height/depth index
+                        int z = numHeightDepth > 1 ? sensorDataset.getSubSensors().indexOf(column.getKey()) : 0;
+                        if (z < 0) {
+                            // values without subsensor have no place in a
+                            // profile
+                            continue;
+                        }
+                        for (int i = 0; i < length; i++) {
+                            if (column.getValue().isSet(rows[i])) {
+                                array.setDouble(i * numHeightDepth + z, column.getValue().get(rows[i]));
+                            }
+                        }
+                    }
+                    writer.write(entry.getValue(), new int[] { start, 0 }, array);
+                }
+            }
+        } catch (InvalidRangeException e) {
+            throw new EncodingException("Error writing netCDF variable data", e);
+        }
+    }
+
     private double getGeospatialVerticalMin(AbstractSensorDataset dataset) {
         if (dataset.isSetSubSensors()) {
             SubSensor subSensor = dataset.getSubSensors().get(dataset.getSubSensors().size() - 1);
@@ -46,6 +46,7 @@ import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.sos.response.BinaryAttachmentResponse;
 import org.n52.shetland.util.CollectionHelper;
+import org.n52.sos.coding.encode.FileAttachmentResponse;
 import org.n52.sos.netcdf.NetcdfConstants;
 import org.n52.sos.netcdf.data.dataset.AbstractSensorDataset;
 import org.n52.sos.netcdf.om.NetCDFObservation;
@@ -140,14 +141,20 @@ public class NetcdfEncoder extends AbstractBasicNetcdfEncoder {
         File tempDir = Files.createTempDir();
         String filename = getFilename(sensorDataset);
         File netcdfFile = new File(tempDir, filename);
+        boolean encoded = false;
         try {
             encodeSensorDataToNetcdf(netcdfFile, sensorDataset, version);
-            return new BinaryAttachmentResponse(Files.toByteArray(netcdfFile), getContentType(),
-                    String.format(filename, makeDateSafe(new DateTime(DateTimeZone.UTC))));
+            encoded = true;
+            // the file is streamed to the client and deleted by the response
+            // writer
+            return new FileAttachmentResponse(netcdfFile, getContentType(),
+                    String.format(filename, makeDateSafe(new DateTime(DateTimeZone.UTC))), tempDir);
         } catch (IOException e) {
             throw new EncodingException("Couldn't create netCDF file", e);
         } finally {
-            LOGGER.debug("Temporary file deleted: {}", tempDir.delete());
+            if (!encoded) {
+                LOGGER.debug("Temporary file deleted: {}", deleteTemporaryDirectory(tempDir));
+            }
         }
     }
 
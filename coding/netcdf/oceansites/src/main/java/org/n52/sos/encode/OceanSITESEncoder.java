@@ -45,6 +45,7 @@ import org.n52.shetland.ogc.sos.Sos1Constants;
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.sos.response.BinaryAttachmentResponse;
+import org.n52.sos.coding.encode.FileAttachmentResponse;
 import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.netcdf.data.dataset.AbstractSensorDataset;
 import org.n52.sos.netcdf.oceansites.OceanSITESConstants;
@@ -144,17 +145,18 @@ public class OceanSITESEncoder extends AbstractOceanSITESEncoder {
         File tempDir = Files.createTempDir();
         String filename = getFilename(sensorDataset);
         File netcdfFile = new File(tempDir, filename);
-        encodeSensorDataToNetcdf(netcdfFile, sensorDataset, version);
-
-        BinaryAttachmentResponse response = null;
+        boolean encoded = false;
         try {
-            response = new BinaryAttachmentResponse(Files.toByteArray(netcdfFile), getContentType(),
-                    String.format(filename, makeDateSafe(new DateTime(DateTimeZone.UTC))));
+            encodeSensorDataToNetcdf(netcdfFile, sensorDataset, version);
+            encoded = true;
         } finally {
-            LOGGER.debug("Temporary file deleted: {}", tempDir.delete());
+            if (!encoded) {
+                LOGGER.debug("Temporary file deleted: {}", deleteTemporaryDirectory(tempDir));
+            }
         }
-
-        return response;
+        // the file is streamed to the client and deleted by the response writer
+        return new FileAttachmentResponse(netcdfFile, getContentType(),
+                String.format(filename, makeDateSafe(new DateTime(DateTimeZone.UTC))), tempDir);
     }
 
     private void throwTooManyFeatureTypesOrSensorsException(List<NetCDFObservation> netCDFObsList,
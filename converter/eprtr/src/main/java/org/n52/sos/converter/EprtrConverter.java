@@ -81,6 +81,7 @@ import org.n52.shetland.ogc.swe.simpleType.SweText;
 import org.n52.shetland.ogc.swe.simpleType.SweTime;
 import org.n52.shetland.util.CollectionHelper;
 import org.n52.shetland.util.JavaHelper;
+import org.n52.sos.util.ObservationMerger;
 import org.n52.svalbard.decode.Decoder;
 import org.n52.svalbard.decode.DecoderKey;
 import org.n52.svalbard.decode.DecoderRepository;
@@ -198,31 +199,27 @@ public class EprtrConverter implements RequestResponseModifier {
 
     private List<OmObservation> mergeObservations(List<OmObservation> observations) throws OwsExceptionReport {
         if (CollectionHelper.isNotEmpty(observations)) {
-            final List<OmObservation> mergedObservations = new LinkedList<OmObservation>();
+            final ObservationMerger merger = new ObservationMerger(INDICATOR,
+                    (combinedSosObs, sosObservation) -> checkForMerge(combinedSosObs, sosObservation, INDICATOR));
             int obsIdCounter = 1;
             for (final OmObservation sosObservation : observations) {
                 if (checkForProcedure(sosObservation)) {
-                    if (mergedObservations.isEmpty()) {
+                    if (merger.isEmpty()) {
                         if (!sosObservation.isSetGmlID()) {
                             sosObservation.setObservationID(Integer.toString(obsIdCounter++));
                         }
-                        mergedObservations.add(convertObservation(sosObservation));
+                        merger.addMergedObservation(convertObservation(sosObservation));
                     } else {
-                        boolean combined = false;
-                        for (final OmObservation combinedSosObs : mergedObservations) {
-                            if (checkForMerge(combinedSosObs, sosObservation, INDICATOR)) {
-                                mergeValues(combinedSosObs, convertObservation(sosObservation));
-                                combined = true;
-                                break;
-                            }
-                        }
-                        if (!combined) {
-                            mergedObservations.add(convertObservation(sosObservation));
+                        OmObservation combinedSosObs = merger.getMergedObservation(sosObservation);
+                        if (combinedSosObs != null) {
+                            mergeValues(combinedSosObs, convertObservation(sosObservation));
+                        } else {
+                            merger.addMergedObservation(convertObservation(sosObservation));
                         }
                     }
                 }
             }
-            return mergedObservations;
+            return new LinkedList<>(merger.getMergedObservations());
         }
         return Lists.newArrayList(observations);
     }
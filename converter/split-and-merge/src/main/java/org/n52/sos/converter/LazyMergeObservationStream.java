@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.converter;
+
+import java.util.NoSuchElementException;
+
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.response.AbstractStreaming;
+
+/**
+ * {@link ObservationStream} that merges the values of the streamed
+ * observations on demand. An observation with an {@link AbstractStreaming}
+ * value is merged when its first merged observation is requested, the
+ * following observations of the response are not touched before. The
+ * streaming values of the Hibernate datasource return the merged
+ * observations group by group, as the values of a series arrive in time
+ * order, so only the observation of the current group is held in memory
+ * instead of the whole response.
+ *
+ * @since 5.0.3
+ */
+public class LazyMergeObservationStream implements ObservationStream {
+
+    private final ObservationStream observations;
+
+    private final ObservationMergeIndicator indicator;
+
+    private ObservationStream merged;
+
+    private OmObservation next;
+
+    /**
+     * constructor
+     *
+     * @param observations
+     *            the (merged) observations of the response
+     * @param indicator
+     *            the indicator to merge the streamed values
+     */
+    public LazyMergeObservationStream(ObservationStream observations, ObservationMergeIndicator indicator) {
+        this.observations = observations;
+        this.indicator = indicator;
+    }
+
+    @Override
+    public boolean hasNext() throws OwsExceptionReport {
+        while (next == null) {
+            if (merged != null && merged.hasNext()) {
+                next = merged.next();
+            } else if (observations.hasNext()) {
+                merged = null;
+                OmObservation observation = observations.next();
+                if (observation.getValue() instanceof AbstractStreaming) {
+                    merged = ((AbstractStreaming) observation.getValue()).merge(indicator);
+                } else {
+                    next = observation;
+                }
+            } else {
+                merged = null;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public OmObservation next() throws OwsExceptionReport {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        OmObservation observation = next;
+        next = null;
+        return observation;
+    }
+
+}
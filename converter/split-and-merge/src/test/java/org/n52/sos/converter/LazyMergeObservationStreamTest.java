@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.converter;
+
+import java.util.NoSuchElementException;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.Is;
+import org.junit.Test;
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.StreamingValue;
+import org.n52.shetland.ogc.om.TimeValuePair;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+import com.google.common.collect.Lists;
+
+public class LazyMergeObservationStreamTest {
+
+    @Test
+    public void shouldReturnNotStreamedObservationsInOrder() throws OwsExceptionReport {
+        OmObservation first = new OmObservation();
+        OmObservation second = new OmObservation();
+        ObservationStream stream = new LazyMergeObservationStream(
+                ObservationStream.of(Lists.newArrayList(first, second)),
+                ObservationMergeIndicator.sameObservationConstellation());
+
+        MatcherAssert.assertThat(stream.hasNext(), Is.is(true));
+        MatcherAssert.assertThat(stream.hasNext(), Is.is(true));
+        MatcherAssert.assertThat(stream.next(), Is.is(first));
+        MatcherAssert.assertThat(stream.next(), Is.is(second));
+        MatcherAssert.assertThat(stream.hasNext(), Is.is(false));
+    }
+
+    @Test
+    public void shouldMergeStreamedObservationsWhenRequested() throws OwsExceptionReport {
+        OmObservation first = new OmObservation();
+        OmObservation last = new OmObservation();
+        OmObservation firstGroup = new OmObservation();
+        OmObservation secondGroup = new OmObservation();
+        MergingStreamingValue value = new MergingStreamingValue(firstGroup, secondGroup);
+        OmObservation streamed = new OmObservation();
+        streamed.setValue(value);
+        ObservationStream stream = new LazyMergeObservationStream(
+                ObservationStream.of(Lists.newArrayList(first, streamed, last)),
+                ObservationMergeIndicator.sameObservationConstellation());
+
+        MatcherAssert.assertThat(stream.next(), Is.is(first));
+        MatcherAssert.assertThat(value.isMerged(), Is.is(false));
+        MatcherAssert.assertThat(stream.next(), Is.is(firstGroup));
+        MatcherAssert.assertThat(value.isMerged(), Is.is(true));
+        MatcherAssert.assertThat(stream.next(), Is.is(secondGroup));
+        MatcherAssert.assertThat(stream.next(), Is.is(last));
+        MatcherAssert.assertThat(stream.hasNext(), Is.is(false));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldThrowExceptionIfExhausted() throws OwsExceptionReport {
+        new LazyMergeObservationStream(ObservationStream.of(Lists.newArrayList()),
+                ObservationMergeIndicator.sameObservationConstellation()).next();
+    }
+
+    private static class MergingStreamingValue extends StreamingValue<OmObservation> {
+
+        private final OmObservation[] groups;
+
+        private boolean merged;
+
+        MergingStreamingValue(OmObservation... groups) {
+            this.groups = groups;
+        }
+
+        boolean isMerged() {
+            return merged;
+        }
+
+        @Override
+        public ObservationStream merge() throws OwsExceptionReport {
+            merged = true;
+            return ObservationStream.of(Lists.newArrayList(groups));
+        }
+
+        @Override
+        public ObservationStream merge(ObservationMergeIndicator indicator) throws OwsExceptionReport {
+            return merge();
+        }
+
+        @Override
+        public boolean hasNext() throws OwsExceptionReport {
+            return false;
+        }
+
+        @Override
+        public OmObservation nextEntity() throws OwsExceptionReport {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public TimeValuePair nextValue() throws OwsExceptionReport {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public OmObservation next() throws OwsExceptionReport {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        protected void queryTimes() {
+        }
+
+        @Override
+        protected void queryUnit() {
+        }
+
+    }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.n52.iceland.cache.ContentCacheController;
+import org.n52.iceland.event.events.RequestEvent;
+import org.n52.iceland.event.events.ResponseEvent;
+import org.n52.janmayen.event.EventBus;
+import org.n52.shetland.ogc.ows.OWSConstants;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.extension.Extension;
+import org.n52.shetland.ogc.ows.extension.Extensions;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
+import org.n52.shetland.ogc.swe.simpleType.SweText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Abstract cache for the responses of an operation. The responses are cached
+ * after the response modifiers are applied and are keyed on the parameters of
+ * the request (see {@link #createKey(OwsServiceRequest)}). A cached response
+ * is only used as long as the state of the content cache it depends on is
+ * unchanged (see {@link #getState(OwsServiceRequest, SosContentCacheController)}).
+ * Changed settings are reflected after {@link #EXPIRATION_MINUTES} at the
+ * latest.
+ * <p>
+ * The responses are mutable, so a copy of the response is cached and every
+ * request gets its own copy (see {@link #copy(OwsServiceResponse)}).
+ *
+ * @since 5.0.3
+ */
+public abstract class AbstractResponseCache {
+
+    /**
+     * Creates a response if it is not cached
+     */
+    @FunctionalInterface
+    public interface ResponseSupplier {
+        OwsServiceResponse get(OwsServiceRequest request) throws OwsExceptionReport;
+    }
+
+    protected static final long EXPIRATION_MINUTES = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractResponseCache.class);
+
+    private final Cache<List<String>, CachedResponse> responses;
+
+    private EventBus serviceEventBus;
+
+    private boolean enabled;
+
+    /**
+     * Constructor
+     *
+     * @param maximumWeight
+     *            the maximum sum of the weights of the cached responses (see
+     *            {@link #weigh(OwsServiceResponse)})
+     */
+    public AbstractResponseCache(long maximumWeight) {
+        this.responses = CacheBuilder.newBuilder().maximumWeight(maximumWeight)
+                .weigher((List<String> key, CachedResponse cached) -> weigh(cached.response))
+                .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES).build();
+    }
+
+    @Inject
+    public void setServiceEventBus(EventBus serviceEventBus) {
+        this.serviceEventBus = serviceEventBus;
+    }
+
+    protected void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        responses.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the cached response for the request or create it with the supplier
+     * and cache it.
+     *
+     * @param request
+     *            the request
+     * @param controller
+     *            the controller of the content cache
+     * @param supplier
+     *            creates the response if it is not cached
+     * @return the response
+     * @throws OwsExceptionReport
+     *             If an error occurs when the response is created
+     */
+    public OwsServiceResponse get(OwsServiceRequest request, ContentCacheController controller,
+            ResponseSupplier supplier) throws OwsExceptionReport {
+        List<String> key = isEnabled() && controller instanceof SosContentCacheController ? createKey(request) : null;
+        if (key == null) {
+            return supplier.get(request);
+        }
+        // the state is read before the response is created, so that a
+        // concurrent update invalidates the response
+        Object state = getState(request, (SosContentCacheController) controller);
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null && Objects.equals(cached.state, state)) {
+            LOGGER.debug("Returning cached {} response for {}", request.getOperationName(), key);
+            OwsServiceResponse response = copy(cached.response);
+            serviceEventBus.submit(new RequestEvent(request));
+            serviceEventBus.submit(new ResponseEvent(response));
+            return response;
+        }
+        OwsServiceResponse response = supplier.get(request);
+        responses.put(key, new CachedResponse(state, copy(response)));
+        return response;
+    }
+
+    /**
+     * Remove all cached responses
+     */
+    public void invalidate() {
+        responses.invalidateAll();
+    }
+
+    /**
+     * Create the key for the request
+     *
+     * @param request
+     *            the request
+     * @return the key or <code>null</code> if the response of the request
+     *         should not be cached
+     */
+    protected abstract List<String> createKey(OwsServiceRequest request);
+
+    /**
+     * Get the state of the content cache the response of the request depends
+     * on. A cached response is used as long as the current state is equal to
+     * the state at the time the response was created.
+     *
+     * @param request
+     *            the request
+     * @param controller
+     *            the controller of the content cache
+     * @return the state
+     */
+    protected abstract Object getState(OwsServiceRequest request, SosContentCacheController controller);
+
+    /**
+     * Copy the response, so that the cached response is not changed by the
+     * further processing of a request. Values that are not changed after the
+     * response modifiers are applied may be shared between the copies.
+     *
+     * @param response
+     *            the response
+     * @return the copy
+     */
+    protected abstract OwsServiceResponse copy(OwsServiceResponse response);
+
+    /**
+     * Get the weight of the response for the bound of the cache. The default
+     * weight is <code>1</code>, so that the bound is the number of cached
+     * responses.
+     *
+     * @param response
+     *            the cached response
+     * @return the weight
+     */
+    protected int weigh(OwsServiceResponse response) {
+        return 1;
+    }
+
+    /**
+     * Copy the content type and the extensions of the response.
+     *
+     * @param source
+     *            the response to copy from
+     * @param target
+     *            the response to copy to
+     * @param <T>
+     *            the response type
+     * @return the target
+     */
+    protected <T extends OwsServiceResponse> T copyCommonValues(OwsServiceResponse source, T target) {
+        target.setContentType(source.getContentType());
+        if (source.getExtensions() != null && source.getExtensions().getExtensions() != null) {
+            Extensions extensions = new Extensions();
+            source.getExtensions().getExtensions().forEach(extensions::addExtension);
+            target.setExtensions(extensions);
+        }
+        return target;
+    }
+
+    /**
+     * Add the values of the language and CRS extensions of the request to the
+     * key.
+     *
+     * @param request
+     *            the request
+     * @param key
+     *            the key
+     * @return <code>false</code> if the request contains other extensions and
+     *         should not be cached
+     */
+    protected boolean addExtensions(OwsServiceRequest request, List<String> key) {
+        if (request.getExtensions() != null && request.getExtensions().getExtensions() != null) {
+            for (Extension<?> extension : request.getExtensions().getExtensions()) {
+                // other extensions may change the response in unknown ways
+                if (!(isExtension(extension, OWSConstants.AdditionalRequestParams.crs)
+                        || isExtension(extension, OWSConstants.AdditionalRequestParams.language))
+                        || !(extension.getValue() instanceof SweText)) {
+                    return false;
+                }
+                key.add(extension.getIdentifier() + "=" + ((SweText) extension.getValue()).getValue());
+            }
+        }
+        return true;
+    }
+
+    private boolean isExtension(Extension<?> extension, OWSConstants.AdditionalRequestParams parameter) {
+        return parameter.name().equals(extension.getIdentifier())
+                || parameter.name().equals(extension.getDefinition());
+    }
+
+    private static final class CachedResponse {
+        private final Object state;
+        private final OwsServiceResponse response;
+
+        CachedResponse(Object state, OwsServiceResponse response) {
+            this.state = state;
+            this.response = response;
+        }
+    }
+
+}
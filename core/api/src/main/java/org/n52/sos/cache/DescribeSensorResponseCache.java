@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.janmayen.event.Event;
+import org.n52.janmayen.event.EventListener;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
+import org.n52.shetland.ogc.sos.SosProcedureDescription;
+import org.n52.shetland.ogc.sos.request.DescribeSensorRequest;
+import org.n52.shetland.ogc.sos.response.DescribeSensorResponse;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.ResultInsertion;
+import org.n52.sos.event.events.SensorDeletion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.event.events.SensorModification;
+import org.n52.sos.service.SosSettings;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Cache for DescribeSensor responses. The responses are cached after the
+ * response modifiers are applied and are keyed on the service, version,
+ * procedure, procedure description format, valid time, language and CRS of
+ * the request. A cached response is used until the procedure is inserted,
+ * updated (UpdateSensorDescription) or deleted, until observations or results
+ * of the procedure are inserted, or until the content cache is reloaded from
+ * the datasource (see {@link SosContentCacheController#getReloadGeneration()}).
+ * Other partial updates of the content cache (e.g. by InsertFeatureOfInterest
+ * or DeleteObservation) keep the cached responses, so that their enrichments
+ * of the sensor description are reflected after {@link #EXPIRATION_MINUTES}
+ * at the latest.
+ * <p>
+ * The cache is bounded by the estimated size of the sensor descriptions (the
+ * length of their XML documents) instead of the number of responses. The
+ * copies of a cached response share the sensor descriptions, which are not
+ * changed after the response modifiers are applied.
+ *
+ * @since 5.0.3
+ */
+@Configurable
+public class DescribeSensorResponseCache extends AbstractResponseCache implements EventListener {
+
+    /**
+     * The maximum number of characters of the cached sensor descriptions
+     */
+    private static final long MAXIMUM_WEIGHT = 16 * 1024 * 1024;
+
+    /**
+     * The estimated number of characters of a sensor description without XML
+     * document
+     */
+    private static final int DEFAULT_WEIGHT = 4 * 1024;
+
+    private static final Set<Class<? extends Event>> TYPES =
+            ImmutableSet.of(SensorInsertion.class, SensorModification.class, SensorDeletion.class,
+                    ObservationInsertion.class, ResultInsertion.class);
+
+    private final AtomicLong modifications = new AtomicLong(0);
+
+    private final ConcurrentMap<String, Long> procedureModifications = new ConcurrentHashMap<>();
+
+    public DescribeSensorResponseCache() {
+        super(MAXIMUM_WEIGHT);
+    }
+
+    @Override
+    @Setting(SosSettings.DESCRIBE_SENSOR_RESPONSE_CACHE)
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+    }
+
+    @Override
+    protected List<String> createKey(OwsServiceRequest request) {
+        if (!(request instanceof DescribeSensorRequest)) {
+            return null;
+        }
+        DescribeSensorRequest dsr = (DescribeSensorRequest) request;
+        List<String> key = new ArrayList<>();
+        key.add(dsr.getService());
+        key.add(dsr.getVersion());
+        key.add(dsr.getProcedure());
+        key.add(dsr.getProcedureDescriptionFormat());
+        if (dsr.getValidTime() != null) {
+            String validTime = getKey(dsr.getValidTime());
+            if (validTime == null) {
+                return null;
+            }
+            key.add(validTime);
+        }
+        key.add(dsr.getRequestedLanguage());
+        return addExtensions(request, key) ? key : null;
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(Event event) {
+        if (event instanceof SensorInsertion) {
+            modified(((SensorInsertion) event).getResponse().getAssignedProcedure());
+        } else if (event instanceof SensorModification) {
+            modified(((SensorModification) event).getRequest().getProcedureIdentifier());
+        } else if (event instanceof SensorDeletion) {
+            modified(((SensorDeletion) event).getRequest().getProcedureIdentifier());
+        } else if (event instanceof ObservationInsertion) {
+            modified(((ObservationInsertion) event).getRequest().getObservations());
+        } else if (event instanceof ResultInsertion) {
+            modified(((ResultInsertion) event).getResponse().getObservations());
+        }
+    }
+
+    private void modified(List<OmObservation> observations) {
+        if (observations != null) {
+            Set<String> procedures = new HashSet<>();
+            for (OmObservation observation : observations) {
+                if (observation.getObservationConstellation() != null
+                        && observation.getObservationConstellation().getProcedure() != null) {
+                    procedures.add(observation.getObservationConstellation().getProcedure().getIdentifier());
+                }
+            }
+            procedures.forEach(this::modified);
+        }
+    }
+
+    private void modified(String procedure) {
+        if (procedure != null) {
+            procedureModifications.put(procedure, modifications.incrementAndGet());
+        }
+    }
+
+    @Override
+    protected Object getState(OwsServiceRequest request, SosContentCacheController controller) {
+        String procedure = ((DescribeSensorRequest) request).getProcedure();
+        Long modification = procedure == null ? null : procedureModifications.get(procedure);
+        return Arrays.asList(controller.getReloadGeneration(), modification);
+    }
+
+    @Override
+    protected int weigh(OwsServiceResponse response) {
+        int weight = 0;
+        if (response instanceof DescribeSensorResponse
+                && ((DescribeSensorResponse) response).isSetProcedureDescriptions()) {
+            for (SosProcedureDescription<?> description : ((DescribeSensorResponse) response)
+                    .getProcedureDescriptions()) {
+                weight += weigh(description);
+            }
+        }
+        return Math.max(weight, DEFAULT_WEIGHT);
+    }
+
+    private int weigh(SosProcedureDescription<?> description) {
+        if (description.isSetXml()) {
+            return description.getXml().length();
+        } else if (description.getProcedureDescription() != null
+                && description.getProcedureDescription().isSetXml()) {
+            return description.getProcedureDescription().getXml().length();
+        }
+        return DEFAULT_WEIGHT;
+    }
+
+    @Override
+    protected OwsServiceResponse copy(OwsServiceResponse response) {
+        if (!(response instanceof DescribeSensorResponse)) {
+            return response;
+        }
+        DescribeSensorResponse source = (DescribeSensorResponse) response;
+        DescribeSensorResponse copy = new DescribeSensorResponse();
+        copy.setService(source.getService());
+        copy.setVersion(source.getVersion());
+        copy.setOutputFormat(source.getOutputFormat());
+        if (source.isSetProcedureDescriptions()) {
+            copy.setSensorDescriptions(new ArrayList<>(source.getProcedureDescriptions()));
+        }
+        return copyCommonValues(source, copy);
+    }
+
+    private String getKey(Time time) {
+        if (time instanceof TimeInstant && ((TimeInstant) time).getValue() != null) {
+            return ((TimeInstant) time).getValue().toString();
+        } else if (time instanceof TimePeriod) {
+            TimePeriod period = (TimePeriod) time;
+            if (period.getStart() != null && period.getEnd() != null) {
+                return period.getStart().toString() + "/" + period.getEnd().toString();
+            }
+        }
+        // indeterminate times are not cached
+        return null;
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.iceland.cache.ContentCache;
+import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
+import org.n52.shetland.ogc.ows.service.GetCapabilitiesResponse;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
+import org.n52.sos.service.SosSettings;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Cache for GetCapabilities responses. The responses are cached after the
+ * response modifiers are applied and are keyed on the parameters of the
+ * request (service, version, accepted versions, sections, accepted formats,
+ * capabilities id, language and CRS). A cached response is only used as long
+ * as the values of the content cache that are shown in the capabilities
+ * (e.g. the offerings with their procedures, observable properties, features,
+ * types, times and envelopes) are unchanged, so that partial updates that do
+ * not change the capabilities (e.g. observations within the known time and
+ * area) keep the cached responses. Changed settings are reflected after
+ * {@link #EXPIRATION_MINUTES} at the latest.
+ * <p>
+ * The copies of a cached response share the capabilities, which are not
+ * changed after the response modifiers are applied.
+ *
+ * @since 5.0.3
+ */
+@Configurable
+public class GetCapabilitiesResponseCache extends AbstractResponseCache {
+
+    private static final long MAXIMUM_SIZE = 64;
+
+    private volatile ContentState contentState;
+
+    public GetCapabilitiesResponseCache() {
+        super(MAXIMUM_SIZE);
+    }
+
+    @Override
+    @Setting(SosSettings.CAPABILITIES_RESPONSE_CACHE)
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+    }
+
+    @Override
+    protected List<String> createKey(OwsServiceRequest request) {
+        if (!(request instanceof GetCapabilitiesRequest)) {
+            return null;
+        }
+        GetCapabilitiesRequest gcr = (GetCapabilitiesRequest) request;
+        List<String> key = new ArrayList<>();
+        key.add(gcr.getService());
+        key.add(gcr.getVersion());
+        key.add(String.valueOf(gcr.getAcceptVersions()));
+        key.add(String.valueOf(gcr.getSections()));
+        key.add(String.valueOf(gcr.getAcceptFormats()));
+        key.add(gcr.getCapabilitiesId());
+        key.add(gcr.getRequestedLanguage());
+        return addExtensions(request, key) ? key : null;
+    }
+
+    @Override
+    protected Object getState(OwsServiceRequest request, SosContentCacheController controller) {
+        long generation = controller.getUpdateGeneration();
+        ContentState state = this.contentState;
+        if (state == null || state.generation != generation) {
+            ContentCache cache = controller.getCache();
+            if (!(cache instanceof SosContentCache)) {
+                return generation;
+            }
+            state = new ContentState(generation, createContentState((SosContentCache) cache));
+            this.contentState = state;
+        }
+        return state.content;
+    }
+
+    @Override
+    protected OwsServiceResponse copy(OwsServiceResponse response) {
+        if (!(response instanceof GetCapabilitiesResponse)) {
+            return response;
+        }
+        GetCapabilitiesResponse source = (GetCapabilitiesResponse) response;
+        GetCapabilitiesResponse copy = new GetCapabilitiesResponse(source.getService(), source.getVersion());
+        if (source.isStatic()) {
+            copy.setXmlString(source.getXmlString());
+        } else {
+            copy.setCapabilities(source.getCapabilities());
+        }
+        return copyCommonValues(source, copy);
+    }
+
+    private Map<String, List<Object>> createContentState(SosContentCache cache) {
+        Map<String, List<Object>> state = new HashMap<>();
+        state.put(null, Arrays.asList(immutable(cache.getOfferings()), immutable(cache.getPublishedOfferings()),
+                immutable(cache.getProcedures()), immutable(cache.getPublishedProcedures()),
+                immutable(cache.getObservableProperties()), immutable(cache.getPublishedObservableProperties()),
+                immutable(cache.getFeaturesOfInterest()), immutable(cache.getPublishedFeatureOfInterest()),
+                immutable(cache.getResultTemplates()), immutable(cache.getSupportedLanguages()),
+                cache.getMinPhenomenonTime(), cache.getMaxPhenomenonTime(), cache.getMinResultTime(),
+                cache.getMaxResultTime(), cache.getGlobalEnvelope()));
+        for (String offering : cache.getOfferings()) {
+            state.put(offering, Arrays.asList(immutable(cache.getProceduresForOffering(offering)),
+                    immutable(cache.getHiddenChildProceduresForOffering(offering)),
+                    immutable(cache.getObservablePropertiesForOffering(offering)),
+                    immutable(cache.getCompositePhenomenonsForOffering(offering)),
+                    immutable(cache.getFeaturesOfInterestForOffering(offering)),
+                    immutable(cache.getRelatedFeaturesForOffering(offering)),
+                    immutable(cache.getObservationTypesForOffering(offering)),
+                    immutable(cache.getAllowedObservationTypesForOffering(offering)),
+                    immutable(cache.getFeatureOfInterestTypesForOffering(offering)),
+                    immutable(cache.getAllowedFeatureOfInterestTypesForOffering(offering)),
+                    immutable(cache.getResultTemplatesForOffering(offering)),
+                    cache.getNameForOffering(offering), cache.getMinPhenomenonTimeForOffering(offering),
+                    cache.getMaxPhenomenonTimeForOffering(offering), cache.getMinResultTimeForOffering(offering),
+                    cache.getMaxResultTimeForOffering(offering), cache.getEnvelopeForOffering(offering),
+                    cache.getSpatialFilteringProfileEnvelopeForOffering(offering)));
+        }
+        return state;
+    }
+
+    private static Object immutable(Collection<?> values) {
+        // the cache returns views of its sets
+        return values == null ? null : ImmutableSet.copyOf(values);
+    }
+
+    private static final class ContentState {
+        private final long generation;
+        private final Map<String, List<Object>> content;
+
+        ContentState(long generation, Map<String, List<Object>> content) {
+            this.generation = generation;
+            this.content = content;
+        }
+    }
+
+}
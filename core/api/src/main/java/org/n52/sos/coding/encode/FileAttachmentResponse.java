@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding.encode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.n52.janmayen.http.MediaType;
+import org.n52.shetland.ogc.sos.response.BinaryAttachmentResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BinaryAttachmentResponse} whose content is backed by temporary files.
+ * The content is copied (or zipped) directly to the output stream by the
+ * {@link FileAttachmentResponseWriter} instead of being held in memory. The
+ * temporary files are deleted by the writer after the response was written,
+ * or after {@link #getBytes()} read them. Encoders delete the files themselves
+ * if the encoding fails before the response is created.
+ *
+ * @since 5.0.3
+ */
+public class FileAttachmentResponse extends BinaryAttachmentResponse {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileAttachmentResponse.class);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final List<File> files;
+
+    private final boolean zip;
+
+    private final File directory;
+
+    private boolean deleted;
+
+    private byte[] bytes;
+
+    /**
+     * Create a response for a single file.
+     *
+     * @param file
+     *            the file to write
+     * @param contentType
+     *            the content type
+     * @param filename
+     *            the attachment file name
+     * @param directory
+     *            the temporary directory to delete after writing, may be
+     *            <code>null</code>
+     */
+    public FileAttachmentResponse(File file, MediaType contentType, String filename, File directory) {
+        this(Collections.singletonList(file), false, contentType, filename, directory);
+    }
+
+    /**
+     * Create a response that writes the files as ZIP archive.
+     *
+     * @param files
+     *            the files to add to the archive
+     * @param contentType
+     *            the content type
+     * @param filename
+     *            the attachment file name
+     * @param directory
+     *            the temporary directory to delete after writing, may be
+     *            <code>null</code>
+     */
+    public FileAttachmentResponse(List<File> files, MediaType contentType, String filename, File directory) {
+        this(files, true, contentType, filename, directory);
+    }
+
+    private FileAttachmentResponse(List<File> files, boolean zip, MediaType contentType, String filename,
+            File directory) {
+        super(EMPTY, contentType, filename);
+        this.files = files;
+        this.zip = zip;
+        this.directory = directory;
+    }
+
+    public List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public boolean isZip() {
+        return zip;
+    }
+
+    /**
+     * @return the length of the content or <code>-1</code> if it is not known
+     *         before writing
+     */
+    public long getContentLength() {
+        if (zip) {
+            return -1;
+        }
+        return files.get(0).length();
+    }
+
+    /**
+     * Write the content to the stream. The stream is not closed.
+     *
+     * @param out
+     *            the stream to write to
+     * @throws IOException
+     *             if the files can not be read or the stream not be written
+     */
+    public void write(OutputStream out) throws IOException {
+        if (!zip) {
+            Files.copy(files.get(0).toPath(), out);
+            return;
+        }
+        ZipOutputStream zipOut = new ZipOutputStream(out);
+        for (File file : files) {
+            zipOut.putNextEntry(new ZipEntry(file.getName()));
+            Files.copy(file.toPath(), zipOut);
+            zipOut.closeEntry();
+        }
+        zipOut.finish();
+    }
+
+    /**
+     * Reads the whole content into memory and deletes the files. Only used by
+     * consumers that do not know this type, the
+     * {@link FileAttachmentResponseWriter} streams it.
+     */
+    @Override
+    public synchronized byte[] getBytes() {
+        if (bytes == null) {
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                write(out);
+                bytes = out.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error while reading the attachment files", e);
+            } finally {
+                delete();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Delete the files and the temporary directory. Further calls have no
+     * effect.
+     */
+    public synchronized void delete() {
+        if (deleted) {
+            return;
+        }
+        deleted = true;
+        for (File file : files) {
+            delete(file);
+        }
+        if (directory != null) {
+            File[] remaining = directory.listFiles();
+            if (remaining != null) {
+                for (File file : remaining) {
+                    delete(file);
+                }
+            }
+            delete(directory);
+        }
+    }
+
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOGGER.warn("Temporary file {} could not be deleted", file, e);
+        }
+    }
+}
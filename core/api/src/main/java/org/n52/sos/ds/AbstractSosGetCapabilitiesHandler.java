@@ -40,8 +40,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -75,6 +78,7 @@ import org.n52.shetland.ogc.filter.FilterConstants.ConformanceClassConstraintNam
 import org.n52.shetland.ogc.filter.FilterConstants.SpatialOperator;
 import org.n52.shetland.ogc.filter.FilterConstants.TimeOperator;
 import org.n52.shetland.ogc.gml.GmlConstants;
+import org.n52.shetland.ogc.gml.ReferenceType;
 import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.shetland.ogc.ows.OWSConstants;
 import org.n52.shetland.ogc.ows.OWSConstants.GetCapabilitiesParams;
@@ -91,6 +95,7 @@ import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
 import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.ows.exception.VersionNegotiationFailedException;
+import org.n52.shetland.ogc.ows.extension.CapabilitiesExtension;
 import org.n52.shetland.ogc.ows.extension.MergableExtension;
 import org.n52.shetland.ogc.ows.extension.StringBasedCapabilitiesExtension;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
@@ -100,13 +105,19 @@ import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.SosCapabilities;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.sos.SosObservationOffering;
+import org.n52.shetland.ogc.sos.SosOffering;
+import org.n52.shetland.ogc.sos.extension.SosObservationOfferingExtension;
+import org.n52.shetland.ogc.sos.ro.RelatedOfferingConstants;
+import org.n52.shetland.ogc.sos.ro.RelatedOfferings;
 import org.n52.shetland.util.CollectionHelper;
 import org.n52.shetland.util.ReferencedEnvelope;
+import org.n52.sos.cache.SosContentCache;
 import org.n52.sos.coding.encode.ProcedureDescriptionFormatRepository;
 import org.n52.sos.coding.encode.ResponseFormatRepository;
 import org.n52.sos.config.CapabilitiesExtensionService;
 import org.n52.sos.ogc.sos.SosObservationOfferingExtensionRepository;
 import org.n52.sos.util.GeometryHandler;
+import org.n52.sos.util.I18NHelper;
 import org.n52.svalbard.ConformanceClass;
 import org.n52.svalbard.ConformanceClasses;
 import org.n52.svalbard.decode.DecoderRepository;
@@ -114,6 +125,7 @@ import org.n52.svalbard.encode.EncoderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
@@ -121,7 +133,7 @@ import com.google.common.collect.Sets;
  *
  * @since 4.0.0
  */
-public abstract class AbstractSosGetCapabilitiesHandler extends AbstractGetCapabilitiesHandler {
+public abstract class AbstractSosGetCapabilitiesHandler extends AbstractGetCapabilitiesHandler implements I18NHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSosGetCapabilitiesHandler.class);
 
@@ -275,6 +287,198 @@ public abstract class AbstractSosGetCapabilitiesHandler extends AbstractGetCapab
     protected abstract List<SosObservationOffering> getContentsForSosV2(
             SectionSpecificContentObject sectionSpecificContentObject) throws OwsExceptionReport;
 
+    /**
+     * Get the contents for SOS 2.0 capabilities only from the
+     * {@link org.n52.sos.cache.SosContentCache}. The offerings are independent
+     * of each other and are therefore build in parallel on the common fork-join
+     * pool, the order of the returned offerings is the order of the cache.
+     *
+     * @param sectionSpecificContentObject
+     *            metadata holder to get contents
+     *
+     * @return Offerings for contents
+     *
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    protected List<SosObservationOffering> getCacheBasedContentsForSosV2(
+            SectionSpecificContentObject sectionSpecificContentObject) throws OwsExceptionReport {
+        String version = Sos2Constants.SERVICEVERSION;
+        Collection<String> offerings = getCache().getOfferings();
+        if (CollectionHelper.isEmpty(offerings)) {
+            // Set empty offering to add empty Contents section to Capabilities
+            return Lists.newArrayList(new SosObservationOffering());
+        }
+        GetCapabilitiesRequest request = sectionSpecificContentObject.getGetCapabilitiesRequest();
+        Map<String, List<SosObservationOfferingExtension>> extensions =
+                getCapabilitiesExtensionService().getActiveOfferingExtensions();
+        try {
+            if (checkListOnlyParentOfferings()) {
+                Map<String, Set<String>> parentChilds = offerings.stream()
+                        .filter(offering -> !getCache().hasParentOfferings(offering))
+                        .collect(Collectors.toMap(Function.identity(),
+                                offering -> getCache().getChildOfferings(offering, true, false)));
+                return new ArrayList<>(parentChilds.entrySet()).parallelStream()
+                        .map(entry -> createCacheBasedParentOffering(entry, version, request, extensions))
+                        .filter(Objects::nonNull).collect(Collectors.toList());
+            }
+            return new ArrayList<>(offerings).parallelStream()
+                    .map(offering -> createCacheBasedOfferings(offering, version, request, extensions))
+                    .flatMap(List::stream).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof OwsExceptionReport) {
+                throw (OwsExceptionReport) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private List<SosObservationOffering> createCacheBasedOfferings(String offering, String version,
+            GetCapabilitiesRequest request, Map<String, List<SosObservationOfferingExtension>> extensions) {
+        try {
+            Collection<String> observationTypes = getObservationTypes(offering);
+            if (observationTypes == null || observationTypes.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Collection<String> procedures = getProceduresForOffering(offering, version);
+            List<SosObservationOffering> sosOfferings = new ArrayList<>(procedures.size());
+            // FIXME why a loop? We are in SOS 2.0 context -> offering 1 <-> 1
+            // procedure!
+            for (String procedure : procedures) {
+                SosObservationOffering sosObservationOffering = new SosObservationOffering();
+
+                // insert observationTypes
+                sosObservationOffering.setObservationTypes(observationTypes);
+                sosObservationOffering.setObservedArea(getObservedArea(offering));
+                sosObservationOffering.setProcedures(Collections.singletonList(procedure));
+
+                // TODO: add intended application
+                // add offering to observation offering
+                addSosOfferingToObservationOffering(offering, sosObservationOffering, request);
+                addOfferingExtensions(offering, sosObservationOffering, request, extensions);
+
+                setUpPhenomenaForOffering(offering, procedure, sosObservationOffering);
+                setUpTimeForOffering(offering, sosObservationOffering);
+                setUpRelatedFeaturesForOffering(offering, version, sosObservationOffering);
+                setUpFeatureOfInterestTypesForOffering(offering, sosObservationOffering);
+                setUpProcedureDescriptionFormatForOffering(sosObservationOffering, version);
+                setUpResponseFormatForOffering(sosObservationOffering, version);
+
+                sosOfferings.add(sosObservationOffering);
+            }
+            return sosOfferings;
+        } catch (OwsExceptionReport e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private SosObservationOffering createCacheBasedParentOffering(Entry<String, Set<String>> entry, String version,
+            GetCapabilitiesRequest request, Map<String, List<SosObservationOfferingExtension>> extensions) {
+        try {
+            Collection<String> observationTypes = getObservationTypes(entry.getValue());
+            if (CollectionHelper.isEmpty(observationTypes)) {
+                return null;
+            }
+            Collection<String> procedures = getProceduresForOffering(entry, version);
+            if (CollectionHelper.isEmpty(procedures)) {
+                return null;
+            }
+            Set<String> allOfferings = new HashSet<>(entry.getValue().size() + 1);
+            allOfferings.addAll(entry.getValue());
+            allOfferings.add(entry.getKey());
+            SosObservationOffering sosObservationOffering = new SosObservationOffering();
+            sosObservationOffering.setObservationTypes(observationTypes);
+            sosObservationOffering.setObservedArea(getObservedArea(entry.getValue()));
+            sosObservationOffering.setProcedures(procedures);
+
+            // TODO: add intended application
+            // add offering to observation offering
+            addSosOfferingToObservationOffering(entry.getKey(), sosObservationOffering, request);
+            addOfferingExtensions(entry.getKey(), sosObservationOffering, request, extensions);
+
+            // add sub-level offerings
+            if (!entry.getValue().isEmpty()) {
+                RelatedOfferings relatedOfferings = new RelatedOfferings();
+                String gdaURL = getGetDataAvailabilityUrl();
+                gdaURL = addParameter(gdaURL, "responseFormat", "http://www.opengis.net/sosgda/2.0");
+                for (String offering : entry.getValue()) {
+                    relatedOfferings.addValue(new ReferenceType(RelatedOfferingConstants.ROLE),
+                            new ReferenceType(addParameter(gdaURL, "offering", offering), offering));
+                }
+                sosObservationOffering.addExtension(relatedOfferings);
+            }
+
+            setUpPhenomenaForOffering(allOfferings, procedures.iterator().next(), sosObservationOffering);
+            setUpTimeForOffering(allOfferings, sosObservationOffering);
+            setUpRelatedFeaturesForOffering(allOfferings, version, sosObservationOffering);
+            setUpFeatureOfInterestTypesForOffering(allOfferings, sosObservationOffering);
+            setUpProcedureDescriptionFormatForOffering(sosObservationOffering, version);
+            setUpResponseFormatForOffering(sosObservationOffering, version);
+            return sosObservationOffering;
+        } catch (OwsExceptionReport e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private void addOfferingExtensions(String offering, SosObservationOffering sosObservationOffering,
+            GetCapabilitiesRequest request, Map<String, List<SosObservationOfferingExtension>> extensions) {
+        if (getOfferingExtensionRepository().hasOfferingExtensionProviderFor(request)) {
+            getOfferingExtensionRepository().getOfferingExtensionProvider(request).stream()
+                    .filter(Objects::nonNull)
+                    .filter(provider -> provider.hasExtendedOfferingFor(offering))
+                    .map(provider -> provider.getOfferingExtensions(offering))
+                    .forEach(sosObservationOffering::addExtensions);
+        }
+        if (extensions.containsKey(sosObservationOffering.getOffering().getIdentifier())) {
+            extensions.get(sosObservationOffering.getOffering().getIdentifier()).stream()
+                    .map(CapabilitiesExtension::new).forEach(sosObservationOffering::addExtension);
+        }
+    }
+
+    protected void addSosOfferingToObservationOffering(String offering, SosObservationOffering sosObservationOffering,
+            GetCapabilitiesRequest request) throws OwsExceptionReport {
+        SosOffering sosOffering = new SosOffering(offering, false);
+        sosObservationOffering.setOffering(sosOffering);
+        SosContentCache cache = getCache();
+        Locale requestedLocale = getRequestedLocale(request);
+        Locale defaultLocale = getDefaultLanguage();
+        // add offering name
+        addOfferingNames(cache, sosOffering, requestedLocale, defaultLocale, isShowAllLanguages());
+        // add offering description
+        addOfferingDescription(sosOffering, requestedLocale, defaultLocale, cache);
+    }
+
+    private Collection<String> getProceduresForOffering(Entry<String, Set<String>> entry, String version)
+            throws OwsExceptionReport {
+        Collection<String> procedures = new HashSet<>();
+        for (String offering : entry.getValue()) {
+            procedures.addAll(getProceduresForOffering(offering, version));
+        }
+        procedures.addAll(getProceduresForOffering(entry.getKey(), version));
+        return procedures;
+    }
+
+    protected Collection<String> getObservationTypes(Set<String> offerings) {
+        Set<String> observationTypes = offerings.stream().map(getCache()::getObservationTypesForOffering)
+                .flatMap(Set::stream).filter(Predicate.isEqual(SosConstants.NOT_DEFINED).negate())
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        if (!observationTypes.isEmpty()) {
+            return observationTypes;
+        }
+        return offerings.stream().map(getCache()::getAllObservationTypesForOffering).flatMap(Set::stream)
+                .filter(Predicate.isEqual(SosConstants.NOT_DEFINED).negate())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private ReferencedEnvelope getObservedArea(Set<String> offerings) throws OwsExceptionReport {
+        ReferencedEnvelope envelope = new ReferencedEnvelope();
+        for (String offering : offerings) {
+            envelope.expandToInclude(getObservedArea(offering));
+        }
+        return envelope;
+    }
+
     private int identifyRequestedSections(GetCapabilitiesRequest request, GetCapabilitiesResponse response,
             Set<String> availableExtensionSections, Set<String> requestedExtensionSections) throws OwsExceptionReport {
 
@@ -63,4 +63,21 @@ public interface CacheFeederHandler {
      */
     void updateCache(SosWritableContentCache cache)
             throws OwsExceptionReport;
+
+    /**
+     * Merges the offerings that were added or modified in the data source
+     * since the last cache update into the existing cache.
+     *
+     * @param cache the cache to update
+     *
+     * @return {@code false} if the changes can not be merged incrementally
+     *         (e.g. because offerings were deleted) and a complete update is
+     *         required
+     *
+     * @throws OwsExceptionReport if an occurs during the cache update
+     */
+    default boolean updateCacheIncrementally(SosWritableContentCache cache)
+            throws OwsExceptionReport {
+        return false;
+    }
 }
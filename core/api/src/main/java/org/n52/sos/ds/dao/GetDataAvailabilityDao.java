@@ -28,6 +28,7 @@
  */
 package org.n52.sos.ds.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +51,23 @@ public interface GetDataAvailabilityDao extends DefaultDao {
     List<TimeInstant> getResultTimes(DataAvailability dataAvailability, GetDataAvailabilityRequest request,
             Object connection) throws OwsExceptionReport;
 
+    /**
+     * Query the distinct result times of several datasets at once.
+     *
+     * @param datasets
+     *            the ids of the datasets
+     * @param request
+     *            the GetDataAvailability request
+     * @param connection
+     *            the connection to use
+     * @return the ordered result times mapped by dataset id, datasets without
+     *         result times are not contained
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    Map<Long, List<TimeInstant>> getResultTimes(Collection<Long> datasets, GetDataAvailabilityRequest request,
+            Object connection) throws OwsExceptionReport;
+
     Map<String, NamedValue<?>> getMetadata(DataAvailability dataAvailability) throws OwsExceptionReport;
 
     Map<String, NamedValue<?>> getMetadata(DataAvailability dataAvailability, Object connection)
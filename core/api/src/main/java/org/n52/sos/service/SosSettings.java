@@ -38,9 +38,20 @@ public interface SosSettings {
     String LIST_ONLY_PARENT_OFFERINGS = "service.capabilities.listOnlyParentOfferings";
     String UPDATE_FEATURE_GEOMETRY = "service.updateFeatureGeometry";
     String CACHE_FILE_FOLDER = "service.cacheFileFolder";
+    String CACHE_WRITE_BEHIND_DELAY = "service.cacheWriteBehindDelay";
     String CREATE_FOI_GEOM_FROM_SAMPLING_GEOMS = "service.createFeatureGeometryFromSamplingGeometries";
     String ALLOW_TEMPLATE_WITHOUT_PROCEDURE_FEATURE = "service.allowTemplateWithoutProcedureAndFeature";
     String INCLUDE_RESULT_TIME_FOR_MERGING = "service.includeResultTimeForMerging";
     String CHECK_FOR_DUPLICITY = "service.checkForDuplicity";
+    String CONCURRENT_INSERT_OBSERVATION = "service.concurrentInsertObservation";
+    String CONCURRENT_INSERT_RESULT = "service.concurrentInsertResult";
+    String DEFERRED_DATASET_UPDATE = "service.deferredDatasetUpdate";
+    String CHECK_FOR_DUPLICATED_OBSERVATIONS = "service.checkForDuplicatedObservations";
+    String CAPABILITIES_RESPONSE_CACHE = "service.capabilitiesResponseCache";
+    String CACHE_BASED_CAPABILITIES_CONTENTS = "service.cacheBasedCapabilitiesContents";
+    String DESCRIBE_SENSOR_RESPONSE_CACHE = "service.describeSensorResponseCache";
+    String INCREMENTAL_CACHE_UPDATE = "service.cacheIncrementalUpdate";
+    String COPY_ON_WRITE_CACHE = "service.cacheCopyOnWrite";
+    String INTERNED_CACHE_IDENTIFIERS = "service.cacheInternedIdentifiers";
 
 }
@@ -28,8 +28,10 @@
  */
 package org.n52.sos.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -122,6 +124,11 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
 
     private final Map<Integer, CoordinateReferenceSystem> crsCache = Maps.newConcurrentMap();
 
+    private final Map<Integer, Boolean> northingFirstCache = Maps.newConcurrentMap();
+
+    /* MathTransforms are immutable and can be shared between threads */
+    private final Map<Long, MathTransform> transformCache = Maps.newConcurrentMap();
+
     private String srsNamePrefixUrl;
 
     @Setting(CodingSettings.SRS_NAME_PREFIX_URL)
@@ -141,6 +148,7 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
         }
         Hints hints = new Hints(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, eastingFirstEpsgCode);
         this.crsAuthority = ReferencingFactoryFinder.getCRSAuthorityFactory(this.authority, hints);
+        clearSupportedCRSMap();
     }
 
     @Override
@@ -426,8 +434,14 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
      *             If an error occurs
      */
     public boolean isNorthingFirstEpsgCode(int epsgCode) throws CodedException {
+        Boolean northingFirst = northingFirstCache.get(epsgCode);
+        if (northingFirst != null) {
+            return northingFirst;
+        }
         try {
-            return AxisOrder.NORTH_EAST.equals(CRS.getAxisOrder(CRS.decode(EPSG_PREFIX + epsgCode))) ? true : false;
+            northingFirst = AxisOrder.NORTH_EAST.equals(CRS.getAxisOrder(CRS.decode(EPSG_PREFIX + epsgCode)));
+            northingFirstCache.put(epsgCode, northingFirst);
+            return northingFirst;
         } catch (FactoryException e) {
             throw new NoApplicableCodeException().causedBy(e).withMessage("The EPSG '%d' is invalid", epsgCode);
         }
@@ -646,6 +660,43 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
         return transform(geometry, targetSRID, sourceCRS, targetCRS);
     }
 
+    /**
+     * Transform geometries to this EPSG code. The CRS, the axis order and the
+     * transformation are resolved once per source EPSG code of the geometries
+     * and not per geometry.
+     *
+     * @param geometries
+     *            Geometries to transform, may contain <code>null</code>
+     * @param targetSRID
+     *            Target EPSG code
+     *
+     * @return Transformed geometries in the order of the passed geometries
+     *
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public List<Geometry> transform(List<? extends Geometry> geometries, int targetSRID) throws OwsExceptionReport {
+        List<Geometry> transformed = new ArrayList<>(geometries.size());
+        Map<Integer, CoordinateReferenceSystem> sourceCRSs = new HashMap<>();
+        CoordinateReferenceSystem targetCRS = null;
+        for (Geometry geometry : geometries) {
+            if (geometry == null || geometry.isEmpty() || geometry.getSRID() == targetSRID) {
+                transformed.add(geometry);
+            } else {
+                if (targetCRS == null) {
+                    targetCRS = getCRS(targetSRID);
+                }
+                CoordinateReferenceSystem sourceCRS = sourceCRSs.get(geometry.getSRID());
+                if (sourceCRS == null) {
+                    sourceCRS = getCRS(geometry.getSRID());
+                    sourceCRSs.put(geometry.getSRID(), sourceCRS);
+                }
+                transformed.add(transform(geometry, targetSRID, sourceCRS, targetCRS));
+            }
+        }
+        return transformed;
+    }
+
     /**
      * Transform geometry.
      *
@@ -671,7 +722,7 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
         }
         Geometry switchedCoordiantes = switchCoordinateAxisIfNeeded(geometry, targetSRID);
         try {
-            MathTransform transform = CRS.findMathTransform(sourceCRS, targetCRS);
+            MathTransform transform = getMathTransform(geometry.getSRID(), targetSRID, sourceCRS, targetCRS);
             Geometry transformed = JTS.transform(switchedCoordiantes, transform);
             transformed.setSRID(targetSRID);
             return transformed;
@@ -681,6 +732,34 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
         }
     }
 
+    /**
+     * Get the cached transformation from the source to the target EPSG code.
+     *
+     * @param sourceSRID
+     *            Source EPSG code
+     * @param targetSRID
+     *            Target EPSG code
+     * @param sourceCRS
+     *            Source CRS
+     * @param targetCRS
+     *            Target CRS
+     *
+     * @return the transformation
+     *
+     * @throws FactoryException
+     *             If no transformation could be found
+     */
+    private MathTransform getMathTransform(int sourceSRID, int targetSRID, CoordinateReferenceSystem sourceCRS,
+            CoordinateReferenceSystem targetCRS) throws FactoryException {
+        Long key = ((long) sourceSRID << Integer.SIZE) | (targetSRID & 0xFFFFFFFFL);
+        MathTransform transform = transformCache.get(key);
+        if (transform == null) {
+            transform = CRS.findMathTransform(sourceCRS, targetCRS);
+            transformCache.put(key, transform);
+        }
+        return transform;
+    }
+
     /**
      * Get CRS from EPSG code.
      *
@@ -761,7 +840,7 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
             CoordinateReferenceSystem targetCRS = getCRS(targetSRID);
             try {
                 if (sourceCRS.getCoordinateSystem().getDimension() == targetCRS.getCoordinateSystem().getDimension()) {
-                    MathTransform transform = CRS.findMathTransform(sourceCRS, targetCRS);
+                    MathTransform transform = getMathTransform(sourceSRID, targetSRID, sourceCRS, targetCRS);
                     Envelope transformed = JTS.transform(envelope, transform);
                     return transformed;
                 }
@@ -783,6 +862,8 @@ public class GeometryHandler implements GeometryTransformer, Constructable, Dest
     @VisibleForTesting
     protected void clearSupportedCRSMap() {
         crsCache.clear();
+        northingFirstCache.clear();
+        transformCache.clear();
     }
 
     public Set<String> addAuthorityCrsPrefix(Collection<String> crses) {
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+import org.n52.shetland.ogc.gml.AbstractFeature;
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.OmObservationConstellation;
+
+/**
+ * Index of merged observations. Instead of checking each merged observation
+ * whether an observation can be merged into it, the merged observations are
+ * hashed by a merge key derived from the {@link ObservationMergeIndicator}
+ * (procedure, feature of interest and additional merge indicator), so only
+ * the merged observations with the same key are checked.
+ *
+ * @since 5.0.3
+ */
+public class ObservationMerger {
+
+    private final ObservationMergeIndicator indicator;
+
+    private final BiPredicate<OmObservation, OmObservation> mergeCheck;
+
+    private final Map<List<String>, List<OmObservation>> index = new HashMap<>();
+
+    private final List<OmObservation> observations = new ArrayList<>();
+
+    /**
+     * constructor
+     *
+     * @param indicator
+     *            the indicator to derive the merge key from
+     * @param mergeCheck
+     *            checks if an observation (second argument) can be merged
+     *            into a merged observation (first argument). It is only
+     *            called for merged observations with the same merge key.
+     */
+    public ObservationMerger(ObservationMergeIndicator indicator,
+            BiPredicate<OmObservation, OmObservation> mergeCheck) {
+        this.indicator = indicator;
+        this.mergeCheck = mergeCheck;
+    }
+
+    /**
+     * Get the merged observation the observation can be merged into
+     *
+     * @param observation
+     *            the observation to merge
+     * @return the merged observation or <code>null</code>, if the
+     *         observation can not be merged into one of the merged
+     *         observations
+     */
+    public OmObservation getMergedObservation(OmObservation observation) {
+        List<OmObservation> candidates = index.get(createKey(observation));
+        if (candidates != null) {
+            for (OmObservation candidate : candidates) {
+                if (mergeCheck.test(candidate, observation)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add a new merged observation
+     *
+     * @param observation
+     *            the merged observation
+     */
+    public void addMergedObservation(OmObservation observation) {
+        index.computeIfAbsent(createKey(observation), key -> new LinkedList<>()).add(observation);
+        observations.add(observation);
+    }
+
+    /**
+     * @return the merged observations in the order they were added
+     */
+    public List<OmObservation> getMergedObservations() {
+        return Collections.unmodifiableList(observations);
+    }
+
+    public boolean isEmpty() {
+        return observations.isEmpty();
+    }
+
+    private List<String> createKey(OmObservation observation) {
+        OmObservationConstellation constellation = observation.getObservationConstellation();
+        return Arrays.asList(observation.isSetAdditionalMergeIndicator()
+                ? observation.getAdditionalMergeIndicator()
+                : null,
+                indicator.isProcedure() && constellation != null ? getIdentifier(constellation.getProcedure()) : null,
+                indicator.isFeatureOfInterest() && constellation != null
+                        ? getIdentifier(constellation.getFeatureOfInterest())
+                        : null);
+    }
+
+    private String getIdentifier(AbstractFeature feature) {
+        return feature != null ? feature.getIdentifier() : null;
+    }
+
+}
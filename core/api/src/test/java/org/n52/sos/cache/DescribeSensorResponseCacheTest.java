@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.Is;
+import org.hamcrest.core.IsNot;
+import org.hamcrest.core.IsSame;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.n52.janmayen.event.EventBus;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
+import org.n52.shetland.ogc.sos.SosProcedureDescriptionUnknownType;
+import org.n52.shetland.ogc.sos.request.DescribeSensorRequest;
+import org.n52.shetland.ogc.sos.response.DescribeSensorResponse;
+import org.n52.shetland.ogc.sos.response.InsertResultResponse;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.ResultInsertion;
+import org.n52.sos.event.events.SensorDeletion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.util.builder.DeleteSensorRequestBuilder;
+import org.n52.sos.util.builder.InsertObservationRequestBuilder;
+import org.n52.sos.util.builder.InsertSensorResponseBuilder;
+import org.n52.sos.util.builder.ObservationBuilder;
+import org.n52.sos.util.builder.ObservationConstellationBuilder;
+import org.n52.sos.util.builder.ProcedureDescriptionBuilder;
+
+import com.google.common.base.Strings;
+
+public class DescribeSensorResponseCacheTest {
+
+    private static final String FORMAT = "http://www.opengis.net/sensorml/2.0";
+
+    private final AtomicInteger created = new AtomicInteger(0);
+
+    private DescribeSensorResponseCache responseCache;
+
+    private SosContentCacheController controller;
+
+    @Before
+    public void setUp() {
+        responseCache = new DescribeSensorResponseCache();
+        responseCache.setServiceEventBus(new EventBus());
+        responseCache.setEnabled(true);
+        controller = Mockito.mock(SosContentCacheController.class);
+        Mockito.when(controller.getUpdateGeneration()).thenReturn(1L);
+        Mockito.when(controller.getReloadGeneration()).thenReturn(1L);
+        created.set(0);
+    }
+
+    @Test
+    public void should_return_cached_response_for_same_procedure() throws OwsExceptionReport {
+        OwsServiceResponse first = responseCache.get(createRequest("p1"), controller, this::createResponse);
+        OwsServiceResponse second = responseCache.get(createRequest("p1"), controller, this::createResponse);
+        MatcherAssert.assertThat(second, IsNot.not(IsSame.sameInstance(first)));
+        MatcherAssert.assertThat(created.get(), Is.is(1));
+    }
+
+    @Test
+    public void should_create_response_for_other_procedure_or_valid_time() throws OwsExceptionReport {
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        DescribeSensorRequest request = createRequest("p1");
+        request.setValidTime(new TimeInstant(new DateTime(0L)));
+        responseCache.get(request, controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(3));
+    }
+
+    @Test
+    public void should_return_cached_response_after_other_cache_update() throws OwsExceptionReport {
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        Mockito.when(controller.getUpdateGeneration()).thenReturn(2L);
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(1));
+    }
+
+    @Test
+    public void should_create_response_after_cache_reload() throws OwsExceptionReport {
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        Mockito.when(controller.getReloadGeneration()).thenReturn(2L);
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(2));
+    }
+
+    @Test
+    public void should_create_response_only_for_modified_procedure() throws OwsExceptionReport {
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        responseCache.handle(new SensorDeletion(DeleteSensorRequestBuilder.aDeleteSensorRequest()
+                .setProcedure("p1").build(), null));
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(3));
+        responseCache.handle(new SensorInsertion(null, InsertSensorResponseBuilder.anInsertSensorResponse()
+                .setProcedure("p2").build()));
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(4));
+    }
+
+    @Test
+    public void should_create_response_for_procedure_of_inserted_observation() throws OwsExceptionReport {
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        responseCache.handle(new ObservationInsertion(InsertObservationRequestBuilder.aInsertObservationRequest()
+                .addObservation(createObservation("p1")).build(), null));
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(3));
+    }
+
+    @Test
+    public void should_create_response_for_procedure_of_inserted_result() throws OwsExceptionReport {
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        InsertResultResponse response = new InsertResultResponse();
+        response.setObservations(Collections.singletonList(createObservation("p2")));
+        responseCache.handle(new ResultInsertion(null, response));
+        responseCache.get(createRequest("p1"), controller, this::createResponse);
+        responseCache.get(createRequest("p2"), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(3));
+    }
+
+    @Test
+    public void should_weigh_response_by_description_size() {
+        DescribeSensorResponse response = (DescribeSensorResponse) createResponse(createRequest("p1"));
+        int emptyWeight = responseCache.weigh(response);
+        response.setSensorDescriptions(Collections.singletonList(
+                new SosProcedureDescriptionUnknownType("p1", FORMAT, Strings.repeat("x", 100000))));
+        MatcherAssert.assertThat(responseCache.weigh(response), Is.is(100000));
+        MatcherAssert.assertThat(emptyWeight < 100000, Is.is(true));
+    }
+
+    private DescribeSensorRequest createRequest(String procedure) {
+        DescribeSensorRequest request = new DescribeSensorRequest();
+        request.setService(SosConstants.SOS);
+        request.setVersion(Sos2Constants.SERVICEVERSION);
+        request.setProcedure(procedure);
+        request.setProcedureDescriptionFormat(FORMAT);
+        return request;
+    }
+
+    private OmObservation createObservation(String procedure) {
+        return ObservationBuilder.anObservation()
+                .setObservationConstellation(ObservationConstellationBuilder.anObservationConstellation()
+                        .setProcedure(ProcedureDescriptionBuilder.aSensorMLProcedureDescription()
+                                .setIdentifier(procedure).build())
+                        .build())
+                .build();
+    }
+
+    private OwsServiceResponse createResponse(OwsServiceRequest request) {
+        created.incrementAndGet();
+        DescribeSensorResponse response = new DescribeSensorResponse();
+        response.setService(SosConstants.SOS);
+        response.setVersion(Sos2Constants.SERVICEVERSION);
+        return response;
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.Is;
+import org.hamcrest.core.IsNot;
+import org.hamcrest.core.IsSame;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.n52.janmayen.event.EventBus;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
+import org.n52.shetland.ogc.ows.service.GetCapabilitiesResponse;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
+
+import com.google.common.collect.Lists;
+
+public class GetCapabilitiesResponseCacheTest {
+
+    private static final String OFFERING = "offering";
+
+    private static final String CAPABILITIES = "<sos:Capabilities/>";
+
+    private final AtomicInteger created = new AtomicInteger(0);
+
+    private GetCapabilitiesResponseCache responseCache;
+
+    private SosContentCacheController controller;
+
+    private SosContentCache cache;
+
+    @Before
+    public void setUp() {
+        responseCache = new GetCapabilitiesResponseCache();
+        responseCache.setServiceEventBus(new EventBus());
+        responseCache.setEnabled(true);
+        cache = Mockito.mock(SosContentCache.class);
+        Mockito.when(cache.getOfferings()).thenReturn(Collections.singleton(OFFERING));
+        Mockito.when(cache.getMaxPhenomenonTimeForOffering(OFFERING)).thenReturn(new DateTime(0L));
+        controller = Mockito.mock(SosContentCacheController.class);
+        Mockito.when(controller.getCache()).thenReturn(cache);
+        Mockito.when(controller.getUpdateGeneration()).thenReturn(1L);
+        created.set(0);
+    }
+
+    @Test
+    public void should_return_cached_response_for_same_request() throws OwsExceptionReport {
+        responseCache.get(createRequest(), controller, this::createResponse);
+        responseCache.get(createRequest(), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(1));
+    }
+
+    @Test
+    public void should_return_copy_of_cached_response() throws OwsExceptionReport {
+        OwsServiceResponse first = responseCache.get(createRequest(), controller, this::createResponse);
+        OwsServiceResponse second = responseCache.get(createRequest(), controller, this::createResponse);
+        OwsServiceResponse third = responseCache.get(createRequest(), controller, this::createResponse);
+        MatcherAssert.assertThat(second, IsNot.not(IsSame.sameInstance(first)));
+        MatcherAssert.assertThat(third, IsNot.not(IsSame.sameInstance(second)));
+        MatcherAssert.assertThat(((GetCapabilitiesResponse) third).getXmlString(), Is.is(CAPABILITIES));
+    }
+
+    @Test
+    public void should_create_response_for_other_sections() throws OwsExceptionReport {
+        responseCache.get(createRequest(), controller, this::createResponse);
+        GetCapabilitiesRequest request = createRequest();
+        request.setSections(Lists.newArrayList(SosConstants.CapabilitiesSections.Contents.name()));
+        responseCache.get(request, controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(2));
+    }
+
+    @Test
+    public void should_return_cached_response_after_irrelevant_cache_update() throws OwsExceptionReport {
+        responseCache.get(createRequest(), controller, this::createResponse);
+        Mockito.when(controller.getUpdateGeneration()).thenReturn(2L);
+        responseCache.get(createRequest(), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(1));
+    }
+
+    @Test
+    public void should_create_response_after_relevant_cache_update() throws OwsExceptionReport {
+        responseCache.get(createRequest(), controller, this::createResponse);
+        Mockito.when(cache.getMaxPhenomenonTimeForOffering(OFFERING)).thenReturn(new DateTime(1L));
+        Mockito.when(controller.getUpdateGeneration()).thenReturn(2L);
+        responseCache.get(createRequest(), controller, this::createResponse);
+        responseCache.get(createRequest(), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(2));
+    }
+
+    @Test
+    public void should_not_cache_if_disabled() throws OwsExceptionReport {
+        responseCache.setEnabled(false);
+        responseCache.get(createRequest(), controller, this::createResponse);
+        responseCache.get(createRequest(), controller, this::createResponse);
+        MatcherAssert.assertThat(created.get(), Is.is(2));
+    }
+
+    private GetCapabilitiesRequest createRequest() {
+        GetCapabilitiesRequest request = new GetCapabilitiesRequest(SosConstants.SOS);
+        request.setVersion(Sos2Constants.SERVICEVERSION);
+        return request;
+    }
+
+    private OwsServiceResponse createResponse(OwsServiceRequest request) {
+        created.incrementAndGet();
+        GetCapabilitiesResponse response = new GetCapabilitiesResponse(SosConstants.SOS, Sos2Constants.SERVICEVERSION);
+        response.setXmlString(CAPABILITIES);
+        return response;
+    }
+
+}
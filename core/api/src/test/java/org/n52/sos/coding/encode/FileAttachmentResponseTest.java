@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding.encode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.n52.janmayen.http.MediaType;
+
+public class FileAttachmentResponseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldCopyFileAndDelete() throws IOException {
+        File directory = folder.newFolder();
+        File file = createFile(directory, "a.nc", "content");
+        FileAttachmentResponse response =
+                new FileAttachmentResponse(file, new MediaType("application", "x-netcdf"), "a.nc", directory);
+        assertThat(response.getContentLength(), is(7L));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.write(out);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("content"));
+
+        response.delete();
+        assertThat(file.exists(), is(false));
+        assertThat(directory.exists(), is(false));
+    }
+
+    @Test
+    public void shouldZipFiles() throws IOException {
+        File directory = folder.newFolder();
+        File a = createFile(directory, "a.nc", "first");
+        File b = createFile(directory, "b.nc", "second");
+        FileAttachmentResponse response = new FileAttachmentResponse(Arrays.asList(a, b),
+                new MediaType("application", "zip"), "a.zip", directory);
+        assertThat(response.getContentLength(), is(-1L));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.write(out);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEntry(zip, "a.nc", "first");
+            assertEntry(zip, "b.nc", "second");
+            assertThat(zip.getNextEntry() == null, is(true));
+        }
+    }
+
+    @Test
+    public void shouldDeleteFilesAfterReadingBytes() throws IOException {
+        File directory = folder.newFolder();
+        File file = createFile(directory, "a.nc", "content");
+        FileAttachmentResponse response =
+                new FileAttachmentResponse(file, new MediaType("application", "x-netcdf"), "a.nc", directory);
+
+        assertThat(new String(response.getBytes(), StandardCharsets.UTF_8), is("content"));
+        assertThat(file.exists(), is(false));
+        assertThat(directory.exists(), is(false));
+        assertThat(new String(response.getBytes(), StandardCharsets.UTF_8), is("content"));
+        response.delete();
+    }
+
+    private void assertEntry(ZipInputStream zip, String name, String content) throws IOException {
+        ZipEntry entry = zip.getNextEntry();
+        assertThat(entry.getName(), is(name));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        int read;
+        while ((read = zip.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(content));
+    }
+
+    private File createFile(File directory, String name, String content) throws IOException {
+        File file = new File(directory, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
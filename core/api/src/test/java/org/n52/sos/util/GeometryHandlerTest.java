@@ -28,6 +28,9 @@
  */
 package org.n52.sos.util;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.Is;
 import org.junit.Assert;
@@ -132,6 +135,21 @@ public class GeometryHandlerTest {
         MatcherAssert.assertThat(transformToStorageEpsg.distance(get31467Geometry()) < DISTANCE_TRANSFORMED, Is.is(true));
     }
 
+    @Test
+    public void shouldTransformGeometriesInBulk() throws OwsExceptionReport {
+        geometryHandler.clearSupportedCRSMap();
+        List<Geometry> transformed = geometryHandler.transform(
+                Arrays.asList(get31467Geometry(), null, get4326Geometry(), get31467Geometry()), EPSG_4326);
+        Assert.assertEquals(4, transformed.size());
+        Assert.assertNull(transformed.get(1));
+        Geometry single = geometryHandler.transform(get31467Geometry(), EPSG_4326);
+        Assert.assertEquals(EPSG_4326, transformed.get(2).getSRID());
+        for (int i : new int[] { 0, 3 }) {
+            Assert.assertEquals(EPSG_4326, transformed.get(i).getSRID());
+            MatcherAssert.assertThat(transformed.get(i).distance(single) < DISTANCE, Is.is(true));
+        }
+    }
+
     @Test
     public void shouldSwitchGeometryForDatasourceNorthingFalseEpsg4326() throws OwsExceptionReport {
         geometryHandler.clearSupportedCRSMap();
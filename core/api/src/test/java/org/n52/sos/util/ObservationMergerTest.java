@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import static org.n52.sos.util.builder.ObservationBuilder.anObservation;
+import static org.n52.sos.util.builder.ObservationConstellationBuilder.anObservationConstellation;
+import static org.n52.sos.util.builder.ProcedureDescriptionBuilder.aSensorMLProcedureDescription;
+import static org.n52.sos.util.builder.SamplingFeatureBuilder.aSamplingFeature;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.Is;
+import org.hamcrest.core.IsNull;
+import org.junit.Test;
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.OmObservation;
+
+public class ObservationMergerTest {
+
+    private static final ObservationMergeIndicator INDICATOR =
+            new ObservationMergeIndicator().setFeatureOfInterest(true).setProcedure(true);
+
+    @Test
+    public void shouldReturnMergedObservationWithSameKey() {
+        ObservationMerger merger = new ObservationMerger(INDICATOR, (merged, observation) -> true);
+        OmObservation merged = createObservation("procedure", "feature");
+        merger.addMergedObservation(merged);
+
+        MatcherAssert.assertThat(merger.getMergedObservation(createObservation("procedure", "feature")),
+                Is.is(merged));
+        MatcherAssert.assertThat(merger.getMergedObservation(createObservation("procedure", "other")),
+                IsNull.nullValue());
+        MatcherAssert.assertThat(merger.getMergedObservation(createObservation("other", "feature")),
+                IsNull.nullValue());
+    }
+
+    @Test
+    public void shouldSeparateAdditionalMergeIndicator() {
+        ObservationMerger merger = new ObservationMerger(INDICATOR, (merged, observation) -> true);
+        OmObservation merged = createObservation("procedure", "feature");
+        merged.setAdditionalMergeIndicator("a");
+        merger.addMergedObservation(merged);
+        OmObservation observation = createObservation("procedure", "feature");
+
+        MatcherAssert.assertThat(merger.getMergedObservation(observation), IsNull.nullValue());
+        observation.setAdditionalMergeIndicator("a");
+        MatcherAssert.assertThat(merger.getMergedObservation(observation), Is.is(merged));
+    }
+
+    @Test
+    public void shouldCheckMergedObservationsWithSameKey() {
+        ObservationMerger merger =
+                new ObservationMerger(INDICATOR, (merged, observation) -> merged.getObservationID() != null
+                        && merged.getObservationID().equals(observation.getObservationID()));
+        OmObservation first = createObservation("procedure", "feature");
+        first.setObservationID("1");
+        OmObservation second = createObservation("procedure", "feature");
+        second.setObservationID("2");
+        merger.addMergedObservation(first);
+        merger.addMergedObservation(second);
+        OmObservation observation = createObservation("procedure", "feature");
+        observation.setObservationID("2");
+
+        MatcherAssert.assertThat(merger.getMergedObservation(observation), Is.is(second));
+        MatcherAssert.assertThat(merger.getMergedObservations().size(), Is.is(2));
+        MatcherAssert.assertThat(merger.getMergedObservations().get(0), Is.is(first));
+    }
+
+    @Test
+    public void shouldCheckOnlyMergedObservationsWithSameKey() {
+        int groups = 5000;
+        int observations = 50000;
+        AtomicInteger checks = new AtomicInteger();
+        ObservationMerger merger = new ObservationMerger(INDICATOR, (merged, observation) -> {
+            checks.incrementAndGet();
+            return true;
+        });
+        for (int i = 0; i < observations; i++) {
+            OmObservation observation = createObservation("procedure" + i % groups, "feature");
+            if (merger.getMergedObservation(observation) == null) {
+                merger.addMergedObservation(observation);
+            }
+        }
+
+        MatcherAssert.assertThat(merger.getMergedObservations().size(), Is.is(groups));
+        MatcherAssert.assertThat(checks.get(), Is.is(observations - groups));
+    }
+
+    private OmObservation createObservation(String procedure, String feature) {
+        return anObservation().setObservationConstellation(anObservationConstellation()
+                .setProcedure(aSensorMLProcedureDescription().setIdentifier(procedure).build())
+                .setFeature(aSamplingFeature().setIdentifier(feature).build()).build()).build();
+    }
+
+}
@@ -31,19 +31,27 @@ package org.n52.sos.cache;
 
 import javax.inject.Inject;
 
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.cache.WritableContentCache;
 import org.n52.iceland.cache.ctrl.ContentCacheFactory;
 import org.n52.iceland.coding.SupportedTypeRepository;
+import org.n52.sos.service.SosSettings;
 
 /**
  * TODO JavaDoc
  *
  * @author Christian Autermann
  */
+@Configurable
 public class ContentCacheFactoryImpl implements ContentCacheFactory {
 
     private SupportedTypeRepository supportedTypeRepository;
 
+    private boolean copyOnWrite;
+
+    private boolean internedIdentifiers;
+
     @Inject
     public void setSupportedTypeRepository(SupportedTypeRepository supportedTypeRepository) {
         this.supportedTypeRepository = supportedTypeRepository;
@@ -53,9 +61,23 @@ public class ContentCacheFactoryImpl implements ContentCacheFactory {
         return supportedTypeRepository;
     }
 
+    @Setting(SosSettings.COPY_ON_WRITE_CACHE)
+    public void setCopyOnWrite(boolean copyOnWrite) {
+        this.copyOnWrite = copyOnWrite;
+    }
+
+    @Setting(SosSettings.INTERNED_CACHE_IDENTIFIERS)
+    public void setInternedIdentifiers(boolean internedIdentifiers) {
+        this.internedIdentifiers = internedIdentifiers;
+    }
+
     @Override
     public WritableContentCache get() {
-        return (InMemoryCacheImpl) new InMemoryCacheImpl().setSupportedTypeRepository(getSupportedTypeRepository());
+        InMemoryCacheImpl cache = copyOnWrite ? new CopyOnWriteCacheImpl() : new InMemoryCacheImpl();
+        if (internedIdentifiers) {
+            cache.setIdentifierDictionary(new IdentifierDictionary());
+        }
+        return (InMemoryCacheImpl) cache.setSupportedTypeRepository(getSupportedTypeRepository());
     }
 
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+
+/**
+ * {@link InMemoryCacheImpl} that is never modified once it is published.
+ * Modifications are applied to a {@link #copy() copy} which replaces the
+ * published cache afterwards. Readers therefore do not need any
+ * synchronization and getters can return views instead of copies.
+ *
+ * @since 5.0.3
+ */
+public class CopyOnWriteCacheImpl extends InMemoryCacheImpl {
+
+    private static final long serialVersionUID = -2795402869624812562L;
+
+    /**
+     * Creates a modifiable copy of this cache.
+     *
+     * @return the copy
+     */
+    public CopyOnWriteCacheImpl copy() {
+        return copyTo(new CopyOnWriteCacheImpl());
+    }
+
+    @Override
+    protected <K, V> Map<K, V> newMap() {
+        return new HashMap<>();
+    }
+
+    @Override
+    protected <T> Set<T> newSet() {
+        return new HashSet<>();
+    }
+
+    @Override
+    protected <K, V> BiMap<K, V> newBiMap() {
+        return HashBiMap.create();
+    }
+
+    @Override
+    protected Set<String> newIdentifierSet() {
+        return newPlainIdentifierSet();
+    }
+
+    @Override
+    protected <T> Set<T> readOnly(Set<T> set) {
+        if (set == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+}
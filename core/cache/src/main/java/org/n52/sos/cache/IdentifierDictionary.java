@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary that assigns a dense {@code int} id to every
+ * identifier stored in the content cache. Every identifier is stored only
+ * once, the cache relations only hold the ids (see {@link IdentifierSet}).
+ * Ids are never reassigned, so the dictionary may be shared between copies
+ * of a cache.
+ *
+ * @since 5.0.3
+ */
+public class IdentifierDictionary implements Serializable {
+
+    private static final long serialVersionUID = 4867293305893441876L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile String[] identifiers = new String[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Get the id of the identifier and add it to the dictionary if it is not
+     * yet known.
+     *
+     * @param identifier the identifier
+     *
+     * @return the id
+     */
+    public int intern(String identifier) {
+        Integer id = ids.get(identifier);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(identifier);
+            if (id == null) {
+                id = size;
+                String[] current = this.identifiers;
+                if (id == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[id] = identifier;
+                // publish the element before the id gets visible
+                this.identifiers = current;
+                size++;
+                ids.put(identifier, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Get the id of the identifier without adding it to the dictionary.
+     *
+     * @param identifier the identifier
+     *
+     * @return the id or {@code -1} if the identifier is unknown
+     */
+    public int lookup(String identifier) {
+        Integer id = ids.get(identifier);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Get the identifier of a previously {@link #intern(String) interned} id.
+     *
+     * @param id the id
+     *
+     * @return the identifier
+     */
+    public String get(int id) {
+        return identifiers[id];
+    }
+
+    /**
+     * @return the number of identifiers in this dictionary
+     */
+    public int size() {
+        return ids.size();
+    }
+
+}
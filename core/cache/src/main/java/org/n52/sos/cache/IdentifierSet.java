@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of identifiers that stores the {@link IdentifierDictionary dictionary}
+ * ids in an open addressing {@code int} hash table instead of the identifier
+ * strings. The set is not thread safe.
+ *
+ * @since 5.0.3
+ */
+public class IdentifierSet extends AbstractSet<String> implements Serializable {
+
+    private static final long serialVersionUID = -1524339811425328335L;
+
+    private static final int FREE = -1;
+
+    private static final int REMOVED = -2;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final IdentifierDictionary dictionary;
+
+    private int[] slots;
+
+    private int size;
+
+    private int used;
+
+    private transient int modCount;
+
+    public IdentifierSet(IdentifierDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.slots = newSlots(INITIAL_CAPACITY);
+    }
+
+    public IdentifierSet(IdentifierDictionary dictionary, Iterable<String> identifiers) {
+        this(dictionary);
+        if (identifiers != null) {
+            identifiers.forEach(this::add);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int id = dictionary.lookup((String) o);
+        return id >= 0 && slots[indexOf(id)] == id;
+    }
+
+    @Override
+    public boolean add(String identifier) {
+        if (identifier == null) {
+            throw new NullPointerException("identifier");
+        }
+        int id = dictionary.intern(identifier);
+        int index = indexOf(id);
+        if (slots[index] == id) {
+            return false;
+        }
+        if ((used + 1) * 4 > slots.length * 3) {
+            rehash(size + 1);
+            index = indexOf(id);
+        }
+        if (slots[index] == FREE) {
+            used++;
+        }
+        slots[index] = id;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int id = dictionary.lookup((String) o);
+        if (id < 0) {
+            return false;
+        }
+        int index = indexOf(id);
+        if (slots[index] != id) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0 || used > 0) {
+            slots = newSlots(INITIAL_CAPACITY);
+            size = 0;
+            used = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new IdentifierIterator();
+    }
+
+    private void removeAt(int index) {
+        slots[index] = REMOVED;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Get the slot that contains the id or, if the id is not contained, the
+     * slot the id should be inserted into.
+     */
+    private int indexOf(int id) {
+        int mask = slots.length - 1;
+        int index = mix(id) & mask;
+        int firstRemoved = -1;
+        while (true) {
+            int slot = slots[index];
+            if (slot == id) {
+                return index;
+            } else if (slot == FREE) {
+                return firstRemoved >= 0 ? firstRemoved : index;
+            } else if (slot == REMOVED && firstRemoved < 0) {
+                firstRemoved = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (expectedSize * 4 > capacity * 3) {
+            capacity <<= 1;
+        }
+        int[] old = this.slots;
+        this.slots = newSlots(capacity);
+        this.used = 0;
+        for (int id : old) {
+            if (id >= 0) {
+                slots[indexOf(id)] = id;
+                used++;
+            }
+        }
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        return slots;
+    }
+
+    private class IdentifierIterator implements Iterator<String> {
+        private final int[] table = slots;
+        private int expectedModCount = modCount;
+        private int next = -1;
+        private int current = -1;
+
+        IdentifierIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < table.length;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            checkForComodification();
+            current = next;
+            advance();
+            return dictionary.get(table[current]);
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            removeAt(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < table.length && table[next] < 0);
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount || slots != table) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+}
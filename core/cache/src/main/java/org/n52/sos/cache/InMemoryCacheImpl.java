@@ -43,7 +43,6 @@ import java.util.function.Function;
 import org.joda.time.DateTime;
 import org.locationtech.jts.geom.Envelope;
 import org.n52.janmayen.function.Functions;
-import org.n52.janmayen.function.Suppliers;
 import org.n52.janmayen.i18n.LocalizedString;
 import org.n52.janmayen.i18n.MultilingualString;
 import org.n52.shetland.ogc.gml.time.TimePeriod;
@@ -65,119 +64,119 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     private static final long serialVersionUID = 3630601584420744019L;
 
-    private final Map<String, DateTime> maxPhenomenonTimeForOfferings = newSynchronizedMap();
+    private final Map<String, DateTime> maxPhenomenonTimeForOfferings = newMap();
 
-    private final Map<String, DateTime> minPhenomenonTimeForOfferings = newSynchronizedMap();
+    private final Map<String, DateTime> minPhenomenonTimeForOfferings = newMap();
 
-    private final Map<String, DateTime> maxResultTimeForOfferings = newSynchronizedMap();
+    private final Map<String, DateTime> maxResultTimeForOfferings = newMap();
 
-    private final Map<String, DateTime> minResultTimeForOfferings = newSynchronizedMap();
+    private final Map<String, DateTime> minResultTimeForOfferings = newMap();
 
-    private final Map<String, DateTime> maxPhenomenonTimeForProcedures = newSynchronizedMap();
+    private final Map<String, DateTime> maxPhenomenonTimeForProcedures = newMap();
 
-    private final Map<String, DateTime> minPhenomenonTimeForProcedures = newSynchronizedMap();
+    private final Map<String, DateTime> minPhenomenonTimeForProcedures = newMap();
 
-    private final Map<String, Set<String>> allowedObservationTypeForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> allowedObservationTypeForOfferings = newMap();
 
-    private final Map<String, Set<String>> allowedFeatureOfInterestTypeForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> allowedFeatureOfInterestTypeForOfferings = newMap();
 
-    private final Map<String, Set<String>> childFeaturesForFeatureOfInterest = newSynchronizedMap();
+    private final Map<String, Set<String>> childFeaturesForFeatureOfInterest = newMap();
 
-    private final Map<String, Set<String>> childProceduresForProcedures = newSynchronizedMap();
+    private final Map<String, Set<String>> childProceduresForProcedures = newMap();
 
-    private final Map<String, Set<String>> childOfferingsForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> childOfferingsForOfferings = newMap();
 
-    private final Map<String, Set<String>> compositePhenomenonsForProcedure = newSynchronizedMap();
+    private final Map<String, Set<String>> compositePhenomenonsForProcedure = newMap();
 
-    private final Map<String, Set<String>> compositePhenomenonsForOffering = newSynchronizedMap();
+    private final Map<String, Set<String>> compositePhenomenonsForOffering = newMap();
 
-    private final Map<String, Set<String>> compositePhenomenonsForObservableProperty = newSynchronizedMap();
+    private final Map<String, Set<String>> compositePhenomenonsForObservableProperty = newMap();
 
-    private final Map<String, Set<String>> featuresOfInterestForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> featuresOfInterestForOfferings = newMap();
 
-    private final Map<String, Set<String>> offeringsForFeaturesOfInterest = newSynchronizedMap();
+    private final Map<String, Set<String>> offeringsForFeaturesOfInterest = newMap();
 
-    private final Map<String, Set<String>> featuresOfInterestForResultTemplates = newSynchronizedMap();
+    private final Map<String, Set<String>> featuresOfInterestForResultTemplates = newMap();
 
-    private final Map<String, Set<String>> observablePropertiesForCompositePhenomenons = newSynchronizedMap();
+    private final Map<String, Set<String>> observablePropertiesForCompositePhenomenons = newMap();
 
-    private final Map<String, Set<String>> observablePropertiesForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> observablePropertiesForOfferings = newMap();
 
-    private final Map<String, Set<String>> observablePropertiesForProcedures = newSynchronizedMap();
+    private final Map<String, Set<String>> observablePropertiesForProcedures = newMap();
 
-    private final Map<String, Set<String>> observationTypesForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> observationTypesForOfferings = newMap();
 
-    private final Map<String, Set<String>> featureOfInterestTypesForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> featureOfInterestTypesForOfferings = newMap();
 
-    private final Map<String, Set<String>> observedPropertiesForResultTemplates = newSynchronizedMap();
+    private final Map<String, Set<String>> observedPropertiesForResultTemplates = newMap();
 
-    private final Map<String, Set<String>> offeringsForObservableProperties = newSynchronizedMap();
+    private final Map<String, Set<String>> offeringsForObservableProperties = newMap();
 
-    private final Map<String, Set<String>> offeringsForProcedures = newSynchronizedMap();
+    private final Map<String, Set<String>> offeringsForProcedures = newMap();
 
-    private final Map<String, Set<String>> parentFeaturesForFeaturesOfInterest = newSynchronizedMap();
+    private final Map<String, Set<String>> parentFeaturesForFeaturesOfInterest = newMap();
 
-    private final Map<String, Set<String>> parentProceduresForProcedures = newSynchronizedMap();
+    private final Map<String, Set<String>> parentProceduresForProcedures = newMap();
 
-    private final Map<String, Set<String>> parentOfferingsForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> parentOfferingsForOfferings = newMap();
 
-    private final Map<String, Set<String>> proceduresForFeaturesOfInterest = newSynchronizedMap();
+    private final Map<String, Set<String>> proceduresForFeaturesOfInterest = newMap();
 
-    private final Map<String, Set<String>> proceduresForObservableProperties = newSynchronizedMap();
+    private final Map<String, Set<String>> proceduresForObservableProperties = newMap();
 
-    private final Map<String, Set<String>> proceduresForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> proceduresForOfferings = newMap();
 
-    private final Map<String, Set<String>> hiddenChildProceduresForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> hiddenChildProceduresForOfferings = newMap();
 
-    private final Map<String, Set<String>> relatedFeaturesForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> relatedFeaturesForOfferings = newMap();
 
-    private final Map<String, Set<String>> resultTemplatesForOfferings = newSynchronizedMap();
+    private final Map<String, Set<String>> resultTemplatesForOfferings = newMap();
 
-    private final Map<String, Set<String>> rolesForRelatedFeatures = newSynchronizedMap();
+    private final Map<String, Set<String>> rolesForRelatedFeatures = newMap();
 
-    private final Map<String, ReferencedEnvelope> envelopeForOfferings = newSynchronizedMap();
+    private final Map<String, ReferencedEnvelope> envelopeForOfferings = newMap();
 
-    private final Map<String, String> nameForOfferings = newSynchronizedMap();
+    private final Map<String, String> nameForOfferings = newMap();
 
-    private final Map<String, MultilingualString> i18nNameForOfferings = newSynchronizedMap();
+    private final Map<String, MultilingualString> i18nNameForOfferings = newMap();
 
-    private final Map<String, MultilingualString> i18nDescriptionForOfferings = newSynchronizedMap();
+    private final Map<String, MultilingualString> i18nDescriptionForOfferings = newMap();
 
-    private final Set<Integer> epsgCodes = newSynchronizedSet();
+    private final Set<Integer> epsgCodes = newSet();
 
-    private final Set<String> featuresOfInterest = newSynchronizedSet();
+    private final Set<String> featuresOfInterest = newSet();
 
-    private final Set<String> procedures = newSynchronizedSet();
+    private final Set<String> procedures = newSet();
 
-    private final Set<String> resultTemplates = newSynchronizedSet();
+    private final Set<String> resultTemplates = newSet();
 
-    private final Set<String> offerings = newSynchronizedSet();
+    private final Set<String> offerings = newSet();
 
-    private final Set<String> compositePhenomenons = newSynchronizedSet();
+    private final Set<String> compositePhenomenons = newSet();
 
     private final TimePeriod globalPhenomenonTimeEnvelope = new TimePeriod();
 
     private final TimePeriod globalResultTimeEnvelope = new TimePeriod();
 
-    private final Map<String, ReferencedEnvelope> spatialFilteringProfileEnvelopeForOfferings = newSynchronizedMap();
+    private final Map<String, ReferencedEnvelope> spatialFilteringProfileEnvelopeForOfferings = newMap();
 
-    private final Set<Locale> supportedLanguages = newSynchronizedSet();
+    private final Set<Locale> supportedLanguages = newSet();
 
-    private final Set<String> requestableProcedureDescriptionFormats = newSynchronizedSet();
+    private final Set<String> requestableProcedureDescriptionFormats = newSet();
 
-    private final BiMap<String, String> featureOfInterestIdentifierHumanReadableName = newSynchronizedBiMap();
+    private final BiMap<String, String> featureOfInterestIdentifierHumanReadableName = newBiMap();
 
-    private final BiMap<String, String> observablePropertyIdentifierHumanReadableName = newSynchronizedBiMap();
+    private final BiMap<String, String> observablePropertyIdentifierHumanReadableName = newBiMap();
 
-    private final BiMap<String, String> procedureIdentifierHumanReadableName = newSynchronizedBiMap();
+    private final BiMap<String, String> procedureIdentifierHumanReadableName = newBiMap();
 
-    private final BiMap<String, String> offeringIdentifierHumanReadableName = newSynchronizedBiMap();
+    private final BiMap<String, String> offeringIdentifierHumanReadableName = newBiMap();
 
-    private final Map<TypeInstance, Set<String>> typeInstanceProcedures = newSynchronizedMap();
+    private final Map<TypeInstance, Set<String>> typeInstanceProcedures = newMap();
 
-    private final Map<ComponentAggregation, Set<String>> componentAggregationProcedures = newSynchronizedMap();
+    private final Map<ComponentAggregation, Set<String>> componentAggregationProcedures = newMap();
 
-    private final Map<String, Set<String>> typeOfProceduresMap = newSynchronizedMap();
+    private final Map<String, Set<String>> typeOfProceduresMap = newMap();
 
     private int defaultEpsgCode = 4326;
 
@@ -185,15 +184,17 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     private DateTime updateTime;
 
-    private final Map<String, Set<String>> procedureProcedureDescriptionFormats = newSynchronizedMap();
+    private IdentifierDictionary identifierDictionary;
 
-    private final Set<String> publishedFeatureOfInterest = newSynchronizedSet();
+    private final Map<String, Set<String>> procedureProcedureDescriptionFormats = newMap();
 
-    private final Set<String> publishedProcedure = newSynchronizedSet();
+    private final Set<String> publishedFeatureOfInterest = newSet();
 
-    private final Set<String> publishedOffering = newSynchronizedSet();
+    private final Set<String> publishedProcedure = newSet();
 
-    private final Set<String> publishedObservableProperty = newSynchronizedSet();
+    private final Set<String> publishedOffering = newSet();
+
+    private final Set<String> publishedObservableProperty = newSet();
 
     @Override
     public DateTime getLastUpdateTime() {
@@ -271,6 +272,25 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.updateTime = updateTime;
     }
 
+    /**
+     * @return the dictionary of the identifiers in the cache relations or
+     *         {@code null} if the identifiers are not interned
+     */
+    public IdentifierDictionary getIdentifierDictionary() {
+        return identifierDictionary;
+    }
+
+    /**
+     * Sets the dictionary, the identifiers of cache relations created
+     * afterwards are interned into. Should be set before the cache is filled.
+     *
+     * @param identifierDictionary
+     *            the dictionary (may be {@code null})
+     */
+    public void setIdentifierDictionary(IdentifierDictionary identifierDictionary) {
+        this.identifierDictionary = identifierDictionary;
+    }
+
     /**
      * @param defaultEpsgCode
      *            the new default EPSG code
@@ -286,7 +306,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getFeaturesOfInterest() {
-        return copyOf(this.featuresOfInterest);
+        return readOnly(this.featuresOfInterest);
     }
 
     @Override
@@ -298,7 +318,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getProcedures() {
-        return copyOf(this.procedures);
+        return readOnly(this.procedures);
     }
 
     @Override
@@ -310,7 +330,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getResultTemplates() {
-        return copyOf(this.resultTemplates);
+        return readOnly(this.resultTemplates);
     }
 
     @Override
@@ -331,52 +351,52 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getOfferings() {
-        return copyOf(this.offerings);
+        return readOnly(this.offerings);
     }
 
     @Override
     public Set<String> getOfferingsForObservableProperty(String observableProperty) {
-        return copyOf(this.offeringsForObservableProperties.get(observableProperty));
+        return readOnly(this.offeringsForObservableProperties.get(observableProperty));
     }
 
     @Override
     public Set<String> getOfferingsForProcedure(String procedure) {
-        return copyOf(this.offeringsForProcedures.get(procedure));
+        return readOnly(this.offeringsForProcedures.get(procedure));
     }
 
     @Override
     public Set<String> getProceduresForFeatureOfInterest(String featureOfInterest) {
-        return copyOf(this.proceduresForFeaturesOfInterest.get(featureOfInterest));
+        return readOnly(this.proceduresForFeaturesOfInterest.get(featureOfInterest));
     }
 
     @Override
     public Set<String> getProceduresForObservableProperty(String observableProperty) {
-        return copyOf(this.proceduresForObservableProperties.get(observableProperty));
+        return readOnly(this.proceduresForObservableProperties.get(observableProperty));
     }
 
     @Override
     public Set<String> getProceduresForOffering(String offering) {
-        return copyOf(this.proceduresForOfferings.get(offering));
+        return readOnly(this.proceduresForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getHiddenChildProceduresForOffering(String offering) {
-        return copyOf(this.hiddenChildProceduresForOfferings.get(offering));
+        return readOnly(this.hiddenChildProceduresForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getRelatedFeaturesForOffering(String offering) {
-        return copyOf(this.relatedFeaturesForOfferings.get(offering));
+        return readOnly(this.relatedFeaturesForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getResultTemplatesForOffering(String offering) {
-        return copyOf(this.resultTemplatesForOfferings.get(offering));
+        return readOnly(this.resultTemplatesForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getRolesForRelatedFeature(String relatedFeature) {
-        return copyOf(this.rolesForRelatedFeatures.get(relatedFeature));
+        return readOnly(this.rolesForRelatedFeatures.get(relatedFeature));
     }
 
     @Override
@@ -446,39 +466,39 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getAllowedObservationTypesForOffering(String offering) {
-        return copyOf(this.allowedObservationTypeForOfferings.get(offering));
+        return readOnly(this.allowedObservationTypeForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getAllObservationTypesForOffering(final String offering) {
-        Set<String> observationTypes = Sets.newHashSet(copyOf(this.allowedObservationTypeForOfferings.get(offering)));
+        Set<String> observationTypes = Sets.newHashSet(readOnly(this.allowedObservationTypeForOfferings.get(offering)));
         observationTypes.addAll(getObservationTypesForOffering(offering));
         return observationTypes;
     }
 
     @Override
     public Set<String> getFeaturesOfInterestForOffering(String offering) {
-        return copyOf(this.featuresOfInterestForOfferings.get(offering));
+        return readOnly(this.featuresOfInterestForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getOfferingsForFeatureOfInterest(final String featureOfInterest) {
-        return copyOf(this.offeringsForFeaturesOfInterest.get(featureOfInterest));
+        return readOnly(this.offeringsForFeaturesOfInterest.get(featureOfInterest));
     }
 
     @Override
     public Set<String> getFeaturesOfInterestForResultTemplate(String resultTemplate) {
-        return copyOf(this.featuresOfInterestForResultTemplates.get(resultTemplate));
+        return readOnly(this.featuresOfInterestForResultTemplates.get(resultTemplate));
     }
 
     @Override
     public Set<String> getObservablePropertiesForOffering(String offering) {
-        return copyOf(this.observablePropertiesForOfferings.get(offering));
+        return readOnly(this.observablePropertiesForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getObservablePropertiesForProcedure(String procedure) {
-        return copyOf(this.observablePropertiesForProcedures.get(procedure));
+        return readOnly(this.observablePropertiesForProcedures.get(procedure));
     }
 
     @Override
@@ -489,12 +509,12 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getObservationTypesForOffering(String offering) {
-        return copyOf(this.observationTypesForOfferings.get(offering));
+        return readOnly(this.observationTypesForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getObservablePropertiesForResultTemplate(String resultTemplate) {
-        return copyOf(this.observedPropertiesForResultTemplates.get(resultTemplate));
+        return readOnly(this.observedPropertiesForResultTemplates.get(resultTemplate));
     }
 
     @Override
@@ -594,7 +614,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getOfferingsWithResultTemplate() {
-        return copyOf(this.resultTemplatesForOfferings.keySet());
+        return readOnly(this.resultTemplatesForOfferings.keySet());
     }
 
     @Override
@@ -673,17 +693,17 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getFeatureOfInterestTypesForOffering(String offering) {
-        return copyOf(this.featureOfInterestTypesForOfferings.get(offering));
+        return readOnly(this.featureOfInterestTypesForOfferings.get(offering));
     }
 
     @Override
     public Set<String> getAllowedFeatureOfInterestTypesForOffering(String offering) {
-        return copyOf(this.allowedFeatureOfInterestTypeForOfferings.get(offering));
+        return readOnly(this.allowedFeatureOfInterestTypeForOfferings.get(offering));
     }
 
     @Override
     public Set<Locale> getSupportedLanguages() {
-        return copyOf(this.supportedLanguages);
+        return readOnly(this.supportedLanguages);
     }
 
     @Override
@@ -794,77 +814,77 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public void setObservablePropertiesForOffering(String offering, Collection<String> observableProperties) {
-        final Set<String> newValue = newSynchronizedSet(observableProperties);
+        final Set<String> newValue = newIdentifierSet(observableProperties);
         LOG.trace("Setting ObservableProperties for Offering {} to {}", offering, observableProperties);
         this.observablePropertiesForOfferings.put(offering, newValue);
     }
 
     @Override
     public void setObservablePropertiesForProcedure(String procedure, final Collection<String> observableProperties) {
-        final Set<String> newValue = newSynchronizedSet(observableProperties);
+        final Set<String> newValue = newIdentifierSet(observableProperties);
         LOG.trace("Setting ObservableProperties for Procedure {} to {}", procedure, newValue);
         this.observablePropertiesForProcedures.put(procedure, newValue);
     }
 
     @Override
     public void setObservationTypesForOffering(String offering, Collection<String> observationTypes) {
-        final Set<String> newValue = newSynchronizedSet(observationTypes);
+        final Set<String> newValue = newIdentifierSet(observationTypes);
         LOG.trace("Setting ObservationTypes for Offering {} to {}", offering, newValue);
         this.observationTypesForOfferings.put(offering, newValue);
     }
 
     @Override
     public void setOfferingsForObservableProperty(String observableProperty, Collection<String> offerings) {
-        final Set<String> newValue = newSynchronizedSet(offerings);
+        final Set<String> newValue = newIdentifierSet(offerings);
         LOG.trace("Setting Offerings for ObservableProperty {} to {}", observableProperty, newValue);
         this.offeringsForObservableProperties.put(observableProperty, newValue);
     }
 
     @Override
     public void setOfferingsForProcedure(String procedure, Collection<String> offerings) {
-        final Set<String> newValue = newSynchronizedSet(offerings);
+        final Set<String> newValue = newIdentifierSet(offerings);
         LOG.trace("Setting Offerings for Procedure {} to {}", procedure, newValue);
         this.offeringsForProcedures.put(procedure, newValue);
     }
 
     @Override
     public void setProceduresForFeatureOfInterest(String featureOfInterest, Collection<String> procedures) {
-        final Set<String> newValue = newSynchronizedSet(procedures);
+        final Set<String> newValue = newIdentifierSet(procedures);
         LOG.trace("Setting Procedures for FeatureOfInterest {} to {}", featureOfInterest, newValue);
         this.proceduresForFeaturesOfInterest.put(featureOfInterest, newValue);
     }
 
     @Override
     public void setProceduresForObservableProperty(String observableProperty, Collection<String> procedures) {
-        final Set<String> newValue = newSynchronizedSet(procedures);
+        final Set<String> newValue = newIdentifierSet(procedures);
         LOG.trace("Setting Procedures for ObservableProperty {} to {}", observableProperty, procedures);
         this.proceduresForObservableProperties.put(observableProperty, newValue);
     }
 
     @Override
     public void setProceduresForOffering(String offering, Collection<String> procedures) {
-        final Set<String> newValue = newSynchronizedSet(procedures);
+        final Set<String> newValue = newIdentifierSet(procedures);
         LOG.trace("Setting Procedures for Offering {} to {}", offering, newValue);
         this.proceduresForOfferings.put(offering, newValue);
     }
 
     @Override
     public void setRelatedFeaturesForOffering(String offering, Collection<String> relatedFeatures) {
-        final Set<String> newValue = newSynchronizedSet(relatedFeatures);
+        final Set<String> newValue = newIdentifierSet(relatedFeatures);
         LOG.trace("Setting Related Features for Offering {} to {}", offering, newValue);
         this.relatedFeaturesForOfferings.put(offering, newValue);
     }
 
     @Override
     public void setResultTemplatesForOffering(String offering, Collection<String> resultTemplates) {
-        final Set<String> newValue = newSynchronizedSet(resultTemplates);
+        final Set<String> newValue = newIdentifierSet(resultTemplates);
         LOG.trace("Setting ResultTemplates for Offering {} to {}", offering, newValue);
         this.resultTemplatesForOfferings.put(offering, newValue);
     }
 
     @Override
     public void setRolesForRelatedFeature(String relatedFeature, Collection<String> roles) {
-        final Set<String> newValue = newSynchronizedSet(roles);
+        final Set<String> newValue = newIdentifierSet(roles);
         LOG.trace("Setting Roles for RelatedFeature {} to {}", relatedFeature, newValue);
         this.rolesForRelatedFeatures.put(relatedFeature, newValue);
     }
@@ -959,7 +979,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(ALLOWED_OBSERVATION_TYPE, allowedObservationType);
         LOG.trace("Adding AllowedObservationType {} to Offering {}", allowedObservationType, offering);
-        this.allowedObservationTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
+        this.allowedObservationTypeForOfferings.computeIfAbsent(offering, createIdentifierSet())
                 .add(allowedObservationType);
     }
 
@@ -968,7 +988,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.noNullValues(ALLOWED_OBSERVATION_TYPES, allowedObservationTypes);
         LOG.trace("Adding AllowedObservationTypes {} to Offering {}", allowedObservationTypes, offering);
-        this.allowedObservationTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
+        this.allowedObservationTypeForOfferings.computeIfAbsent(offering, createIdentifierSet())
                 .addAll(allowedObservationTypes);
     }
 
@@ -977,8 +997,8 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         LOG.trace("Adding featureOfInterest {} to Offering {}", featureOfInterest, offering);
-        this.featuresOfInterestForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(featureOfInterest);
-        this.offeringsForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet()).add(offering);
+        this.featuresOfInterestForOfferings.computeIfAbsent(offering, createIdentifierSet()).add(featureOfInterest);
+        this.offeringsForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createIdentifierSet()).add(offering);
     }
 
     @Override
@@ -986,7 +1006,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         LOG.trace("Adding FeatureOfInterest {} to SosResultTemplate {}", featureOfInterest, resultTemplate);
-        this.featuresOfInterestForResultTemplates.computeIfAbsent(resultTemplate, createSynchronizedSet())
+        this.featuresOfInterestForResultTemplates.computeIfAbsent(resultTemplate, createIdentifierSet())
                 .add(featureOfInterest);
     }
 
@@ -995,7 +1015,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         CacheValidation.noNullValues(FEATURES_OF_INTEREST, featuresOfInterest);
         LOG.trace("Adding FeatureOfInterests {} to SosResultTemplate {}", featuresOfInterest, resultTemplate);
-        this.featuresOfInterestForResultTemplates.computeIfAbsent(resultTemplate, createSynchronizedSet())
+        this.featuresOfInterestForResultTemplates.computeIfAbsent(resultTemplate, createIdentifierSet())
                 .addAll(featuresOfInterest);
     }
 
@@ -1004,7 +1024,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Adding observableProperty {} to offering {}", observableProperty, offering);
-        this.observablePropertiesForOfferings.computeIfAbsent(offering, createSynchronizedSet())
+        this.observablePropertiesForOfferings.computeIfAbsent(offering, createIdentifierSet())
                 .add(observableProperty);
     }
 
@@ -1013,7 +1033,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Adding observableProperty {} to procedure {}", observableProperty, procedure);
-        this.observablePropertiesForProcedures.computeIfAbsent(procedure, createSynchronizedSet())
+        this.observablePropertiesForProcedures.computeIfAbsent(procedure, createIdentifierSet())
                 .add(observableProperty);
     }
 
@@ -1022,7 +1042,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Adding observableProperty {} to resultTemplate {}", observableProperty, resultTemplate);
-        this.observedPropertiesForResultTemplates.computeIfAbsent(resultTemplate, createSynchronizedSet())
+        this.observedPropertiesForResultTemplates.computeIfAbsent(resultTemplate, createIdentifierSet())
                 .add(observableProperty);
     }
 
@@ -1031,7 +1051,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(OBSERVATION_TYPE, observationType);
         LOG.trace("Adding observationType {} to offering {}", observationType, offering);
-        this.observationTypesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(observationType);
+        this.observationTypesForOfferings.computeIfAbsent(offering, createIdentifierSet()).add(observationType);
     }
 
     @Override
@@ -1039,7 +1059,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Adding offering {} to observableProperty {}", offering, observableProperty);
-        this.offeringsForObservableProperties.computeIfAbsent(observableProperty, createSynchronizedSet())
+        this.offeringsForObservableProperties.computeIfAbsent(observableProperty, createIdentifierSet())
                 .add(offering);
     }
 
@@ -1048,7 +1068,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Adding offering {} to procedure {}", offering, procedure);
-        this.offeringsForProcedures.computeIfAbsent(procedure, createSynchronizedSet()).add(offering);
+        this.offeringsForProcedures.computeIfAbsent(procedure, createIdentifierSet()).add(offering);
     }
 
     @Override
@@ -1056,7 +1076,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Adding procedure {} to featureOfInterest {}", procedure, featureOfInterest);
-        this.proceduresForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet())
+        this.proceduresForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createIdentifierSet())
                 .add(procedure);
     }
 
@@ -1065,7 +1085,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, observableProperty);
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Adding procedure {} to observableProperty {}", procedure, observableProperty);
-        this.proceduresForObservableProperties.computeIfAbsent(observableProperty, createSynchronizedSet())
+        this.proceduresForObservableProperties.computeIfAbsent(observableProperty, createIdentifierSet())
                 .add(procedure);
     }
 
@@ -1074,7 +1094,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Adding procedure {} to offering {}", procedure, offering);
-        this.proceduresForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(procedure);
+        this.proceduresForOfferings.computeIfAbsent(offering, createIdentifierSet()).add(procedure);
     }
 
     @Override
@@ -1082,7 +1102,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(RELATED_FEATURE, relatedFeature);
         LOG.trace("Adding relatedFeature {} to offering {}", relatedFeature, offering);
-        this.relatedFeaturesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(relatedFeature);
+        this.relatedFeaturesForOfferings.computeIfAbsent(offering, createIdentifierSet()).add(relatedFeature);
     }
 
     @Override
@@ -1090,7 +1110,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.noNullValues(RELATED_FEATURE, relatedFeature);
         LOG.trace("Adding relatedFeatures {} to offering {}", relatedFeature, offering);
-        this.relatedFeaturesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).addAll(relatedFeature);
+        this.relatedFeaturesForOfferings.computeIfAbsent(offering, createIdentifierSet()).addAll(relatedFeature);
     }
 
     @Override
@@ -1098,7 +1118,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         LOG.trace("Adding resultTemplate {} to offering {}", resultTemplate, offering);
-        this.resultTemplatesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(resultTemplate);
+        this.resultTemplatesForOfferings.computeIfAbsent(offering, createIdentifierSet()).add(resultTemplate);
     }
 
     @Override
@@ -1106,7 +1126,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RELATED_FEATURE, relatedFeature);
         CacheValidation.notNullOrEmpty("role", role);
         LOG.trace("Adding role {} to relatedFeature {}", role, relatedFeature);
-        this.rolesForRelatedFeatures.computeIfAbsent(relatedFeature, createSynchronizedSet()).add(role);
+        this.rolesForRelatedFeatures.computeIfAbsent(relatedFeature, createIdentifierSet()).add(role);
     }
 
     @Override
@@ -1403,7 +1423,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     @Override
     public void setAllowedObservationTypeForOffering(String offering, Collection<String> observationTypes) {
         CacheValidation.notNullOrEmpty(OFFERING, offering);
-        final Set<String> newValue = newSynchronizedSet(observationTypes);
+        final Set<String> newValue = newIdentifierSet(observationTypes);
         LOG.trace("Setting allowedObservationTypes for offering {} to {}", offering, newValue);
         this.allowedObservationTypeForOfferings.put(offering, newValue);
     }
@@ -1411,7 +1431,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     @Override
     public void setAllowedFeatureOfInterestTypeForOffering(String offering, Collection<String> featureTypes) {
         CacheValidation.notNullOrEmpty(OFFERING, offering);
-        final Set<String> newValue = newSynchronizedSet(featureTypes);
+        final Set<String> newValue = newIdentifierSet(featureTypes);
         LOG.trace("Setting allowedFeatureOfInterestTypes for offering {} to {}", offering, newValue);
         this.allowedFeatureOfInterestTypeForOfferings.put(offering, newValue);
     }
@@ -1419,7 +1439,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     @Override
     public void setFeaturesOfInterestForOffering(String offering, Collection<String> featureOfInterest) {
         CacheValidation.notNullOrEmpty(OFFERING, offering);
-        final Set<String> newValue = newSynchronizedSet(featureOfInterest);
+        final Set<String> newValue = newIdentifierSet(featureOfInterest);
         LOG.trace("Setting featureOfInterest for offering {} to {}", offering, newValue);
         this.featuresOfInterestForOfferings.put(offering, newValue);
     }
@@ -1430,7 +1450,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.noNullOrEmptyValues(FEATURES_OF_INTEREST, featuresOfInterest);
         LOG.trace("Adding offering {} to featureOfInterest {}", offering, featuresOfInterest);
         for (final String featureOfInterest : featuresOfInterest) {
-            this.offeringsForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet())
+            this.offeringsForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createIdentifierSet())
                     .add(offering);
         }
     }
@@ -1439,7 +1459,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     public void setObservablePropertiesForResultTemplate(String resultTemplate,
             Collection<String> observableProperties) {
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
-        final Set<String> newValue = newSynchronizedSet(observableProperties);
+        final Set<String> newValue = newIdentifierSet(observableProperties);
         LOG.trace("Setting observableProperties for resultTemplate {} to {}", resultTemplate, newValue);
         this.observedPropertiesForResultTemplates.put(resultTemplate, newValue);
     }
@@ -1449,9 +1469,9 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         CacheValidation.notNullOrEmpty(PARENT_FEATURE, parentFeature);
         LOG.trace("Adding parentFeature {} to featureOfInterest {}", parentFeature, featureOfInterest);
-        this.parentFeaturesForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet())
+        this.parentFeaturesForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createIdentifierSet())
                 .add(parentFeature);
-        this.childFeaturesForFeatureOfInterest.computeIfAbsent(parentFeature, createSynchronizedSet())
+        this.childFeaturesForFeatureOfInterest.computeIfAbsent(parentFeature, createIdentifierSet())
                 .add(featureOfInterest);
     }
 
@@ -1460,10 +1480,10 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         CacheValidation.noNullOrEmptyValues(PARENT_FEATURES, parentFeatures);
         LOG.trace("Adding parentFeatures {} to featureOfInterest {}", parentFeatures, featureOfInterest);
-        this.parentFeaturesForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet())
+        this.parentFeaturesForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createIdentifierSet())
                 .addAll(parentFeatures);
         parentFeatures.forEach(parentFeature -> this.childFeaturesForFeatureOfInterest
-                .computeIfAbsent(parentFeature, createSynchronizedSet()).add(featureOfInterest));
+                .computeIfAbsent(parentFeature, createIdentifierSet()).add(featureOfInterest));
     }
 
     @Override
@@ -1471,8 +1491,8 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         CacheValidation.notNullOrEmpty(PARENT_PROCEDURE, parentProcedure);
         LOG.trace("Adding parentProcedure {} to procedure {}", parentProcedure, procedure);
-        this.parentProceduresForProcedures.computeIfAbsent(procedure, createSynchronizedSet()).add(parentProcedure);
-        this.childProceduresForProcedures.computeIfAbsent(parentProcedure, createSynchronizedSet()).add(procedure);
+        this.parentProceduresForProcedures.computeIfAbsent(procedure, createIdentifierSet()).add(parentProcedure);
+        this.childProceduresForProcedures.computeIfAbsent(parentProcedure, createIdentifierSet()).add(procedure);
     }
 
     @Override
@@ -1480,10 +1500,10 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         CacheValidation.noNullOrEmptyValues(PARENT_PROCEDURES, parentProcedures);
         LOG.trace("Adding parentProcedures {} to procedure {}", parentProcedures, procedure);
-        this.parentProceduresForProcedures.computeIfAbsent(procedure, createSynchronizedSet())
+        this.parentProceduresForProcedures.computeIfAbsent(procedure, createIdentifierSet())
                 .addAll(parentProcedures);
         parentProcedures.forEach(parentProcedure -> this.childProceduresForProcedures
-                .computeIfAbsent(parentProcedure, createSynchronizedSet()).add(procedure));
+                .computeIfAbsent(parentProcedure, createIdentifierSet()).add(procedure));
     }
 
     @Override
@@ -1491,8 +1511,8 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(PARENT_OFFERING, parentOffering);
         LOG.trace("Adding parentOffering {} to offering {}", parentOffering, offering);
-        this.parentOfferingsForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(parentOffering);
-        this.childOfferingsForOfferings.computeIfAbsent(parentOffering, createSynchronizedSet()).add(offering);
+        this.parentOfferingsForOfferings.computeIfAbsent(offering, createIdentifierSet()).add(parentOffering);
+        this.childOfferingsForOfferings.computeIfAbsent(parentOffering, createIdentifierSet()).add(offering);
     }
 
     @Override
@@ -1500,9 +1520,9 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.noNullOrEmptyValues(PARENT_OFFERINGS, parentOfferings);
         LOG.trace("Adding parentOfferings {} to offering {}", parentOfferings, offering);
-        this.parentOfferingsForOfferings.computeIfAbsent(offering, createSynchronizedSet()).addAll(parentOfferings);
+        this.parentOfferingsForOfferings.computeIfAbsent(offering, createIdentifierSet()).addAll(parentOfferings);
         parentOfferings.forEach(parentOffering -> this.childOfferingsForOfferings
-                .computeIfAbsent(parentOffering, createSynchronizedSet()).add(offering));
+                .computeIfAbsent(parentOffering, createIdentifierSet()).add(offering));
     }
 
     @Override
@@ -1766,7 +1786,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Adding hidden child procedure {} to offering {}", procedure, offering);
-        this.hiddenChildProceduresForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(procedure);
+        this.hiddenChildProceduresForOfferings.computeIfAbsent(offering, createIdentifierSet()).add(procedure);
     }
 
     @Override
@@ -1779,7 +1799,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public void setHiddenChildProceduresForOffering(String offering, Collection<String> procedures) {
-        final Set<String> newValue = newSynchronizedSet(procedures);
+        final Set<String> newValue = newIdentifierSet(procedures);
         LOG.trace("Setting hidden child Procedures for Offering {} to {}", offering, newValue);
         this.hiddenChildProceduresForOfferings.put(offering, newValue);
     }
@@ -1829,7 +1849,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST_TYPE, featureOfInterestType);
         LOG.trace("Adding featureOfInterestType {} to offering {}", featureOfInterestType, offering);
-        this.featureOfInterestTypesForOfferings.computeIfAbsent(offering, createSynchronizedSet())
+        this.featureOfInterestTypesForOfferings.computeIfAbsent(offering, createIdentifierSet())
                 .add(featureOfInterestType);
     }
 
@@ -1851,7 +1871,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public void setFeatureOfInterestTypesForOffering(String offering, Collection<String> featureOfInterestTypes) {
-        final Set<String> newValue = newSynchronizedSet(featureOfInterestTypes);
+        final Set<String> newValue = newIdentifierSet(featureOfInterestTypes);
         LOG.trace("Setting FeatureOfInterestTypes for Offering {} to {}", offering, newValue);
         this.featureOfInterestTypesForOfferings.put(offering, newValue);
     }
@@ -1861,7 +1881,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(ALLOWED_FEATURE_OF_INTEREST_TYPE, allowedFeatureOfInterestType);
         LOG.trace("Adding AllowedFeatureOfInterestType {} to Offering {}", allowedFeatureOfInterestType, offering);
-        this.allowedFeatureOfInterestTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
+        this.allowedFeatureOfInterestTypeForOfferings.computeIfAbsent(offering, createIdentifierSet())
                 .add(allowedFeatureOfInterestType);
     }
 
@@ -1871,7 +1891,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.noNullValues(ALLOWED_FEATURE_OF_INTEREST_TYPES, allowedFeatureOfInterestTypes);
         LOG.trace("Adding AllowedFeatureOfInterestTypes {} to Offering {}", allowedFeatureOfInterestTypes, offering);
-        this.allowedFeatureOfInterestTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
+        this.allowedFeatureOfInterestTypeForOfferings.computeIfAbsent(offering, createIdentifierSet())
                 .addAll(allowedFeatureOfInterestTypes);
     }
 
@@ -2020,7 +2040,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getCompositePhenomenons() {
-        return copyOf(this.compositePhenomenons);
+        return readOnly(this.compositePhenomenons);
     }
 
     @Override
@@ -2030,7 +2050,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getCompositePhenomenonsForProcedure(String procedure) {
-        return copyOf(this.compositePhenomenonsForProcedure.get(procedure));
+        return readOnly(this.compositePhenomenonsForProcedure.get(procedure));
     }
 
     @Override
@@ -2041,7 +2061,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getCompositePhenomenonsForOffering(String offering) {
-        return copyOf(this.compositePhenomenonsForOffering.get(offering));
+        return readOnly(this.compositePhenomenonsForOffering.get(offering));
     }
 
     @Override
@@ -2052,7 +2072,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getObservablePropertiesForCompositePhenomenon(String compositePhenomenon) {
-        return copyOf(this.observablePropertiesForCompositePhenomenons.get(compositePhenomenon));
+        return readOnly(this.observablePropertiesForCompositePhenomenons.get(compositePhenomenon));
     }
 
     @Override
@@ -2064,7 +2084,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getCompositePhenomenonForObservableProperty(String observableProperty) {
-        return copyOf(this.compositePhenomenonsForObservableProperty.get(observableProperty));
+        return readOnly(this.compositePhenomenonsForObservableProperty.get(observableProperty));
     }
 
     @Override
@@ -2098,7 +2118,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         CacheValidation.notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
         LOG.trace("Adding composite phenomenon {} to procedure {}", compositePhenomenon, procedure);
-        this.compositePhenomenonsForProcedure.computeIfAbsent(procedure, createSynchronizedSet())
+        this.compositePhenomenonsForProcedure.computeIfAbsent(procedure, createIdentifierSet())
                 .add(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
     }
@@ -2108,7 +2128,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         CacheValidation.noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
         LOG.trace("Adding composite phenomenons {} to procedure {}", compositePhenomenon, procedure);
-        this.compositePhenomenonsForProcedure.computeIfAbsent(procedure, createSynchronizedSet())
+        this.compositePhenomenonsForProcedure.computeIfAbsent(procedure, createIdentifierSet())
                 .addAll(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
     }
@@ -2130,7 +2150,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
         LOG.trace("Adding composite phenomenon {} to offering {}", compositePhenomenon, offering);
-        this.compositePhenomenonsForOffering.computeIfAbsent(offering, createSynchronizedSet())
+        this.compositePhenomenonsForOffering.computeIfAbsent(offering, createIdentifierSet())
                 .add(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
     }
@@ -2140,7 +2160,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         CacheValidation.noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
         LOG.trace("Adding composite phenomenons {} to offering {}", compositePhenomenon, offering);
-        this.compositePhenomenonsForOffering.computeIfAbsent(offering, createSynchronizedSet())
+        this.compositePhenomenonsForOffering.computeIfAbsent(offering, createIdentifierSet())
                 .addAll(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
     }
@@ -2163,7 +2183,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Adding composite phenomenon {} to to observable property {}", compositePhenomenon,
                 observableProperty);
-        this.compositePhenomenonsForObservableProperty.computeIfAbsent(observableProperty, createSynchronizedSet())
+        this.compositePhenomenonsForObservableProperty.computeIfAbsent(observableProperty, createIdentifierSet())
                 .add(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
     }
@@ -2173,7 +2193,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Adding observable property {} to composite phenomenon {}", observableProperty, compositePhenomenon);
-        this.observablePropertiesForCompositePhenomenons.computeIfAbsent(compositePhenomenon, createSynchronizedSet())
+        this.observablePropertiesForCompositePhenomenons.computeIfAbsent(compositePhenomenon, createIdentifierSet())
                 .add(observableProperty);
         addCompositePhenomenon(compositePhenomenon);
     }
@@ -2185,7 +2205,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.noNullOrEmptyValues(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Adding observable properties {} to composite phenomenon {}", observableProperty,
                 compositePhenomenon);
-        this.observablePropertiesForCompositePhenomenons.computeIfAbsent(compositePhenomenon, createSynchronizedSet())
+        this.observablePropertiesForCompositePhenomenons.computeIfAbsent(compositePhenomenon, createIdentifierSet())
                 .addAll(observableProperty);
         addCompositePhenomenon(compositePhenomenon);
     }
@@ -2216,7 +2236,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getRequestableProcedureDescriptionFormat() {
-        return copyOf(this.requestableProcedureDescriptionFormats);
+        return readOnly(this.requestableProcedureDescriptionFormats);
     }
 
     @Override
@@ -2250,17 +2270,17 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getTypeInstanceProcedure(TypeInstance typeInstance) {
-        return copyOf(typeInstanceProcedures.get(typeInstance));
+        return readOnly(typeInstanceProcedures.get(typeInstance));
     }
 
     @Override
     public Set<String> getComponentAggregationProcedure(ComponentAggregation componentAggregation) {
-        return copyOf(componentAggregationProcedures.get(componentAggregation));
+        return readOnly(componentAggregationProcedures.get(componentAggregation));
     }
 
     @Override
     public Set<String> getInstancesForProcedure(String identifier) {
-        return copyOf(typeOfProceduresMap.get(identifier));
+        return readOnly(typeOfProceduresMap.get(identifier));
     }
 
     @Override
@@ -2403,7 +2423,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public void addProcedureDescriptionFormatsForProcedure(String procedure, Set<String> formats) {
-        this.procedureProcedureDescriptionFormats.computeIfAbsent(procedure, createSynchronizedSet()).addAll(formats);
+        this.procedureProcedureDescriptionFormats.computeIfAbsent(procedure, createIdentifierSet()).addAll(formats);
     }
 
     @Override
@@ -2418,22 +2438,22 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getPublishedFeatureOfInterest() {
-        return copyOf(publishedFeatureOfInterest);
+        return readOnly(publishedFeatureOfInterest);
     }
 
     @Override
     public Set<String> getPublishedProcedures() {
-        return copyOf(publishedProcedure);
+        return readOnly(publishedProcedure);
     }
 
     @Override
     public Set<String> getPublishedOfferings() {
-        return copyOf(publishedOffering);
+        return readOnly(publishedOffering);
     }
 
     @Override
     public Set<String> getPublishedObservableProperties() {
-        return copyOf(publishedObservableProperty);
+        return readOnly(publishedObservableProperty);
     }
 
     @Override
@@ -2772,8 +2792,178 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         return true;
     }
 
-    private static <X, T> Function<X, Set<T>> createSynchronizedSet() {
-        return Suppliers.<X, Set<T>> asFunction(HashSet<T>::new).andThen(Collections::synchronizedSet);
+    /**
+     * Copies the content of this cache into the supplied (empty) cache. The
+     * relation sets and envelopes are copied, so that modifications of the
+     * target do not affect this cache.
+     *
+     * @param <T>    the cache type
+     * @param target the cache to copy into
+     *
+     * @return the target
+     */
+    protected <T extends InMemoryCacheImpl> T copyTo(T target) {
+        target.setIdentifierDictionary(getIdentifierDictionary());
+        target.maxPhenomenonTimeForOfferings.putAll(this.maxPhenomenonTimeForOfferings);
+        target.minPhenomenonTimeForOfferings.putAll(this.minPhenomenonTimeForOfferings);
+        target.maxResultTimeForOfferings.putAll(this.maxResultTimeForOfferings);
+        target.minResultTimeForOfferings.putAll(this.minResultTimeForOfferings);
+        target.maxPhenomenonTimeForProcedures.putAll(this.maxPhenomenonTimeForProcedures);
+        target.minPhenomenonTimeForProcedures.putAll(this.minPhenomenonTimeForProcedures);
+        target.copySets(this.allowedObservationTypeForOfferings, target.allowedObservationTypeForOfferings);
+        target.copySets(this.allowedFeatureOfInterestTypeForOfferings, target.allowedFeatureOfInterestTypeForOfferings);
+        target.copySets(this.childFeaturesForFeatureOfInterest, target.childFeaturesForFeatureOfInterest);
+        target.copySets(this.childProceduresForProcedures, target.childProceduresForProcedures);
+        target.copySets(this.childOfferingsForOfferings, target.childOfferingsForOfferings);
+        target.copySets(this.compositePhenomenonsForProcedure, target.compositePhenomenonsForProcedure);
+        target.copySets(this.compositePhenomenonsForOffering, target.compositePhenomenonsForOffering);
+        target.copySets(this.compositePhenomenonsForObservableProperty,
+                target.compositePhenomenonsForObservableProperty);
+        target.copySets(this.featuresOfInterestForOfferings, target.featuresOfInterestForOfferings);
+        target.copySets(this.offeringsForFeaturesOfInterest, target.offeringsForFeaturesOfInterest);
+        target.copySets(this.featuresOfInterestForResultTemplates, target.featuresOfInterestForResultTemplates);
+        target.copySets(this.observablePropertiesForCompositePhenomenons,
+                target.observablePropertiesForCompositePhenomenons);
+        target.copySets(this.observablePropertiesForOfferings, target.observablePropertiesForOfferings);
+        target.copySets(this.observablePropertiesForProcedures, target.observablePropertiesForProcedures);
+        target.copySets(this.observationTypesForOfferings, target.observationTypesForOfferings);
+        target.copySets(this.featureOfInterestTypesForOfferings, target.featureOfInterestTypesForOfferings);
+        target.copySets(this.observedPropertiesForResultTemplates, target.observedPropertiesForResultTemplates);
+        target.copySets(this.offeringsForObservableProperties, target.offeringsForObservableProperties);
+        target.copySets(this.offeringsForProcedures, target.offeringsForProcedures);
+        target.copySets(this.parentFeaturesForFeaturesOfInterest, target.parentFeaturesForFeaturesOfInterest);
+        target.copySets(this.parentProceduresForProcedures, target.parentProceduresForProcedures);
+        target.copySets(this.parentOfferingsForOfferings, target.parentOfferingsForOfferings);
+        target.copySets(this.proceduresForFeaturesOfInterest, target.proceduresForFeaturesOfInterest);
+        target.copySets(this.proceduresForObservableProperties, target.proceduresForObservableProperties);
+        target.copySets(this.proceduresForOfferings, target.proceduresForOfferings);
+        target.copySets(this.hiddenChildProceduresForOfferings, target.hiddenChildProceduresForOfferings);
+        target.copySets(this.relatedFeaturesForOfferings, target.relatedFeaturesForOfferings);
+        target.copySets(this.resultTemplatesForOfferings, target.resultTemplatesForOfferings);
+        target.copySets(this.rolesForRelatedFeatures, target.rolesForRelatedFeatures);
+        this.envelopeForOfferings
+                .forEach((k, v) -> target.envelopeForOfferings.put(k, copyOf(v)));
+        target.nameForOfferings.putAll(this.nameForOfferings);
+        target.i18nNameForOfferings.putAll(this.i18nNameForOfferings);
+        target.i18nDescriptionForOfferings.putAll(this.i18nDescriptionForOfferings);
+        target.epsgCodes.addAll(this.epsgCodes);
+        target.featuresOfInterest.addAll(this.featuresOfInterest);
+        target.procedures.addAll(this.procedures);
+        target.resultTemplates.addAll(this.resultTemplates);
+        target.offerings.addAll(this.offerings);
+        target.compositePhenomenons.addAll(this.compositePhenomenons);
+        target.globalPhenomenonTimeEnvelope.setStart(this.globalPhenomenonTimeEnvelope.getStart());
+        target.globalPhenomenonTimeEnvelope.setEnd(this.globalPhenomenonTimeEnvelope.getEnd());
+        target.globalResultTimeEnvelope.setStart(this.globalResultTimeEnvelope.getStart());
+        target.globalResultTimeEnvelope.setEnd(this.globalResultTimeEnvelope.getEnd());
+        this.spatialFilteringProfileEnvelopeForOfferings
+                .forEach((k, v) -> target.spatialFilteringProfileEnvelopeForOfferings.put(k, copyOf(v)));
+        target.supportedLanguages.addAll(this.supportedLanguages);
+        target.requestableProcedureDescriptionFormats.addAll(this.requestableProcedureDescriptionFormats);
+        target.featureOfInterestIdentifierHumanReadableName.putAll(this.featureOfInterestIdentifierHumanReadableName);
+        target.observablePropertyIdentifierHumanReadableName.putAll(this.observablePropertyIdentifierHumanReadableName);
+        target.procedureIdentifierHumanReadableName.putAll(this.procedureIdentifierHumanReadableName);
+        target.offeringIdentifierHumanReadableName.putAll(this.offeringIdentifierHumanReadableName);
+        target.copySets(this.typeInstanceProcedures, target.typeInstanceProcedures);
+        target.copySets(this.componentAggregationProcedures, target.componentAggregationProcedures);
+        target.copySets(this.typeOfProceduresMap, target.typeOfProceduresMap);
+        target.copySets(this.procedureProcedureDescriptionFormats, target.procedureProcedureDescriptionFormats);
+        target.publishedFeatureOfInterest.addAll(this.publishedFeatureOfInterest);
+        target.publishedProcedure.addAll(this.publishedProcedure);
+        target.publishedOffering.addAll(this.publishedOffering);
+        target.publishedObservableProperty.addAll(this.publishedObservableProperty);
+        target.defaultEpsgCode = this.defaultEpsgCode;
+        target.globalEnvelope = copyOf(this.globalEnvelope);
+        target.updateTime = this.updateTime;
+        target.setSupportedTypeRepository(getSupportedTypeRepository());
+        return target;
+    }
+
+    private <K> void copySets(Map<K, Set<String>> source, Map<K, Set<String>> target) {
+        source.forEach((k, v) -> target.put(k, newIdentifierSet(v)));
+    }
+
+    /**
+     * @param <K> the key type
+     * @param <V> the value type
+     *
+     * @return a new map for the cache relations
+     */
+    protected <K, V> Map<K, V> newMap() {
+        return newSynchronizedMap();
+    }
+
+    /**
+     * @param <T> the element type
+     *
+     * @return a new set for the cache relations
+     */
+    protected <T> Set<T> newSet() {
+        return newSynchronizedSet();
+    }
+
+    /**
+     * @param <K> the key type
+     * @param <V> the value type
+     *
+     * @return a new bidirectional map for the cache relations
+     */
+    protected <K, V> BiMap<K, V> newBiMap() {
+        return newSynchronizedBiMap();
+    }
+
+    /**
+     * Creates a new set for the identifiers of a cache relation. If an
+     * {@link IdentifierDictionary} is set, the identifiers are stored as
+     * dictionary ids.
+     *
+     * @return a new identifier set
+     */
+    protected Set<String> newIdentifierSet() {
+        return Collections.synchronizedSet(newPlainIdentifierSet());
+    }
+
+    /**
+     * @param identifiers the identifiers (may be {@code null})
+     *
+     * @return a new identifier set containing the identifiers
+     */
+    protected Set<String> newIdentifierSet(Iterable<String> identifiers) {
+        Set<String> set = newIdentifierSet();
+        if (identifiers != null) {
+            identifiers.forEach(set::add);
+        }
+        return set;
+    }
+
+    /**
+     * @param <X> the key type
+     *
+     * @return a function creating new identifier sets for the cache relations
+     */
+    protected <X> Function<X, Set<String>> createIdentifierSet() {
+        return x -> newIdentifierSet();
+    }
+
+    /**
+     * @return a new, not synchronized identifier set
+     */
+    protected Set<String> newPlainIdentifierSet() {
+        IdentifierDictionary dictionary = getIdentifierDictionary();
+        return dictionary == null ? new HashSet<>() : new IdentifierSet(dictionary);
+    }
+
+    /**
+     * Returns the specified set to a caller outside of the cache. As the cache
+     * is modified concurrently, this is an unmodifiable copy.
+     *
+     * @param <T> the element type
+     * @param set the set
+     *
+     * @return an unmodifiable set
+     */
+    protected <T> Set<T> readOnly(Set<T> set) {
+        return copyOf(set);
     }
 
 }
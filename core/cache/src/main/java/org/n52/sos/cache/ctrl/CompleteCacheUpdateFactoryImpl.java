@@ -32,6 +32,7 @@ import javax.inject.Inject;
 
 import org.n52.iceland.cache.ContentCacheUpdate;
 import org.n52.iceland.cache.ctrl.CompleteCacheUpdateFactory;
+import org.n52.iceland.cache.ctrl.ContentCacheFactory;
 import org.n52.iceland.coding.SupportedTypeRepository;
 import org.n52.sos.cache.ctrl.action.CompleteCacheUpdate;
 import org.n52.sos.ds.CacheFeederHandler;
@@ -41,6 +42,7 @@ public class CompleteCacheUpdateFactoryImpl
 
     private CacheFeederHandler cacheFeederHandler;
     private SupportedTypeRepository supportedTypeRepository;
+    private ContentCacheFactory cacheFactory;
 
     @Inject
     public void setCacheFeederHandler(CacheFeederHandler cacheFeederHandler) {
@@ -52,9 +54,14 @@ public class CompleteCacheUpdateFactoryImpl
         this.supportedTypeRepository = supportedTypeRepository;
     }
 
+    @Inject
+    public void setCacheFactory(ContentCacheFactory cacheFactory) {
+        this.cacheFactory = cacheFactory;
+    }
+
     @Override
     public ContentCacheUpdate get() {
-        return new CompleteCacheUpdate(this.cacheFeederHandler, this.supportedTypeRepository);
+        return new CompleteCacheUpdate(this.cacheFeederHandler, this.supportedTypeRepository, this.cacheFactory);
     }
 
 }
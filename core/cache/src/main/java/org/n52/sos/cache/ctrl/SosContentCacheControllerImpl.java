@@ -46,7 +46,12 @@ package org.n52.sos.cache.ctrl;
 
 import java.util.Optional;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -54,22 +59,32 @@ import java.util.concurrent.locks.ReentrantLock;
 import javax.inject.Inject;
 
 import org.joda.time.DateTime;
-import org.n52.iceland.cache.ContentCacheController;
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.cache.ContentCachePersistenceStrategy;
 import org.n52.iceland.cache.ContentCacheUpdate;
 import org.n52.iceland.cache.WritableContentCache;
 import org.n52.iceland.cache.ctrl.CompleteCacheUpdateFactory;
 import org.n52.iceland.cache.ctrl.ContentCacheFactory;
+import org.n52.iceland.cache.ctrl.persistence.AsyncCachePersistenceStrategy;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
 import org.n52.janmayen.lifecycle.Constructable;
 import org.n52.janmayen.lifecycle.Destroyable;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.cache.AbstractStaticSosContentCache;
 import org.n52.sos.cache.ContentCacheFactoryImpl;
+import org.n52.sos.cache.CopyOnWriteCacheImpl;
+import org.n52.sos.cache.SosContentCacheController;
+import org.n52.sos.cache.SosWritableContentCache;
+import org.n52.sos.cache.ctrl.action.IncrementalCacheUpdate;
+import org.n52.sos.ds.CacheFeederHandler;
+import org.n52.sos.service.SosSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-public class SosContentCacheControllerImpl implements ContentCacheController, Constructable, Destroyable {
+@Configurable
+public class SosContentCacheControllerImpl implements SosContentCacheController, Constructable, Destroyable {
     private static final Logger LOGGER = LoggerFactory.getLogger(SosContentCacheControllerImpl.class);
 
     private static final AtomicInteger COMPLETE_UPDATE_COUNT = new AtomicInteger(0);
@@ -81,10 +96,23 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
     private CompleteUpdate next;
     private volatile WritableContentCache cache;
     private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock writeLock = new ReentrantLock();
 
     private ContentCachePersistenceStrategy persistenceStrategy;
     private ContentCacheFactory cacheFactory;
     private CompleteCacheUpdateFactory completeCacheUpdateFactory;
+    private CacheFeederHandler cacheFeederHandler;
+    private boolean incrementalUpdate;
+    private long writeBehindDelay;
+    private ScheduledExecutorService persister;
+    private ScheduledFuture<?> persistTask;
+    private final AtomicInteger pendingPartialUpdates = new AtomicInteger(0);
+    private final AtomicLong persistCount = new AtomicLong(0);
+    private final AtomicLong persistTime = new AtomicLong(0);
+    private volatile long lastPersistTime;
+    private final AtomicLong updateGeneration = new AtomicLong(0);
+
+    private final AtomicLong reloadGeneration = new AtomicLong(0);
 
     @Inject
     public void setCacheFactory(ContentCacheFactory cacheFactory) {
@@ -101,15 +129,65 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
         this.completeCacheUpdateFactory = factory;
     }
 
+    @Inject
+    public void setCacheFeederHandler(CacheFeederHandler cacheFeederHandler) {
+        this.cacheFeederHandler = cacheFeederHandler;
+    }
+
+    @Setting(SosSettings.INCREMENTAL_CACHE_UPDATE)
+    public void setIncrementalUpdate(boolean incrementalUpdate) {
+        this.incrementalUpdate = incrementalUpdate;
+    }
+
+    /**
+     * Set the delay in seconds, partial updates are persisted after. Partial
+     * updates that are executed within this delay are persisted together by
+     * a background thread. A delay of {@code 0} (the default) persists every
+     * partial update immediately. The delay is only honoured by persistence
+     * strategies that persist synchronously, like the
+     * {@code ImmediatePersistenceStrategy}. It is ignored by the
+     * {@link AsyncCachePersistenceStrategy}, the default strategy, which
+     * delays persisting by {@code service.cachePersistenceDelay}.
+     *
+     * @param writeBehindDelay the delay in seconds
+     */
+    @Setting(SosSettings.CACHE_WRITE_BEHIND_DELAY)
+    public synchronized void setWriteBehindDelay(int writeBehindDelay) {
+        this.writeBehindDelay = Math.max(0, writeBehindDelay);
+        if (this.persister != null) {
+            schedulePersister();
+        }
+    }
+
     @Override
-    public void init() {
+    public synchronized void init() {
+        this.persister = Executors.newSingleThreadScheduledExecutor(
+                new GroupedAndNamedThreadFactory("cache-persister"));
+        schedulePersister();
         loadOrCreateCache();
     }
 
+    private synchronized void schedulePersister() {
+        if (this.persistTask != null) {
+            this.persistTask.cancel(false);
+            this.persistTask = null;
+        }
+        if (isWriteBehind()) {
+            this.persistTask = this.persister.scheduleWithFixedDelay(this::persistPendingUpdates,
+                    this.writeBehindDelay, this.writeBehindDelay, TimeUnit.SECONDS);
+        } else if (this.writeBehindDelay > 0) {
+            LOGGER.info("Ignoring the cache write-behind delay, {} already persists asynchronously",
+                    this.persistenceStrategy.getClass().getSimpleName());
+        }
+        // persist the updates that are pending with the former delay
+        persistPendingUpdates();
+    }
+
     private void loadOrCreateCache() {
         Optional<WritableContentCache> optionalCache = persistenceStrategy.load();
         if (optionalCache.isPresent()) {
             setCache(optionalCache.get());
+            this.reloadGeneration.incrementAndGet();
             if (getCache() instanceof AbstractStaticSosContentCache
                     && this.cacheFactory instanceof ContentCacheFactoryImpl) {
                 ((AbstractStaticSosContentCache) getCache()).setSupportedTypeRepository(
@@ -118,6 +196,7 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
         } else {
             // cache file doesn't exist, try to load cache from datasource
             setCache(this.cacheFactory.get());
+            this.reloadGeneration.incrementAndGet();
             try {
                 update();
             } catch (OwsExceptionReport e) {
@@ -134,10 +213,32 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
 
     protected void setCache(WritableContentCache wcc) {
         this.cache = wcc;
+        this.updateGeneration.incrementAndGet();
+    }
+
+    @Override
+    public long getUpdateGeneration() {
+        return updateGeneration.get();
+    }
+
+    @Override
+    public long getReloadGeneration() {
+        return reloadGeneration.get();
     }
 
     @Override
     public void destroy() {
+        synchronized (this) {
+            if (this.persister != null) {
+                this.persister.shutdown();
+                try {
+                    this.persister.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        this.pendingPartialUpdates.set(0);
         lock();
         try {
             persistenceStrategy.persistOnShutdown(getCache());
@@ -157,6 +258,10 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
                 }
                 cache.setLastUpdateTime(DateTime.now());
             } finally {
+                updateGeneration.incrementAndGet();
+                if (update.isCompleteUpdate() || update instanceof IncrementalCacheUpdate) {
+                    reloadGeneration.incrementAndGet();
+                }
                 current = null;
             }
         } else {
@@ -166,16 +271,36 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
 
     @Override
     public void update() throws OwsExceptionReport {
+        if (isIncrementalUpdatePossible()) {
+            IncrementalCacheUpdate update = new IncrementalCacheUpdate(this.cacheFeederHandler);
+            update(update);
+            if (!update.isCompleteUpdateRequired()) {
+                return;
+            }
+            LOGGER.debug("Incremental update not possible, executing complete update");
+        }
         update(this.completeCacheUpdateFactory.get());
     }
 
+    /**
+     * Incremental updates are only merged into a cache that was already
+     * filled by a complete update.
+     */
+    private boolean isIncrementalUpdatePossible() {
+        return incrementalUpdate && cacheFeederHandler != null && getCache() instanceof SosWritableContentCache
+                && ((SosWritableContentCache) getCache()).getLastUpdateTime() != null;
+    }
+
     private void runCurrent() throws OwsExceptionReport {
         LOGGER.trace(STARTING_UPDATE, this.current);
         this.current.execute();
         LOGGER.trace(FINISHED_UPDATE, this.current);
         lock();
         try {
+            this.pendingPartialUpdates.set(0);
+            long start = System.nanoTime();
             persistenceStrategy.persistOnCompleteUpdate(getCache());
+            recordPersist(start);
             CompleteUpdate u = this.current;
             this.current = null;
             u.signalWaiting();
@@ -185,19 +310,113 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
     }
 
     private void executePartial(PartialUpdate update) throws OwsExceptionReport {
-        update.execute(getCache());
+        if (getCache() instanceof CopyOnWriteCacheImpl) {
+            executePartialOnCopy(update);
+        } else {
+            update.execute(getCache());
+        }
         lock();
         try {
             if (this.current != null) {
                 this.current.addUpdate(update);
+            } else if (isWriteBehind()) {
+                this.pendingPartialUpdates.incrementAndGet();
             } else {
+                long start = System.nanoTime();
                 persistenceStrategy.persistOnPartialUpdate(getCache());
+                recordPersist(start);
             }
         } finally {
             unlock();
         }
     }
 
+    /**
+     * Write-behind is only applied to strategies that persist synchronously,
+     * the {@link AsyncCachePersistenceStrategy} already coalesces pending
+     * updates.
+     */
+    private boolean isWriteBehind() {
+        return this.writeBehindDelay > 0
+                && !(this.persistenceStrategy instanceof AsyncCachePersistenceStrategy);
+    }
+
+    /**
+     * Persists the partial updates that were executed since the last persist.
+     * Executed by the background persister. The cache is persisted while
+     * holding the lock, so that no update modifies it concurrently.
+     */
+    private void persistPendingUpdates() {
+        lock();
+        try {
+            int pending = this.pendingPartialUpdates.getAndSet(0);
+            if (pending > 0) {
+                try {
+                    long start = System.nanoTime();
+                    persistenceStrategy.persistOnPartialUpdate(getCache());
+                    recordPersist(start);
+                    LOGGER.debug("Persisted {} partial updates in {} ms", pending, getLastPersistTime());
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error persisting partial updates", e);
+                    this.pendingPartialUpdates.addAndGet(pending);
+                }
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    private void recordPersist(long start) {
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.lastPersistTime = duration;
+        this.persistTime.addAndGet(duration);
+        this.persistCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of partial updates that are not yet persisted
+     */
+    public int getPendingPartialUpdates() {
+        return this.pendingPartialUpdates.get();
+    }
+
+    /**
+     * @return the number of cache persists
+     */
+    public long getPersistCount() {
+        return this.persistCount.get();
+    }
+
+    /**
+     * @return the duration of the last cache persist in milliseconds
+     */
+    public long getLastPersistTime() {
+        return this.lastPersistTime;
+    }
+
+    /**
+     * @return the average duration of the cache persists in milliseconds
+     */
+    public long getAveragePersistTime() {
+        long count = this.persistCount.get();
+        return count == 0 ? 0 : this.persistTime.get() / count;
+    }
+
+    /**
+     * Applies the update to a copy of the current cache and publishes the copy
+     * afterwards, so that readers never observe a cache that is modified.
+     */
+    private void executePartialOnCopy(PartialUpdate update) throws OwsExceptionReport {
+        writeLock.lock();
+        try {
+            CopyOnWriteCacheImpl copy = ((CopyOnWriteCacheImpl) getCache()).copy();
+            update.execute(copy);
+            setCache(copy);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     private void executeComplete(CompleteUpdate update) throws OwsExceptionReport {
         boolean isCurrent = false;
         boolean isNext = false;
@@ -364,7 +583,13 @@ public class SosContentCacheControllerImpl implements ContentCacheController, Co
         }
 
         void execute() throws OwsExceptionReport {
-            setCache(execute(getCache()));
+            WritableContentCache updated = execute(getCache());
+            writeLock.lock();
+            try {
+                setCache(updated);
+            } finally {
+                writeLock.unlock();
+            }
         }
 
         WritableContentCache execute(WritableContentCache cache) throws OwsExceptionReport {
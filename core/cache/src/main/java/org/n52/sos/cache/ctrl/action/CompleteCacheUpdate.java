@@ -28,6 +28,7 @@
  */
 package org.n52.sos.cache.ctrl.action;
 
+import org.n52.iceland.cache.ctrl.ContentCacheFactory;
 import org.n52.iceland.coding.SupportedTypeRepository;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.cache.InMemoryCacheImpl;
@@ -44,16 +45,23 @@ public class CompleteCacheUpdate
 
     private SupportedTypeRepository supportedTypeRepository;
 
+    private ContentCacheFactory cacheFactory;
+
     public CompleteCacheUpdate(CacheFeederHandler cacheFeederDAO, SupportedTypeRepository supportedTypeRepository) {
         super(cacheFeederDAO);
         this.supportedTypeRepository = supportedTypeRepository;
     }
 
+    public CompleteCacheUpdate(CacheFeederHandler cacheFeederDAO, SupportedTypeRepository supportedTypeRepository,
+            ContentCacheFactory cacheFactory) {
+        this(cacheFeederDAO, supportedTypeRepository);
+        this.cacheFactory = cacheFactory;
+    }
+
     @Override
     public void execute() {
         try {
-            SosWritableContentCache cache = (SosWritableContentCache) new InMemoryCacheImpl()
-                    .setSupportedTypeRepository(supportedTypeRepository);
+            SosWritableContentCache cache = createCache();
             getCacheFeederDAO().updateCache(cache);
             setCache(cache);
         } catch (OwsExceptionReport ex) {
@@ -61,6 +69,13 @@ public class CompleteCacheUpdate
         }
     }
 
+    private SosWritableContentCache createCache() {
+        if (cacheFactory != null) {
+            return (SosWritableContentCache) cacheFactory.get();
+        }
+        return (SosWritableContentCache) new InMemoryCacheImpl().setSupportedTypeRepository(supportedTypeRepository);
+    }
+
     @Override
     public boolean isCompleteUpdate() {
         return true;
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.action;
+
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.CacheFeederHandler;
+
+/**
+ * Partial update that merges the offerings modified in the datasource since
+ * the last cache update into the live cache.
+ *
+ * @since 5.0.3
+ */
+public class IncrementalCacheUpdate extends CacheFeederDAOCacheUpdate {
+
+    private volatile boolean completeUpdateRequired;
+
+    public IncrementalCacheUpdate(CacheFeederHandler cacheFeederDAO) {
+        super(cacheFeederDAO);
+    }
+
+    @Override
+    public void execute() {
+        try {
+            completeUpdateRequired = !getCacheFeederDAO().updateCacheIncrementally(getCache());
+        } catch (OwsExceptionReport ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * @return {@code true} if the datasource changes could not be merged and
+     *         a complete update is required
+     */
+    public boolean isCompleteUpdateRequired() {
+        return completeUpdateRequired;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[completeUpdateRequired=%s]", getClass().getSimpleName(), completeUpdateRequired);
+    }
+}
@@ -30,13 +30,22 @@ package org.n52.sos.cache.ctrl.action;
 
 import com.google.common.base.Preconditions;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
 
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.iceland.util.action.Action;
 import org.n52.shetland.ogc.OGCConstants;
 import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.shetland.ogc.om.AbstractPhenomenon;
 import org.n52.shetland.ogc.om.NamedValue;
 import org.n52.shetland.ogc.om.OmCompositePhenomenon;
@@ -44,8 +53,10 @@ import org.n52.shetland.ogc.om.OmObservableProperty;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.om.features.samplingFeatures.AbstractSamplingFeature;
 import org.n52.sos.cache.InMemoryCacheImpl;
+import org.n52.sos.cache.WriteableTimeCache;
 import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
 
+import org.joda.time.DateTime;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 
@@ -92,87 +103,88 @@ public class ObservationInsertionUpdate extends InMemoryCacheUpdate {
         // TODO Review required methods and update test accordingly (@see
         // SensorInsertionInMemoryCacheUpdate)
         // Always update the javadoc when changing this method!
+        // fold the observations into one entry per constellation to keep
+        // the number of cache mutations independent of the observation count
+        Delta delta = new Delta();
         for (OmObservation observation : request.getObservations()) {
-            AbstractPhenomenon observableProperty = observation.getObservationConstellation().getObservableProperty();
-            final String observationType = observation.getObservationConstellation().getObservationType();
-            final String procedure = observation.getObservationConstellation().getProcedure().getIdentifier();
-            final Time phenomenonTime = observation.getPhenomenonTime();
-            final Time resultTime = observation.getResultTime();
+            delta.add(observation);
+        }
+        if (delta.isEmpty()) {
+            return;
+        }
 
+        final Time phenomenonTime = delta.phenomenonTime.toTime();
+        final Time resultTime = delta.resultTime.toTime();
+        if (phenomenonTime != null) {
             cache.updatePhenomenonTime(phenomenonTime);
-            cache.updateResultTime(resultTime);
-            cache.updatePhenomenonTimeForProcedure(procedure, phenomenonTime);
-
-            // update features
-            List<AbstractSamplingFeature> observedFeatures =
-                    sosFeaturesToList(observation.getObservationConstellation().getFeatureOfInterest());
-
-            final Envelope envelope = createEnvelopeFrom(observedFeatures);
-
-            for (AbstractSamplingFeature sosSamplingFeature : observedFeatures) {
-                String featureOfInterest = sosSamplingFeature.getIdentifierCodeWithAuthority().getValue();
+        }
+        cache.updateResultTime(resultTime);
+        for (Entry<String, TimeExtent> procedurePhenomenonTime : delta.procedurePhenomenonTimes.entrySet()) {
+            if (procedurePhenomenonTime.getValue().toTime() != null) {
+                cache.updatePhenomenonTimeForProcedure(procedurePhenomenonTime.getKey(),
+                        procedurePhenomenonTime.getValue().toTime());
+            }
+        }
 
-                cache.addFeatureOfInterest(featureOfInterest);
-                cache.addPublishedFeatureOfInterest(featureOfInterest);
-                cache.addPublishedFeatureOfInterest(featureOfInterest);
-                if (sosSamplingFeature.isSetName()) {
-                    cache.addFeatureOfInterestIdentifierHumanReadableName(featureOfInterest,
-                            sosSamplingFeature.getFirstName().getValue());
-                }
+        // update features
+        for (Entry<String, Set<String>> featureProcedures : delta.featureProcedures.entrySet()) {
+            String featureOfInterest = featureProcedures.getKey();
+            cache.addFeatureOfInterest(featureOfInterest);
+            cache.addPublishedFeatureOfInterest(featureOfInterest);
+            if (delta.featureNames.containsKey(featureOfInterest)) {
+                cache.addFeatureOfInterestIdentifierHumanReadableName(featureOfInterest,
+                        delta.featureNames.get(featureOfInterest));
+            }
+            for (String procedure : featureProcedures.getValue()) {
                 cache.addProcedureForFeatureOfInterest(featureOfInterest, procedure);
-                if (sosSamplingFeature.isSetSampledFeatures()) {
-                    for (AbstractFeature parentFeature : sosSamplingFeature.getSampledFeatures()) {
-                        cache.addParentFeature(sosSamplingFeature.getIdentifierCodeWithAuthority().getValue(),
-                                parentFeature.getIdentifierCodeWithAuthority().getValue());
-                        cache.addPublishedFeatureOfInterest(parentFeature.getIdentifierCodeWithAuthority().getValue());
-                    }
-                }
-                for (String offering : request.getOfferings()) {
-                    cache.addRelatedFeatureForOffering(offering, featureOfInterest);
-                    cache.addFeatureOfInterestForOffering(offering, featureOfInterest);
-                    if (!OGCConstants.UNKNOWN.equals(sosSamplingFeature.getFeatureType())) {
-                        cache.addFeatureOfInterestTypesForOffering(offering, sosSamplingFeature.getFeatureType());
-                    }
-                }
             }
-
-            // update Spatial Filtering Profile envelope
-            Envelope spatialFitleringProfileEnvelope = new Envelope();
-            if (observation.isSetParameter()) {
-                for (NamedValue<?> namedValue : observation.getParameter()) {
-                    if (Sos2Constants.HREF_PARAMETER_SPATIAL_FILTERING_PROFILE
-                            .equals(namedValue.getName().getHref())) {
-                        if (namedValue.getValue().isSetValue()) {
-                            spatialFitleringProfileEnvelope.expandToInclude(
-                                    ((Geometry) namedValue.getValue().getValue()).getEnvelopeInternal());
-                            spatialFitleringProfileEnvelope.expandToInclude(
-                                    ((Geometry) namedValue.getValue().getValue()).getEnvelopeInternal());
-                        }
-                    }
-                }
+            for (String parentFeature : delta.parentFeatures.getOrDefault(featureOfInterest,
+                    Collections.emptySet())) {
+                cache.addParentFeature(featureOfInterest, parentFeature);
+                cache.addPublishedFeatureOfInterest(parentFeature);
             }
-
-            // update offerings
             for (String offering : request.getOfferings()) {
+                cache.addRelatedFeatureForOffering(offering, featureOfInterest);
+                cache.addFeatureOfInterestForOffering(offering, featureOfInterest);
+            }
+        }
+
+        // update offerings
+        for (String offering : request.getOfferings()) {
+            cache.addOffering(offering);
+            Set<String> hiddenChildProcedures = cache.getHiddenChildProceduresForOffering(offering);
+            for (String procedure : delta.procedurePhenomenonTimes.keySet()) {
                 // procedure
-                cache.addOffering(offering);
-                if (!cache.getHiddenChildProceduresForOffering(offering).contains(procedure)) {
+                if (!hiddenChildProcedures.contains(procedure)) {
                     cache.addProcedureForOffering(offering, procedure);
                 }
                 cache.addOfferingForProcedure(procedure, offering);
-                // observation type
+            }
+            for (String featureType : delta.featureTypes) {
+                cache.addFeatureOfInterestTypesForOffering(offering, featureType);
+            }
+            // observation type
+            for (String observationType : delta.observationTypes) {
                 cache.addObservationTypesForOffering(offering, observationType);
-                // envelopes/bounding boxes (spatial and temporal)
+            }
+            // envelopes/bounding boxes (spatial and temporal)
+            if (phenomenonTime != null) {
                 cache.updatePhenomenonTimeForOffering(offering, phenomenonTime);
-                cache.updateResultTimeForOffering(offering, resultTime);
-                cache.updateEnvelopeForOffering(offering, envelope);
-                cache.updateGlobalEnvelope(envelope);
-                if (!envelope.isNull()) {
-                    cache.updateSpatialFilteringProfileEnvelopeForOffering(offering, spatialFitleringProfileEnvelope);
-                }
             }
+            cache.updateResultTimeForOffering(offering, resultTime);
+            cache.updateEnvelopeForOffering(offering, delta.envelope);
+            cache.updateGlobalEnvelope(delta.envelope);
+            if (delta.updateSpatialFilteringProfileEnvelope) {
+                cache.updateSpatialFilteringProfileEnvelopeForOffering(offering,
+                        delta.spatialFilteringProfileEnvelope);
+            }
+        }
 
-            updateObservableProperties(cache, observableProperty, procedure);
+        for (Entry<String, Map<String, AbstractPhenomenon>> procedureObservableProperties : delta.observableProperties
+                .entrySet()) {
+            for (AbstractPhenomenon observableProperty : procedureObservableProperties.getValue().values()) {
+                updateObservableProperties(cache, observableProperty, procedureObservableProperties.getKey());
+            }
         }
     }
 
@@ -202,4 +214,104 @@ public class ObservationInsertionUpdate extends InMemoryCacheUpdate {
             }
         }
     }
+
+    /**
+     * The changes of the observations of the request, aggregated per
+     * procedure, feature and observable property.
+     */
+    private final class Delta {
+        private final TimeExtent phenomenonTime = new TimeExtent();
+        private final TimeExtent resultTime = new TimeExtent();
+        private final Map<String, TimeExtent> procedurePhenomenonTimes = new LinkedHashMap<>();
+        private final Map<String, Map<String, AbstractPhenomenon>> observableProperties = new LinkedHashMap<>();
+        private final Set<String> observationTypes = new LinkedHashSet<>();
+        private final Map<String, Set<String>> featureProcedures = new LinkedHashMap<>();
+        private final Map<String, String> featureNames = new HashMap<>();
+        private final Map<String, Set<String>> parentFeatures = new HashMap<>();
+        private final Set<String> featureTypes = new LinkedHashSet<>();
+        private final Envelope envelope = new Envelope();
+        private final Envelope spatialFilteringProfileEnvelope = new Envelope();
+        private boolean updateSpatialFilteringProfileEnvelope;
+        private boolean empty = true;
+
+        void add(OmObservation observation) {
+            empty = false;
+            AbstractPhenomenon observableProperty = observation.getObservationConstellation().getObservableProperty();
+            final String procedure = observation.getObservationConstellation().getProcedure().getIdentifier();
+            final Time phenomenonTime = Objects.requireNonNull(observation.getPhenomenonTime(), "phenomenonTime");
+
+            this.phenomenonTime.include(phenomenonTime);
+            this.resultTime.include(observation.getResultTime());
+            this.procedurePhenomenonTimes.computeIfAbsent(procedure, p -> new TimeExtent()).include(phenomenonTime);
+            this.observableProperties.computeIfAbsent(procedure, p -> new LinkedHashMap<>())
+                    .putIfAbsent(observableProperty.getIdentifier(), observableProperty);
+            this.observationTypes.add(observation.getObservationConstellation().getObservationType());
+
+            // features
+            List<AbstractSamplingFeature> observedFeatures =
+                    sosFeaturesToList(observation.getObservationConstellation().getFeatureOfInterest());
+            final Envelope featureEnvelope = createEnvelopeFrom(observedFeatures);
+            this.envelope.expandToInclude(featureEnvelope);
+            for (AbstractSamplingFeature sosSamplingFeature : observedFeatures) {
+                String featureOfInterest = sosSamplingFeature.getIdentifierCodeWithAuthority().getValue();
+                this.featureProcedures.computeIfAbsent(featureOfInterest, f -> new LinkedHashSet<>()).add(procedure);
+                if (sosSamplingFeature.isSetName()) {
+                    this.featureNames.put(featureOfInterest, sosSamplingFeature.getFirstName().getValue());
+                }
+                if (sosSamplingFeature.isSetSampledFeatures()) {
+                    Set<String> parents = this.parentFeatures.computeIfAbsent(featureOfInterest,
+                            f -> new LinkedHashSet<>());
+                    for (AbstractFeature parentFeature : sosSamplingFeature.getSampledFeatures()) {
+                        parents.add(parentFeature.getIdentifierCodeWithAuthority().getValue());
+                    }
+                }
+                if (!OGCConstants.UNKNOWN.equals(sosSamplingFeature.getFeatureType())) {
+                    this.featureTypes.add(sosSamplingFeature.getFeatureType());
+                }
+            }
+
+            // update Spatial Filtering Profile envelope
+            if (!featureEnvelope.isNull()) {
+                this.updateSpatialFilteringProfileEnvelope = true;
+                if (observation.isSetParameter()) {
+                    for (NamedValue<?> namedValue : observation.getParameter()) {
+                        if (Sos2Constants.HREF_PARAMETER_SPATIAL_FILTERING_PROFILE
+                                .equals(namedValue.getName().getHref()) && namedValue.getValue().isSetValue()) {
+                            this.spatialFilteringProfileEnvelope.expandToInclude(
+                                    ((Geometry) namedValue.getValue().getValue()).getEnvelopeInternal());
+                        }
+                    }
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+    }
+
+    /**
+     * The temporal extent of several times.
+     */
+    private static final class TimeExtent {
+        private DateTime start;
+        private DateTime end;
+
+        void include(Time time) {
+            if (time == null) {
+                return;
+            }
+            TimePeriod period = WriteableTimeCache.toTimePeriod(time);
+            if (period.getStart() != null && (start == null || start.isAfter(period.getStart()))) {
+                start = period.getStart();
+            }
+            if (period.getEnd() != null && (end == null || end.isBefore(period.getEnd()))) {
+                end = period.getEnd();
+            }
+        }
+
+        Time toTime() {
+            return start == null && end == null ? null : new TimePeriod(start, end);
+        }
+    }
 }
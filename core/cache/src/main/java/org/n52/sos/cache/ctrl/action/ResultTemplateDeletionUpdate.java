@@ -45,6 +45,7 @@
 */
 package org.n52.sos.cache.ctrl.action;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -83,9 +84,10 @@ public class ResultTemplateDeletionUpdate extends InMemoryCacheUpdate {
         }
         final List<String> deletedResultTemplates = response.getResultTemplates();
         // link between offering and result template
-        final Set<String> offeringsWithResultTemplate = getCache().getOfferingsWithResultTemplate();
+        // copy before iterating, the cache may hand out live views of the sets modified below
+        final Set<String> offeringsWithResultTemplate = new HashSet<>(getCache().getOfferingsWithResultTemplate());
         for (String offeringId : offeringsWithResultTemplate) {
-            for (String resultTemplateId : getCache().getResultTemplatesForOffering(offeringId)) {
+            for (String resultTemplateId : new HashSet<>(getCache().getResultTemplatesForOffering(offeringId))) {
                 for (String deletedResultTemplateId : deletedResultTemplates) {
                     if (resultTemplateId.equals(deletedResultTemplateId)) {
                         getCache().removeResultTemplateForOffering(offeringId, resultTemplateId);
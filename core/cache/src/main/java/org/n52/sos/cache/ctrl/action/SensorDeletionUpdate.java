@@ -79,7 +79,7 @@ public class SensorDeletionUpdate extends CacheFeederDAOCacheUpdate {
         cache.removeMinPhenomenonTimeForProcedure(procedure);
         cache.removeMaxPhenomenonTimeForProcedure(procedure);
 
-        for (String feature : cache.getFeaturesOfInterest()) {
+        for (String feature : Sets.newHashSet(cache.getFeaturesOfInterest())) {
             cache.removeProcedureForFeatureOfInterest(feature, procedure);
             if (cache.getProceduresForFeatureOfInterest(feature).isEmpty()) {
                 cache.removeProceduresForFeatureOfInterest(feature);
@@ -87,7 +87,7 @@ public class SensorDeletionUpdate extends CacheFeederDAOCacheUpdate {
         }
 
         Set<String> offeringsNeedingReload = Sets.newHashSet();
-        for (String offering : cache.getOfferingsForProcedure(procedure)) {
+        for (String offering : Sets.newHashSet(cache.getOfferingsForProcedure(procedure))) {
             cache.removeProcedureForOffering(offering, procedure);
 
             if (cache.getHiddenChildProceduresForOffering(offering).contains(procedure)) {
@@ -105,12 +105,12 @@ public class SensorDeletionUpdate extends CacheFeederDAOCacheUpdate {
                 cache.removeObservationTypesForOffering(offering);
                 cache.removeEnvelopeForOffering(offering);
                 cache.removeSpatialFilteringProfileEnvelopeForOffering(offering);
-                for (String observableProperty : cache.getObservablePropertiesForOffering(offering)) {
+                for (String observableProperty : Sets.newHashSet(cache.getObservablePropertiesForOffering(offering))) {
                     cache.removeOfferingForObservableProperty(observableProperty, offering);
                 }
                 cache.clearCompositePhenomenonForOffering(offering);
                 cache.removeObservablePropertiesForOffering(offering);
-                Set<String> resultTemplatesToRemove = cache.getResultTemplatesForOffering(offering);
+                Set<String> resultTemplatesToRemove = Sets.newHashSet(cache.getResultTemplatesForOffering(offering));
                 cache.removeResultTemplatesForOffering(offering);
                 cache.removeResultTemplates(resultTemplatesToRemove);
                 for (String resultTemplate : resultTemplatesToRemove) {
@@ -133,7 +133,7 @@ public class SensorDeletionUpdate extends CacheFeederDAOCacheUpdate {
         cache.setPublishedFeaturesOfInterest(cache.getFeaturesOfInterestWithOffering());
 
         // observable property relations
-        for (String observableProperty : cache.getObservablePropertiesForProcedure(procedure)) {
+        for (String observableProperty : Sets.newHashSet(cache.getObservablePropertiesForProcedure(procedure))) {
             cache.removeProcedureForObservableProperty(observableProperty, procedure);
             cache.removeObservablePropertyForProcedure(procedure, observableProperty);
         }
@@ -228,6 +228,23 @@ public class ContentCacheControllerImplTest {
         Assert.assertEquals(MIN_TIME, getCache().getMinPhenomenonTime(), phenomenonTime);
     }
 
+    @Test
+    public void should_update_temporal_BoundingBoxes_with_extent_of_all_observations_after_InsertObservation()
+            throws OwsExceptionReport {
+        insertObservationRequestExample(PROCEDURE, 5000L);
+        OmObservation later = ((InsertObservationRequest) request).getObservations().get(0);
+        insertObservationRequestExample(PROCEDURE, 1000L);
+        ((InsertObservationRequest) request).addObservation(later);
+        controller.update(new ObservationInsertionUpdate((InsertObservationRequest) request));
+
+        Assert.assertEquals(MIN_TIME, DateTimeHelper.toUTC(new DateTime(1000L)), getCache().getMinPhenomenonTime());
+        Assert.assertEquals(MAX_TIME, DateTimeHelper.toUTC(new DateTime(5000L)), getCache().getMaxPhenomenonTime());
+        Assert.assertEquals(MIN_TIME, DateTimeHelper.toUTC(new DateTime(1000L)),
+                getCache().getMinPhenomenonTimeForProcedure(PROCEDURE));
+        Assert.assertEquals(MAX_TIME, DateTimeHelper.toUTC(new DateTime(5000L)),
+                getCache().getMaxPhenomenonTimeForOffering(getFirstOffering()));
+    }
+
     @Test
     public void should_contain_procedure_after_InsertObservation() throws OwsExceptionReport {
         insertObservationPreparation();
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.n52.shetland.util.ReferencedEnvelope;
+
+public class CopyOnWriteCacheImplTest {
+    private static final String OFFERING = "offering";
+    private static final String PROCEDURE_1 = "procedure-1";
+    private static final String PROCEDURE_2 = "procedure-2";
+
+    private CopyOnWriteCacheImpl cache;
+
+    @Before
+    public void setUp() {
+        cache = new CopyOnWriteCacheImpl();
+        cache.addOffering(OFFERING);
+        cache.addProcedure(PROCEDURE_1);
+        cache.addProcedureForOffering(OFFERING, PROCEDURE_1);
+        cache.setEnvelopeForOffering(OFFERING, new ReferencedEnvelope(new Envelope(0, 1, 0, 1), 4326));
+    }
+
+    @Test
+    public void should_create_equal_copy() {
+        assertThat(cache.copy(), is(cache));
+    }
+
+    @Test
+    public void should_not_modify_original_when_copy_is_modified() {
+        CopyOnWriteCacheImpl copy = cache.copy();
+        copy.addProcedure(PROCEDURE_2);
+        copy.addProcedureForOffering(OFFERING, PROCEDURE_2);
+        copy.setEnvelopeForOffering(OFFERING, new ReferencedEnvelope(new Envelope(5, 6, 5, 6), 4326));
+
+        assertThat(cache.getProcedures(), contains(PROCEDURE_1));
+        assertThat(cache.getProceduresForOffering(OFFERING), contains(PROCEDURE_1));
+        assertThat(cache.getEnvelopeForOffering(OFFERING).getEnvelope(), is(new Envelope(0, 1, 0, 1)));
+        assertThat(copy.getProceduresForOffering(OFFERING), containsInAnyOrder(PROCEDURE_1, PROCEDURE_2));
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdentifierSetTest {
+    private static final String FEATURE_PREFIX = "http://www.52north.org/test/featureOfInterest/";
+
+    private IdentifierDictionary dictionary;
+
+    @Before
+    public void setUp() {
+        dictionary = new IdentifierDictionary();
+    }
+
+    @Test
+    public void should_behave_like_hash_set() {
+        IdentifierSet set = new IdentifierSet(dictionary);
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertThat(set.add(FEATURE_PREFIX + i), is(expected.add(FEATURE_PREFIX + i)));
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            assertThat(set.remove(FEATURE_PREFIX + i), is(expected.remove(FEATURE_PREFIX + i)));
+        }
+        for (int i = 0; i < 500; i++) {
+            assertThat(set.add(FEATURE_PREFIX + i), is(expected.add(FEATURE_PREFIX + i)));
+        }
+        assertThat(set.size(), is(expected.size()));
+        assertThat(set, is(expected));
+        assertThat(set.contains(FEATURE_PREFIX + 1001), is(false));
+        assertThat(set.remove(FEATURE_PREFIX + 1001), is(false));
+    }
+
+    @Test
+    public void should_share_identifiers_between_sets() {
+        IdentifierSet set1 = new IdentifierSet(dictionary);
+        IdentifierSet set2 = new IdentifierSet(dictionary);
+        set1.add(new String(FEATURE_PREFIX + 1));
+        set2.add(new String(FEATURE_PREFIX + 1));
+        assertThat(dictionary.size(), is(1));
+        assertThat(set1.iterator().next() == set2.iterator().next(), is(true));
+    }
+
+    @Test
+    public void should_remove_with_iterator() {
+        IdentifierSet set = new IdentifierSet(dictionary);
+        for (int i = 0; i < 10; i++) {
+            set.add(FEATURE_PREFIX + i);
+        }
+        Iterator<String> iter = set.iterator();
+        while (iter.hasNext()) {
+            if (!iter.next().endsWith("3")) {
+                iter.remove();
+            }
+        }
+        assertThat(set, containsInAnyOrder(FEATURE_PREFIX + 3));
+        set.clear();
+        assertThat(set, is(empty()));
+    }
+
+    @Test
+    public void should_be_serializable() throws IOException, ClassNotFoundException {
+        IdentifierSet set = new IdentifierSet(dictionary);
+        set.add(FEATURE_PREFIX + 1);
+        set.add(FEATURE_PREFIX + 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(set);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            IdentifierSet read = (IdentifierSet) ois.readObject();
+            assertThat(read, containsInAnyOrder(FEATURE_PREFIX + 1, FEATURE_PREFIX + 2));
+            assertThat(read.add(FEATURE_PREFIX + 3), is(true));
+            assertThat(read.contains(FEATURE_PREFIX + 3), is(true));
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.n52.iceland.cache.ctrl.ContentCacheFactory;
+import org.n52.iceland.cache.ctrl.persistence.NoOpCachePersistenceStrategy;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.cache.ctrl.CompleteCacheUpdateFactoryImpl;
+import org.n52.sos.cache.ctrl.SosContentCacheControllerImpl;
+import org.n52.sos.ds.CacheFeederHandler;
+
+public class SosContentCacheControllerImplTest {
+
+    @Test
+    public void should_execute_incremental_update_if_enabled() throws OwsExceptionReport {
+        CountingCacheFeederHandler cacheFeederHandler = new CountingCacheFeederHandler(true);
+        SosContentCacheControllerImpl controller = createController(cacheFeederHandler);
+        assertThat(cacheFeederHandler.complete.get(), is(1));
+
+        controller.setIncrementalUpdate(true);
+        controller.update();
+        assertThat(cacheFeederHandler.incremental.get(), is(1));
+        assertThat(cacheFeederHandler.complete.get(), is(1));
+    }
+
+    @Test
+    public void should_execute_complete_update_if_incremental_update_not_possible() throws OwsExceptionReport {
+        CountingCacheFeederHandler cacheFeederHandler = new CountingCacheFeederHandler(false);
+        SosContentCacheControllerImpl controller = createController(cacheFeederHandler);
+
+        controller.setIncrementalUpdate(true);
+        controller.update();
+        assertThat(cacheFeederHandler.incremental.get(), is(1));
+        assertThat(cacheFeederHandler.complete.get(), is(2));
+    }
+
+    @Test
+    public void should_execute_complete_update_if_incremental_update_disabled() throws OwsExceptionReport {
+        CountingCacheFeederHandler cacheFeederHandler = new CountingCacheFeederHandler(true);
+        SosContentCacheControllerImpl controller = createController(cacheFeederHandler);
+
+        controller.update();
+        assertThat(cacheFeederHandler.incremental.get(), is(0));
+        assertThat(cacheFeederHandler.complete.get(), is(2));
+    }
+
+    @Test
+    public void should_coalesce_partial_updates_with_write_behind_delay() throws OwsExceptionReport {
+        SosContentCacheControllerImpl controller = new SosContentCacheControllerImpl();
+        controller.setWriteBehindDelay(3600);
+        controller = createController(controller, new CountingCacheFeederHandler(true));
+        long persists = controller.getPersistCount();
+
+        for (int i = 0; i < 3; i++) {
+            controller.update(new OfferingUpdate("offering" + i));
+        }
+        assertThat(controller.getPendingPartialUpdates(), is(3));
+        assertThat(controller.getPersistCount(), is(persists));
+        assertThat(controller.getCache().getOfferings().size(), is(3));
+
+        controller.destroy();
+        assertThat(controller.getPendingPartialUpdates(), is(0));
+    }
+
+    @Test
+    public void should_persist_partial_updates_immediately_without_write_behind_delay() throws OwsExceptionReport {
+        SosContentCacheControllerImpl controller = createController(new CountingCacheFeederHandler(true));
+        long persists = controller.getPersistCount();
+
+        controller.update(new OfferingUpdate("offering"));
+        assertThat(controller.getPendingPartialUpdates(), is(0));
+        assertThat(controller.getPersistCount(), is(persists + 1));
+        controller.destroy();
+    }
+
+    @Test
+    public void should_change_reload_generation_only_on_datasource_updates() throws OwsExceptionReport {
+        SosContentCacheControllerImpl controller = createController(new CountingCacheFeederHandler(true));
+        long reloads = controller.getReloadGeneration();
+        long updates = controller.getUpdateGeneration();
+
+        controller.update(new OfferingUpdate("offering"));
+        assertThat(controller.getReloadGeneration(), is(reloads));
+        assertThat(controller.getUpdateGeneration(), is(updates + 1));
+
+        controller.setIncrementalUpdate(true);
+        controller.update();
+        assertThat(controller.getReloadGeneration(), is(reloads + 1));
+        controller.destroy();
+    }
+
+    @Test
+    public void should_not_change_reload_generation_on_partial_updates_of_copy_on_write_cache()
+            throws OwsExceptionReport {
+        SosContentCacheControllerImpl controller = createController(new SosContentCacheControllerImpl(),
+                new CountingCacheFeederHandler(true), CopyOnWriteCacheImpl::new);
+        long reloads = controller.getReloadGeneration();
+        long updates = controller.getUpdateGeneration();
+
+        controller.update(new OfferingUpdate("offering"));
+        assertThat(controller.getCache().getOfferings().size(), is(1));
+        assertThat(controller.getReloadGeneration(), is(reloads));
+        assertThat(controller.getUpdateGeneration(), is(greaterThan(updates)));
+        controller.destroy();
+    }
+
+    private SosContentCacheControllerImpl createController(CacheFeederHandler cacheFeederHandler) {
+        return createController(new SosContentCacheControllerImpl(), cacheFeederHandler);
+    }
+
+    private SosContentCacheControllerImpl createController(SosContentCacheControllerImpl controller,
+            CacheFeederHandler cacheFeederHandler) {
+        return createController(controller, cacheFeederHandler, InMemoryCacheImpl::new);
+    }
+
+    private SosContentCacheControllerImpl createController(SosContentCacheControllerImpl controller,
+            CacheFeederHandler cacheFeederHandler, ContentCacheFactory cacheFactory) {
+        CompleteCacheUpdateFactoryImpl cacheUpdateFactory = new CompleteCacheUpdateFactoryImpl();
+        cacheUpdateFactory.setCacheFeederHandler(cacheFeederHandler);
+        controller.setCacheFactory(cacheFactory);
+        controller.setPersistenceStrategy(new NoOpCachePersistenceStrategy());
+        controller.setCompleteCacheUpdateFactory(cacheUpdateFactory);
+        controller.setCacheFeederHandler(cacheFeederHandler);
+        controller.init();
+        return controller;
+    }
+
+    private static class OfferingUpdate extends SosContentCacheUpdate {
+        private final String offering;
+
+        OfferingUpdate(String offering) {
+            this.offering = offering;
+        }
+
+        @Override
+        public void execute() {
+            getCache().addOffering(offering);
+        }
+
+        @Override
+        public boolean isCompleteUpdate() {
+            return false;
+        }
+    }
+
+    private static class CountingCacheFeederHandler implements CacheFeederHandler {
+        private final AtomicInteger complete = new AtomicInteger();
+        private final AtomicInteger incremental = new AtomicInteger();
+        private final boolean incrementalPossible;
+
+        CountingCacheFeederHandler(boolean incrementalPossible) {
+            this.incrementalPossible = incrementalPossible;
+        }
+
+        @Override
+        public void updateCacheOfferings(SosWritableContentCache cache, Collection<String> offerings)
+                throws OwsExceptionReport {
+        }
+
+        @Override
+        public void updateCache(SosWritableContentCache cache) throws OwsExceptionReport {
+            complete.incrementAndGet();
+        }
+
+        @Override
+        public boolean updateCacheIncrementally(SosWritableContentCache cache) throws OwsExceptionReport {
+            incremental.incrementAndGet();
+            return incrementalPossible;
+        }
+    }
+}
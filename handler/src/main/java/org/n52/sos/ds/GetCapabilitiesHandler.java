@@ -56,6 +56,8 @@ import javax.xml.namespace.QName;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.locationtech.jts.geom.Geometry;
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
 import org.n52.io.request.IoParameters;
 import org.n52.series.db.DataAccessException;
 import org.n52.series.db.HibernateSessionStore;
@@ -88,6 +90,7 @@ import org.n52.shetland.util.CollectionHelper;
 import org.n52.shetland.util.OMHelper;
 import org.n52.shetland.util.ReferencedEnvelope;
 import org.n52.sos.config.CapabilitiesExtensionService;
+import org.n52.sos.service.SosSettings;
 import org.n52.sos.util.I18NHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -99,6 +102,7 @@ import com.google.common.collect.Sets;
  *
  * @since 4.0.0
  */
+@Configurable
 public class GetCapabilitiesHandler extends AbstractSosGetCapabilitiesHandler implements ApiQueryHelper, I18NHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GetCapabilitiesHandler.class);
@@ -111,6 +115,13 @@ public class GetCapabilitiesHandler extends AbstractSosGetCapabilitiesHandler im
     @Inject
     private CapabilitiesExtensionService capabilitiesExtensionService;
 
+    private boolean cacheBasedContents;
+
+    @Setting(SosSettings.CACHE_BASED_CAPABILITIES_CONTENTS)
+    public void setCacheBasedContents(boolean cacheBasedContents) {
+        this.cacheBasedContents = cacheBasedContents;
+    }
+
     /**
      * Get the contents for SOS 1.0.0 capabilities
      *
@@ -228,6 +239,9 @@ public class GetCapabilitiesHandler extends AbstractSosGetCapabilitiesHandler im
     @Override
     protected List<SosObservationOffering> getContentsForSosV2(
             SectionSpecificContentObject sectionSpecificContentObject) throws OwsExceptionReport {
+        if (cacheBasedContents) {
+            return getCacheBasedContentsForSosV2(sectionSpecificContentObject);
+        }
         Session session = null;
         try {
             session = sessionStore.getSession();
@@ -28,7 +28,10 @@
  */
 package org.n52.sos.ds;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +39,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 
@@ -50,6 +54,7 @@ import org.n52.series.db.dao.DatasetDao;
 import org.n52.series.db.dao.DbQuery;
 import org.n52.shetland.ogc.filter.TemporalFilter;
 import org.n52.shetland.ogc.gml.ReferenceType;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
 import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
@@ -122,7 +127,11 @@ public class GetDataAvailabilityHandler extends AbstractGetDataAvailabilityHandl
         try {
             GDARequestContext context = new GDARequestContext(request);
             boolean gdaV20 = checkForGDAv20(request);
-            for (final DatasetEntity entity : new DatasetDao<>(session).getAllInstances(createDbQuery(request))) {
+            List<DatasetEntity> datasets = new DatasetDao<>(session).getAllInstances(createDbQuery(request));
+            if (isIncludeResultTime(request) && dao.isPresent()) {
+                context.setResultTimes(getResultTimes(datasets, request, session));
+            }
+            for (final DatasetEntity entity : datasets) {
                 if (gdaV20) {
                     processDataAvailabilityV2(entity, context, session);
                 } else {
@@ -141,6 +150,46 @@ public class GetDataAvailabilityHandler extends AbstractGetDataAvailabilityHandl
         }
     }
 
+    /**
+     * Query the result times of all datasets with one query per batch of
+     * datasets instead of one query per {@link DataAvailability}. The result
+     * times are merged for datasets with the same procedure, observed property
+     * and feature of interest.
+     *
+     * @param datasets
+     *            the datasets to query the result times for
+     * @param request
+     *            GetDataAvailability request
+     * @param session
+     *            Hibernate session
+     * @return the ordered result times mapped by constellation
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    private Map<List<String>, List<TimeInstant>> getResultTimes(List<DatasetEntity> datasets,
+            GetDataAvailabilityRequest request, Session session) throws OwsExceptionReport {
+        Map<Long, DatasetEntity> entities = new HashMap<>(datasets.size());
+        for (DatasetEntity entity : datasets) {
+            entities.put(entity.getId(), entity);
+        }
+        Map<List<String>, Set<TimeInstant>> merged = new HashMap<>();
+        for (Entry<Long, List<TimeInstant>> entry : dao.get().getResultTimes(entities.keySet(), request, session)
+                .entrySet()) {
+            merged.computeIfAbsent(getConstellationKey(entities.get(entry.getKey())),
+                    key -> new TreeSet<>(Comparator.comparing(TimeInstant::getValue))).addAll(entry.getValue());
+        }
+        Map<List<String>, List<TimeInstant>> resultTimes = new HashMap<>(merged.size());
+        for (Entry<List<String>, Set<TimeInstant>> entry : merged.entrySet()) {
+            resultTimes.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return resultTimes;
+    }
+
+    private List<String> getConstellationKey(DatasetEntity entity) {
+        return Arrays.asList(entity.getProcedure().getIdentifier(), entity.getPhenomenon().getIdentifier(),
+                entity.getFeature().getIdentifier());
+    }
+
     private DbQuery createDbQuery(GetDataAvailabilityRequest req) {
         Map<String, String> map = Maps.newHashMap();
         if (req.isSetFeaturesOfInterest()) {
@@ -171,8 +220,8 @@ public class GetDataAvailabilityHandler extends AbstractGetDataAvailabilityHandl
             if (isShowCount(context.getRequest()) && entity.getObservationCount() >= 0) {
                 dataAvailability.setCount(entity.getObservationCount());
             }
-            if (isIncludeResultTime(context.getRequest()) && dao.isPresent()) {
-                dataAvailability.setResultTimes(dao.get().getResultTimes(dataAvailability, context.getRequest()));
+            if (context.isSetResultTimes()) {
+                dataAvailability.setResultTimes(context.getResultTimes(getConstellationKey(entity)));
             }
             return dataAvailability;
         }
@@ -282,22 +331,27 @@ public class GetDataAvailabilityHandler extends AbstractGetDataAvailabilityHandl
     }
 
     private List<DataAvailability> checkForDuplictation(List<DataAvailability> dataAvailabilityValues) {
-        List<DataAvailability> checked = Lists.newLinkedList();
+        List<DataAvailability> checked = Lists.newArrayListWithCapacity(dataAvailabilityValues.size());
+        // duplicates share procedure, observed property and feature, so only
+        // those with the same references have to be compared
+        Map<List<String>, List<DataAvailability>> index = new HashMap<>(dataAvailabilityValues.size());
         for (DataAvailability dataAvailability : dataAvailabilityValues) {
-            if (checked.isEmpty()) {
-                checked.add(dataAvailability);
-            } else {
-                boolean notDuplicated = true;
-                for (DataAvailability checkedDA : checked) {
-                    if (dataAvailability.equals(checkedDA)) {
-                        checkedDA.getPhenomenonTime().extendToContain(dataAvailability.getPhenomenonTime());
-                        notDuplicated = false;
-                    }
-                }
-                if (notDuplicated) {
-                    checked.add(dataAvailability);
+            List<DataAvailability> candidates = index.computeIfAbsent(
+                    Arrays.asList(dataAvailability.getProcedure().getHref(),
+                            dataAvailability.getObservedProperty().getHref(),
+                            dataAvailability.getFeatureOfInterest().getHref()),
+                    key -> Lists.newLinkedList());
+            boolean notDuplicated = true;
+            for (DataAvailability checkedDA : candidates) {
+                if (dataAvailability.equals(checkedDA)) {
+                    checkedDA.getPhenomenonTime().extendToContain(dataAvailability.getPhenomenonTime());
+                    notDuplicated = false;
                 }
             }
+            if (notDuplicated) {
+                candidates.add(dataAvailability);
+                checked.add(dataAvailability);
+            }
         }
         return checked;
     }
@@ -470,6 +524,10 @@ public class GetDataAvailabilityHandler extends AbstractGetDataAvailabilityHandl
 
         private Map<String, ReferenceType> offerings = new HashMap<>();
 
+        private Map<String, List<DataAvailability>> dataAvailabilitiesByOffering = new HashMap<>();
+
+        private Map<List<String>, List<TimeInstant>> resultTimes;
+
         public GDARequestContext(GetDataAvailabilityRequest request) {
             this.request = request;
         }
@@ -496,19 +554,23 @@ public class GetDataAvailabilityHandler extends AbstractGetDataAvailabilityHandl
 
         public GDARequestContext setDataAvailabilityList(List<DataAvailability> dataAvailabilityValues) {
             this.dataAvailabilityValues.clear();
+            this.dataAvailabilitiesByOffering.clear();
             return addDataAvailabilities(dataAvailabilityValues);
         }
 
         public GDARequestContext addDataAvailability(DataAvailability dataAvailability) {
             if (dataAvailability != null) {
                 this.dataAvailabilityValues.add(dataAvailability);
+                this.dataAvailabilitiesByOffering
+                        .computeIfAbsent(dataAvailability.getOfferingString(), offering -> Lists.newArrayList())
+                        .add(dataAvailability);
             }
             return this;
         }
 
         public GDARequestContext addDataAvailabilities(Collection<DataAvailability> dataAvailabilityValues) {
             if (dataAvailabilityValues != null) {
-                this.dataAvailabilityValues.addAll(dataAvailabilityValues);
+                dataAvailabilityValues.forEach(this::addDataAvailability);
             }
             return this;
         }
@@ -518,26 +580,30 @@ public class GetDataAvailabilityHandler extends AbstractGetDataAvailabilityHandl
         }
 
         public boolean hasDataAvailability(String requestedOffering) {
-            for (DataAvailability dataAvailability : dataAvailabilityValues) {
-                if (requestedOffering.equals(dataAvailability.getOfferingString())) {
-                    return true;
-                }
-            }
-            return false;
+            return dataAvailabilitiesByOffering.containsKey(requestedOffering);
         }
 
         public Set<DataAvailability> getDataAvailability(String offering) {
-            Set<DataAvailability> das = Sets.newHashSet();
-            for (DataAvailability dataAvailability : dataAvailabilityValues) {
-                if (offering.equals(dataAvailability.getOfferingString())) {
-                    das.add(dataAvailability);
-                }
-            }
-            return das;
+            List<DataAvailability> das = dataAvailabilitiesByOffering.get(offering);
+            return das != null ? Sets.newHashSet(das) : Sets.newHashSet();
         }
 
         public boolean isSetDataAvailabilityList() {
-            return getDataAvailabilityList() != null && !getDataAvailabilityList().isEmpty();
+            return !dataAvailabilityValues.isEmpty();
+        }
+
+        public GDARequestContext setResultTimes(Map<List<String>, List<TimeInstant>> resultTimes) {
+            this.resultTimes = resultTimes;
+            return this;
+        }
+
+        public boolean isSetResultTimes() {
+            return resultTimes != null;
+        }
+
+        public List<TimeInstant> getResultTimes(List<String> constellation) {
+            List<TimeInstant> times = resultTimes.get(constellation);
+            return times != null ? new ArrayList<>(times) : new ArrayList<>();
         }
 
     }
@@ -29,12 +29,21 @@
 package org.n52.sos.ds;
 
 import java.util.Collection;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
+import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.criterion.Restrictions;
 import org.joda.time.Period;
 import org.joda.time.format.PeriodFormat;
 import org.n52.faroe.ConfigurationError;
@@ -45,8 +54,15 @@ import org.n52.iceland.cache.WritableContentCache;
 import org.n52.iceland.i18n.I18NDAORepository;
 import org.n52.iceland.i18n.I18NSettings;
 import org.n52.iceland.ogc.ows.OwsServiceMetadataRepository;
+import org.n52.io.request.IoParameters;
 import org.n52.janmayen.i18n.LocaleHelper;
 import org.n52.series.db.HibernateSessionStore;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.DescribableEntity;
+import org.n52.series.db.beans.OfferingEntity;
+import org.n52.series.db.dao.DbQuery;
+import org.n52.series.db.dao.OfferingDao;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
@@ -54,11 +70,16 @@ import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.cache.SosWritableContentCache;
 import org.n52.sos.ds.cache.CacheFeederSettingDefinitionProvider;
 import org.n52.sos.ds.cache.InitialCacheUpdate;
+import org.n52.sos.ds.cache.OfferingState;
+import org.n52.sos.ds.cache.OfferingState.DatasetState;
 import org.n52.sos.ds.cache.base.OfferingCacheUpdate;
+import org.n52.sos.service.SosSettings;
 import org.n52.sos.util.GeometryHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Maps;
+
 /**
  * Implementation of the interface CacheFeederDAO
  *
@@ -84,6 +105,11 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
     private OwsServiceMetadataRepository serviceMetadataRepository;
     private HibernateSessionStore sessionStore;
     private GeometryHandler geometryHandler;
+    private boolean incrementalUpdate;
+    /**
+     * The offering states of the last complete or incremental update.
+     */
+    private volatile Map<String, OfferingState> offeringStates;
 
     @Inject
     public void setConnectionProvider(HibernateSessionStore sessionStore) {
@@ -110,6 +136,18 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
         this.geometryHandler = geometryHandler;
     }
 
+    /**
+     * Set whether incremental cache updates are used. If so, the state of the
+     * offerings and datasets is recorded with every complete cache update.
+     *
+     * @param incrementalUpdate
+     *            whether incremental cache updates are used
+     */
+    @Setting(SosSettings.INCREMENTAL_CACHE_UPDATE)
+    public void setIncrementalUpdate(boolean incrementalUpdate) {
+        this.incrementalUpdate = incrementalUpdate;
+    }
+
     @Setting(CacheFeederSettingDefinitionProvider.CACHE_THREAD_COUNT)
     public void setCacheThreadCount(int threads) throws ConfigurationError {
         Validation.greaterZero("Cache Thread Count", threads);
@@ -134,10 +172,18 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
             update.setErrors(errors);
             update.setSession(session);
 
+            this.offeringStates = null;
+            // query the states before the update, so that concurrent changes are found by the next update
+            Map<String, OfferingState> states =
+                    this.incrementalUpdate ? getOfferingStates(session, new LinkedList<>()) : null;
+
             LOGGER.info("Starting cache update");
             long cacheUpdateStartTime = System.currentTimeMillis();
 
             update.execute();
+            if (errors.isEmpty()) {
+                this.offeringStates = states;
+            }
 
             logCacheLoadTime(cacheUpdateStartTime);
         } catch (Exception e) {
@@ -170,7 +216,8 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
                 this.cacheThreadCount,
                 this.defaultLocale,
                 this.geometryHandler,
-                this.sessionStore);
+                this.sessionStore,
+                offeringsNeedingUpdate);
         update.setCache(cache);
         update.setErrors(errors);
         update.setSession(session);
@@ -199,6 +246,188 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
         }
     }
 
+    @Override
+    public boolean updateCacheIncrementally(SosWritableContentCache cache) throws OwsExceptionReport {
+        checkCacheNotNull(cache);
+        Map<String, OfferingState> previousStates = this.offeringStates;
+        Map<String, OfferingState> states;
+        Set<String> modifiedOfferings;
+        Session session = null;
+        try {
+            session = this.sessionStore.getSession();
+            Collection<DatasetEntity> datasets = new LinkedList<>();
+            states = getOfferingStates(session, datasets);
+            if (!states.keySet().containsAll(cache.getOfferings())) {
+                LOGGER.debug("Offerings were deleted from the datasource, incremental cache update not possible");
+                return false;
+            }
+            if (datasets.stream().anyMatch(d -> !cache.hasProcedure(d.getProcedure().getIdentifier()))) {
+                LOGGER.debug("Procedures were added to the datasource, incremental cache update not possible");
+                return false;
+            }
+            modifiedOfferings = states.values().stream()
+                    .filter(state -> previousStates == null || !cache.hasOffering(state.getIdentifier())
+                            || !state.equals(previousStates.get(state.getIdentifier())))
+                    .map(OfferingState::getIdentifier).collect(Collectors.toSet());
+            if (modifiedOfferings.isEmpty()) {
+                LOGGER.debug("No offerings modified since the last cache update");
+                this.offeringStates = states;
+                return true;
+            }
+            if (!updateDatasetRelations(cache, datasets, getDatasetStates(modifiedOfferings, states, previousStates))) {
+                LOGGER.debug("Procedures or observable properties were deleted from the datasource, "
+                        + "incremental cache update not possible");
+                return false;
+            }
+        } catch (HibernateException e) {
+            throw new NoApplicableCodeException().causedBy(e).withMessage(ERROR_UPDATE_CACHE);
+        } finally {
+            this.sessionStore.returnSession(session);
+        }
+        updateCacheOfferings(cache, modifiedOfferings);
+        cache.recalculatePhenomenonTime();
+        cache.recalculateResultTime();
+        cache.recalculateGlobalEnvelope();
+        this.offeringStates = states;
+        return true;
+    }
+
+    /**
+     * Query the state of all offerings and their datasets. The state is taken
+     * from the offering and dataset rows, the observations are not queried.
+     *
+     * @param session
+     *            the session
+     * @param datasets
+     *            the collection the queried datasets are added to
+     * @return the offering states by identifier
+     */
+    private Map<String, OfferingState> getOfferingStates(Session session, Collection<DatasetEntity> datasets) {
+        Map<String, OfferingState> states = Maps.newHashMap();
+        Map<Long, OfferingState> statesById = Maps.newHashMap();
+        for (OfferingEntity offering : new OfferingDao(session).get(new DbQuery(IoParameters.createDefaults()))) {
+            OfferingState state = new OfferingState(offering);
+            states.put(offering.getIdentifier(), state);
+            statesById.put(offering.getId(), state);
+        }
+        for (DatasetEntity dataset : getDatasets(session)) {
+            OfferingState state = statesById.get(dataset.getOffering().getId());
+            if (state != null) {
+                state.addDataset(dataset);
+                datasets.add(dataset);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Query the datasets together with the procedures, observable properties,
+     * offerings and features their state is made of.
+     */
+    @SuppressWarnings("unchecked")
+    private List<DatasetEntity> getDatasets(Session session) {
+        Criteria c = session.createCriteria(DatasetEntity.class)
+                .add(Restrictions.eq(DatasetEntity.PROPERTY_DELETED, false))
+                .setFetchMode(DatasetEntity.PROPERTY_PROCEDURE, FetchMode.JOIN)
+                .setFetchMode(DatasetEntity.PROPERTY_PHENOMENON, FetchMode.JOIN)
+                .setFetchMode(DatasetEntity.PROPERTY_OFFERING, FetchMode.JOIN)
+                .setFetchMode(DatasetEntity.PROPERTY_FEATURE, FetchMode.JOIN);
+        return c.list();
+    }
+
+    /**
+     * @return the previous and the current dataset states of the modified
+     *         offerings
+     */
+    private List<DatasetState> getDatasetStates(Set<String> modifiedOfferings, Map<String, OfferingState> states,
+            Map<String, OfferingState> previousStates) {
+        List<DatasetState> datasetStates = new LinkedList<>();
+        for (String offering : modifiedOfferings) {
+            datasetStates.addAll(states.get(offering).getDatasets());
+            if (previousStates != null && previousStates.containsKey(offering)) {
+                datasetStates.addAll(previousStates.get(offering).getDatasets());
+            }
+        }
+        return datasetStates;
+    }
+
+    /**
+     * Replace the relations of the procedures, observable properties and
+     * features of the modified datasets, which are not maintained by the
+     * offering cache update, with the relations of the current datasets. This
+     * removes the relations of deleted or changed datasets.
+     *
+     * @return {@code false} if a procedure or an observable property has no
+     *         dataset left and a complete update is required
+     */
+    private boolean updateDatasetRelations(SosWritableContentCache cache, Collection<DatasetEntity> datasets,
+            Collection<DatasetState> modified) {
+        Set<String> procedures = modified.stream().map(DatasetState::getProcedure).collect(Collectors.toSet());
+        Set<String> observableProperties =
+                modified.stream().map(DatasetState::getObservableProperty).collect(Collectors.toSet());
+        Set<String> features = modified.stream().filter(DatasetState::isSetFeature).map(DatasetState::getFeature)
+                .collect(Collectors.toSet());
+        Map<String, List<DatasetEntity>> byProcedure = datasets.stream()
+                .filter(d -> procedures.contains(d.getProcedure().getIdentifier()))
+                .collect(Collectors.groupingBy(d -> d.getProcedure().getIdentifier()));
+        Map<String, List<DatasetEntity>> byObservableProperty = datasets.stream()
+                .filter(d -> observableProperties.contains(d.getPhenomenon().getIdentifier()))
+                .collect(Collectors.groupingBy(d -> d.getPhenomenon().getIdentifier()));
+        Map<String, List<DatasetEntity>> byFeature = datasets.stream()
+                .filter(d -> d.isSetFeature() && features.contains(d.getFeature().getIdentifier()))
+                .collect(Collectors.groupingBy(d -> d.getFeature().getIdentifier()));
+        if (!byProcedure.keySet().containsAll(procedures)
+                || !byObservableProperty.keySet().containsAll(observableProperties)) {
+            return false;
+        }
+        byProcedure.forEach((procedure, ds) -> {
+            cache.setOfferingsForProcedure(procedure, identifiers(ds, DatasetEntity::getOffering));
+            cache.setObservablePropertiesForProcedure(procedure, identifiers(ds, DatasetEntity::getPhenomenon));
+            cache.removeMinPhenomenonTimeForProcedure(procedure);
+            cache.removeMaxPhenomenonTimeForProcedure(procedure);
+            ds.stream().filter(d -> d.getFirstValueAt() != null && d.getLastValueAt() != null)
+                    .forEach(d -> cache.updatePhenomenonTimeForProcedure(procedure,
+                            new TimePeriod(d.getFirstValueAt(), d.getLastValueAt())));
+            if (ds.stream().anyMatch(DatasetEntity::isPublished)) {
+                cache.addPublishedProcedure(procedure);
+            } else {
+                cache.removePublishedProcedure(procedure);
+            }
+        });
+        byObservableProperty.forEach((observableProperty, ds) -> {
+            cache.setOfferingsForObservableProperty(observableProperty, identifiers(ds, DatasetEntity::getOffering));
+            cache.setProceduresForObservableProperty(observableProperty,
+                    identifiers(ds, DatasetEntity::getProcedure));
+            if (ds.stream().anyMatch(DatasetEntity::isPublished)) {
+                cache.addPublishedObservableProperty(observableProperty);
+            } else {
+                cache.removePublishedObservableProperty(observableProperty);
+            }
+        });
+        for (String feature : features) {
+            List<DatasetEntity> ds = byFeature.get(feature);
+            if (ds == null) {
+                // keep the feature itself, it is still stored in the datasource
+                cache.removeProceduresForFeatureOfInterest(feature);
+                cache.removePublishedFeatureOfInterest(feature);
+            } else {
+                cache.addFeatureOfInterest(feature);
+                cache.setProceduresForFeatureOfInterest(feature, identifiers(ds, DatasetEntity::getProcedure));
+                if (ds.stream().anyMatch(DatasetEntity::isPublished)) {
+                    cache.addPublishedFeatureOfInterest(feature);
+                } else {
+                    cache.removePublishedFeatureOfInterest(feature);
+                }
+            }
+        }
+        return true;
+    }
+
+    private Set<String> identifiers(Collection<DatasetEntity> datasets,
+            Function<DatasetEntity, ? extends DescribableEntity> property) {
+        return datasets.stream().map(property).map(DescribableEntity::getIdentifier).collect(Collectors.toSet());
+    }
+
     private void checkCacheNotNull(WritableContentCache cache) {
         if (cache == null) {
             throw new NullPointerException("cache is null");
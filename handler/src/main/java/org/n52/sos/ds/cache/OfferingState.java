@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.OfferingEntity;
+
+/**
+ * The state of an offering and its datasets in the datasource at the time of
+ * a cache update. Two states are equal if the offering and all of its
+ * datasets, including their features, geometries, first and last values and
+ * first and last observations, are unchanged. The state is taken from the
+ * rows the insertions maintain, observations that are inserted without
+ * updating their dataset are not detected. It is compared by value, so that
+ * no change is hidden by a hash collision.
+ *
+ * @since 5.0.3
+ */
+public class OfferingState {
+
+    private final String identifier;
+
+    private final List<Object> properties;
+
+    private final Map<Long, DatasetState> datasets = new HashMap<>();
+
+    public OfferingState(OfferingEntity offering) {
+        this.identifier = offering.getIdentifier();
+        this.properties = Arrays.asList(offering.getName(), offering.getDescription(),
+                time(offering.getSamplingTimeStart()), time(offering.getSamplingTimeEnd()),
+                time(offering.getResultTimeStart()), time(offering.getResultTimeEnd()),
+                offering.isSetGeometry() ? offering.getGeometry() : null);
+    }
+
+    /**
+     * Add a dataset of the offering.
+     *
+     * @param dataset
+     *            the dataset
+     */
+    public void addDataset(DatasetEntity dataset) {
+        this.datasets.put(dataset.getId(), new DatasetState(dataset));
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public Collection<DatasetState> getDatasets() {
+        return Collections.unmodifiableCollection(datasets.values());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(identifier, properties, datasets);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        OfferingState other = (OfferingState) obj;
+        return Objects.equals(identifier, other.identifier) && Objects.equals(properties, other.properties)
+                && Objects.equals(datasets, other.datasets);
+    }
+
+    private static Long time(Date date) {
+        return date == null ? null : date.getTime();
+    }
+
+    /**
+     * Get the id of a referenced observation. The id of an uninitialized
+     * proxy is returned without loading the observation.
+     */
+    private static Long id(DataEntity<?> observation) {
+        return observation == null ? null : observation.getId();
+    }
+
+    /**
+     * The state of a single dataset.
+     */
+    public static class DatasetState {
+
+        private final String procedure;
+
+        private final String observableProperty;
+
+        private final String feature;
+
+        private final boolean published;
+
+        private final List<Object> properties;
+
+        DatasetState(DatasetEntity dataset) {
+            this.procedure = dataset.getProcedure().getIdentifier();
+            this.observableProperty = dataset.getPhenomenon().getIdentifier();
+            this.feature = dataset.isSetFeature() ? dataset.getFeature().getIdentifier() : null;
+            this.published = dataset.isPublished();
+            this.properties = Arrays.asList(time(dataset.getFirstValueAt()), time(dataset.getLastValueAt()),
+                    dataset.isSetFeature() && dataset.getFeature().isSetGeometry()
+                            ? dataset.getFeature().getGeometryEntity().getGeometry()
+                            : null,
+                    id(dataset.getFirstObservation()), id(dataset.getLastObservation()));
+        }
+
+        public String getProcedure() {
+            return procedure;
+        }
+
+        public String getObservableProperty() {
+            return observableProperty;
+        }
+
+        public String getFeature() {
+            return feature;
+        }
+
+        public boolean isSetFeature() {
+            return feature != null;
+        }
+
+        public boolean isPublished() {
+            return published;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(procedure, observableProperty, feature, published, properties);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            DatasetState other = (DatasetState) obj;
+            return published == other.published && Objects.equals(procedure, other.procedure)
+                    && Objects.equals(observableProperty, other.observableProperty)
+                    && Objects.equals(feature, other.feature) && Objects.equals(properties, other.properties);
+        }
+    }
+}
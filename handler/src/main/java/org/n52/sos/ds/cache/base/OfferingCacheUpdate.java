@@ -28,9 +28,13 @@
  */
 package org.n52.sos.ds.cache.base;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 
+import org.hibernate.criterion.Restrictions;
 import org.n52.iceland.exception.ows.concrete.GenericThrowableWrapperException;
 import org.n52.io.request.IoParameters;
 import org.n52.series.db.HibernateSessionStore;
@@ -59,6 +63,14 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
 
     private static final String THREAD_GROUP_NAME = "offering-cache-update";
 
+    /**
+     * Maximum number of offerings whose datasets are loaded with one query,
+     * kept below the 1000 elements IN list limit of some databases.
+     */
+    private static final int MAX_OFFERINGS_PER_TASK = 500;
+
+    private final int threads;
+
     private OfferingDao offeringDAO;
 
     private Collection<String> offeringsIdToUpdate = Lists.newArrayList();
@@ -77,6 +89,7 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
     public OfferingCacheUpdate(int threads, Locale defaultLanguage, GeometryHandler geometryHandler,
             HibernateSessionStore sessionStore, Collection<String> offeringIdsToUpdate) {
         super(threads, THREAD_GROUP_NAME, sessionStore);
+        this.threads = threads;
         if (offeringIdsToUpdate != null) {
             this.offeringsIdToUpdate.addAll(offeringIdsToUpdate);
         }
@@ -93,6 +106,7 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
                 if (offeringsIdToUpdate == null || offeringsIdToUpdate.isEmpty()) {
                     return offeringDAO.get(new DbQuery(IoParameters.createDefaults()));
                 }
+                return getOfferingsForIdentifiers();
             }
         } catch (Exception e) {
             getErrors().add(new GenericThrowableWrapperException(e)
@@ -101,6 +115,16 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
         return offeringsToUpdate;
     }
 
+    @SuppressWarnings("unchecked")
+    private Collection<OfferingEntity> getOfferingsForIdentifiers() {
+        List<OfferingEntity> offerings = new ArrayList<>();
+        for (List<String> batch : Lists.partition(new ArrayList<>(offeringsIdToUpdate), MAX_OFFERINGS_PER_TASK)) {
+            offerings.addAll(getSession().createCriteria(OfferingEntity.class)
+                    .add(Restrictions.in(OfferingEntity.IDENTIFIER, batch)).list());
+        }
+        return offerings;
+    }
+
     @Override
     public void execute() {
         LOGGER.debug("Executing OfferingCacheUpdate (Single Threaded Tasks)");
@@ -118,9 +142,15 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
     @Override
     protected OfferingCacheUpdateTask[] getUpdatesToExecute() throws OwsExceptionReport {
         Collection<OfferingCacheUpdateTask> offeringUpdateTasks = Lists.newArrayList();
-        for (OfferingEntity offering : getOfferingsToUpdate()) {
+        List<Long> offeringIds =
+                getOfferingsToUpdate().stream().map(OfferingEntity::getId).collect(Collectors.toList());
+        // spread the offerings over all threads, but query at most
+        // MAX_OFFERINGS_PER_TASK offerings at once
+        int offeringsPerTask = Math.min(MAX_OFFERINGS_PER_TASK,
+                Math.max(1, (offeringIds.size() + threads - 1) / Math.max(1, threads)));
+        for (List<Long> batch : Lists.partition(offeringIds, offeringsPerTask)) {
             offeringUpdateTasks
-                    .add(new OfferingCacheUpdateTask(offering.getId(), this.defaultLanguage, geometryHandler));
+                    .add(new OfferingCacheUpdateTask(new ArrayList<>(batch), this.defaultLanguage, geometryHandler));
         }
         return offeringUpdateTasks.toArray(new OfferingCacheUpdateTask[offeringUpdateTasks.size()]);
     }
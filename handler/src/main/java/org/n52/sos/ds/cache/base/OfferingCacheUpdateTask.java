@@ -29,7 +29,9 @@
 package org.n52.sos.ds.cache.base;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -37,6 +39,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.hibernate.Session;
+import org.hibernate.criterion.Restrictions;
 import org.locationtech.jts.geom.Envelope;
 import org.n52.iceland.exception.ows.concrete.GenericThrowableWrapperException;
 import org.n52.io.request.IoParameters;
@@ -61,6 +64,7 @@ import org.n52.sos.ds.cache.DatasourceCacheUpdateHelper;
 import org.n52.sos.ds.cache.ProcedureFlag;
 import org.n52.sos.util.GeometryHandler;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -73,7 +77,7 @@ import com.google.common.collect.Sets;
 public class OfferingCacheUpdateTask extends AbstractThreadableDatasourceCacheUpdate
         implements ApiQueryHelper, DatabaseQueryHelper, DatasourceCacheUpdateHelper {
 
-    private final Long offeringId;
+    private final Collection<Long> offeringIds;
 
     private final Locale defaultLanguage;
 
@@ -95,22 +99,66 @@ public class OfferingCacheUpdateTask extends AbstractThreadableDatasourceCacheUp
      *            the default language
      */
     public OfferingCacheUpdateTask(Long offeringId, Locale defaultLanguage, GeometryHandler geometryHandler) {
-        this.offeringId = offeringId;
+        this(Collections.singleton(offeringId), defaultLanguage, geometryHandler);
+    }
+
+    /**
+     * Constructor for a batch of offerings whose datasets are loaded with a
+     * single query. Note: never pass in Hibernate objects that have been
+     * loaded by a session in a different thread
+     *
+     * @param offeringIds
+     *            Offering entity ids
+     * @param defaultLanguage
+     *            the default language
+     */
+    public OfferingCacheUpdateTask(Collection<Long> offeringIds, Locale defaultLanguage,
+            GeometryHandler geometryHandler) {
+        this.offeringIds = offeringIds;
         this.defaultLanguage = defaultLanguage;
         this.geometryHandler = geometryHandler;
-        this.datasets.clear();
     }
 
-    private void init(Session session) {
-        this.offering = session.load(OfferingEntity.class, offeringId);
-        this.identifier = offering.getIdentifier();
-        if (datasets != null) {
-            this.datasets.addAll(new DatasetDao(session).get(createDatasetDbQuery(offeringId)));
+    private Map<Long, Collection<DatasetEntity>> getDatasetsByOffering(Session session) {
+        Map<Long, Collection<DatasetEntity>> datasetsByOffering = Maps.newHashMap();
+        for (DatasetEntity dataset : new DatasetDao(session).get(createDatasetDbQuery(offeringIds))) {
+            if (dataset.getOffering() != null) {
+                CollectionHelper.addToCollectionMap(dataset.getOffering().getId(), dataset, datasetsByOffering);
+            }
         }
+        return datasetsByOffering;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, OfferingEntity> getOfferings(Session session) {
+        Map<Long, OfferingEntity> offerings = Maps.newHashMap();
+        for (OfferingEntity entity : (List<OfferingEntity>) session.createCriteria(OfferingEntity.class)
+                .add(Restrictions.in(OfferingEntity.PROPERTY_ID, offeringIds)).list()) {
+            offerings.put(entity.getId(), entity);
+        }
+        return offerings;
+    }
+
+    private void init(OfferingEntity offeringEntity, Collection<DatasetEntity> offeringDatasets) {
+        this.offering = offeringEntity;
+        this.identifier = offering.getIdentifier();
+        this.datasets = offeringDatasets != null ? offeringDatasets : new HashSet<>();
     }
 
     protected void getOfferingInformationFromDbAndAddItToCacheMaps(Session session) throws OwsExceptionReport {
-        init(session);
+        // the offerings and the datasets of the batch are queried once
+        Map<Long, OfferingEntity> offerings = getOfferings(session);
+        Map<Long, Collection<DatasetEntity>> datasetsByOffering = getDatasetsByOffering(session);
+        for (Long offeringId : offeringIds) {
+            OfferingEntity offeringEntity = offerings.get(offeringId);
+            if (offeringEntity != null) {
+                init(offeringEntity, datasetsByOffering.get(offeringId));
+                addOfferingInformationToCacheMaps(session);
+            }
+        }
+    }
+
+    private void addOfferingInformationToCacheMaps(Session session) throws OwsExceptionReport {
         // process all offering updates here (in multiple threads) which have
         // the potential to perform large
         // queries that aren't able to be loaded all at once. many (but not all)
@@ -303,9 +351,9 @@ public class OfferingCacheUpdateTask extends AbstractThreadableDatasourceCacheUp
         return relatedFeatures.stream().map(rf -> rf.getFeature().getIdentifier()).collect(Collectors.toSet());
     }
 
-    private DbQuery createDatasetDbQuery(Long offering) {
+    private DbQuery createDatasetDbQuery(Collection<Long> offerings) {
         Map<String, String> map = Maps.newHashMap();
-        map.put(IoParameters.OFFERINGS, Long.toString(offering));
+        map.put(IoParameters.OFFERINGS, Joiner.on(",").join(offerings));
         return new DbQuery(IoParameters.createFromSingleValueMap(map));
     }
 
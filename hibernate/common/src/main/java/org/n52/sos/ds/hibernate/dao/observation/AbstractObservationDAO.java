@@ -91,6 +91,7 @@ import org.n52.sos.ds.hibernate.dao.AbstractIdentifierNameDescriptionDAO;
 import org.n52.sos.ds.hibernate.dao.CodespaceDAO;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.dao.UnitDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.DeferredDatasetUpdates;
 import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.ParameterFactory;
@@ -591,11 +592,90 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
             AbstractFeatureEntity feature, OmObservation containerObservation,
             Map<String, CodespaceEntity> codespaceCache, Map<UoM, UnitEntity> unitCache,
             Map<String, FormatEntity> formatCache, Session session) throws OwsExceptionReport {
+        return insertObservationMultiValue(observationConstellation, feature, containerObservation, codespaceCache,
+                unitCache, formatCache, null, session);
+    }
+
+    /**
+     * Insert a multi value observation for observation constellations and
+     * featureOfInterest and collect the first and last values of the dataset
+     * instead of updating it for each value
+     *
+     * @param observationConstellation
+     *            Observation constellation objects
+     * @param feature
+     *            FeatureOfInterest object
+     * @param containerObservation
+     *            SOS observation
+     * @param codespaceCache
+     *            Map based codespace object cache to prevent redundant queries
+     * @param unitCache
+     *            Map based unit object cache to prevent redundant queries
+     * @param formatCache
+     *            Map cache for format objects (to prevent redundant querying)
+     * @param datasetUpdates
+     *            Collects the first and last values of the datasets, the
+     *            datasets are updated immediately if <code>null</code>
+     * @param session
+     *            Hibernate session
+     * @return The {@link DatasetEntity}
+     *
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public DatasetEntity insertObservationMultiValue(DatasetEntity observationConstellation,
+            AbstractFeatureEntity feature, OmObservation containerObservation,
+            Map<String, CodespaceEntity> codespaceCache, Map<UoM, UnitEntity> unitCache,
+            Map<String, FormatEntity> formatCache, DeferredDatasetUpdates datasetUpdates, Session session)
+            throws OwsExceptionReport {
+        return insertObservationMultiValue(observationConstellation, feature, containerObservation, codespaceCache,
+                unitCache, formatCache, datasetUpdates, null, session);
+    }
+
+    /**
+     * Insert a multi value observation for observation constellations and
+     * featureOfInterest and check each value for duplicates before it is
+     * inserted
+     *
+     * @param observationConstellation
+     *            Observation constellation objects
+     * @param feature
+     *            FeatureOfInterest object
+     * @param containerObservation
+     *            SOS observation
+     * @param codespaceCache
+     *            Map based codespace object cache to prevent redundant queries
+     * @param unitCache
+     *            Map based unit object cache to prevent redundant queries
+     * @param formatCache
+     *            Map cache for format objects (to prevent redundant querying)
+     * @param datasetUpdates
+     *            Collects the first and last values of the datasets, the
+     *            datasets are updated immediately if <code>null</code>
+     * @param duplicatedObservationChecker
+     *            Checks the values against the observations of the dataset
+     *            and of the request, the values are not checked if
+     *            <code>null</code>
+     * @param session
+     *            Hibernate session
+     * @return The {@link DatasetEntity}
+     *
+     * @throws OwsExceptionReport
+     *             If a value already exists or an error occurs
+     */
+    public DatasetEntity insertObservationMultiValue(DatasetEntity observationConstellation,
+            AbstractFeatureEntity feature, OmObservation containerObservation,
+            Map<String, CodespaceEntity> codespaceCache, Map<UoM, UnitEntity> unitCache,
+            Map<String, FormatEntity> formatCache, DeferredDatasetUpdates datasetUpdates,
+            DuplicatedObservationChecker duplicatedObservationChecker, Session session) throws OwsExceptionReport {
         List<OmObservation> unfoldObservations = new ObservationUnfolder(containerObservation,
                 getDaoFactory().getSweHelper(), getDaoFactory().getGeometryHandler()).unfold();
         for (OmObservation sosObservation : unfoldObservations) {
+            if (duplicatedObservationChecker != null) {
+                duplicatedObservationChecker.check(sosObservation, observationConstellation, session);
+            }
             DatasetEntity dataset = insertObservationSingleValue(observationConstellation, feature, sosObservation,
-                    codespaceCache, unitCache, formatCache, session);
+                    codespaceCache, unitCache, formatCache, datasetUpdates, session);
             if (!dataset.equals(observationConstellation)) {
                 return dataset;
             }
@@ -650,15 +730,52 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
      * @throws OwsExceptionReport
      *             If an error occurs
      */
-    @SuppressWarnings("rawtypes")
     public DatasetEntity insertObservationSingleValue(DatasetEntity hObservationConstellation,
             AbstractFeatureEntity hFeature, OmObservation sosObservation, Map<String, CodespaceEntity> codespaceCache,
             Map<UoM, UnitEntity> unitCache, Map<String, FormatEntity> formatCache, Session session)
             throws OwsExceptionReport {
+        return insertObservationSingleValue(hObservationConstellation, hFeature, sosObservation, codespaceCache,
+                unitCache, formatCache, null, session);
+    }
+
+    /**
+     * Insert a single observation for observation constellations and
+     * featureOfInterest with local caching for codespaces and units and
+     * collect the first and last values of the dataset instead of updating it
+     *
+     * @param hObservationConstellation
+     *            Observation constellation objects
+     * @param hFeature
+     *            FeatureOfInterest object
+     * @param sosObservation
+     *            SOS observation to insert
+     * @param codespaceCache
+     *            Map cache for codespace objects (to prevent redundant
+     *            querying)
+     * @param unitCache
+     *            Map cache for unit objects (to prevent redundant querying)
+     * @param formatCache
+     *            Map cache for format objects (to prevent redundant querying)
+     * @param datasetUpdates
+     *            Collects the first and last values of the datasets, the
+     *            datasets are updated immediately if <code>null</code>
+     * @param session
+     *            Hibernate session
+     * @return The {@link DatasetEntity}
+     *
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    @SuppressWarnings("rawtypes")
+    public DatasetEntity insertObservationSingleValue(DatasetEntity hObservationConstellation,
+            AbstractFeatureEntity hFeature, OmObservation sosObservation, Map<String, CodespaceEntity> codespaceCache,
+            Map<UoM, UnitEntity> unitCache, Map<String, FormatEntity> formatCache,
+            DeferredDatasetUpdates datasetUpdates, Session session) throws OwsExceptionReport {
         SingleObservationValue<?> value = (SingleObservationValue) sosObservation.getValue();
         ObservationPersister persister =
                 new ObservationPersister(getDaoFactory(), this, sosObservation, hObservationConstellation, hFeature,
-                        codespaceCache, unitCache, formatCache, getOfferings(hObservationConstellation), session);
+                        codespaceCache, unitCache, formatCache, datasetUpdates, getOfferings(hObservationConstellation),
+                        session);
         return value.getValue().accept(persister).getDataset();
     }
 
@@ -1384,23 +1501,74 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
         c.setMaxResults(1);
         LOGGER.trace("QUERY checkForDuplicatedObservations(): {}", HibernateHelper.getSqlString(c));
         if (!c.list().isEmpty()) {
-            StringBuilder builder = new StringBuilder();
-            builder.append("procedure=").append(sosObservation.getObservationConstellation().getProcedureIdentifier());
-            builder.append("observedProperty=")
-                    .append(sosObservation.getObservationConstellation().getObservablePropertyIdentifier());
-            builder.append("featureOfInter=")
-                    .append(sosObservation.getObservationConstellation().getFeatureOfInterestIdentifier());
-            builder.append("phenomenonTime=").append(sosObservation.getPhenomenonTime().toString());
-            builder.append("resultTime=").append(sosObservation.getResultTime().toString());
-            // TODO for e-Reporting SampligPoint should be added.
-            if (sosObservation.isSetHeightDepthParameter()) {
-                NamedValue<BigDecimal> hdp = sosObservation.getHeightDepthParameter();
-                builder.append("height/depth=").append(hdp.getName().getHref()).append("/")
-                        .append(hdp.getValue().getValue());
-            }
-            throw new NoApplicableCodeException().withMessage("The observation for %s already exists in the database!",
-                    builder.toString());
+            throw createDuplicatedObservationException(sosObservation);
+        }
+    }
+
+    /**
+     * Query the phenomenon time start, phenomenon time end and result time of
+     * the observations of the dataset and the feature of the observation
+     * within the time window. Used by the {@link DuplicatedObservationChecker}
+     * to check many observations with one query.
+     *
+     * @param sosObservation
+     *            {@link OmObservation} that defines the feature and the
+     *            additional identification
+     * @param observationConstellation
+     *            the dataset
+     * @param start
+     *            the start of the time window
+     * @param end
+     *            the end of the time window
+     * @param session
+     *            Hibernate {@link Session}
+     * @return the times as arrays of phenomenon time start, phenomenon time
+     *         end and result time
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getObservationTimes(OmObservation sosObservation, DatasetEntity observationConstellation,
+            Date start, Date end, Session session) throws OwsExceptionReport {
+        Criteria c = getTemoralReferencedObservationCriteriaFor(sosObservation, observationConstellation, session);
+        c.add(Restrictions.ge(DataEntity.PROPERTY_SAMPLING_TIME_START, start));
+        c.add(Restrictions.le(DataEntity.PROPERTY_SAMPLING_TIME_END, end));
+        c.setProjection(Projections.projectionList().add(Projections.property(DataEntity.PROPERTY_SAMPLING_TIME_START))
+                .add(Projections.property(DataEntity.PROPERTY_SAMPLING_TIME_END))
+                .add(Projections.property(DataEntity.PROPERTY_RESULT_TIME)));
+        LOGGER.trace("QUERY getObservationTimes(): {}", HibernateHelper.getSqlString(c));
+        return c.list();
+    }
+
+    /**
+     * Get the additional identification of the observation that is added by
+     * {@link #addAdditionalObservationIdentification(Criteria, OmObservation)}.
+     *
+     * @param sosObservation
+     *            {@link OmObservation}
+     * @return the additional identification or <code>null</code>
+     */
+    protected String getAdditionalObservationIdentifier(OmObservation sosObservation) {
+        return null;
+    }
+
+    NoApplicableCodeException createDuplicatedObservationException(OmObservation sosObservation) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("procedure=").append(sosObservation.getObservationConstellation().getProcedureIdentifier());
+        builder.append("observedProperty=")
+                .append(sosObservation.getObservationConstellation().getObservablePropertyIdentifier());
+        builder.append("featureOfInter=")
+                .append(sosObservation.getObservationConstellation().getFeatureOfInterestIdentifier());
+        builder.append("phenomenonTime=").append(sosObservation.getPhenomenonTime().toString());
+        builder.append("resultTime=").append(sosObservation.getResultTime().toString());
+        // TODO for e-Reporting SampligPoint should be added.
+        if (sosObservation.isSetHeightDepthParameter()) {
+            NamedValue<BigDecimal> hdp = sosObservation.getHeightDepthParameter();
+            builder.append("height/depth=").append(hdp.getName().getHref()).append("/")
+                    .append(hdp.getValue().getValue());
         }
+        return new NoApplicableCodeException().withMessage("The observation for %s already exists in the database!",
+                builder.toString());
     }
 
     private void addParameterRestriction(Criteria c, NamedValue<?> hdp) throws OwsExceptionReport {
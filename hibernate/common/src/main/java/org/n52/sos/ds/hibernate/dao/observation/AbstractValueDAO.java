@@ -29,11 +29,13 @@
 package org.n52.sos.ds.hibernate.dao.observation;
 
 import java.sql.Timestamp;
+import java.util.Date;
 
 import org.hibernate.Criteria;
 import org.hibernate.FetchMode;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projection;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
@@ -219,6 +221,74 @@ public abstract class AbstractValueDAO extends TimeCreator {
         }
     }
 
+    /**
+     * Add keyset (seek) chunk information to {@link Criteria}. Instead of
+     * skipping the already returned rows, the query continues after the last
+     * returned value of the order column, using the id as tie-breaker.
+     *
+     * @param c
+     *            {@link Criteria} to add information
+     * @param chunkSize
+     *            Chunk size
+     * @param lastValue
+     *            Last value of the previous chunk, <code>null</code> for the
+     *            first chunk
+     * @param request
+     *            the request
+     * @param logArgs
+     *            log arguments
+     */
+    protected void addKeysetChunkValuesToCriteria(Criteria c, int chunkSize, DataEntity<?> lastValue,
+            AbstractObservationRequest request, StringBuilder logArgs) {
+        if (lastValue != null) {
+            addKeysetChunkValuesToCriteria(c, chunkSize, lastValue.getId(), lastValue.getSamplingTimeStart(),
+                    lastValue.getResultTime(), request, logArgs);
+        } else {
+            addKeysetChunkValuesToCriteria(c, chunkSize, null, null, null, request, logArgs);
+        }
+    }
+
+    /**
+     * Add keyset (seek) chunk information to {@link Criteria}
+     *
+     * @param c
+     *            {@link Criteria} to add information
+     * @param chunkSize
+     *            Chunk size
+     * @param lastId
+     *            Id of the last value of the previous chunk, <code>null</code>
+     *            for the first chunk
+     * @param lastSamplingTimeStart
+     *            Phenomenon start time of the last value of the previous chunk
+     * @param lastResultTime
+     *            Result time of the last value of the previous chunk
+     * @param request
+     *            the request
+     * @param logArgs
+     *            log arguments
+     * @see #addKeysetChunkValuesToCriteria(Criteria, int, DataEntity,
+     *      AbstractObservationRequest, StringBuilder)
+     */
+    protected void addKeysetChunkValuesToCriteria(Criteria c, int chunkSize, Long lastId,
+            Date lastSamplingTimeStart, Date lastResultTime, AbstractObservationRequest request,
+            StringBuilder logArgs) {
+        if (chunkSize > 0) {
+            c.addOrder(Order.asc(DataEntity.PROPERTY_ID));
+            if (lastId != null) {
+                String orderColumn = getOrderColumn(request);
+                Object lastOrderValue = DataEntity.PROPERTY_RESULT_TIME.equals(orderColumn)
+                        ? lastResultTime
+                        : lastSamplingTimeStart;
+                c.add(Restrictions.or(Restrictions.gt(orderColumn, lastOrderValue),
+                        Restrictions.and(Restrictions.eq(orderColumn, lastOrderValue),
+                                Restrictions.gt(DataEntity.PROPERTY_ID, lastId))));
+                logArgs.append(", keyset(" + lastOrderValue + "," + lastId + ")");
+            }
+            c.setMaxResults(chunkSize);
+            logArgs.append(", chunk(" + chunkSize + ")");
+        }
+    }
+
     protected String getOrderColumn(AbstractObservationRequest request) {
         if (request instanceof GetObservationRequest) {
             if (((GetObservationRequest) request).isSetTemporalFilter()) {
@@ -253,6 +323,10 @@ public abstract class AbstractValueDAO extends TimeCreator {
 
     protected abstract ValuedObservationFactory getValuedObservationFactory();
 
+    protected DaoFactory getDaoFactory() {
+        return daoFactory;
+    }
+
     public GeometryHandler getGeometryHandler() {
         return daoFactory.getGeometryHandler();
     }
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.joda.time.DateTime;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Checks the observations of an InsertObservation request for duplicates.
+ * Instead of querying the database for each observation (see
+ * {@link AbstractObservationDAO#checkForDuplicatedObservations(OmObservation, DatasetEntity, Session)}),
+ * the times of the existing observations of a dataset and feature are queried
+ * once for the time window of the request and the observations are checked
+ * against them in memory. Observations of the request are added after the
+ * check, so duplicates within the request are detected, too.
+ *
+ * The values of multi value observations are checked one by one when they are
+ * unfolded by {@link AbstractObservationDAO#insertObservationMultiValue}, the
+ * time window covers their phenomenon time.
+ *
+ * Observations with a height/depth parameter, without a definite time or
+ * outside of the time window are checked with the single query. The unique
+ * constraints of the database remain the final guard.
+ *
+ * @since 5.0.3
+ */
+public class DuplicatedObservationChecker {
+
+    private final AbstractObservationDAO observationDAO;
+
+    private final Date start;
+
+    private final Date end;
+
+    private final Map<List<Object>, Set<TimeKey>> times = Maps.newHashMap();
+
+    /**
+     * Constructor
+     *
+     * @param observationDAO
+     *            the DAO to query the existing observations
+     * @param observations
+     *            the observations of the request, defines the time window
+     */
+    public DuplicatedObservationChecker(AbstractObservationDAO observationDAO,
+            Collection<OmObservation> observations) {
+        this.observationDAO = observationDAO;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (OmObservation observation : observations) {
+            Time phenomenonTime = observation.getPhenomenonTime();
+            DateTime phenomenonTimeStart = TimeKey.getStart(phenomenonTime);
+            DateTime phenomenonTimeEnd = TimeKey.getEnd(phenomenonTime);
+            if (phenomenonTimeStart != null && phenomenonTimeEnd != null) {
+                min = Math.min(min, phenomenonTimeStart.getMillis());
+                max = Math.max(max, phenomenonTimeEnd.getMillis());
+            }
+        }
+        this.start = min <= max ? new Date(min) : null;
+        this.end = min <= max ? new Date(max) : null;
+    }
+
+    /**
+     * Check if the observation already exists in the dataset.
+     *
+     * @param observation
+     *            {@link OmObservation} to check
+     * @param dataset
+     *            the dataset of the observation
+     * @param session
+     *            Hibernate {@link Session}
+     * @throws OwsExceptionReport
+     *             If the observation already exists or an error occurs
+     */
+    public void check(OmObservation observation, DatasetEntity dataset, Session session)
+            throws OwsExceptionReport {
+        TimeKey key = TimeKey.of(observation);
+        if (key == null || start == null || observation.isSetHeightDepthParameter()
+                || key.phenomenonTimeStart < start.getTime() || key.phenomenonTimeEnd > end.getTime()) {
+            observationDAO.checkForDuplicatedObservations(observation, dataset, session);
+            return;
+        }
+        List<Object> group = Arrays.asList(dataset.getId(),
+                observation.getObservationConstellation().getFeatureOfInterestIdentifier(),
+                observationDAO.getAdditionalObservationIdentifier(observation));
+        Set<TimeKey> existing = times.get(group);
+        if (existing == null) {
+            existing = Sets.newHashSet();
+            for (Object[] row : observationDAO.getObservationTimes(observation, dataset, start, end, session)) {
+                existing.add(new TimeKey((Date) row[0], (Date) row[1], (Date) row[2]));
+            }
+            times.put(group, existing);
+        }
+        if (!existing.add(key)) {
+            throw observationDAO.createDuplicatedObservationException(observation);
+        }
+    }
+
+    /**
+     * The phenomenon time start, phenomenon time end and result time of an
+     * observation.
+     */
+    private static final class TimeKey {
+        private final long phenomenonTimeStart;
+        private final long phenomenonTimeEnd;
+        private final long resultTime;
+
+        TimeKey(Date phenomenonTimeStart, Date phenomenonTimeEnd, Date resultTime) {
+            this(phenomenonTimeStart.getTime(), phenomenonTimeEnd.getTime(),
+                    resultTime != null ? resultTime.getTime() : phenomenonTimeEnd.getTime());
+        }
+
+        TimeKey(long phenomenonTimeStart, long phenomenonTimeEnd, long resultTime) {
+            this.phenomenonTimeStart = phenomenonTimeStart;
+            this.phenomenonTimeEnd = phenomenonTimeEnd;
+            this.resultTime = resultTime;
+        }
+
+        /**
+         * @return the key or <code>null</code> if the observation has no
+         *         definite time
+         */
+        static TimeKey of(OmObservation observation) {
+            Time phenomenonTime = observation.getPhenomenonTime();
+            DateTime phenomenonTimeStart = getStart(phenomenonTime);
+            DateTime phenomenonTimeEnd = getEnd(phenomenonTime);
+            // same result time as in the single query
+            DateTime resultTime = null;
+            if (observation.getResultTime() != null && observation.getResultTime().getValue() != null) {
+                resultTime = observation.getResultTime().getValue();
+            } else if (phenomenonTime instanceof TimeInstant) {
+                resultTime = phenomenonTimeStart;
+            }
+            if (phenomenonTimeStart == null || phenomenonTimeEnd == null || resultTime == null) {
+                return null;
+            }
+            return new TimeKey(phenomenonTimeStart.getMillis(), phenomenonTimeEnd.getMillis(),
+                    resultTime.getMillis());
+        }
+
+        static DateTime getStart(Time time) {
+            if (time instanceof TimeInstant) {
+                return ((TimeInstant) time).getValue();
+            } else if (time instanceof TimePeriod) {
+                return ((TimePeriod) time).getStart();
+            }
+            return null;
+        }
+
+        static DateTime getEnd(Time time) {
+            if (time instanceof TimeInstant) {
+                return ((TimeInstant) time).getValue();
+            } else if (time instanceof TimePeriod) {
+                return ((TimePeriod) time).getEnd();
+            }
+            return null;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(phenomenonTimeStart, phenomenonTimeEnd, resultTime);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TimeKey)) {
+                return false;
+            }
+            TimeKey other = (TimeKey) obj;
+            return phenomenonTimeStart == other.phenomenonTimeStart && phenomenonTimeEnd == other.phenomenonTimeEnd
+                    && resultTime == other.resultTime;
+        }
+    }
+
+}
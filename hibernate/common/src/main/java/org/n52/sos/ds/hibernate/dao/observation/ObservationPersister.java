@@ -120,6 +120,7 @@ import org.n52.sos.ds.hibernate.dao.PlatformDAO;
 import org.n52.sos.ds.hibernate.dao.UnitDAO;
 import org.n52.sos.ds.hibernate.dao.VerticalMetadataDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.DeferredDatasetUpdates;
 import org.n52.sos.util.GeometryHandler;
 
 public class ObservationPersister
@@ -152,8 +153,18 @@ public class ObservationPersister
             Map<String, CodespaceEntity> codespaceCache, Map<UoM, UnitEntity> unitCache,
             Map<String, FormatEntity> formatCache, Set<OfferingEntity> hOfferings, Session session)
             throws OwsExceptionReport {
-        this(daoFactory, new DAOs(observationDao, daoFactory), new Caches(codespaceCache, unitCache, formatCache),
-                sosObservation, hDataset, hFeature, null, hOfferings, session, null);
+        this(daoFactory, observationDao, sosObservation, hDataset, hFeature, codespaceCache, unitCache, formatCache,
+                null, hOfferings, session);
+    }
+
+    public ObservationPersister(DaoFactory daoFactory, AbstractObservationDAO observationDao,
+            OmObservation sosObservation, DatasetEntity hDataset, AbstractFeatureEntity<?> hFeature,
+            Map<String, CodespaceEntity> codespaceCache, Map<UoM, UnitEntity> unitCache,
+            Map<String, FormatEntity> formatCache, DeferredDatasetUpdates datasetUpdates,
+            Set<OfferingEntity> hOfferings, Session session) throws OwsExceptionReport {
+        this(daoFactory, new DAOs(observationDao, daoFactory),
+                new Caches(codespaceCache, unitCache, formatCache, datasetUpdates), sosObservation, hDataset,
+                hFeature, null, hOfferings, session, null);
     }
 
     private ObservationPersister(DaoFactory daoFactory, DAOs daos, Caches caches, OmObservation observation,
@@ -665,9 +676,15 @@ public class ObservationPersister
         DatasetEntity persitedDataset =
                 daos.observation().addObservationContextToObservation(observationContext, observation, session);
         session.save(observation);
-        session.flush();
-        session.refresh(observation);
-        daos.dataset.updateSeriesWithFirstLatestValues(persitedDataset, observation, session);
+        if (caches.datasetUpdates() != null) {
+            // the dataset is updated once after all observations of the
+            // request are inserted
+            caches.datasetUpdates().add(persitedDataset, observation);
+        } else {
+            session.flush();
+            session.refresh(observation);
+            daos.dataset.updateSeriesWithFirstLatestValues(persitedDataset, observation, session);
+        }
         return observation;
     }
 
@@ -805,11 +822,14 @@ public class ObservationPersister
 
         private final Map<String, FormatEntity> formats;
 
+        private final DeferredDatasetUpdates datasetUpdates;
+
         Caches(Map<String, CodespaceEntity> codespaces, Map<UoM, UnitEntity> units,
-                Map<String, FormatEntity> formats) {
+                Map<String, FormatEntity> formats, DeferredDatasetUpdates datasetUpdates) {
             this.codespaces = codespaces;
             this.units = units;
             this.formats = formats;
+            this.datasetUpdates = datasetUpdates;
         }
 
         public Map<String, CodespaceEntity> codespaces() {
@@ -824,6 +844,10 @@ public class ObservationPersister
             return formats;
         }
 
+        public DeferredDatasetUpdates datasetUpdates() {
+            return datasetUpdates;
+        }
+
     }
 
     private static class DAOs {
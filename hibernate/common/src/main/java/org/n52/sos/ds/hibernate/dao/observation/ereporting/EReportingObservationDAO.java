@@ -260,6 +260,11 @@ public class EReportingObservationDAO extends AbstractSeriesObservationDAO imple
         return c;
     }
 
+    @Override
+    protected String getAdditionalObservationIdentifier(OmObservation observation) {
+        return getSamplingPointIdentifier(observation);
+    }
+
     private String getSamplingPointIdentifier(OmObservation observation) {
         if (observation.isSetParameter()) {
             for (NamedValue<?> namedValue : observation.getParameter()) {
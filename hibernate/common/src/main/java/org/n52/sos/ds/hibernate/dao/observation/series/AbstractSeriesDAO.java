@@ -29,6 +29,7 @@
 package org.n52.sos.ds.hibernate.dao.observation.series;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -391,25 +392,31 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
     }
 
     private void updateSta(DatasetEntity dataset, DataEntity<?> observation, Session session) {
+        updateSta(dataset, observation.getSamplingTimeStart(), observation.getSamplingTimeEnd(),
+                observation.getResultTime(), observation.getResultTime(), session);
+    }
+
+    private void updateSta(DatasetEntity dataset, Date samplingTimeStart, Date samplingTimeEnd,
+            Date resultTimeStart, Date resultTimeEnd, Session session) {
         if (HibernateHelper.isEntitySupported(DatastreamEntity.class)) {
             if (dataset.getPlatform() != null) {
                 DatastreamEntity datastream = existsDatastream(dataset, session);
                 if (datastream != null) {
                     if (datastream.getSamplingTimeStart() == null || (datastream.getSamplingTimeStart() != null
-                            && datastream.getSamplingTimeStart().after(observation.getSamplingTimeStart()))) {
-                        datastream.setSamplingTimeStart(observation.getSamplingTimeStart());
+                            && datastream.getSamplingTimeStart().after(samplingTimeStart))) {
+                        datastream.setSamplingTimeStart(samplingTimeStart);
                     }
                     if (datastream.getSamplingTimeEnd() == null || (datastream.getSamplingTimeEnd() != null
-                            && datastream.getSamplingTimeEnd().before(observation.getSamplingTimeEnd()))) {
-                        datastream.setSamplingTimeEnd(observation.getSamplingTimeEnd());
+                            && datastream.getSamplingTimeEnd().before(samplingTimeEnd))) {
+                        datastream.setSamplingTimeEnd(samplingTimeEnd);
                     }
                     if (datastream.getResultTimeStart() == null || (datastream.getResultTimeStart() != null
-                            && datastream.getResultTimeStart().after(observation.getResultTime()))) {
-                        datastream.setResultTimeStart(observation.getResultTime());
+                            && datastream.getResultTimeStart().after(resultTimeStart))) {
+                        datastream.setResultTimeStart(resultTimeStart);
                     }
                     if (datastream.getResultTimeEnd() == null || (datastream.getResultTimeEnd() != null
-                            && datastream.getResultTimeEnd().before(observation.getResultTime()))) {
-                        datastream.setResultTimeEnd(observation.getResultTime());
+                            && datastream.getResultTimeEnd().before(resultTimeEnd))) {
+                        datastream.setResultTimeEnd(resultTimeEnd);
                     }
                     datastream.addDataset(dataset);
                     session.saveOrUpdate(datastream);
@@ -946,6 +953,44 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
         updateSta(dataset, hObservation, session);
     }
 
+    /**
+     * Update the datasets with the first and last values collected during the
+     * insertion of observations. Each dataset is updated once.
+     *
+     * @param updates
+     *            the collected first and last values
+     * @param session
+     *            Hibernate session
+     */
+    public void updateSeriesWithFirstLatestValues(DeferredDatasetUpdates updates, Session session) {
+        for (DeferredDatasetUpdates.DatasetValues values : updates.getDatasets()) {
+            DatasetEntity dataset = session.get(DatasetEntity.class, values.getDatasetId());
+            if (dataset == null) {
+                continue;
+            }
+            if (!dataset.isSetFirstValueAt() || dataset.getFirstValueAt().after(values.getFirstValueAt())) {
+                dataset.setFirstValueAt(values.getFirstValueAt());
+                dataset.setFirstObservation(session.load(DataEntity.class, values.getFirstObservation()));
+                if (values.isFirstQuantity()) {
+                    dataset.setFirstQuantityValue(values.getFirstQuantityValue());
+                }
+            }
+            if (!dataset.isSetLastValueAt() || dataset.getLastValueAt().before(values.getLastValueAt())) {
+                dataset.setLastValueAt(values.getLastValueAt());
+                dataset.setLastObservation(session.load(DataEntity.class, values.getLastObservation()));
+                if (values.isLastQuantity()) {
+                    dataset.setLastQuantityValue(values.getLastQuantityValue());
+                }
+            }
+            session.saveOrUpdate(dataset);
+            updateSta(dataset, values.getFirstValueAt(), values.getLastValueAt(),
+                    values.getMinResultTime() != null ? values.getMinResultTime() : values.getFirstValueAt(),
+                    values.getMaxResultTime() != null ? values.getMaxResultTime() : values.getLastValueAt(), session);
+        }
+        session.flush();
+        updates.clear();
+    }
+
     /**
      * Check {@link DatasetEntity} if the deleted observation time stamp
      * corresponds to the first/last series time stamp
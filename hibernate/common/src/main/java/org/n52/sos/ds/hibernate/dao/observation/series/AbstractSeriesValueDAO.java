@@ -28,6 +28,7 @@
  */
 package org.n52.sos.ds.hibernate.dao.observation.series;
 
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -36,8 +37,10 @@ import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.dataset.ValueType;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.request.AbstractObservationRequest;
 import org.n52.shetland.ogc.sos.request.GetObservationRequest;
@@ -62,6 +65,34 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
 
     private static final String QUERY_STREAMING_SERIES_VALUE = "QUERY getStreamingSeriesValuesFor({}): {}";
 
+    private static final String QUERY_STREAMING_SERIES_VALUE_TUPLES =
+            "QUERY getStreamingSeriesValueTuplesFor({}): {}";
+
+    /**
+     * Index of the id in a value tuple
+     */
+    public static final int TUPLE_ID = 0;
+
+    /**
+     * Index of the phenomenon start time in a value tuple
+     */
+    public static final int TUPLE_SAMPLING_TIME_START = 1;
+
+    /**
+     * Index of the phenomenon end time in a value tuple
+     */
+    public static final int TUPLE_SAMPLING_TIME_END = 2;
+
+    /**
+     * Index of the result time in a value tuple
+     */
+    public static final int TUPLE_RESULT_TIME = 3;
+
+    /**
+     * Index of the value in a value tuple
+     */
+    public static final int TUPLE_VALUE = 4;
+
     public AbstractSeriesValueDAO(DaoFactory daoFactory) {
         super(daoFactory);
     }
@@ -232,6 +263,198 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
         }
     }
 
+    /**
+     * Query streaming value for parameter as chunk {@link List} using keyset
+     * pagination. The chunk starts after the <code>lastValue</code> of the
+     * previous chunk, so the database does not have to skip the already
+     * returned rows. Only supported if
+     * {@link #isKeysetPaginationApplicable(AbstractObservationRequest)}.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series id
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}, may be <code>null</code>
+     * @param chunkSize
+     *            chunk size
+     * @param lastValue
+     *            Last value of the previous chunk, <code>null</code> for the
+     *            first chunk
+     * @param session
+     *            Hibernate Session
+     * @return Resulting chunk {@link List}
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying
+     */
+    @SuppressWarnings("unchecked")
+    public List<DataEntity<?>> getKeysetStreamingSeriesValuesFor(AbstractObservationRequest request, long series,
+            Criterion temporalFilterCriterion, int chunkSize, DataEntity<?> lastValue, Session session)
+            throws OwsExceptionReport {
+        StringBuilder logArgs = new StringBuilder();
+        Criteria c = getSeriesValueCriteriaFor(request, series, temporalFilterCriterion, session, logArgs);
+        addKeysetChunkValuesToCriteria(c, chunkSize, lastValue, request, logArgs);
+        LOGGER.trace(QUERY_STREAMING_SERIES_VALUE, logArgs.toString(), HibernateHelper.getSqlString(c));
+        return (List<DataEntity<?>>) c.list();
+    }
+
+    /**
+     * Check if the chunks of the request can be queried with keyset
+     * pagination. The order column has to be not nullable, because a value
+     * without order value would end the pagination, so requests ordered by
+     * result time are paged with an offset. Result filter requests are paged
+     * with an offset, because their chunks are merged from several sub
+     * queries.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @return <code>true</code>, if the chunks can be queried with keyset
+     *         pagination
+     */
+    public boolean isKeysetPaginationApplicable(AbstractObservationRequest request) {
+        return DataEntity.PROPERTY_SAMPLING_TIME_START.equals(getOrderColumn(request))
+                && !(request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter());
+    }
+
+    /**
+     * Check if the values of a series with the {@link ValueType} can be
+     * queried as value tuples, i.e. the values are plain scalars and neither
+     * result filters nor child observations have to be considered.
+     *
+     * @param valueType
+     *            the value type of the series
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @return <code>true</code>, if the value tuples can be queried
+     */
+    public boolean isValueTupleReadable(ValueType valueType, AbstractObservationRequest request) {
+        return getValueTupleClass(valueType) != null && !getDaoFactory().isIncludeChildObservableProperties()
+                && !(request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter());
+    }
+
+    /**
+     * Query streaming values for parameter as chunk {@link List} of value
+     * tuples. Instead of the {@link DataEntity}s only the id, phenomenon
+     * times, result time and value are selected, see the <code>TUPLE_</code>
+     * indices.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series id
+     * @param valueType
+     *            Value type of the series, see
+     *            {@link #isValueTupleReadable(ValueType, AbstractObservationRequest)}
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}, may be <code>null</code>
+     * @param chunkSize
+     *            chunk size
+     * @param currentRow
+     *            Start row
+     * @param session
+     *            Hibernate Session
+     * @return Resulting chunk {@link List}
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getStreamingSeriesValueTuplesFor(AbstractObservationRequest request, long series,
+            ValueType valueType, Criterion temporalFilterCriterion, int chunkSize, int currentRow, Session session)
+            throws OwsExceptionReport {
+        StringBuilder logArgs = new StringBuilder();
+        Criteria c =
+                getSeriesValueTupleCriteriaFor(request, series, valueType, temporalFilterCriterion, session, logArgs);
+        addChunkValuesToCriteria(c, chunkSize, currentRow, request, logArgs);
+        LOGGER.trace(QUERY_STREAMING_SERIES_VALUE_TUPLES, logArgs.toString(), HibernateHelper.getSqlString(c));
+        return (List<Object[]>) c.list();
+    }
+
+    /**
+     * Query streaming values for parameter as chunk {@link List} of value
+     * tuples using keyset pagination.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series id
+     * @param valueType
+     *            Value type of the series
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}, may be <code>null</code>
+     * @param chunkSize
+     *            chunk size
+     * @param lastTuple
+     *            Last value tuple of the previous chunk, <code>null</code> for
+     *            the first chunk
+     * @param session
+     *            Hibernate Session
+     * @return Resulting chunk {@link List}
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying
+     * @see #getStreamingSeriesValueTuplesFor(AbstractObservationRequest, long,
+     *      ValueType, Criterion, int, int, Session)
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getKeysetStreamingSeriesValueTuplesFor(AbstractObservationRequest request, long series,
+            ValueType valueType, Criterion temporalFilterCriterion, int chunkSize, Object[] lastTuple,
+            Session session) throws OwsExceptionReport {
+        StringBuilder logArgs = new StringBuilder();
+        Criteria c =
+                getSeriesValueTupleCriteriaFor(request, series, valueType, temporalFilterCriterion, session, logArgs);
+        if (lastTuple != null) {
+            addKeysetChunkValuesToCriteria(c, chunkSize, (Long) lastTuple[TUPLE_ID],
+                    (Date) lastTuple[TUPLE_SAMPLING_TIME_START], (Date) lastTuple[TUPLE_RESULT_TIME], request,
+                    logArgs);
+        } else {
+            addKeysetChunkValuesToCriteria(c, chunkSize, null, null, null, request, logArgs);
+        }
+        LOGGER.trace(QUERY_STREAMING_SERIES_VALUE_TUPLES, logArgs.toString(), HibernateHelper.getSqlString(c));
+        return (List<Object[]>) c.list();
+    }
+
+    /**
+     * Create the value tuple of a {@link DataEntity}, e.g. to continue a
+     * keyset pagination with value tuples
+     *
+     * @param value
+     *            the {@link DataEntity}
+     * @return the value tuple
+     */
+    public static Object[] createValueTuple(DataEntity<?> value) {
+        return new Object[] { value.getId(), value.getSamplingTimeStart(), value.getSamplingTimeEnd(),
+                value.getResultTime(), value.getValue() };
+    }
+
+    private Class<?> getValueTupleClass(ValueType valueType) {
+        if (valueType != null) {
+            switch (valueType) {
+                case quantity:
+                    return getValuedObservationFactory().numericClass();
+                case count:
+                    return getValuedObservationFactory().countClass();
+                case bool:
+                    return getValuedObservationFactory().truthClass();
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private Criteria getSeriesValueTupleCriteriaFor(AbstractObservationRequest request, long series,
+            ValueType valueType, Criterion temporalFilterCriterion, Session session, StringBuilder logArgs)
+            throws OwsExceptionReport {
+        final Criteria c = addDefaultSeriesValueRestrictions(getDefaultCriteria(getValueTupleClass(valueType), session),
+                request, temporalFilterCriterion, session, logArgs);
+        c.add(Restrictions.eq(DataEntity.PROPERTY_DATASET_ID, series));
+        c.setProjection(Projections.projectionList().add(Projections.property(DataEntity.PROPERTY_ID))
+                .add(Projections.property(DataEntity.PROPERTY_SAMPLING_TIME_START))
+                .add(Projections.property(DataEntity.PROPERTY_SAMPLING_TIME_END))
+                .add(Projections.property(DataEntity.PROPERTY_RESULT_TIME))
+                .add(Projections.property(DataEntity.PROPERTY_VALUE)));
+        return c.setReadOnly(true);
+    }
+
     /**
      * Get {@link Criteria} for parameter
      *
@@ -282,7 +505,12 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
 
     private Criteria getDefaultSeriesValueCriteriaFor(AbstractObservationRequest request,
             Criterion temporalFilterCriterion, Session session, StringBuilder logArgs) throws OwsExceptionReport {
-        final Criteria c = getDefaultObservationCriteria(session);
+        return addDefaultSeriesValueRestrictions(getDefaultObservationCriteria(session), request,
+                temporalFilterCriterion, session, logArgs);
+    }
+
+    private Criteria addDefaultSeriesValueRestrictions(Criteria c, AbstractObservationRequest request,
+            Criterion temporalFilterCriterion, Session session, StringBuilder logArgs) throws OwsExceptionReport {
         c.addOrder(Order.asc(getOrderColumn(request)));
         logArgs.append("request, series");
         if (request instanceof GetObservationRequest) {
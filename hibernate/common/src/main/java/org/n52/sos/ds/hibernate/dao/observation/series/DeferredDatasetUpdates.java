@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+
+/**
+ * Collects the first and last values of the datasets that are modified by the
+ * observations inserted with one request, so that each dataset is only
+ * updated once per transaction instead of once per observation (see
+ * {@link AbstractSeriesDAO#updateSeriesWithFirstLatestValues(DeferredDatasetUpdates, org.hibernate.Session)}).
+ * An instance is passed explicitly to the insertion of the observations of
+ * the request, which then does not call
+ * {@link AbstractSeriesDAO#updateSeriesWithFirstLatestValues(DatasetEntity, DataEntity, org.hibernate.Session)}
+ * and neither flushes nor refreshes each observation.
+ * Only the ids of the entities are kept, so the session may be cleared in the
+ * meantime.
+ *
+ * @since 5.0.3
+ */
+public class DeferredDatasetUpdates {
+
+    private final Map<Long, DatasetValues> datasets = new LinkedHashMap<>();
+
+    /**
+     * Add the observation to the values of its dataset. Earlier observations
+     * replace the first and later observations the last value, observations
+     * with the same time do not, like in the immediate update.
+     *
+     * @param dataset
+     *            the dataset
+     * @param observation
+     *            the inserted observation
+     */
+    public void add(DatasetEntity dataset, DataEntity<?> observation) {
+        datasets.computeIfAbsent(dataset.getId(), DatasetValues::new).add(observation);
+    }
+
+    Collection<DatasetValues> getDatasets() {
+        return datasets.values();
+    }
+
+    public boolean isEmpty() {
+        return datasets.isEmpty();
+    }
+
+    void clear() {
+        datasets.clear();
+    }
+
+    /**
+     * The extrema of the observations of a dataset.
+     */
+    static class DatasetValues {
+        private final Long datasetId;
+        private Long firstObservation;
+        private Date firstValueAt;
+        private boolean firstQuantity;
+        private BigDecimal firstQuantityValue;
+        private Long lastObservation;
+        private Date lastValueAt;
+        private boolean lastQuantity;
+        private BigDecimal lastQuantityValue;
+        private Date minResultTime;
+        private Date maxResultTime;
+
+        DatasetValues(Long datasetId) {
+            this.datasetId = datasetId;
+        }
+
+        void add(DataEntity<?> observation) {
+            if (firstValueAt == null || firstValueAt.after(observation.getSamplingTimeStart())) {
+                firstObservation = observation.getId();
+                firstValueAt = observation.getSamplingTimeStart();
+                firstQuantity = observation instanceof QuantityDataEntity;
+                firstQuantityValue = firstQuantity ? ((QuantityDataEntity) observation).getValue() : null;
+            }
+            if (lastValueAt == null || lastValueAt.before(observation.getSamplingTimeEnd())) {
+                lastObservation = observation.getId();
+                lastValueAt = observation.getSamplingTimeEnd();
+                lastQuantity = observation instanceof QuantityDataEntity;
+                lastQuantityValue = lastQuantity ? ((QuantityDataEntity) observation).getValue() : null;
+            }
+            Date resultTime = observation.getResultTime();
+            if (resultTime != null) {
+                if (minResultTime == null || minResultTime.after(resultTime)) {
+                    minResultTime = resultTime;
+                }
+                if (maxResultTime == null || maxResultTime.before(resultTime)) {
+                    maxResultTime = resultTime;
+                }
+            }
+        }
+
+        Long getDatasetId() {
+            return datasetId;
+        }
+
+        Long getFirstObservation() {
+            return firstObservation;
+        }
+
+        Date getFirstValueAt() {
+            return firstValueAt;
+        }
+
+        boolean isFirstQuantity() {
+            return firstQuantity;
+        }
+
+        BigDecimal getFirstQuantityValue() {
+            return firstQuantityValue;
+        }
+
+        Long getLastObservation() {
+            return lastObservation;
+        }
+
+        Date getLastValueAt() {
+            return lastValueAt;
+        }
+
+        boolean isLastQuantity() {
+            return lastQuantity;
+        }
+
+        BigDecimal getLastQuantityValue() {
+            return lastQuantityValue;
+        }
+
+        Date getMinResultTime() {
+            return minResultTime;
+        }
+
+        Date getMaxResultTime() {
+            return maxResultTime;
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.quadtree.Quadtree;
+
+/**
+ * Spatial index of the feature geometries of a datasource without spatial
+ * support. The index is created when the content cache is loaded and updated
+ * for inserted features. It answers spatial filters and envelope requests
+ * without loading the feature entities.
+ *
+ * @since 5.0.3
+ */
+class FeatureGeometryIndex {
+
+    private final long generation;
+
+    private final Map<String, Geometry> geometries;
+
+    private final Set<String> identifiers;
+
+    private final Quadtree tree = new Quadtree();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor
+     *
+     * @param geometries
+     *            the feature geometries (in datasource axis order) by feature
+     *            identifier
+     * @param generation
+     *            the reload generation of the content cache the geometries
+     *            were loaded for
+     */
+    FeatureGeometryIndex(Map<String, Geometry> geometries, long generation) {
+        this.generation = generation;
+        this.geometries = new HashMap<>(geometries.size());
+        this.identifiers = new HashSet<>(geometries.keySet());
+        for (Map.Entry<String, Geometry> entry : geometries.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return geometries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check if the feature is indexed. Features without geometry are indexed
+     * too, they just match no filter.
+     *
+     * @param identifier
+     *            the feature identifier
+     * @return <code>true</code> if the feature is indexed
+     */
+    boolean contains(String identifier) {
+        lock.readLock().lock();
+        try {
+            return identifiers.contains(identifier);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace the geometry of a feature.
+     *
+     * @param identifier
+     *            the feature identifier
+     * @param geometry
+     *            the geometry (in datasource axis order), features without
+     *            geometry are removed from the index
+     */
+    void put(String identifier, Geometry geometry) {
+        lock.writeLock().lock();
+        try {
+            identifiers.add(identifier);
+            Geometry previous = geometries.remove(identifier);
+            if (previous != null) {
+                tree.remove(previous.getEnvelopeInternal(), identifier);
+            }
+            add(identifier, geometry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(String identifier, Geometry geometry) {
+        if (geometry != null && !geometry.isEmpty()) {
+            geometries.put(identifier, geometry);
+            tree.insert(geometry.getEnvelopeInternal(), identifier);
+        }
+    }
+
+    /**
+     * Get the identifiers of the features whose geometry is contained in at
+     * least one of the filter geometries.
+     *
+     * @param filters
+     *            the filter geometries (in datasource axis order)
+     * @return the matching feature identifiers
+     */
+    Set<String> getIdentifiers(Collection<Geometry> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> identifiers = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            for (Geometry filter : filters) {
+                for (Object candidate : tree.query(filter.getEnvelopeInternal())) {
+                    String identifier = (String) candidate;
+                    Geometry geometry = geometries.get(identifier);
+                    // the quadtree returns all items of the overlapping nodes
+                    if (!identifiers.contains(identifier) && geometry != null && filter.contains(geometry)) {
+                        identifiers.add(identifier);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return identifiers;
+    }
+
+    /**
+     * Get the envelope of the geometries of the features.
+     *
+     * @param identifiers
+     *            the feature identifiers
+     * @return the envelope, {@link Envelope#isNull() null} if none of the
+     *         features has a geometry
+     */
+    Envelope getEnvelope(Collection<String> identifiers) {
+        Envelope envelope = new Envelope();
+        if (identifiers != null) {
+            lock.readLock().lock();
+            try {
+                for (String identifier : identifiers) {
+                    Geometry geometry = geometries.get(identifier);
+                    if (geometry != null) {
+                        envelope.expandToInclude(geometry.getEnvelopeInternal());
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return envelope;
+    }
+
+}
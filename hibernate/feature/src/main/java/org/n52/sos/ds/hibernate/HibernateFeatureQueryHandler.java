@@ -33,10 +33,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -59,12 +61,16 @@ import org.n52.iceland.exception.ows.concrete.NotYetSupportedException;
 import org.n52.iceland.i18n.I18NDAORepository;
 import org.n52.iceland.i18n.I18NSettings;
 import org.n52.iceland.service.ServiceSettings;
+import org.n52.janmayen.event.Event;
+import org.n52.janmayen.event.EventListener;
 import org.n52.janmayen.i18n.LocaleHelper;
+import org.n52.series.db.HibernateSessionStore;
 import org.n52.series.db.beans.AbstractFeatureEntity;
 import org.n52.series.db.beans.FeatureEntity;
 import org.n52.shetland.ogc.filter.SpatialFilter;
 import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.gml.CodeWithAuthority;
+import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.om.features.samplingFeatures.AbstractSamplingFeature;
 import org.n52.shetland.ogc.om.features.samplingFeatures.SamplingFeature;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
@@ -73,6 +79,7 @@ import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.util.IdGenerator;
 import org.n52.shetland.util.ReferencedEnvelope;
 import org.n52.sos.cache.SosContentCache;
+import org.n52.sos.cache.SosContentCacheController;
 import org.n52.sos.ds.FeatureQueryHandler;
 import org.n52.sos.ds.FeatureQueryHandlerQueryObject;
 import org.n52.sos.ds.hibernate.create.FeatureVisitorContext;
@@ -84,16 +91,23 @@ import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.QueryHelper;
 import org.n52.sos.ds.hibernate.util.SpatialRestrictions;
+import org.n52.sos.event.events.FeatureInsertion;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.ResultInsertion;
 import org.n52.sos.service.SosSettings;
 import org.n52.sos.util.GeometryHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 
 @Configurable
 public class HibernateFeatureQueryHandler
-        implements FeatureQueryHandler, HibernateSqlQueryConstants {
+        implements FeatureQueryHandler, HibernateSqlQueryConstants, EventListener {
+
+    private static final Set<Class<? extends Event>> EVENT_TYPES = ImmutableSet
+            .<Class<? extends Event>> of(FeatureInsertion.class, ObservationInsertion.class, ResultInsertion.class);
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HibernateFeatureQueryHandler.class);
 
@@ -115,6 +129,12 @@ public class HibernateFeatureQueryHandler
 
     private String serviceURL;
 
+    private HibernateSessionStore sessionStore;
+
+    private volatile FeatureGeometryIndex featureGeometryIndex;
+
+    private final Object featureGeometryIndexLock = new Object();
+
     @Inject
     public void setDaoFactory(DaoFactory daoFactory) {
         this.daoFactory = daoFactory;
@@ -135,6 +155,11 @@ public class HibernateFeatureQueryHandler
         this.contentCacheController = ctrl;
     }
 
+    @Inject
+    public void setConnectionProvider(HibernateSessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
     @Setting(I18NSettings.I18N_DEFAULT_LANGUAGE)
     public void setDefaultLocale(String defaultLocale) {
         this.defaultLocale = LocaleHelper.decode(defaultLocale);
@@ -198,8 +223,13 @@ public class HibernateFeatureQueryHandler
                 List<String> identifiers = new LinkedList<>();
                 if (queryObject.isSetSpatialFilters()) {
                     SpatialFilter filter = queryObject.getSpatialFitler();
-                    final List<AbstractFeatureEntity> features = daoFactory.getFeatureDAO().getFeatures(session);
                     final Geometry envelope = getGeometryHandler().getFilterForNonSpatialDatasource(filter);
+                    FeatureGeometryIndex index = getFeatureGeometryIndex(session);
+                    if (index != null) {
+                        identifiers.addAll(index.getIdentifiers(Collections.singletonList(envelope)));
+                        return identifiers;
+                    }
+                    final List<AbstractFeatureEntity> features = daoFactory.getFeatureDAO().getFeatures(session);
                     FeatureVisitorContext context = getDefaultContext()
                             .setSession(session)
                             .setRequestedLanguage(queryObject.getI18N());
@@ -270,6 +300,12 @@ public class HibernateFeatureQueryHandler
                         return new ReferencedEnvelope(geometry.getEnvelopeInternal(), srid);
                     }
                 } else {
+                    FeatureGeometryIndex index = getFeatureGeometryIndex(session);
+                    if (index != null) {
+                        Envelope envelope = index.getEnvelope(queryObject.getFeatures());
+                        return envelope.isNull() ? null
+                                : new ReferencedEnvelope(envelope, getGeometryHandler().getStorageEPSG());
+                    }
                     final Envelope envelope = new Envelope();
                     final List<AbstractFeatureEntity> featuresOfInterest =
                             daoFactory.getFeatureDAO().getFeatureOfInterestObjects(queryObject.getFeatures(), session);
@@ -443,8 +479,21 @@ public class HibernateFeatureQueryHandler
                 envelopes.add(getGeometryHandler().getFilterForNonSpatialDatasource(filter));
             }
         }
+        Collection<String> identifiers = queryObject.getFeatures();
+        FeatureGeometryIndex index = hasSpatialFilter ? getFeatureGeometryIndex(session) : null;
+        if (index != null) {
+            // only load the features whose geometry matches the filters
+            Set<String> matching = index.getIdentifiers(envelopes);
+            if (queryObject.isSetFeatures()) {
+                matching.retainAll(queryObject.getFeatures());
+            }
+            if (matching.isEmpty()) {
+                return featureMap;
+            }
+            identifiers = matching;
+        }
         final List<AbstractFeatureEntity> featuresOfInterest =
-                daoFactory.getFeatureDAO().getFeatureOfInterestObjects(queryObject.getFeatures(), session);
+                daoFactory.getFeatureDAO().getFeatureOfInterestObjects(identifiers, session);
         for (final AbstractFeatureEntity feature : featuresOfInterest) {
             final AbstractSamplingFeature sosAbstractFeature =
                     (AbstractSamplingFeature) createSosAbstractFeature(feature, queryObject, session);
@@ -457,6 +506,120 @@ public class HibernateFeatureQueryHandler
         return featureMap;
     }
 
+    /**
+     * Get the geometry index of the features for non spatial datasources. The
+     * index is (re)built after the content cache was loaded or refreshed from
+     * the datasource. Features inserted in between are added by
+     * {@link #handle(Event)}.
+     *
+     * @param session
+     *            the session
+     * @return the index or <code>null</code> if the reloads of the content
+     *         cache can not be tracked
+     */
+    private FeatureGeometryIndex getFeatureGeometryIndex(Session session) {
+        if (!(contentCacheController instanceof SosContentCacheController)) {
+            return null;
+        }
+        long generation = ((SosContentCacheController) contentCacheController).getReloadGeneration();
+        FeatureGeometryIndex index = featureGeometryIndex;
+        if (index != null && index.getGeneration() == generation) {
+            return index;
+        }
+        synchronized (featureGeometryIndexLock) {
+            index = featureGeometryIndex;
+            if (index == null || index.getGeneration() != generation) {
+                index = createFeatureGeometryIndex(generation, session);
+                featureGeometryIndex = index;
+            }
+            return index;
+        }
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getTypes() {
+        return EVENT_TYPES;
+    }
+
+    /**
+     * Add the features of an insertion to the geometry index. Only the
+     * inserted features that are not yet indexed are loaded, the index is not
+     * rebuilt.
+     */
+    @Override
+    public void handle(Event event) {
+        FeatureGeometryIndex current = featureGeometryIndex;
+        if (current == null || sessionStore == null || getGeometryHandler().isSpatialDatasource()) {
+            return;
+        }
+        Set<String> identifiers = getInsertedFeatures(event);
+        identifiers.removeIf(current::contains);
+        if (identifiers.isEmpty()) {
+            return;
+        }
+        Session session = null;
+        try {
+            session = sessionStore.getSession();
+            synchronized (featureGeometryIndexLock) {
+                FeatureGeometryIndex index = featureGeometryIndex;
+                if (index != null) {
+                    FeatureVisitorContext context = getDefaultContext().setSession(session);
+                    for (AbstractFeatureEntity feature
+                            : daoFactory.getFeatureDAO().getFeatureOfInterestObjects(identifiers, session)) {
+                        index.put(feature.getIdentifier(), new HibernateGeometryVisitor(context).visit(feature));
+                    }
+                }
+            }
+        } catch (OwsExceptionReport | HibernateException e) {
+            LOGGER.warn("Error while updating the feature geometry index, rebuilding it on the next request", e);
+            featureGeometryIndex = null;
+        } finally {
+            sessionStore.returnSession(session);
+        }
+    }
+
+    private Set<String> getInsertedFeatures(Event event) {
+        Set<String> identifiers = new HashSet<>();
+        if (event instanceof FeatureInsertion) {
+            for (AbstractFeature feature : ((FeatureInsertion) event).getRequest().getFeatureMembers()) {
+                identifiers.add(feature.getIdentifier());
+            }
+        } else if (event instanceof ObservationInsertion) {
+            addFeatures(((ObservationInsertion) event).getRequest().getObservations(), identifiers);
+        } else if (event instanceof ResultInsertion) {
+            addFeatures(((ResultInsertion) event).getResponse().getObservations(), identifiers);
+        }
+        return identifiers;
+    }
+
+    private void addFeatures(Collection<OmObservation> observations, Set<String> identifiers) {
+        if (observations != null) {
+            for (OmObservation observation : observations) {
+                String feature = observation.getObservationConstellation().getFeatureOfInterestIdentifier();
+                if (!Strings.isNullOrEmpty(feature)) {
+                    identifiers.add(feature);
+                }
+            }
+        }
+    }
+
+    private FeatureGeometryIndex createFeatureGeometryIndex(long generation, Session session) {
+        final List<AbstractFeatureEntity> features = daoFactory.getFeatureDAO().getFeatures(session);
+        final Map<String, Geometry> geometries = new HashMap<>(features.size());
+        FeatureVisitorContext context = getDefaultContext().setSession(session);
+        for (final AbstractFeatureEntity feature : features) {
+            try {
+                geometries.put(feature.getIdentifier(), new HibernateGeometryVisitor(context).visit(feature));
+            } catch (final OwsExceptionReport owse) {
+                LOGGER.warn(String.format("Error while adding '%s' to feature geometry index!",
+                        feature.getIdentifier()), owse);
+            }
+        }
+        FeatureGeometryIndex index = new FeatureGeometryIndex(geometries, generation);
+        LOGGER.debug("Created feature geometry index with {} of {} features", index.size(), features.size());
+        return index;
+    }
+
     protected Map<String, AbstractFeature> getFeaturesForSpatialDatasource(FeatureQueryHandlerQueryObject queryObject)
             throws OwsExceptionReport {
         final Session session = HibernateSessionHolder.getSession(queryObject.getConnection());
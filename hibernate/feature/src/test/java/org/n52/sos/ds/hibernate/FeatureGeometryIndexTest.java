@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+public class FeatureGeometryIndexTest {
+
+    private final GeometryFactory factory = new GeometryFactory();
+
+    private FeatureGeometryIndex index;
+
+    @Before
+    public void setUp() {
+        Map<String, Geometry> geometries = new HashMap<>();
+        geometries.put("a", factory.createPoint(new Coordinate(1, 1)));
+        geometries.put("b", factory.createPoint(new Coordinate(5, 5)));
+        geometries.put("c", factory.createPoint(new Coordinate(9, 9)));
+        geometries.put("d", null);
+        index = new FeatureGeometryIndex(geometries, 1L);
+    }
+
+    @Test
+    public void shouldIgnoreFeaturesWithoutGeometry() {
+        assertThat(index.size(), is(3));
+    }
+
+    @Test
+    public void shouldReturnFeaturesContainedInFilter() {
+        assertThat(index.getIdentifiers(Collections.singletonList(box(0, 0, 6, 6))), containsInAnyOrder("a", "b"));
+        assertThat(index.getIdentifiers(Arrays.asList(box(0, 0, 2, 2), box(8, 8, 10, 10))),
+                containsInAnyOrder("a", "c"));
+        assertThat(index.getIdentifiers(Collections.singletonList(box(2, 2, 4, 4))), is(empty()));
+    }
+
+    @Test
+    public void shouldReturnEnvelopeOfFeatures() {
+        assertThat(index.getEnvelope(Arrays.asList("a", "b", "d")), is(new Envelope(1, 5, 1, 5)));
+        assertThat(index.getEnvelope(Collections.singletonList("x")).isNull(), is(true));
+    }
+
+    @Test
+    public void shouldUpdateInsertedFeatures() {
+        index.put("e", factory.createPoint(new Coordinate(3, 3)));
+        index.put("a", factory.createPoint(new Coordinate(7, 7)));
+        index.put("b", null);
+
+        assertThat(index.size(), is(3));
+        assertThat(index.getIdentifiers(Collections.singletonList(box(0, 0, 6, 6))), containsInAnyOrder("e"));
+        assertThat(index.getIdentifiers(Collections.singletonList(box(6, 6, 10, 10))), containsInAnyOrder("a", "c"));
+    }
+
+    @Test
+    public void shouldContainFeaturesWithAndWithoutGeometry() {
+        assertThat(index.contains("a"), is(true));
+        assertThat(index.contains("d"), is(true));
+        assertThat(index.contains("e"), is(false));
+
+        index.put("e", null);
+        assertThat(index.contains("e"), is(true));
+    }
+
+    private Geometry box(double minX, double minY, double maxX, double maxY) {
+        return factory.toGeometry(new Envelope(minX, maxX, minY, maxY));
+    }
+
+}
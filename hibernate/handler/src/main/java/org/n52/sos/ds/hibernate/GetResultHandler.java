@@ -38,6 +38,7 @@ import javax.inject.Inject;
 
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
@@ -64,6 +65,8 @@ import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.QueryHelper;
 import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
+import org.n52.sos.ds.hibernate.util.ResultHandlingHelper.ResultValuesWriter;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
 import org.n52.sos.ds.hibernate.util.SosTemporalRestrictions;
 import org.n52.sos.ds.hibernate.util.SpatialRestrictions;
 import org.n52.sos.exception.ows.concrete.UnsupportedOperatorException;
@@ -88,6 +91,8 @@ public class GetResultHandler extends AbstractGetResultHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GetResultHandler.class);
 
+    private static final int FETCH_SIZE = 1000;
+
     private HibernateSessionHolder sessionHolder;
 
     private FeatureQueryHandler featureQueryHandler;
@@ -143,11 +148,18 @@ public class GetResultHandler extends AbstractGetResultHandler {
                         createSosResultEncoding(resultTemplates.get(0).getEncoding());
                 final SosResultStructure sosResultStructure =
                         createSosResultStructure(resultTemplates.get(0).getStructure());
-                final List<DataEntity<?>> observations;
-                observations = querySeriesObservation(request, featureIdentifier, session);
-                response.setResultValues(new ResultHandlingHelper(geometryHandler, daoFactory.getSweHelper())
-                        .createResultValuesFromObservations(observations, sosResultEncoding, sosResultStructure,
-                                getProfileHandler().getActiveProfile().getResponseNoDataPlaceholder()));
+                final StringBuilder resultValues = new StringBuilder();
+                long elementCount = writeSeriesObservation(request, featureIdentifier,
+                        new ResultHandlingHelper(geometryHandler, daoFactory.getSweHelper()).createResultValuesWriter(
+                                sosResultEncoding, sosResultStructure,
+                                getProfileHandler().getActiveProfile().getResponseNoDataPlaceholder(), resultValues),
+                        session);
+                if (elementCount > 0) {
+                    // the blocks start with the block separator, the count
+                    // is known after scrolling
+                    resultValues.insert(0, elementCount);
+                }
+                response.setResultValues(resultValues.toString());
             }
             return response;
         } catch (final HibernateException he) {
@@ -180,42 +192,61 @@ public class GetResultHandler extends AbstractGetResultHandler {
     }
 
     /**
-     * Query series observations from database depending on requested filters
+     * Scroll through the series observations matching the requested filters
+     * and write them to the result values writer. The observations are never
+     * held in a list and are evicted from the session after they are written.
+     * The element count is taken from the same scroll, so it always matches
+     * the written blocks.
      *
      * @param request
-     *            GetObservation request
+     *            GetResult request
      * @param featureIdentifiers
      *            Set of feature identifiers. If <tt>null</tt>, query filter
-     *            will not be added. If <tt>empty</tt>, <tt>null</tt> will be
-     *            returned.
+     *            will not be added.
+     * @param writer
+     *            Result values writer
      * @param session
      *            Hibernate session
-     * @return List of Observation objects
+     * @return the number of written observations
      * @throws OwsExceptionReport
      *             If an error occurs.
      */
-    @SuppressWarnings("unchecked")
-    protected List<DataEntity<?>> querySeriesObservation(GetResultRequest request,
-            Collection<String> featureIdentifiers, Session session) throws OwsExceptionReport {
-        final Criteria c = createCriteriaFor(DataEntity.class, session);
-        addSpatialFilteringProfileRestrictions(c, request, session);
-        addParentChildRestriction(c);
+    protected long writeSeriesObservation(GetResultRequest request, Collection<String> featureIdentifiers,
+            ResultValuesWriter writer, Session session) throws OwsExceptionReport {
+        final Criteria c = createSeriesObservationCriteria(request, featureIdentifiers, session);
+        if (c == null) {
+            return 0;
+        }
+        // no DISTINCT_ROOT_ENTITY transformer: the criteria only restricts
+        // columns of the observation table and joins no collections, so each
+        // row already is a distinct observation
+        c.addOrder(Order.asc(DataEntity.PROPERTY_SAMPLING_TIME_START)).setFetchSize(FETCH_SIZE);
+        LOGGER.trace("QUERY scrollObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
+        try (ScrollableIterable<DataEntity<?>> observations =
+                ScrollableIterable.fromResults(c.scroll(ScrollMode.FORWARD_ONLY))) {
+            for (DataEntity<?> observation : observations) {
+                writer.write(observation);
+                session.evict(observation);
+            }
+        }
+        return writer.getWritten();
+    }
 
+    private Criteria createSeriesObservationCriteria(GetResultRequest request, Collection<String> featureIdentifiers,
+            Session session) throws OwsExceptionReport {
         List<DatasetEntity> series = daoFactory.getSeriesDAO().getSeries(request, featureIdentifiers, session);
         if (CollectionHelper.isEmpty(series)) {
             return null;
-        } else {
-            c.add(Restrictions.in(DataEntity.PROPERTY_DATASET_ID,
-                    series.stream().map(DatasetEntity::getId).collect(Collectors.toSet())));
         }
-
+        final Criteria c = createCriteriaFor(DataEntity.class, session);
+        addSpatialFilteringProfileRestrictions(c, request, session);
+        addParentChildRestriction(c);
+        c.add(Restrictions.in(DataEntity.PROPERTY_DATASET_ID,
+                series.stream().map(DatasetEntity::getId).collect(Collectors.toSet())));
         if (request.getTemporalFilter() != null && !request.getTemporalFilter().isEmpty()) {
             addTemporalFilter(c, request.getTemporalFilter());
         }
-
-        LOGGER.trace("QUERY queryObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
-        return c.list();
-
+        return c;
     }
 
     /**
@@ -256,21 +287,18 @@ public class GetResultHandler extends AbstractGetResultHandler {
     }
 
     /**
-     * Create Hibernate Criteria for the class and add ascending of phenomenon
-     * start time
+     * Create Hibernate Criteria for the class and add the not deleted
+     * restriction
      *
      * @param clazz
      *            The class for the Criteria
      * @param session
      *            Hibernate session
-     * @return Hibernate Criteria for the class and add ascending of phenomenon
-     *         start time
+     * @return Hibernate Criteria for the class
      */
     @SuppressWarnings("rawtypes")
     private Criteria createCriteriaFor(Class clazz, Session session) {
-        return session.createCriteria(clazz).setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
-                .add(Restrictions.eq(DataEntity.PROPERTY_DELETED, false))
-                .addOrder(Order.asc(DataEntity.PROPERTY_SAMPLING_TIME_START));
+        return session.createCriteria(clazz).add(Restrictions.eq(DataEntity.PROPERTY_DELETED, false));
     }
 
     private void addParentChildRestriction(Criteria c) {
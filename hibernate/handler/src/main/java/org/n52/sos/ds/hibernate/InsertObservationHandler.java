@@ -70,8 +70,13 @@ import org.n52.shetland.ogc.sos.response.InsertObservationResponse;
 import org.n52.sos.ds.AbstractInsertObservationHandler;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
+import org.n52.sos.ds.hibernate.dao.observation.DuplicatedObservationChecker;
+import org.n52.sos.ds.hibernate.dao.observation.series.DeferredDatasetUpdates;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.StripedInsertionLocks;
 import org.n52.sos.service.SosSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
@@ -85,8 +90,12 @@ import com.google.common.collect.Table.Cell;
 
 @Configurable
 public class InsertObservationHandler extends AbstractInsertObservationHandler implements Constructable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InsertObservationHandler.class);
+
     private static final int FLUSH_THRESHOLD = 50;
 
+    private static final int MAX_CONCURRENT_INSERTION_ATTEMPTS = 3;
+
     private static final String CONSTRAINT_OBSERVATION_IDENTITY = "observationIdentity";
 
     private static final String CONSTRAINT_OBSERVATION_IDENTIFIER_IDENTITY = "obsIdentifierUK";
@@ -112,6 +121,14 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
 
     private boolean strictSpatialFilteringProfile;
 
+    private volatile boolean concurrentInsertion;
+
+    private volatile boolean deferredDatasetUpdate;
+
+    private volatile boolean checkForDuplicatedObservations;
+
+    private StripedInsertionLocks insertionLocks = new StripedInsertionLocks();
+
     /**
      * constructor
      */
@@ -133,17 +150,104 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
         return strictSpatialFilteringProfile;
     }
 
+    /**
+     * Set the locks that are shared with the other inserting handlers
+     *
+     * @param insertionLocks
+     *            the shared insertion locks
+     */
+    @Inject
+    public void setInsertionLocks(StripedInsertionLocks insertionLocks) {
+        this.insertionLocks = insertionLocks;
+    }
+
+    @Setting(SosSettings.CONCURRENT_INSERT_OBSERVATION)
+    public void setConcurrentInsertion(final boolean concurrentInsertion) {
+        this.concurrentInsertion = concurrentInsertion;
+    }
+
+    public boolean isConcurrentInsertion() {
+        return concurrentInsertion;
+    }
+
+    @Setting(SosSettings.DEFERRED_DATASET_UPDATE)
+    public void setDeferredDatasetUpdate(final boolean deferredDatasetUpdate) {
+        this.deferredDatasetUpdate = deferredDatasetUpdate;
+    }
+
+    public boolean isDeferredDatasetUpdate() {
+        return deferredDatasetUpdate;
+    }
+
+    @Setting(SosSettings.CHECK_FOR_DUPLICATED_OBSERVATIONS)
+    public void setCheckForDuplicatedObservations(final boolean checkForDuplicatedObservations) {
+        this.checkForDuplicatedObservations = checkForDuplicatedObservations;
+    }
+
+    public boolean isCheckForDuplicatedObservations() {
+        return checkForDuplicatedObservations;
+    }
+
     @Override
     public boolean isSupported() {
         return HibernateHelper.isEntitySupported(ProcedureHistoryEntity.class);
     }
 
     @Override
-    public synchronized InsertObservationResponse insertObservation(final InsertObservationRequest request)
+    public InsertObservationResponse insertObservation(final InsertObservationRequest request)
+            throws OwsExceptionReport {
+        if (isConcurrentInsertion()) {
+            // only requests for the same datasets or features are serialized
+            try (StripedInsertionLocks.Held held = insertionLocks.lock(getLockKeys(request))) {
+                return insertObservation(request, MAX_CONCURRENT_INSERTION_ATTEMPTS);
+            }
+        }
+        synchronized (this) {
+            return insertObservation(request, 1);
+        }
+    }
+
+    private InsertObservationResponse insertObservation(final InsertObservationRequest request, int maxAttempts)
             throws OwsExceptionReport {
         final InsertObservationResponse response = new InsertObservationResponse();
         response.setService(request.getService());
         response.setVersion(request.getVersion());
+        PersistenceException conflict = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                Set<String> offerings = insertObservationInTransaction(request);
+                // the request is only changed after the commit, a failed
+                // attempt leaves it unchanged for the next one
+                request.setOfferings(Lists.newArrayList(offerings));
+                return response;
+            } catch (PersistenceException pe) {
+                if (!isConcurrentCreationConflict(pe)) {
+                    handleHibernateException(pe);
+                }
+                // another transaction has inserted a shared entity (e.g.
+                // unit, codespace, feature) in the meantime, the next
+                // attempt finds and reuses it
+                LOGGER.debug("Concurrent insertion conflict in attempt {}/{}", attempt, maxAttempts, pe);
+                conflict = pe;
+            }
+        }
+        handleHibernateException(conflict);
+        return response;
+    }
+
+    /**
+     * Insert the observations of the request in one transaction. The request
+     * is not changed, so that the insertion can be retried after a rollback.
+     *
+     * @param request
+     *            the InsertObservation request
+     * @return the offerings of the inserted observations
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    @VisibleForTesting
+    Set<String> insertObservationInTransaction(final InsertObservationRequest request)
+            throws OwsExceptionReport {
         Session session = null;
         Transaction transaction = null;
 
@@ -157,6 +261,15 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
             InsertObservationCache cache = new InsertObservationCache();
 
             cache.addOfferings(request.getOfferings());
+            if (isCheckForDuplicatedObservations()) {
+                cache.setDuplicatedObservationChecker(new DuplicatedObservationChecker(
+                        getDaoFactory().getObservationDAO(), request.getObservations()));
+            }
+            if (isDeferredDatasetUpdate()) {
+                // first/last values of the datasets are updated once before
+                // the commit instead of for each observation
+                cache.setDatasetUpdates(new DeferredDatasetUpdates());
+            }
 
             // counter for batch flushing
             int obsCount = 0;
@@ -178,20 +291,22 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
                 }
             }
 
-            request.setOfferings(Lists.newArrayList(cache.getAllOfferings()));
-
             // if no observationConstellation is valid, throw exception
             if (exceptions.size() == request.getObservations().size()) {
                 throw exceptions;
             }
 
+            if (cache.getDatasetUpdates() != null) {
+                daoFactory.getSeriesDAO().updateSeriesWithFirstLatestValues(cache.getDatasetUpdates(), session);
+            }
             session.flush();
             transaction.commit();
+            return cache.getAllOfferings();
         } catch (PersistenceException pe) {
             if (transaction != null) {
                 transaction.rollback();
             }
-            handleHibernateException(pe);
+            throw pe;
         } finally {
             getHibernateSessionHolder().returnSession(session);
         }
@@ -199,8 +314,41 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
          * TODO: ... all the DS insertion stuff Requirement 68
          * proc/obsProp/Offering same obsType;
          */
+    }
 
-        return response;
+    /**
+     * Get the lock keys for the datasets and features referenced by the
+     * observations of the request.
+     *
+     * @param request
+     *            the InsertObservation request
+     * @return the lock keys
+     */
+    private Set<String> getLockKeys(InsertObservationRequest request) {
+        Set<String> keys = new HashSet<>();
+        for (OmObservation observation : request.getObservations()) {
+            OmObservationConstellation constellation = observation.getObservationConstellation();
+            for (String offering : constellation.getOfferings()) {
+                keys.add(StripedInsertionLocks.getDatasetKey(constellation.getProcedureIdentifier(),
+                        constellation.getObservablePropertyIdentifier(), offering));
+            }
+            if (constellation.isSetFeatureOfInterest()) {
+                keys.add(StripedInsertionLocks.getFeatureKey(constellation.getFeatureOfInterestIdentifier()));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Check if the exception is caused by a concurrent insertion of a shared
+     * entity, see {@link StripedInsertionLocks#isConcurrentCreationConflict}.
+     *
+     * @param pe
+     *            the exception to check
+     * @return <code>true</code>, if the transaction can be retried
+     */
+    private boolean isConcurrentCreationConflict(PersistenceException pe) {
+        return isConcurrentInsertion() && StripedInsertionLocks.isConcurrentCreationConflict(pe);
     }
 
     private void insertObservation(OmObservation sosObservation, InsertObservationCache cache,
@@ -247,11 +395,18 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
             AbstractObservationDAO observationDAO = getDaoFactory().getObservationDAO();
             DatasetEntity dataset = null;
             if (sosObservation.getValue() instanceof SingleObservationValue) {
+                if (cache.getDuplicatedObservationChecker() != null) {
+                    cache.getDuplicatedObservationChecker().check(sosObservation, hDataset, session);
+                }
                 dataset = observationDAO.insertObservationSingleValue(hDataset, hFeature, sosObservation,
-                        cache.getCodespaceCache(), cache.getUnitCache(), cache.getFormatCache(), session);
+                        cache.getCodespaceCache(), cache.getUnitCache(), cache.getFormatCache(),
+                        cache.getDatasetUpdates(), session);
             } else if (sosObservation.getValue() instanceof MultiObservationValues) {
+                // each value is checked against the same times as the single
+                // observations
                 dataset = observationDAO.insertObservationMultiValue(hDataset, hFeature, sosObservation,
-                        cache.getCodespaceCache(), cache.getUnitCache(), cache.getFormatCache(), session);
+                        cache.getCodespaceCache(), cache.getUnitCache(), cache.getFormatCache(),
+                        cache.getDatasetUpdates(), cache.getDuplicatedObservationChecker(), session);
             }
             if (dataset != null && !cache.get(sosObsConst, offeringID).equals(dataset)) {
                 cache.putConstellation(sosObsConst, offeringID, dataset);
@@ -385,6 +540,10 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
 
         private final HashMultimap<AbstractFeature, String> relatedFeatureCheckedMap = HashMultimap.create();
 
+        private DuplicatedObservationChecker duplicatedObservationChecker;
+
+        private DeferredDatasetUpdates datasetUpdates;
+
         public DatasetEntity get(OmObservationConstellation oc, String offering) {
             return this.obsConstOfferingHibernateObsConstTable.get(oc, offering);
         }
@@ -454,5 +613,21 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
         public void addOfferings(Collection<String> offerings) {
             this.allOfferings.addAll(offerings);
         }
+
+        public DuplicatedObservationChecker getDuplicatedObservationChecker() {
+            return duplicatedObservationChecker;
+        }
+
+        public void setDuplicatedObservationChecker(DuplicatedObservationChecker duplicatedObservationChecker) {
+            this.duplicatedObservationChecker = duplicatedObservationChecker;
+        }
+
+        public DeferredDatasetUpdates getDatasetUpdates() {
+            return datasetUpdates;
+        }
+
+        public void setDatasetUpdates(DeferredDatasetUpdates datasetUpdates) {
+            this.datasetUpdates = datasetUpdates;
+        }
     }
 }
@@ -29,11 +29,18 @@
 package org.n52.sos.ds.hibernate;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 
@@ -43,7 +50,9 @@ import org.hibernate.Transaction;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.ds.ConnectionProvider;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
 import org.n52.janmayen.lifecycle.Constructable;
+import org.n52.janmayen.lifecycle.Destroyable;
 import org.n52.series.db.beans.AbstractFeatureEntity;
 import org.n52.series.db.beans.CategoryEntity;
 import org.n52.series.db.beans.CodespaceEntity;
@@ -74,8 +83,6 @@ import org.n52.shetland.ogc.sensorML.SensorML;
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.sos.SosProcedureDescription;
-import org.n52.shetland.ogc.sos.SosResultEncoding;
-import org.n52.shetland.ogc.sos.SosResultStructure;
 import org.n52.shetland.ogc.sos.request.InsertResultRequest;
 import org.n52.shetland.ogc.sos.response.InsertResultResponse;
 import org.n52.shetland.ogc.swe.SweAbstractDataComponent;
@@ -95,7 +102,9 @@ import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
+import org.n52.sos.ds.hibernate.util.StripedInsertionLocks;
 import org.n52.sos.ds.hibernate.util.observation.ObservationUnfolder;
+import org.n52.sos.service.SosSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -110,7 +119,7 @@ import com.google.common.collect.Sets;
  *
  */
 @Configurable
-public class InsertResultHandler extends AbstractInsertResultHandler implements Constructable {
+public class InsertResultHandler extends AbstractInsertResultHandler implements Constructable, Destroyable {
 
     public static final String ABORT_INSERT_RESULT_FOR_EXISTING_OBSERVATIONS =
             "service.abortInsertResultForExistingObservations";
@@ -119,6 +128,12 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
 
     private static final int FLUSH_THRESHOLD = 50;
 
+    private static final int PIPELINE_CHUNK_SIZE = 1000;
+
+    private static final int PIPELINE_CAPACITY = 2;
+
+    private static final int MAX_CONCURRENT_INSERTION_ATTEMPTS = 3;
+
     @Inject
     private ConnectionProvider connectionProvider;
 
@@ -133,6 +148,14 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
 
     private ResultHandlingHelper helper;
 
+    private volatile boolean concurrentInsertion;
+
+    private int pipelineChunkSize = PIPELINE_CHUNK_SIZE;
+
+    private StripedInsertionLocks insertionLocks = new StripedInsertionLocks();
+
+    private ExecutorService parserExecutor;
+
     public InsertResultHandler() {
         super(SosConstants.SOS);
     }
@@ -141,115 +164,236 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
     public void init() {
         this.sessionHolder = new HibernateSessionHolder(connectionProvider);
         helper = new ResultHandlingHelper(getDaoFactory().getGeometryHandler(), getDaoFactory().getSweHelper());
+        this.parserExecutor = Executors.newCachedThreadPool(new GroupedAndNamedThreadFactory("insert-result-parser"));
     }
 
     @Override
-    public synchronized InsertResultResponse insertResult(final InsertResultRequest request)
+    public void destroy() {
+        if (parserExecutor != null) {
+            parserExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public InsertResultResponse insertResult(final InsertResultRequest request) throws OwsExceptionReport {
+        if (isConcurrentInsertion()) {
+            // only requests for the same datasets or features are serialized,
+            // the locks are shared with InsertObservation
+            try (StripedInsertionLocks.Held held = insertionLocks.lock(getLockKeys(request))) {
+                return insertResult(request, MAX_CONCURRENT_INSERTION_ATTEMPTS);
+            }
+        }
+        synchronized (this) {
+            return insertResult(request, 1);
+        }
+    }
+
+    private InsertResultResponse insertResult(final InsertResultRequest request, int maxAttempts)
+            throws OwsExceptionReport {
+        HibernateException conflict = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return insertResultInTransaction(request);
+            } catch (HibernateException he) {
+                if (!isConcurrentInsertion() || !StripedInsertionLocks.isConcurrentCreationConflict(he)) {
+                    // XXX exception text
+                    throw new NoApplicableCodeException().causedBy(he);
+                }
+                // another transaction has inserted a shared entity (e.g.
+                // unit, codespace) in the meantime, the next attempt finds
+                // and reuses it
+                LOGGER.debug("Concurrent insertion conflict in attempt {}/{}", attempt, maxAttempts, he);
+                conflict = he;
+            }
+        }
+        throw new NoApplicableCodeException().causedBy(conflict);
+    }
+
+    /**
+     * Get the lock keys for the datasets and features the result values are
+     * inserted for. Procedures and features that are not defined by the
+     * result template are read from the result values.
+     *
+     * @param request
+     *            the InsertResult request
+     * @return the lock keys
+     * @throws OwsExceptionReport
+     *             If the result template can not be read
+     */
+    private Set<String> getLockKeys(final InsertResultRequest request) throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getHibernateSessionHolder().getSession();
+            final ResultTemplateEntity resultTemplate = getDaoFactory().getResultTemplateDAO()
+                    .getResultTemplateObject(request.getTemplateIdentifier(), session);
+            final SweAbstractEncoding encoding = createSosResultEncoding(resultTemplate.getEncoding()).get().get();
+            final SweAbstractDataComponent resultStructure =
+                    createSosResultStructure(resultTemplate.getStructure()).get().get();
+            final SweDataRecord record = setRecordFrom(resultStructure);
+            final Map<Integer, String> observedProperties = new HashMap<>();
+            final Map<Integer, String> featureOfInterest = new HashMap<>();
+            final Map<Integer, String> procedure = new HashMap<>();
+            getIndexFor(record, 0, observedProperties, new HashMap<>(), featureOfInterest, procedure,
+                    Sets.newHashSet(helper.hasResultTime(resultStructure), helper.hasPhenomenonTime(resultStructure)),
+                    encoding);
+
+            final Set<String> procedures = new HashSet<>();
+            final Set<String> features = new HashSet<>();
+            if (resultTemplate.isSetProcedure()) {
+                procedures.add(resultTemplate.getProcedure().getIdentifier());
+            }
+            if (resultTemplate.isSetFeature()) {
+                features.add(resultTemplate.getFeature().getIdentifier());
+            }
+            if (!procedure.isEmpty() || !featureOfInterest.isEmpty()) {
+                final String[] blockValues = getBlockValues(request.getResultValues(), encoding);
+                if (blockValues != null) {
+                    for (final String block : blockValues) {
+                        final String[] singleValues = getSingleValues(block, encoding);
+                        addValues(singleValues, procedure.keySet(), procedures);
+                        addValues(singleValues, featureOfInterest.keySet(), features);
+                    }
+                }
+            }
+            // composite phenomena are unfolded to the observed properties of
+            // the fields
+            final Set<String> observableProperties = new HashSet<>(observedProperties.values());
+            observableProperties.add(resultTemplate.getPhenomenon().getIdentifier());
+
+            final Set<String> keys = new HashSet<>();
+            for (final String procedureIdentifier : procedures) {
+                for (final String observableProperty : observableProperties) {
+                    keys.add(StripedInsertionLocks.getDatasetKey(procedureIdentifier, observableProperty,
+                            resultTemplate.getOffering().getIdentifier()));
+                }
+            }
+            for (final String feature : features) {
+                keys.add(StripedInsertionLocks.getFeatureKey(feature));
+            }
+            return keys;
+        } finally {
+            getHibernateSessionHolder().returnSession(session);
+        }
+    }
+
+    private void addValues(final String[] singleValues, final Set<Integer> indices, final Set<String> values) {
+        if (singleValues != null) {
+            for (final Integer index : indices) {
+                if (index < singleValues.length && !singleValues[index].isEmpty()) {
+                    values.add(singleValues[index]);
+                }
+            }
+        }
+    }
+
+    private InsertResultResponse insertResultInTransaction(final InsertResultRequest request)
             throws OwsExceptionReport {
         final InsertResultResponse response = new InsertResultResponse();
         response.setService(request.getService());
         response.setVersion(request.getVersion());
         Session session = null;
         Transaction transaction = null;
-
-        Map<String, CodespaceEntity> codespaceCache = Maps.newHashMap();
-        Map<UoM, UnitEntity> unitCache = Maps.newHashMap();
-        Map<String, FormatEntity> formatCache = Maps.newHashMap();
+        ResultValuesPipeline pipeline = null;
 
         try {
             session = getHibernateSessionHolder().getSession();
             final ResultTemplateEntity resultTemplate = getDaoFactory().getResultTemplateDAO()
                     .getResultTemplateObject(request.getTemplateIdentifier(), session);
             transaction = session.beginTransaction();
-            final OmObservation o = getSingleObservationFromResultValues(response.getVersion(), resultTemplate,
-                    request.getResultValues(), session);
-            final List<OmObservation> observations = getSingleObservationsFromObservation(o);
-            if (o.getObservationConstellation().isSetFeatureOfInterest()
-                    && o.getObservationConstellation().isSetProcedure()) {
-                response.setObservation(o);
-            } else {
-                response.setObservations(observations);
-            }
-
-            final AbstractSeriesDAO obsConstDao = getDaoFactory().getSeriesDAO();
-            final FormatDAO obsTypeDao = getDaoFactory().getObservationTypeDAO();
-            Map<OmObservationConstellation, DatasetEntity> obsConsts = new HashMap<>();
-
-            int insertion = 0;
-            final int size = observations.size();
-            final AbstractObservationDAO observationDAO = getDaoFactory().getObservationDAO();
-            LOGGER.debug("Start saving {} observations.", size);
-            Map<String, AbstractFeatureEntity> featureEntityMap = new HashMap<>();
-            for (final OmObservation observation : observations) {
-                OmObservationConstellation omObsConst = observation.getObservationConstellation();
-                if (!obsConsts.containsKey(omObsConst)) {
-                    DatasetEntity oc = obsConstDao.getSeries(omObsConst, session);
-                    if (oc != null) {
-                        obsConsts.put(omObsConst, oc);
-                    } else if (isConvertComplexProfileToSingleProfiles() && observation.isSetValue()
-                            && observation.getValue().isSetValue()
-                            && observation.getValue().getValue() instanceof ProfileValue) {
-                        obsConsts.put(omObsConst, insertObservationConstellationForProfiles(obsConstDao, obsTypeDao,
-                                observation, session));
-                    }
-                }
-                DatasetEntity obsConst = obsConsts.get(observation.getObservationConstellation());
-                AbstractFeatureEntity feature = null;
-                if (resultTemplate.isSetFeature()) {
-                    feature = resultTemplate.getFeature();
+            final ObservationTemplate observationTemplate = getObservationTemplate(resultTemplate, session);
+            final String[] blockValues =
+                    getBlockValues(request.getResultValues(), observationTemplate.getEncoding());
+            pipeline = new ResultValuesPipeline(observationTemplate, blockValues);
+            final InsertResultCache cache = new InsertResultCache();
+            final OmObservationConstellation constellation = observationTemplate.getObservationConstellation();
+            final boolean combined = constellation.isSetFeatureOfInterest() && constellation.isSetProcedure();
+            final List<OmObservation> responseObservations = new LinkedList<>();
+            OmObservation combinedObservation = null;
+            LOGGER.debug("Start saving observations of {} blocks.", pipeline.getBlockCount());
+            // parsing of the next chunk overlaps the persisting of this chunk
+            for (ParsedChunk chunk = pipeline.next(); chunk != null; chunk = pipeline.next()) {
+                if (!combined) {
+                    responseObservations.addAll(chunk.getObservations());
+                } else if (combinedObservation == null) {
+                    combinedObservation = chunk.getObservation();
                 } else {
-                    feature = getFeature(omObsConst.getFeatureOfInterest(), featureEntityMap, session);
-                    // if
-                    // (featureEntityMap.containsKey(omObsConst.getFeatureOfInterestIdentifier()))
-                    // {
-                    // feature =
-                    // featureEntityMap.get(omObsConst.getFeatureOfInterestIdentifier());
-                    // } else {
-                    // FeatureOfInterestDAO featureOfInterestDAO =
-                    // getDaoFactory() .getFeatureOfInterestDAO();
-                    // feature =
-                    // featureOfInterestDAO.checkOrInsert(omObsConst.getFeatureOfInterest(),
-                    // session);
-                    // featureOfInterestDAO.checkOrInsertRelatedFeatureRelation(feature,
-                    // obsConst.getOffering(), session);
-                    // featureEntityMap.put(feature.getIdentifier(), feature);
-                    // }
-                }
-                try {
-                    if (observation.getValue() instanceof SingleObservationValue) {
-                        observationDAO.insertObservationSingleValue(obsConst, feature, observation, codespaceCache,
-                                unitCache, formatCache, session);
-                    } else if (observation.getValue() instanceof MultiObservationValues) {
-                        observationDAO.insertObservationMultiValue(obsConst, feature, observation, codespaceCache,
-                                unitCache, formatCache, session);
-                    }
-                } catch (NoApplicableCodeException nace) {
-                    if (abortInsertResultForExistingObservations()) {
-                        throw nace;
-                    } else {
-                        LOGGER.debug("Already existing observation would be ignored!", nace);
-                    }
-                }
-                if ((++insertion % FLUSH_THRESHOLD) == 0) {
-                    session.flush();
-                    session.clear();
-                    LOGGER.debug("Saved {}/{} observations.", insertion, size);
+                    addBlocks(combinedObservation, chunk.getObservation());
                 }
+                saveObservations(chunk.getObservations(), resultTemplate, cache, session);
+            }
+            if (combinedObservation != null) {
+                // one observation with all result values, as if parsed at once
+                response.setObservation(combinedObservation);
+            } else {
+                response.setObservations(responseObservations);
             }
-            LOGGER.debug("Saved {} observations.", size);
+            LOGGER.debug("Saved {} observations.", cache.getInsertions());
             transaction.commit();
         } catch (final HibernateException he) {
             if (transaction != null) {
                 transaction.rollback();
             }
-            // XXX exception text
-            throw new NoApplicableCodeException().causedBy(he);
+            throw he;
         } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
             getHibernateSessionHolder().returnSession(session);
         }
         return response;
     }
 
+    private void saveObservations(final List<OmObservation> observations, final ResultTemplateEntity resultTemplate,
+            final InsertResultCache cache, final Session session) throws OwsExceptionReport {
+        final AbstractSeriesDAO obsConstDao = getDaoFactory().getSeriesDAO();
+        final FormatDAO obsTypeDao = getDaoFactory().getObservationTypeDAO();
+        final AbstractObservationDAO observationDAO = getDaoFactory().getObservationDAO();
+        final Map<OmObservationConstellation, DatasetEntity> obsConsts = cache.getObsConsts();
+        for (final OmObservation observation : observations) {
+            OmObservationConstellation omObsConst = observation.getObservationConstellation();
+            if (!obsConsts.containsKey(omObsConst)) {
+                DatasetEntity oc = obsConstDao.getSeries(omObsConst, session);
+                if (oc != null) {
+                    obsConsts.put(omObsConst, oc);
+                } else if (isConvertComplexProfileToSingleProfiles() && observation.isSetValue()
+                        && observation.getValue().isSetValue()
+                        && observation.getValue().getValue() instanceof ProfileValue) {
+                    obsConsts.put(omObsConst,
+                            insertObservationConstellationForProfiles(obsConstDao, obsTypeDao, observation, session));
+                }
+            }
+            DatasetEntity obsConst = obsConsts.get(observation.getObservationConstellation());
+            AbstractFeatureEntity feature = null;
+            if (resultTemplate.isSetFeature()) {
+                feature = resultTemplate.getFeature();
+            } else {
+                feature = getFeature(omObsConst.getFeatureOfInterest(), cache.getFeatureEntityMap(), session);
+            }
+            try {
+                if (observation.getValue() instanceof SingleObservationValue) {
+                    observationDAO.insertObservationSingleValue(obsConst, feature, observation,
+                            cache.getCodespaceCache(), cache.getUnitCache(), cache.getFormatCache(), session);
+                } else if (observation.getValue() instanceof MultiObservationValues) {
+                    observationDAO.insertObservationMultiValue(obsConst, feature, observation,
+                            cache.getCodespaceCache(), cache.getUnitCache(), cache.getFormatCache(), session);
+                }
+            } catch (NoApplicableCodeException nace) {
+                if (abortInsertResultForExistingObservations()) {
+                    throw nace;
+                } else {
+                    LOGGER.debug("Already existing observation would be ignored!", nace);
+                }
+            }
+            // flush and clear, so that the session does not hold all inserted
+            // entities
+            if ((cache.incrementInsertions() % FLUSH_THRESHOLD) == 0) {
+                session.flush();
+                session.clear();
+                LOGGER.debug("Saved {} observations.", cache.getInsertions());
+            }
+        }
+    }
+
     @Override
     public boolean isSupported() {
         return HibernateHelper.isEntitySupported(ResultTemplateEntity.class);
@@ -279,36 +423,6 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
         return hFeature;
     }
 
-    /**
-     * Create OmObservation from result values
-     *
-     * @param version
-     *            Service version
-     * @param resultTemplate
-     *            Associated result template
-     * @param resultValues
-     *            Result values
-     * @param session
-     *            Hibernate session
-     * @return OmObservation from result values
-     * @throws OwsExceptionReport
-     *             If an error occurs during the processing
-     */
-    private OmObservation getSingleObservationFromResultValues(final String version,
-            final ResultTemplateEntity resultTemplate, final String resultValues, final Session session)
-            throws OwsExceptionReport {
-        final SosResultEncoding resultEncoding = createSosResultEncoding(resultTemplate.getEncoding());
-        final SosResultStructure resultStructure = createSosResultStructure(resultTemplate.getStructure());
-        final String[] blockValues = getBlockValues(resultValues, resultEncoding.get().get());
-        final OmObservation singleObservation = getObservation(resultTemplate, blockValues,
-                resultStructure.get().get(), resultEncoding.get().get(), session);
-        // final AbstractFeature feature =
-        // getSosAbstractFeature(resultTemplate.getFeatureOfInterest(), version,
-        // session);
-        // singleObservation.getObservationConstellation().setFeatureOfInterest(feature);
-        return singleObservation;
-    }
-
     /**
      * Unfold internal observation from result values to single internal
      * observations
@@ -382,25 +496,21 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
     }
 
     /**
-     * Get internal observation
+     * Get the template for the observations created from the result values
      *
      * @param resultTemplate
      *            Associated ResultTemplate
-     * @param blockValues
-     *            Block values from result values
-     * @param resultStructure
-     *            Associated ResultStructure
-     * @param encoding
-     *            Associated ResultEncoding
      * @param session
      *            Hibernate session
-     * @return Internal observation
+     * @return Observation template
      * @throws OwsExceptionReport
      *             If processing fails
      */
-    private OmObservation getObservation(final ResultTemplateEntity resultTemplate, final String[] blockValues,
-            final SweAbstractDataComponent resultStructure, final SweAbstractEncoding encoding, final Session session)
-            throws OwsExceptionReport {
+    private ObservationTemplate getObservationTemplate(final ResultTemplateEntity resultTemplate,
+            final Session session) throws OwsExceptionReport {
+        final SweAbstractEncoding encoding = createSosResultEncoding(resultTemplate.getEncoding()).get().get();
+        final SweAbstractDataComponent resultStructure =
+                createSosResultStructure(resultTemplate.getStructure()).get().get();
         final int resultTimeIndex = helper.hasResultTime(resultStructure);
         final int phenomenonTimeIndex = helper.hasPhenomenonTime(resultStructure);
 
@@ -415,14 +525,50 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
         getIndexFor(record, j, observedProperties, units, featureOfInterest, procedure,
                 Sets.newHashSet(resultTimeIndex, phenomenonTimeIndex), encoding);
 
-        final MultiObservationValues<SweDataArray> sosValues =
-                createObservationValueFrom(blockValues, record, encoding, resultTimeIndex, phenomenonTimeIndex);
+        return new ObservationTemplate(getSosObservationConstellation(resultTemplate, session), record, encoding,
+                resultTimeIndex, phenomenonTimeIndex);
+    }
+
+    /**
+     * Append the result values of a chunk observation to the observation of
+     * the previous chunks
+     *
+     * @param observation
+     *            Observation of the previous chunks
+     * @param chunk
+     *            Observation of the chunk
+     */
+    private void addBlocks(final OmObservation observation, final OmObservation chunk) {
+        final SweDataArray values = (SweDataArray) observation.getValue().getValue().getValue();
+        final SweDataArray chunkValues = (SweDataArray) chunk.getValue().getValue().getValue();
+        if (chunkValues.isSetValues()) {
+            values.addAll(chunkValues.getValues());
+        }
+    }
+
+    /**
+     * Create the internal observations of a chunk of block values
+     *
+     * @param template
+     *            Observation template
+     * @param blockValues
+     *            Block values of the chunk
+     * @return Chunk with the internal observation and the unfolded single
+     *         observations
+     * @throws OwsExceptionReport
+     *             If processing fails
+     */
+    private ParsedChunk parseChunk(final ObservationTemplate template, final String[] blockValues)
+            throws OwsExceptionReport {
+        final MultiObservationValues<SweDataArray> sosValues = createObservationValueFrom(blockValues,
+                template.getRecord(), template.getEncoding(), template.getResultTimeIndex(),
+                template.getPhenomenonTimeIndex());
 
         final OmObservation observation = new OmObservation();
-        observation.setObservationConstellation(getSosObservationConstellation(resultTemplate, session));
+        observation.setObservationConstellation(template.getObservationConstellation().copy());
         observation.setResultType(OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION);
         observation.setValue(sosValues);
-        return observation;
+        return new ParsedChunk(observation, getSingleObservationsFromObservation(observation));
     }
 
     /*
@@ -587,6 +733,31 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
         return values.split(separator, Integer.MAX_VALUE);
     }
 
+    /**
+     * Set the locks that are shared with the other inserting handlers
+     *
+     * @param insertionLocks
+     *            the shared insertion locks
+     */
+    @Inject
+    public void setInsertionLocks(StripedInsertionLocks insertionLocks) {
+        this.insertionLocks = insertionLocks;
+    }
+
+    @Setting(SosSettings.CONCURRENT_INSERT_RESULT)
+    public void setConcurrentInsertion(boolean concurrentInsertion) {
+        this.concurrentInsertion = concurrentInsertion;
+    }
+
+    public boolean isConcurrentInsertion() {
+        return concurrentInsertion;
+    }
+
+    @VisibleForTesting
+    protected void setPipelineChunkSize(int pipelineChunkSize) {
+        this.pipelineChunkSize = pipelineChunkSize;
+    }
+
     private DatasetEntity insertObservationConstellationForProfiles(AbstractSeriesDAO obsConstDao,
             FormatDAO obsTypeDao, OmObservation o, Session session) throws OwsExceptionReport {
         ProcedureEntity procedure = getDaoFactory().getProcedureDAO()
@@ -638,4 +809,224 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
         this.connectionProvider = connectionProvider;
     }
 
+    /**
+     * Parses the block values in chunks on the parser executor while the
+     * observations of the previous chunk are persisted. Small requests are
+     * parsed by the calling thread.
+     */
+    private class ResultValuesPipeline implements AutoCloseable {
+        private final BlockingQueue<ParsedChunk> queue = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+
+        private final ObservationTemplate template;
+
+        private final String[] blockValues;
+
+        private Future<?> parser;
+
+        private ParsedChunk inline;
+
+        private boolean finished;
+
+        ResultValuesPipeline(ObservationTemplate template, String[] blockValues) throws OwsExceptionReport {
+            this.template = template;
+            this.blockValues = blockValues == null ? new String[0] : blockValues;
+            if (this.blockValues.length <= pipelineChunkSize) {
+                this.inline = parseChunk(template, this.blockValues);
+            } else {
+                this.parser = parserExecutor.submit(this::parse);
+            }
+        }
+
+        int getBlockCount() {
+            return blockValues.length;
+        }
+
+        /**
+         * @return the next parsed chunk or <code>null</code> if all chunks are
+         *         consumed
+         * @throws OwsExceptionReport
+         *             If parsing of the chunk failed
+         */
+        ParsedChunk next() throws OwsExceptionReport {
+            if (finished) {
+                return null;
+            }
+            if (parser == null) {
+                finished = true;
+                return inline;
+            }
+            try {
+                ParsedChunk chunk = queue.take();
+                chunk.checkFailure();
+                if (chunk == ParsedChunk.END) {
+                    finished = true;
+                    return null;
+                }
+                return chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NoApplicableCodeException().causedBy(e)
+                        .withMessage("Interrupted while waiting for the parsed result values!");
+            }
+        }
+
+        private void parse() {
+            try {
+                for (int from = 0; from < blockValues.length; from += pipelineChunkSize) {
+                    int to = Math.min(blockValues.length, from + pipelineChunkSize);
+                    queue.put(parseChunk(template, Arrays.copyOfRange(blockValues, from, to)));
+                }
+                queue.put(ParsedChunk.END);
+            } catch (OwsExceptionReport | RuntimeException e) {
+                putFailure(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void putFailure(Exception e) {
+            try {
+                queue.put(new ParsedChunk(e));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (parser != null) {
+                parser.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Observation template of a result template
+     */
+    private static class ObservationTemplate {
+        private final OmObservationConstellation observationConstellation;
+
+        private final SweDataRecord record;
+
+        private final SweAbstractEncoding encoding;
+
+        private final int resultTimeIndex;
+
+        private final int phenomenonTimeIndex;
+
+        ObservationTemplate(OmObservationConstellation observationConstellation, SweDataRecord record,
+                SweAbstractEncoding encoding, int resultTimeIndex, int phenomenonTimeIndex) {
+            this.observationConstellation = observationConstellation;
+            this.record = record;
+            this.encoding = encoding;
+            this.resultTimeIndex = resultTimeIndex;
+            this.phenomenonTimeIndex = phenomenonTimeIndex;
+        }
+
+        OmObservationConstellation getObservationConstellation() {
+            return observationConstellation;
+        }
+
+        SweDataRecord getRecord() {
+            return record;
+        }
+
+        SweAbstractEncoding getEncoding() {
+            return encoding;
+        }
+
+        int getResultTimeIndex() {
+            return resultTimeIndex;
+        }
+
+        int getPhenomenonTimeIndex() {
+            return phenomenonTimeIndex;
+        }
+    }
+
+    /**
+     * Observations parsed from a chunk of block values
+     */
+    private static class ParsedChunk {
+        static final ParsedChunk END = new ParsedChunk(null, Collections.emptyList());
+
+        private final OmObservation observation;
+
+        private final List<OmObservation> observations;
+
+        private final Exception failure;
+
+        ParsedChunk(OmObservation observation, List<OmObservation> observations) {
+            this.observation = observation;
+            this.observations = observations;
+            this.failure = null;
+        }
+
+        ParsedChunk(Exception failure) {
+            this.observation = null;
+            this.observations = Collections.emptyList();
+            this.failure = failure;
+        }
+
+        void checkFailure() throws OwsExceptionReport {
+            if (failure instanceof OwsExceptionReport) {
+                throw (OwsExceptionReport) failure;
+            } else if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+        }
+
+        OmObservation getObservation() {
+            return observation;
+        }
+
+        List<OmObservation> getObservations() {
+            return observations;
+        }
+    }
+
+    /**
+     * Entities reused while persisting the observations of one request
+     */
+    private static class InsertResultCache {
+        private final Map<OmObservationConstellation, DatasetEntity> obsConsts = new HashMap<>();
+
+        private final Map<String, AbstractFeatureEntity> featureEntityMap = new HashMap<>();
+
+        private final Map<String, CodespaceEntity> codespaceCache = Maps.newHashMap();
+
+        private final Map<UoM, UnitEntity> unitCache = Maps.newHashMap();
+
+        private final Map<String, FormatEntity> formatCache = Maps.newHashMap();
+
+        private int insertions;
+
+        Map<OmObservationConstellation, DatasetEntity> getObsConsts() {
+            return obsConsts;
+        }
+
+        Map<String, AbstractFeatureEntity> getFeatureEntityMap() {
+            return featureEntityMap;
+        }
+
+        Map<String, CodespaceEntity> getCodespaceCache() {
+            return codespaceCache;
+        }
+
+        Map<UoM, UnitEntity> getUnitCache() {
+            return unitCache;
+        }
+
+        Map<String, FormatEntity> getFormatCache() {
+            return formatCache;
+        }
+
+        int incrementInsertions() {
+            return ++insertions;
+        }
+
+        int getInsertions() {
+            return insertions;
+        }
+    }
 }
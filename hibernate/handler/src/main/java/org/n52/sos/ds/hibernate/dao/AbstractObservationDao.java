@@ -96,6 +96,8 @@ public abstract class AbstractObservationDao implements HibernateDao {
 
     private int chunkSize;
 
+    private boolean keysetPagination;
+
     @Inject
     public void setEncoderRepository(EncoderRepository encoderRepository) {
         this.encoderRepository = encoderRepository;
@@ -139,6 +141,27 @@ public abstract class AbstractObservationDao implements HibernateDao {
         return chunkSize;
     }
 
+    /**
+     * Set whether the chunks should be queried with keyset pagination
+     *
+     * @param keysetPagination
+     *            <code>true</code> to continue after the last returned value
+     *            instead of skipping rows with an offset
+     */
+    @Setting(HibernateStreamingSettings.KEYSET_PAGINATION)
+    public void setKeysetPagination(boolean keysetPagination) {
+        this.keysetPagination = keysetPagination;
+    }
+
+    /**
+     * Is keyset pagination for chunk streaming enabled
+     *
+     * @return <code>true</code>, if keyset pagination is enabled
+     */
+    public boolean isKeysetPagination() {
+        return keysetPagination;
+    }
+
     /**
      * Get ObservationConstellations and check if size limit is exceeded
      *
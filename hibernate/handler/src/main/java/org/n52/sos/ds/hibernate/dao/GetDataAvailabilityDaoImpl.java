@@ -28,6 +28,8 @@
  */
 package org.n52.sos.ds.hibernate.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -63,6 +65,7 @@ import org.n52.shetland.ogc.ows.extension.Extensions;
 import org.n52.shetland.ogc.sos.gda.GetDataAvailabilityRequest;
 import org.n52.shetland.ogc.sos.gda.GetDataAvailabilityResponse.DataAvailability;
 import org.n52.sos.ds.hibernate.HibernateSessionHolder;
+import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.SosTemporalRestrictions;
 import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
@@ -159,6 +162,25 @@ public class GetDataAvailabilityDaoImpl implements org.n52.sos.ds.dao.GetDataAva
         return getResultTimes(dataAvailability, request);
     }
 
+    @Override
+    public Map<Long, List<TimeInstant>> getResultTimes(Collection<Long> datasets, GetDataAvailabilityRequest request,
+            Object connection) throws OwsExceptionReport {
+        Session session = null;
+        boolean returnSession = !checkConnection(connection);
+        try {
+            session = returnSession ? sessionHolder.getSession() : HibernateSessionHolder.getSession(connection);
+            return queryResultTimes(datasets, request, session);
+        } catch (final HibernateException | OwsExceptionReport he) {
+            throw new NoApplicableCodeException().causedBy(he)
+                    .withMessage("Error while querying result time for GetDataAvailability!")
+                    .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            if (returnSession) {
+                sessionHolder.returnSession(session);
+            }
+        }
+    }
+
     private List<TimeInstant> queryResultTime(DataAvailability dataAvailability, GetDataAvailabilityRequest request,
             Session session)
             throws UnsupportedTimeException, UnsupportedValueReferenceException, UnsupportedOperatorException {
@@ -187,6 +209,30 @@ public class GetDataAvailabilityDaoImpl implements org.n52.sos.ds.dao.GetDataAva
         return resultTimes;
     }
 
+    private Map<Long, List<TimeInstant>> queryResultTimes(Collection<Long> datasets,
+            GetDataAvailabilityRequest request, Session session)
+            throws UnsupportedTimeException, UnsupportedValueReferenceException, UnsupportedOperatorException {
+        Map<Long, List<TimeInstant>> resultTimes = new HashMap<>(datasets.size());
+        for (List<Long> batch : Lists.partition(new ArrayList<>(datasets), HibernateConstants.LIMIT_EXPRESSION_DEPTH)) {
+            Criteria c = session.createCriteria(DataEntity.class)
+                    .add(Restrictions.eq(DataEntity.PROPERTY_DELETED, false))
+                    .add(Restrictions.in(DataEntity.PROPERTY_DATASET_ID, batch));
+            if (hasPhenomenonTimeFilter(request.getExtensions())) {
+                c.add(SosTemporalRestrictions.filter(getPhenomenonTimeFilter(request.getExtensions())));
+            }
+            c.setProjection(Projections.distinct(Projections.projectionList()
+                    .add(Projections.property(DataEntity.PROPERTY_DATASET_ID))
+                    .add(Projections.property(DataEntity.PROPERTY_RESULT_TIME))));
+            c.addOrder(Order.asc(DataEntity.PROPERTY_RESULT_TIME));
+            LOGGER.trace("QUERY queryResultTimes(): {}", HibernateHelper.getSqlString(c));
+            for (Object[] result : (List<Object[]>) c.list()) {
+                resultTimes.computeIfAbsent((Long) result[0], id -> new ArrayList<>())
+                        .add(new TimeInstant((Date) result[1]));
+            }
+        }
+        return resultTimes;
+    }
+
     private Criteria getDefaultObservationInfoCriteria(Session session) {
         return session.createCriteria(DataEntity.class).add(Restrictions.eq(DataEntity.PROPERTY_DELETED, false))
                 .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
@@ -35,6 +35,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 
@@ -48,8 +50,10 @@ import org.n52.iceland.convert.ConverterException;
 import org.n52.iceland.ds.ConnectionProvider;
 import org.n52.iceland.exception.ows.concrete.NotYetSupportedException;
 import org.n52.iceland.i18n.I18NSettings;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
 import org.n52.janmayen.http.HTTPStatus;
 import org.n52.janmayen.i18n.LocaleHelper;
+import org.n52.janmayen.lifecycle.Destroyable;
 import org.n52.series.db.beans.DataEntity;
 import org.n52.series.db.beans.DatasetEntity;
 import org.n52.shetland.ogc.gml.time.IndeterminateValue;
@@ -66,8 +70,9 @@ import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
 import org.n52.sos.ds.hibernate.util.ObservationTimeExtrema;
 import org.n52.sos.ds.hibernate.util.observation.HibernateObservationUtilities;
 import org.n52.sos.ds.hibernate.util.observation.OmObservationCreatorContext;
+import org.n52.sos.ds.hibernate.values.HibernateStreamingSettings;
+import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesPrefetcher;
 import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue;
-import org.n52.sos.ds.hibernate.values.series.HibernateSeriesStreamingValue;
 import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.svalbard.encode.Encoder;
 import org.n52.svalbard.encode.ObservationEncoder;
@@ -79,7 +84,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 @Configurable
-public class GetObservationDaoImpl extends AbstractObservationDao implements org.n52.sos.ds.dao.GetObservationDao {
+public class GetObservationDaoImpl extends AbstractObservationDao
+        implements org.n52.sos.ds.dao.GetObservationDao, Destroyable {
     private static final Logger LOGGER = LoggerFactory.getLogger(GetObservationDaoImpl.class);
 
     private static final String LOG_TIME_TO_QUERY = "Time to query observations needs {} ms!";
@@ -96,6 +102,10 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
 
     private Locale defaultLanguage;
 
+    private int prefetchSeries;
+
+    private ExecutorService prefetchExecutor;
+
     @Inject
     public void setDaoFactory(DaoFactory daoFactory) {
         this.daoFactory = daoFactory;
@@ -126,6 +136,41 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
         this.defaultLanguage = LocaleHelper.decode(defaultLanguage);
     }
 
+    /**
+     * Set the number of series to prefetch ahead of the encoded series
+     *
+     * @param prefetchSeries
+     *            the number of series, <code>&lt;= 0</code> to disable the
+     *            prefetching
+     */
+    @Setting(HibernateStreamingSettings.PREFETCH_SERIES)
+    public void setPrefetchSeries(int prefetchSeries) {
+        this.prefetchSeries = prefetchSeries;
+    }
+
+    /**
+     * Set the number of threads that prefetch the series
+     *
+     * @param prefetchThreads
+     *            the number of threads
+     */
+    @Setting(HibernateStreamingSettings.PREFETCH_THREADS)
+    public synchronized void setPrefetchThreads(int prefetchThreads) {
+        ExecutorService previous = this.prefetchExecutor;
+        this.prefetchExecutor = Executors.newFixedThreadPool(Math.max(1, prefetchThreads),
+                new GroupedAndNamedThreadFactory("streaming-prefetch"));
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
     @Override
     public GetObservationResponse queryObservationData(GetObservationRequest request, GetObservationResponse response)
             throws OwsExceptionReport {
@@ -292,33 +337,61 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
         List<DatasetEntity> serieses = daoFactory.getSeriesDAO().getSeries(request, features, session);
         checkMaxNumberOfReturnedSeriesSize(serieses.size());
         int maxNumberOfValuesPerSeries = getMaxNumberOfValuesPerSeries(serieses.size());
-        for (DatasetEntity series : serieses) {
-            ObservationStream createSosObservationFromSeries =
-                    HibernateObservationUtilities.createSosObservationFromSeries(series, request,
-                            getRequestedLocale(request), getProcedureDescriptionFormat(request.getResponseFormat()),
-                            observationCreatorContext, session);
-            OmObservation observationTemplate = createSosObservationFromSeries.next();
-            HibernateSeriesStreamingValue streamingValue =
-                    new HibernateChunkSeriesStreamingValue(sessionHolder.getConnectionProvider(), daoFactory, request,
-                            series.getId(), observationCreatorContext.getBindingRepository(), getChunkSize());
-            streamingValue.setResponseFormat(request.getResponseFormat());
-            streamingValue.setTemporalFilterCriterion(temporalFilterCriterion);
-            streamingValue.setObservationTemplate(observationTemplate);
-            streamingValue.setMaxNumberOfValues(maxNumberOfValuesPerSeries);
-            observationTemplate.setValue(streamingValue);
-            result.add(observationTemplate);
-        }
+        HibernateChunkSeriesPrefetcher prefetcher = createPrefetcher();
+        boolean queried = false;
+        try {
+            for (DatasetEntity series : serieses) {
+                ObservationStream createSosObservationFromSeries =
+                        HibernateObservationUtilities.createSosObservationFromSeries(series, request,
+                                getRequestedLocale(request),
+                                getProcedureDescriptionFormat(request.getResponseFormat()),
+                                observationCreatorContext, session);
+                OmObservation observationTemplate = createSosObservationFromSeries.next();
+                HibernateChunkSeriesStreamingValue streamingValue =
+                        new HibernateChunkSeriesStreamingValue(sessionHolder.getConnectionProvider(), daoFactory,
+                                request, series.getId(), observationCreatorContext.getBindingRepository(),
+                                getChunkSize());
+                streamingValue.setResponseFormat(request.getResponseFormat());
+                streamingValue.setKeysetPagination(isKeysetPagination());
+                streamingValue.setValueType(series.getValueType(),
+                        series.hasUnit() ? series.getUnit().getUnit() : null);
+                streamingValue.setTemporalFilterCriterion(temporalFilterCriterion);
+                streamingValue.setObservationTemplate(observationTemplate);
+                streamingValue.setMaxNumberOfValues(maxNumberOfValuesPerSeries);
+                observationTemplate.setValue(streamingValue);
+                result.add(observationTemplate);
+                if (prefetcher != null) {
+                    prefetcher.add(streamingValue);
+                }
+            }
+            if (prefetcher != null) {
+                prefetcher.start();
+            }
 
-        ObservationTimeExtrema timeExtrema =
-                daoFactory.getValueTimeDAO().getTimeExtremaForSeries(serieses, temporalFilterCriterion, session);
-        if (timeExtrema.isSetPhenomenonTimes()) {
-            response.setGlobalObservationValues(
-                    new GlobalObservationResponseValues().setPhenomenonTime(timeExtrema.getPhenomenonTime()));
+            ObservationTimeExtrema timeExtrema =
+                    daoFactory.getValueTimeDAO().getTimeExtremaForSeries(serieses, temporalFilterCriterion, session);
+            if (timeExtrema.isSetPhenomenonTimes()) {
+                response.setGlobalObservationValues(
+                        new GlobalObservationResponseValues().setPhenomenonTime(timeExtrema.getPhenomenonTime()));
+            }
+            queried = true;
+        } finally {
+            // the streaming values are not encoded, stop prefetching
+            if (!queried && prefetcher != null) {
+                prefetcher.close();
+            }
         }
         LOGGER.debug(LOG_TIME_TO_QUERY, System.currentTimeMillis() - start);
         return result;
     }
 
+    private synchronized HibernateChunkSeriesPrefetcher createPrefetcher() {
+        if (prefetchSeries > 0 && getChunkSize() > 0 && prefetchExecutor != null) {
+            return new HibernateChunkSeriesPrefetcher(prefetchExecutor, prefetchSeries);
+        }
+        return null;
+    }
+
     private String getProcedureDescriptionFormat(String responseFormat) {
         Encoder<XmlObject, OmObservation> encoder = getEncoder(new XmlEncoderKey(responseFormat, OmObservation.class));
         if (encoder != null && encoder instanceof ObservationEncoder) {
@@ -28,6 +28,7 @@
  */
 package org.n52.sos.ds.hibernate.util;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -121,6 +122,32 @@ public class ResultHandlingHelper {
                 noDataPlaceholder, valueOrder, true);
     }
 
+    /**
+     * Create a writer that appends the result values of single observations
+     * according to ResultEncoding and ResultStructure to the output. In
+     * contrast to
+     * {@link #createResultValuesFromObservations(Collection, SosResultEncoding, SosResultStructure, String)}
+     * the observations need not be held in memory.
+     *
+     * @param sosResultEncoding
+     *            The ResultEncoding
+     * @param sosResultStructure
+     *            The ResultStructure
+     * @param noDataPlaceholder
+     *            The no data placeholder
+     * @param out
+     *            The output to append the result values to
+     * @return Result values writer
+     * @throws OwsExceptionReport
+     *             If creation fails
+     */
+    public ResultValuesWriter createResultValuesWriter(final SosResultEncoding sosResultEncoding,
+            final SosResultStructure sosResultStructure, String noDataPlaceholder, Appendable out)
+            throws OwsExceptionReport {
+        return new ResultValuesWriter(sosResultEncoding, sosResultStructure, noDataPlaceholder,
+                getValueOrderMap(sosResultStructure.get().get()), out);
+    }
+
     private String createResultValuesFromObservations(final Collection<DataEntity<?>> observations,
             final SosResultEncoding sosResultEncoding, final SosResultStructure sosResultStructure,
             String noDataPlaceholder, Map<Integer, String> valueOrder, boolean addCount) throws OwsExceptionReport {
@@ -132,54 +159,8 @@ public class ResultHandlingHelper {
                 addElementCount(builder, observations.size(), blockSeparator);
             }
             for (final DataEntity<?> observation : observations) {
-                for (final Entry<Integer, String> entry : valueOrder.entrySet()) {
-                    if (observation instanceof ProfileDataEntity) {
-                        builder.append(createResultValuesFromObservations(((ProfileDataEntity) observation).getValue(),
-                                sosResultEncoding, sosResultStructure, noDataPlaceholder, valueOrder, false));
-                    } else {
-                        final String definition = entry.getValue();
-                        switch (definition) {
-                            case OmConstants.PHENOMENON_TIME:
-                                builder.append(getTimeStringForPhenomenonTime(observation.getSamplingTimeStart(),
-                                        observation.getSamplingTimeEnd(), noDataPlaceholder));
-                                break;
-                            case OmConstants.RESULT_TIME:
-                                builder.append(
-                                        getTimeStringForResultTime(observation.getResultTime(), noDataPlaceholder));
-                                break;
-                            case OmConstants.PARAM_NAME_SAMPLING_GEOMETRY:
-                                builder.append(getSamplingGeometry(observation, tokenSeparator,
-                                        sosResultStructure.get().get(), noDataPlaceholder));
-                                break;
-                            case OmConstants.OM_PARAMETER:
-                            case OmConstants.PARAMETER:
-                                builder.append(
-                                        getParameters(observation, tokenSeparator, sosResultStructure.get().get()));
-                                break;
-                            case OM_PROCEDURE:
-                                if (observation.getDataset().getProcedure() != null
-                                        && observation.getDataset().getProcedure().isSetIdentifier()) {
-                                    builder.append(observation.getDataset().getProcedure().getIdentifier());
-                                } else {
-                                    builder.append("");
-                                }
-                                break;
-                            case OM_FEATURE_OF_INTEREST:
-                                if (observation.getDataset().getFeature() != null
-                                        && observation.getDataset().getFeature().isSetIdentifier()) {
-                                    builder.append(observation.getDataset().getFeature().getIdentifier());
-                                } else {
-                                    builder.append("");
-                                }
-                                break;
-                            default:
-                                builder.append(getValueAsStringForObservedProperty(observation, definition));
-                                break;
-                        }
-                        builder.append(tokenSeparator);
-                    }
-                    builder.delete(builder.lastIndexOf(tokenSeparator), builder.length());
-                }
+                addBlock(builder, observation, sosResultEncoding, sosResultStructure, noDataPlaceholder, valueOrder,
+                        tokenSeparator);
                 builder.append(blockSeparator);
             }
             if (builder.length() > 0) {
@@ -189,6 +170,61 @@ public class ResultHandlingHelper {
         return builder.toString();
     }
 
+    private void addBlock(final StringBuilder builder, final DataEntity<?> observation,
+            final SosResultEncoding sosResultEncoding, final SosResultStructure sosResultStructure,
+            String noDataPlaceholder, Map<Integer, String> valueOrder, String tokenSeparator)
+            throws OwsExceptionReport {
+        for (final Entry<Integer, String> entry : valueOrder.entrySet()) {
+            if (observation instanceof ProfileDataEntity) {
+                builder.append(createResultValuesFromObservations(((ProfileDataEntity) observation).getValue(),
+                        sosResultEncoding, sosResultStructure, noDataPlaceholder, valueOrder, false));
+            } else {
+                final String definition = entry.getValue();
+                switch (definition) {
+                    case OmConstants.PHENOMENON_TIME:
+                        builder.append(getTimeStringForPhenomenonTime(observation.getSamplingTimeStart(),
+                                observation.getSamplingTimeEnd(), noDataPlaceholder));
+                        break;
+                    case OmConstants.RESULT_TIME:
+                        builder.append(getTimeStringForResultTime(observation.getResultTime(), noDataPlaceholder));
+                        break;
+                    case OmConstants.PARAM_NAME_SAMPLING_GEOMETRY:
+                        builder.append(getSamplingGeometry(observation, tokenSeparator,
+                                sosResultStructure.get().get(), noDataPlaceholder));
+                        break;
+                    case OmConstants.OM_PARAMETER:
+                    case OmConstants.PARAMETER:
+                        builder.append(getParameters(observation, tokenSeparator, sosResultStructure.get().get()));
+                        break;
+                    case OM_PROCEDURE:
+                        if (observation.getDataset().getProcedure() != null
+                                && observation.getDataset().getProcedure().isSetIdentifier()) {
+                            builder.append(observation.getDataset().getProcedure().getIdentifier());
+                        } else {
+                            builder.append("");
+                        }
+                        break;
+                    case OM_FEATURE_OF_INTEREST:
+                        if (observation.getDataset().getFeature() != null
+                                && observation.getDataset().getFeature().isSetIdentifier()) {
+                            builder.append(observation.getDataset().getFeature().getIdentifier());
+                        } else {
+                            builder.append("");
+                        }
+                        break;
+                    default:
+                        builder.append(getValueAsStringForObservedProperty(observation, definition));
+                        break;
+                }
+                builder.append(tokenSeparator);
+            }
+        }
+        if (!(observation instanceof ProfileDataEntity) && !valueOrder.isEmpty()) {
+            // remove the token separator after the last value of the block
+            builder.setLength(builder.length() - tokenSeparator.length());
+        }
+    }
+
     /**
      * Get token separator from encoding
      *
@@ -619,4 +655,69 @@ public class ResultHandlingHelper {
         return geometryHandler;
     }
 
+    /**
+     * Appends the result values block by block to an output, so that only the
+     * current observation has to be held in memory. Each block is preceded by
+     * the block separator, so that the element count can be prepended after
+     * the last observation was written.
+     */
+    public class ResultValuesWriter {
+        private final SosResultEncoding sosResultEncoding;
+
+        private final SosResultStructure sosResultStructure;
+
+        private final String noDataPlaceholder;
+
+        private final Map<Integer, String> valueOrder;
+
+        private final String tokenSeparator;
+
+        private final String blockSeparator;
+
+        private final Appendable out;
+
+        private long written;
+
+        ResultValuesWriter(SosResultEncoding sosResultEncoding, SosResultStructure sosResultStructure,
+                String noDataPlaceholder, Map<Integer, String> valueOrder, Appendable out) {
+            this.sosResultEncoding = sosResultEncoding;
+            this.sosResultStructure = sosResultStructure;
+            this.noDataPlaceholder = noDataPlaceholder;
+            this.valueOrder = valueOrder;
+            this.tokenSeparator = getTokenSeparator(sosResultEncoding.get().get());
+            this.blockSeparator = getBlockSeparator(sosResultEncoding.get().get());
+            this.out = out;
+        }
+
+        /**
+         * Write the block of the observation, preceded by the block separator
+         *
+         * @param observation
+         *            the observation to write
+         * @throws OwsExceptionReport
+         *             If writing fails
+         */
+        public void write(DataEntity<?> observation) throws OwsExceptionReport {
+            StringBuilder block = new StringBuilder(blockSeparator);
+            addBlock(block, observation, sosResultEncoding, sosResultStructure, noDataPlaceholder, valueOrder,
+                    tokenSeparator);
+            append(block);
+            written++;
+        }
+
+        /**
+         * @return the number of written observations
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        private void append(CharSequence value) throws OwsExceptionReport {
+            try {
+                out.append(value);
+            } catch (IOException ioe) {
+                throw new NoApplicableCodeException().causedBy(ioe).withMessage("Error while writing result values!");
+            }
+        }
+    }
 }
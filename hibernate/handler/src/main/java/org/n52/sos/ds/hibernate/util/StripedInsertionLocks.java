@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import javax.persistence.PersistenceException;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Striped locks for transactional operations. Instead of serializing all
+ * insertions through one monitor, only insertions that share a key (e.g. the
+ * same dataset or the same feature) are serialized. The handlers that insert
+ * observations share one instance, so that e.g. InsertObservation and
+ * InsertResult requests for the same dataset are serialized, too.
+ *
+ * @since 5.0.3
+ */
+public class StripedInsertionLocks {
+
+    /**
+     * Default number of lock stripes
+     */
+    public static final int DEFAULT_STRIPES = 256;
+
+    private static final String KEY_SEPARATOR = "|";
+
+    /**
+     * Unique constraints of the observation table, their violations are
+     * duplicated observations and not conflicts of concurrent insertions
+     */
+    private static final String[] OBSERVATION_CONSTRAINTS = { "observationIdentity", "obsIdentifierUK" };
+
+    private final Striped<Lock> stripes;
+
+    public StripedInsertionLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public StripedInsertionLocks(int stripes) {
+        this.stripes = Striped.lazyWeakLock(stripes);
+    }
+
+    /**
+     * Acquire the locks for all keys. The locks are acquired in stripe order,
+     * so concurrent callers with overlapping keys can not deadlock.
+     *
+     * @param keys
+     *            the keys to lock
+     * @return the held locks, release them by calling {@link Held#close()}
+     */
+    public Held lock(Collection<String> keys) {
+        List<Lock> acquired = new ArrayList<>(keys.size());
+        try {
+            for (Lock lock : stripes.bulkGet(keys)) {
+                lock.lock();
+                acquired.add(lock);
+            }
+        } catch (RuntimeException e) {
+            new Held(acquired).close();
+            throw e;
+        }
+        return new Held(acquired);
+    }
+
+    /**
+     * Get the lock key of a dataset
+     *
+     * @param procedure
+     *            the procedure identifier
+     * @param observableProperty
+     *            the observable property identifier
+     * @param offering
+     *            the offering identifier
+     * @return the lock key
+     */
+    public static String getDatasetKey(String procedure, String observableProperty, String offering) {
+        return String.join(KEY_SEPARATOR, "dataset", procedure, observableProperty, offering);
+    }
+
+    /**
+     * Get the lock key of a feature
+     *
+     * @param feature
+     *            the feature identifier
+     * @return the lock key
+     */
+    public static String getFeatureKey(String feature) {
+        return String.join(KEY_SEPARATOR, "feature", feature);
+    }
+
+    /**
+     * Check if the exception is caused by a unique constraint violation of a
+     * shared entity (e.g. unit, codespace, feature) that was inserted by a
+     * concurrent transaction. Violations of the observation constraints are
+     * never conflicts.
+     *
+     * @param pe
+     *            the exception to check
+     * @return <code>true</code>, if the transaction can be retried
+     */
+    public static boolean isConcurrentCreationConflict(PersistenceException pe) {
+        ConstraintViolationException cve = pe instanceof ConstraintViolationException
+                ? (ConstraintViolationException) pe
+                : pe.getCause() instanceof ConstraintViolationException
+                        ? (ConstraintViolationException) pe.getCause()
+                        : null;
+        return cve != null && !isObservationConstraint(cve.getConstraintName())
+                && !isObservationConstraint(cve.getMessage());
+    }
+
+    private static boolean isObservationConstraint(String message) {
+        if (Strings.isNullOrEmpty(message)) {
+            return false;
+        }
+        String lowerCase = message.toLowerCase();
+        for (String constraint : OBSERVATION_CONSTRAINTS) {
+            if (lowerCase.contains(constraint.toLowerCase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Locks held by {@link StripedInsertionLocks#lock(Collection)}
+     */
+    public static final class Held implements AutoCloseable {
+        private final List<Lock> locks;
+
+        private Held(List<Lock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+            locks.clear();
+        }
+    }
+}
@@ -34,7 +34,8 @@ import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
 import org.hibernate.Session;
@@ -91,8 +92,6 @@ import org.n52.svalbard.util.GmlHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Maps;
-
 /**
  * Abstract class for Hibernate streaming values
  *
@@ -150,34 +149,37 @@ public abstract class AbstractHibernateStreamingValue extends StreamingValue<Dat
         sessionHolder.returnSession(session);
     }
 
+    /**
+     * Return the session of this streaming value, if one is held.
+     */
+    protected void releaseSession() {
+        if (session != null) {
+            returnSession(session);
+        }
+    }
+
+    /**
+     * Merge the values lazily. The values of a series are queried in time
+     * order, consecutive values with the same discriminator are merged into
+     * one observation. Only the observation of the current group is held, the
+     * group is returned as soon as the discriminator changes. If the
+     * discriminators of a series alternate, each run is returned as a separate
+     * observation.
+     */
     @Override
     public ObservationStream merge() throws OwsExceptionReport {
-        Map<String, OmObservation> observations = Maps.newHashMap();
-        while (hasNext()) {
-            DataEntity<?> nextEntity = nextEntity();
-            boolean mergableObservationValue = checkForMergability(nextEntity);
-            OmObservation observation = null;
-            if (observations.containsKey(getDiscriminator(nextEntity)) && mergableObservationValue) {
-                observation = observations.get(getDiscriminator(nextEntity));
-            } else {
-                observation = getObservationTemplate().cloneTemplate();
-                addSpecificValuesToObservation(observation, nextEntity, request.getExtensions());
-                if (!mergableObservationValue && getDiscriminator(nextEntity) == null) {
-                    observations.put(Long.toString(nextEntity.getId()), observation);
-                } else {
-                    observations.put(getDiscriminator(nextEntity), observation);
-                }
-            }
-            mergeValueToObservation(nextEntity, observation, getResponseFormat());
-            sessionHolder.getSession().evict(nextEntity);
-        }
-        return ObservationStream.of(observations.values());
+        return new GroupedMergeObservationStream();
     }
 
     private boolean checkForMergability(DataEntity<?> nextEntity) {
         return !(nextEntity instanceof DataArrayDataEntity);
     }
 
+    private void mergeEntity(DataEntity<?> entity, OmObservation observation) throws OwsExceptionReport {
+        mergeValueToObservation(entity, observation, getResponseFormat());
+        sessionHolder.getSession().evict(entity);
+    }
+
     private void addSpecificValuesToObservation(OmObservation observation, DataEntity<?> value,
             Extensions extensions) {
         boolean newSession = false;
@@ -611,4 +613,46 @@ public abstract class AbstractHibernateStreamingValue extends StreamingValue<Dat
         }
     }
 
+    /**
+     * {@link ObservationStream} that merges the groups of consecutive values
+     * of this streaming value when they are requested.
+     */
+    private class GroupedMergeObservationStream implements ObservationStream {
+
+        /**
+         * The first value of the next group
+         */
+        private DataEntity<?> nextGroup;
+
+        @Override
+        public boolean hasNext() throws OwsExceptionReport {
+            return nextGroup != null || AbstractHibernateStreamingValue.this.hasNext();
+        }
+
+        @Override
+        public OmObservation next() throws OwsExceptionReport {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DataEntity<?> first = nextGroup != null ? nextGroup : nextEntity();
+            nextGroup = null;
+            OmObservation observation = getObservationTemplate().cloneTemplate();
+            addSpecificValuesToObservation(observation, first, request.getExtensions());
+            mergeEntity(first, observation);
+            if (checkForMergability(first)) {
+                String discriminator = getDiscriminator(first);
+                while (AbstractHibernateStreamingValue.this.hasNext()) {
+                    DataEntity<?> entity = nextEntity();
+                    if (!checkForMergability(entity) || !Objects.equals(discriminator, getDiscriminator(entity))) {
+                        nextGroup = entity;
+                        break;
+                    }
+                    mergeEntity(entity, observation);
+                }
+            }
+            return observation;
+        }
+
+    }
+
 }
@@ -39,4 +39,10 @@ public interface HibernateStreamingSettings {
 
     String CHUNK_SIZE = "service.streaming.datasource.chunkSize";
 
+    String KEYSET_PAGINATION = "service.streaming.datasource.keysetPagination";
+
+    String PREFETCH_SERIES = "service.streaming.datasource.prefetchSeries";
+
+    String PREFETCH_THREADS = "service.streaming.datasource.prefetchThreads";
+
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.values.series;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Pipelines the chunk queries of the {@link HibernateChunkSeriesStreamingValue}s
+ * of a response. The first chunk of the next series is queried on the executor
+ * while the current series is encoded, so that the latency of the datasource
+ * overlaps the encoding. At most <code>depth</code> series ahead of the
+ * currently consumed series are prefetched, each of them holds one chunk until
+ * it is consumed. The sessions of the prefetching threads are returned as soon
+ * as the chunks are queried.
+ * <p>
+ * If the response is not completely encoded, {@link #close()} cancels the
+ * pending queries and returns the sessions of the series.
+ *
+ * @since 5.0.3
+ */
+public class HibernateChunkSeriesPrefetcher {
+
+    private final List<HibernateChunkSeriesStreamingValue> values = new ArrayList<>();
+
+    private final ExecutorService executor;
+
+    private final int depth;
+
+    private int scheduled;
+
+    private boolean closed;
+
+    /**
+     * constructor
+     *
+     * @param executor
+     *            the executor to query the chunks on
+     * @param depth
+     *            the number of series to prefetch ahead of the consumed series
+     */
+    public HibernateChunkSeriesPrefetcher(ExecutorService executor, int depth) {
+        this.executor = executor;
+        this.depth = depth;
+    }
+
+    /**
+     * Add the next series of the response
+     *
+     * @param value
+     *            the streaming value of the series
+     */
+    public synchronized void add(HibernateChunkSeriesStreamingValue value) {
+        value.setPrefetcher(this, values.size());
+        values.add(value);
+    }
+
+    /**
+     * Start prefetching the first series
+     */
+    public void start() {
+        scheduleUpTo(depth);
+    }
+
+    /**
+     * Called when the encoding of the series with the index starts, prefetches
+     * the following series.
+     *
+     * @param index
+     *            the index of the series
+     */
+    void consuming(int index) {
+        scheduleUpTo(index + 1 + depth);
+    }
+
+    /**
+     * Stop prefetching and close all series of the response. Called if the
+     * query or the encoding of the response failed.
+     */
+    public void close() {
+        List<HibernateChunkSeriesStreamingValue> series;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            series = new ArrayList<>(values);
+        }
+        series.forEach(HibernateChunkSeriesStreamingValue::close);
+    }
+
+    private synchronized void scheduleUpTo(int end) {
+        int limit = Math.min(end, values.size());
+        while (!closed && scheduled < limit && !executor.isShutdown()) {
+            values.get(scheduled++).prefetch(executor);
+        }
+    }
+
+}
@@ -28,27 +28,48 @@
  */
 package org.n52.sos.ds.hibernate.values.series;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.hibernate.HibernateException;
+import org.hibernate.LockOptions;
 import org.hibernate.Session;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.n52.iceland.binding.BindingRepository;
 import org.n52.iceland.ds.ConnectionProvider;
 import org.n52.janmayen.http.HTTPStatus;
 import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.dataset.ValueType;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.om.TimeValuePair;
+import org.n52.shetland.ogc.om.values.BooleanValue;
+import org.n52.shetland.ogc.om.values.CountValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.om.values.Value;
 import org.n52.shetland.ogc.ows.exception.CodedException;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.request.AbstractObservationRequest;
 import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesValueDAO;
 
 /**
- * Hibernate series streaming value implementation for chunk results
+ * Hibernate series streaming value implementation for chunk results.
+ * <p>
+ * If the series contains plain quantity, count or boolean values and the
+ * values are consumed as {@link TimeValuePair}s, the chunks are queried as
+ * value tuples instead of {@link DataEntity}s. If the first chunk was already
+ * prefetched as {@link DataEntity}s, the following chunks are queried as value
+ * tuples. A streaming value is consumed either by {@link #nextValue()} or by
+ * {@link #next()}, not by both.
  *
  * @author <a href="mailto:c.hollmann@52north.org">Carsten Hollmann</a>
  * @since 4.0.2
@@ -68,6 +89,34 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
 
     private int currentResultSize;
 
+    private boolean keysetPagination;
+
+    private DataEntity<?> lastValue;
+
+    private HibernateChunkSeriesPrefetcher prefetcher;
+
+    private int prefetchIndex;
+
+    private boolean consuming;
+
+    private Future<Void> prefetch;
+
+    private boolean firstChunkPrefetched;
+
+    private boolean closed;
+
+    private List<DataEntity<?>> seriesValues;
+
+    private ValueType valueType;
+
+    private String valueUnit;
+
+    private boolean valueTuples;
+
+    private Iterator<Object[]> valueTuplesResult;
+
+    private Object[] lastTuple;
+
     /**
      * constructor
      *
@@ -89,20 +138,129 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
         this.chunkSize = chunkSize;
     }
 
+    /**
+     * Set whether the chunks should be queried with keyset pagination
+     * (continue after the last returned value) instead of an offset.
+     *
+     * @param keysetPagination
+     *            <code>true</code> to enable keyset pagination
+     */
+    public void setKeysetPagination(boolean keysetPagination) {
+        this.keysetPagination = keysetPagination;
+    }
+
+    /**
+     * Set the value type and unit of the series. Required to query the values
+     * as value tuples.
+     *
+     * @param valueType
+     *            the value type of the series
+     * @param valueUnit
+     *            the unit of the series values, may be <code>null</code>
+     */
+    public void setValueType(ValueType valueType, String valueUnit) {
+        this.valueType = valueType;
+        this.valueUnit = valueUnit;
+    }
+
+    /**
+     * Set the prefetcher of the response this series belongs to
+     *
+     * @param prefetcher
+     *            the prefetcher
+     * @param index
+     *            the index of this series in the response
+     */
+    void setPrefetcher(HibernateChunkSeriesPrefetcher prefetcher, int index) {
+        this.prefetcher = prefetcher;
+        this.prefetchIndex = index;
+    }
+
+    /**
+     * Query the first chunk on the executor, if the consumption of this series
+     * has not yet started. The session of the query is returned as soon as the
+     * chunk is queried, the queried entities are reattached to the session of
+     * the consuming thread.
+     *
+     * @param executor
+     *            the executor
+     */
+    synchronized void prefetch(ExecutorService executor) {
+        if (!consuming && !closed && prefetch == null) {
+            try {
+                prefetch = executor.submit(this::prefetchFirstChunk);
+            } catch (RejectedExecutionException e) {
+                // the executor was shut down, the chunk is queried on demand
+                prefetch = null;
+            }
+        }
+    }
+
+    private Void prefetchFirstChunk() throws OwsExceptionReport {
+        try {
+            if (!isClosed()) {
+                getNextChunk();
+                firstChunkPrefetched = true;
+            }
+        } finally {
+            releaseSession();
+        }
+        return null;
+    }
+
+    /**
+     * Stop the prefetching of this series and return the session held by
+     * this series. Called if the series is not or not completely consumed,
+     * e.g. if the encoding of the response failed. The series has no further
+     * values after it was closed.
+     */
+    public void close() {
+        Future<Void> pending;
+        synchronized (this) {
+            closed = true;
+            pending = prefetch;
+            prefetch = null;
+        }
+        if (pending != null) {
+            // the consumption has not started, a running query returns its
+            // session when it is done
+            pending.cancel(false);
+        } else {
+            releaseSession();
+        }
+        seriesValues = null;
+        seriesValuesResult = null;
+        valueTuplesResult = null;
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private synchronized boolean isPrefetchPending() {
+        return prefetch != null;
+    }
+
     @Override
     public boolean hasNext() throws OwsExceptionReport {
+        if (isClosed()) {
+            return false;
+        }
         boolean next = false;
-        if ((seriesValuesResult == null || !seriesValuesResult.hasNext()) && getSession().isOpen()) {
-            if (!noChunk) {
-                getNextResults();
-                if (chunkSize <= 0 || currentResultSize < chunkSize) {
-                    noChunk = true;
+        try {
+            if (!consuming) {
+                startConsuming();
+            }
+            if (!hasCurrentResult() && getSession().isOpen()) {
+                if (!noChunk) {
+                    getNextChunk();
                 }
             }
+        } catch (OwsExceptionReport e) {
+            closePrefetcher();
+            throw e;
         }
-        if (seriesValuesResult != null) {
-            next = seriesValuesResult.hasNext();
-        }
+        next = hasCurrentResult();
         if (!next) {
             returnSession(getSession());
         }
@@ -112,13 +270,24 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
 
     @Override
     public DataEntity<?> nextEntity() throws OwsExceptionReport {
+        checkNotValueTuples();
         return (DataEntity<?>) seriesValuesResult.next();
     }
 
     @Override
     public TimeValuePair nextValue() throws OwsExceptionReport {
         try {
+            if (!consuming && !valueTuples && !isPrefetchPending() && isValueTupleReadable()) {
+                // no chunk is loaded yet, query all chunks as value tuples
+                startValueTuples();
+            }
             if (hasNext()) {
+                if (!valueTuples && isValueTupleReadable()) {
+                    startValueTuples();
+                }
+                if (valueTuplesResult != null && valueTuplesResult.hasNext()) {
+                    return createTimeValuePairFrom(valueTuplesResult.next());
+                }
                 DataEntity<?> resultObject = seriesValuesResult.next();
                 TimeValuePair value = createTimeValuePairFrom(resultObject);
                 getSession().evict(resultObject);
@@ -136,6 +305,7 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
     public OmObservation next() throws OwsExceptionReport {
         try {
             if (hasNext()) {
+                checkNotValueTuples();
                 OmObservation observation = getObservationTemplate().cloneTemplate();
                 DataEntity<?> resultObject = seriesValuesResult.next();
                 addValuesToObservation(resultObject, observation, getResponseFormat());
@@ -151,6 +321,140 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
         }
     }
 
+    private void startConsuming() throws OwsExceptionReport {
+        Future<Void> prefetched;
+        synchronized (this) {
+            consuming = true;
+            prefetched = prefetch;
+            prefetch = null;
+        }
+        if (prefetcher != null) {
+            prefetcher.consuming(prefetchIndex);
+        }
+        if (prefetched != null) {
+            try {
+                prefetched.get();
+                reattachPrefetchedValues();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof OwsExceptionReport) {
+                    throw (OwsExceptionReport) e.getCause();
+                }
+                throw new NoApplicableCodeException().causedBy(e.getCause()).withMessage(ERROR_LOG)
+                        .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NoApplicableCodeException().causedBy(e)
+                        .withMessage("Interrupted while waiting for the prefetched observation data!");
+            } catch (HibernateException he) {
+                returnSession(getSession());
+                throw new NoApplicableCodeException().causedBy(he).withMessage(ERROR_LOG)
+                        .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    /**
+     * The first chunk was queried with the session of the prefetching thread,
+     * lock the entities without a database round trip to the session of the
+     * consuming thread to resolve lazy associations.
+     */
+    private void reattachPrefetchedValues() throws OwsExceptionReport {
+        if (firstChunkPrefetched && seriesValues != null) {
+            Session session = getSession();
+            for (DataEntity<?> value : seriesValues) {
+                session.buildLockRequest(LockOptions.NONE).lock(value);
+            }
+        }
+    }
+
+    private void closePrefetcher() {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+    }
+
+    private boolean hasCurrentResult() {
+        return (seriesValuesResult != null && seriesValuesResult.hasNext())
+                || (valueTuplesResult != null && valueTuplesResult.hasNext());
+    }
+
+    private boolean isValueTupleReadable() {
+        return valueType != null && seriesValueDAO.isValueTupleReadable(valueType, request);
+    }
+
+    /**
+     * Query the following chunks as value tuples. The keyset pagination
+     * continues after the last queried {@link DataEntity}.
+     */
+    private void startValueTuples() {
+        valueTuples = true;
+        if (lastValue != null) {
+            lastTuple = AbstractSeriesValueDAO.createValueTuple(lastValue);
+        }
+    }
+
+    private void checkNotValueTuples() throws OwsExceptionReport {
+        if (valueTuplesResult != null && valueTuplesResult.hasNext()) {
+            throw new NoApplicableCodeException()
+                    .withMessage("The observation values of the series are already streamed as time value pairs!");
+        }
+    }
+
+    /**
+     * Create a {@link TimeValuePair} from a value tuple
+     *
+     * @param tuple
+     *            value tuple, see {@link AbstractSeriesValueDAO#TUPLE_VALUE}
+     * @return resulting {@link TimeValuePair}
+     */
+    private TimeValuePair createTimeValuePairFrom(Object[] tuple) {
+        DateTime phenStartTime =
+                new DateTime(tuple[AbstractSeriesValueDAO.TUPLE_SAMPLING_TIME_START], DateTimeZone.UTC);
+        DateTime phenEndTime = phenStartTime;
+        if (tuple[AbstractSeriesValueDAO.TUPLE_SAMPLING_TIME_END] != null) {
+            phenEndTime = new DateTime(tuple[AbstractSeriesValueDAO.TUPLE_SAMPLING_TIME_END], DateTimeZone.UTC);
+        }
+        return new TimeValuePair(createTime(phenStartTime, phenEndTime),
+                createValue(tuple[AbstractSeriesValueDAO.TUPLE_VALUE]));
+    }
+
+    private Value<?> createValue(Object value) {
+        switch (valueType) {
+            case quantity:
+                // the BigDecimal of the datasource is passed through to keep
+                // its precision
+                QuantityValue quantityValue = new QuantityValue(toBigDecimal(value));
+                if (valueUnit != null) {
+                    quantityValue.setUnit(valueUnit);
+                }
+                return quantityValue;
+            case count:
+                return new CountValue(value != null ? ((Number) value).intValue() : null);
+            case bool:
+                BooleanValue booleanValue = new BooleanValue((Boolean) value);
+                if (valueUnit != null) {
+                    booleanValue.setUnit(valueUnit);
+                }
+                return booleanValue;
+            default:
+                throw new IllegalStateException("Unsupported value type " + valueType);
+        }
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return BigDecimal.valueOf(((Number) value).doubleValue());
+    }
+
+    private void getNextChunk() throws OwsExceptionReport {
+        getNextResults();
+        if (chunkSize <= 0 || currentResultSize < chunkSize) {
+            noChunk = true;
+        }
+    }
+
     /**
      * Get the next results from database
      *
@@ -161,9 +465,19 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
         Session session = null;
         try {
             session = getSession();
+            if (valueTuples) {
+                getNextValueTuples(session);
+                return;
+            }
             // query with temporal filter
-            Collection<DataEntity<?>> resutltValues = new ArrayList<>();
-            if (temporalFilterCriterion != null) {
+            List<DataEntity<?>> resutltValues = new ArrayList<>();
+            if (isKeysetPagination()) {
+                resutltValues.addAll(seriesValueDAO.getKeysetStreamingSeriesValuesFor(request, series,
+                        temporalFilterCriterion, chunkSize, lastValue, session));
+                if (!resutltValues.isEmpty()) {
+                    lastValue = resutltValues.get(resutltValues.size() - 1);
+                }
+            } else if (temporalFilterCriterion != null) {
                 resutltValues.addAll(seriesValueDAO.getStreamingSeriesValuesFor(request, series,
                         temporalFilterCriterion, chunkSize, currentRow, session));
             } else {
@@ -181,6 +495,38 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
         }
     }
 
+    private void getNextValueTuples(Session session) throws OwsExceptionReport {
+        List<Object[]> resultTuples;
+        if (isKeysetPagination()) {
+            resultTuples = seriesValueDAO.getKeysetStreamingSeriesValueTuplesFor(request, series, valueType,
+                    temporalFilterCriterion, chunkSize, lastTuple, session);
+            if (!resultTuples.isEmpty()) {
+                lastTuple = resultTuples.get(resultTuples.size() - 1);
+            }
+        } else {
+            resultTuples = seriesValueDAO.getStreamingSeriesValueTuplesFor(request, series, valueType,
+                    temporalFilterCriterion, chunkSize, currentRow, session);
+        }
+        currentRow += chunkSize;
+        checkMaxNumberOfReturnedValues(resultTuples.size());
+        this.currentResultSize = resultTuples.size();
+        if (!resultTuples.isEmpty()) {
+            this.valueTuplesResult = resultTuples.iterator();
+        }
+    }
+
+    /**
+     * Keyset pagination is not applicable for result filter requests and
+     * requests ordered by the nullable result time, see
+     * {@link AbstractSeriesValueDAO#isKeysetPaginationApplicable(AbstractObservationRequest)}.
+     *
+     * @return <code>true</code>, if the chunks can be queried with keyset
+     *         pagination
+     */
+    private boolean isKeysetPagination() {
+        return keysetPagination && chunkSize > 0 && seriesValueDAO.isKeysetPaginationApplicable(request);
+    }
+
     /**
      * Check the queried {@link DataEntity}s for null and set
      * them as iterator to local variable.
@@ -188,9 +534,11 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
      * @param seriesValuesResult
      *            Queried {@link DataEntity}s
      */
-    private void setSeriesValuesResult(Collection<DataEntity<?>> seriesValuesResult) {
+    private void setSeriesValuesResult(List<DataEntity<?>> seriesValuesResult) {
+        this.seriesValues = null;
         if (CollectionHelper.isNotEmpty(seriesValuesResult)) {
             this.currentResultSize = seriesValuesResult.size();
+            this.seriesValues = seriesValuesResult;
             this.seriesValuesResult = seriesValuesResult.iterator();
         }
 
@@ -114,6 +114,7 @@ import org.n52.sos.ds.SosCacheFeederHandler;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.dao.GetObservationDaoImpl;
 import org.n52.sos.ds.hibernate.util.HibernateMetadataCache;
+import org.n52.sos.ds.hibernate.util.StripedInsertionLocks;
 import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
 import org.n52.sos.ds.hibernate.util.observation.AdditionalObservationCreatorRepository;
 import org.n52.sos.ds.hibernate.util.observation.OmObservationCreatorContext;
@@ -407,8 +408,10 @@ public abstract class AbstractInsertDAOTest extends HibernateTestCase {
         deleteSensorDAO.initForTesting(daoFactory, this);
         deleteSensorDAO.setCacheController(contentCacheController);
         deleteSensorDAO.init();
+        StripedInsertionLocks insertionLocks = new StripedInsertionLocks();
         insertObservationDAO.initForTesting(daoFactory, this);
         insertObservationDAO.setCacheController(contentCacheController);
+        insertObservationDAO.setInsertionLocks(insertionLocks);
         insertObservationDAO.init();
         insertResultTemplateDAO.initForTesting(daoFactory, this);
         insertResultTemplateDAO.setCacheController(contentCacheController);
@@ -416,6 +419,7 @@ public abstract class AbstractInsertDAOTest extends HibernateTestCase {
         insertResultDAO.initForTesting(daoFactory, this);
         insertResultDAO.setCacheController(contentCacheController);
         insertResultDAO.setDecoderRepository(decoderRepository);
+        insertResultDAO.setInsertionLocks(insertionLocks);
         insertResultDAO.init();
         getObsDAO.setConnectionProvider(this);
         getObsDAO.setDaoFactory(daoFactory);
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Session;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.dataset.ValueType;
+import org.n52.shetland.ogc.filter.FilterConstants;
+import org.n52.shetland.ogc.filter.TemporalFilter;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.TimeValuePair;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.GetObservationRequest;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.shetland.util.CollectionHelper;
+import org.n52.sos.ds.hibernate.util.HibernateMetadataCache;
+import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
+import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesPrefetcher;
+import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Streams the observations of several series with the
+ * {@link HibernateChunkSeriesStreamingValue} and the
+ * {@link HibernateChunkSeriesPrefetcher}.
+ */
+public class ChunkSeriesStreamingValueDAOTest extends AbstractObservationInsertDAOTest {
+
+    private static final String[] FEATURES =
+            new String[] { FEATURE3 + "_1", FEATURE3 + "_2", FEATURE3 + "_3", FEATURE3 + "_4" };
+
+    private static final int OBSERVATIONS_PER_SERIES = 25;
+
+    private static final int CHUNK_SIZE = 10;
+
+    private final CountingExecutor executor = new CountingExecutor();
+
+    private final List<Long> series = new ArrayList<>();
+
+    @Before
+    public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
+        super.setUp();
+        Session session = null;
+        try {
+            session = getSession();
+            HibernateMetadataCache.init(session);
+            insertSensor(PROCEDURE1, OFFERING1, OBSPROP1, null, OmConstants.OBS_TYPE_MEASUREMENT);
+            insertSensor(PROCEDURE2, OFFERING2, OBSPROP2, PROCEDURE1, OmConstants.OBS_TYPE_MEASUREMENT);
+            insertSensor(PROCEDURE3, OFFERING3, OBSPROP3, PROCEDURE2, OmConstants.OBS_TYPE_MEASUREMENT);
+        } finally {
+            returnSession(session);
+        }
+        for (String feature : FEATURES) {
+            insertObservationDAO.insertObservation(createRequest(feature));
+        }
+        try {
+            session = getSession();
+            for (String feature : FEATURES) {
+                series.add(daoFactory.getSeriesDAO()
+                        .getSeries(PROCEDURE3, OBSPROP3, OFFERING3, Lists.newArrayList(feature), session).iterator()
+                        .next().getId());
+            }
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPrefetchedSeriesEqualsQueriedSeries() throws OwsExceptionReport {
+        HibernateChunkSeriesPrefetcher prefetcher = new HibernateChunkSeriesPrefetcher(executor, 2);
+        List<HibernateChunkSeriesStreamingValue> prefetched = new ArrayList<>();
+        for (long id : series) {
+            HibernateChunkSeriesStreamingValue value = createStreamingValue(id);
+            prefetcher.add(value);
+            prefetched.add(value);
+        }
+        prefetcher.start();
+        for (int i = 0; i < series.size(); i++) {
+            List<DataEntity<?>> expected = consume(createStreamingValue(series.get(i)));
+            List<DataEntity<?>> actual = consume(prefetched.get(i));
+            assertThat(actual, hasSize(OBSERVATIONS_PER_SERIES));
+            for (int j = 0; j < expected.size(); j++) {
+                assertThat(actual.get(j).getId(), is(expected.get(j).getId()));
+                assertThat(actual.get(j).getSamplingTimeStart().getTime(), is(OBS_TIME.plusMinutes(j).getMillis()));
+            }
+        }
+    }
+
+    @Test
+    public void testPrefetchFailureIsThrownToConsumer() throws OwsExceptionReport {
+        HibernateChunkSeriesPrefetcher prefetcher = new HibernateChunkSeriesPrefetcher(executor, 1);
+        HibernateChunkSeriesStreamingValue failing = createStreamingValue(series.get(0));
+        // the first chunk exceeds the limit
+        failing.setMaxNumberOfValues(1);
+        HibernateChunkSeriesStreamingValue following = createStreamingValue(series.get(1));
+        prefetcher.add(failing);
+        prefetcher.add(following);
+        prefetcher.start();
+        try {
+            failing.hasNext();
+            fail("The error of the prefetched chunk was not thrown!");
+        } catch (OwsExceptionReport owse) {
+            // expected
+        }
+        // the response is not encoded, the following series are closed
+        assertThat(following.hasNext(), is(false));
+    }
+
+    @Test
+    public void testPrefetchIsLimitedToDepth() throws OwsExceptionReport {
+        HibernateChunkSeriesPrefetcher prefetcher = new HibernateChunkSeriesPrefetcher(executor, 1);
+        List<HibernateChunkSeriesStreamingValue> values = new ArrayList<>();
+        for (long id : series) {
+            HibernateChunkSeriesStreamingValue value = createStreamingValue(id);
+            prefetcher.add(value);
+            values.add(value);
+        }
+        prefetcher.start();
+        assertThat(executor.getSubmitted(), is(1));
+
+        assertThat(values.get(0).hasNext(), is(true));
+        assertThat(executor.getSubmitted(), is(2));
+        consume(values.get(0));
+        assertThat(executor.getSubmitted(), is(2));
+
+        assertThat(values.get(1).hasNext(), is(true));
+        assertThat(executor.getSubmitted(), is(3));
+
+        // e.g. the client disconnected
+        prefetcher.close();
+        assertThat(values.get(1).hasNext(), is(false));
+        assertThat(values.get(2).hasNext(), is(false));
+        assertThat(values.get(3).hasNext(), is(false));
+        assertThat(executor.getSubmitted(), is(3));
+    }
+
+    @Test
+    public void testValueTuplesEqualEntities() throws OwsExceptionReport {
+        HibernateChunkSeriesStreamingValue tuples = createStreamingValue(series.get(0));
+        tuples.setValueType(ValueType.quantity, TEMP_UNIT);
+        HibernateChunkSeriesStreamingValue entities = createStreamingValue(series.get(0));
+        List<TimeValuePair> expected = new ArrayList<>();
+        TimeValuePair value;
+        while ((value = entities.nextValue()) != null) {
+            expected.add(value);
+        }
+        assertThat(expected, hasSize(OBSERVATIONS_PER_SERIES));
+
+        List<TimeValuePair> actual = new ArrayList<>();
+        actual.add(tuples.nextValue());
+        try {
+            // the first chunk is already queried as value tuples
+            tuples.nextEntity();
+            fail("The first chunk was queried as entities!");
+        } catch (OwsExceptionReport owse) {
+            // expected
+        }
+        while ((value = tuples.nextValue()) != null) {
+            actual.add(value);
+        }
+        assertThat(actual, hasSize(OBSERVATIONS_PER_SERIES));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getTime(), is(expected.get(i).getTime()));
+            assertThat(((Number) actual.get(i).getValue().getValue()).doubleValue(),
+                    is(((Number) expected.get(i).getValue().getValue()).doubleValue()));
+        }
+    }
+
+    @Test
+    public void testKeysetPagingEqualsOffsetPaging() throws OwsExceptionReport {
+        for (long id : series) {
+            List<DataEntity<?>> expected = consume(createStreamingValue(id));
+            HibernateChunkSeriesStreamingValue keyset = createStreamingValue(id);
+            keyset.setKeysetPagination(true);
+            List<DataEntity<?>> actual = consume(keyset);
+            assertThat(actual, hasSize(OBSERVATIONS_PER_SERIES));
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).getId(), is(expected.get(i).getId()));
+            }
+        }
+    }
+
+    @Test
+    public void testKeysetPagingIsNotApplicableForResultTimeOrder() {
+        GetObservationRequest request = new GetObservationRequest();
+        assertThat(daoFactory.getValueDAO().isKeysetPaginationApplicable(request), is(true));
+        // the result time is nullable
+        request.setTemporalFilters(CollectionHelper.list(new TemporalFilter(FilterConstants.TimeOperator.TM_During,
+                new TimePeriod(OBS_TIME, OBS_TIME.plusMinutes(OBSERVATIONS_PER_SERIES)),
+                TemporalRestrictions.RESULT_TIME_VALUE_REFERENCE)));
+        assertThat(daoFactory.getValueDAO().isKeysetPaginationApplicable(request), is(false));
+    }
+
+    private HibernateChunkSeriesStreamingValue createStreamingValue(long id) throws OwsExceptionReport {
+        return new HibernateChunkSeriesStreamingValue(this, daoFactory, new GetObservationRequest(), id,
+                bindingRepository, CHUNK_SIZE);
+    }
+
+    private List<DataEntity<?>> consume(HibernateChunkSeriesStreamingValue value) throws OwsExceptionReport {
+        List<DataEntity<?>> values = new ArrayList<>();
+        while (value.hasNext()) {
+            values.add(value.nextEntity());
+        }
+        return values;
+    }
+
+    private InsertObservationRequest createRequest(String feature) throws OwsExceptionReport, ConverterException {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(PROCEDURE3);
+        req.setOfferings(Lists.newArrayList(OFFERING3));
+        Session session = null;
+        try {
+            session = getSession();
+            List<OmObservation> observations = new ArrayList<>();
+            for (int i = OBSERVATIONS_PER_SERIES - 1; i >= 0; i--) {
+                // inserted in reverse order of the phenomenon time
+                DateTime time = OBS_TIME.plusMinutes(i);
+                OmObservation obs = new OmObservation();
+                obs.setObservationConstellation(getOmObsConst(PROCEDURE3, OBSPROP3, TEMP_UNIT, OFFERING3, feature,
+                        OmConstants.OBS_TYPE_MEASUREMENT, session));
+                obs.setResultTime(new TimeInstant(time));
+                SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<BigDecimal>();
+                obsVal.setPhenomenonTime(new TimeInstant(time));
+                obsVal.setValue(new QuantityValue(Double.valueOf(i), TEMP_UNIT));
+                obs.setValue(obsVal);
+                observations.add(obs);
+            }
+            req.setObservation(observations);
+        } finally {
+            returnSession(session);
+        }
+        return req;
+    }
+
+    private static class CountingExecutor extends ThreadPoolExecutor {
+
+        private final AtomicInteger submitted = new AtomicInteger();
+
+        CountingExecutor() {
+            super(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            submitted.incrementAndGet();
+            super.execute(command);
+        }
+
+        int getSubmitted() {
+            return submitted.get();
+        }
+
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2012-2020 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.sos.ds.hibernate.util.HibernateMetadataCache;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Runs the incremental cache update of the
+ * {@link org.n52.sos.ds.SosCacheFeederHandler} against observations that are
+ * inserted without notifying the cache.
+ */
+public class IncrementalCacheUpdateDAOTest extends AbstractObservationInsertDAOTest {
+
+    private static final String FEATURE4 = "feature4";
+
+    @Before
+    public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
+        super.setUp();
+        Session session = null;
+        try {
+            session = getSession();
+            HibernateMetadataCache.init(session);
+            insertSensor(PROCEDURE1, OFFERING1, OBSPROP1, null, OmConstants.OBS_TYPE_MEASUREMENT);
+            insertSensor(PROCEDURE2, OFFERING2, OBSPROP2, PROCEDURE1, OmConstants.OBS_TYPE_MEASUREMENT);
+            insertSensor(PROCEDURE3, OFFERING3, OBSPROP3, PROCEDURE2, OmConstants.OBS_TYPE_MEASUREMENT);
+        } finally {
+            returnSession(session);
+        }
+        cacheFeeder.setIncrementalUpdate(true);
+        insertObservation(FEATURE3, OBS_TIME);
+        updateCache();
+    }
+
+    @Test
+    public void testUnchangedDatasourceKeepsCache() throws OwsExceptionReport {
+        // only a reload of the offering would restore its features
+        cache.setFeaturesOfInterestForOffering(OFFERING3, Collections.emptySet());
+        assertThat(cacheFeeder.updateCacheIncrementally(cache), is(true));
+        assertThat(getCache().getFeaturesOfInterestForOffering(OFFERING3), empty());
+    }
+
+    @Test
+    public void testNewFeatureInUnchangedTimeRangeIsMerged() throws Exception {
+        // same phenomenon time, the time extrema of the offering do not change
+        insertObservation(FEATURE4, OBS_TIME);
+        assertThat(getCache().getProceduresForFeatureOfInterest(FEATURE4), empty());
+
+        assertThat(cacheFeeder.updateCacheIncrementally(cache), is(true));
+        assertThat(getCache().getFeaturesOfInterestForOffering(OFFERING3), hasSize(2));
+        assertThat(getCache().getProceduresForFeatureOfInterest(FEATURE4), contains(PROCEDURE3));
+        assertInsertionAftermath(true);
+    }
+
+    @Test
+    public void testNewLastValueIsMerged() throws Exception {
+        DateTime later = OBS_TIME.plusHours(1);
+        insertObservation(FEATURE3, later);
+        assertThat(getCache().getMaxPhenomenonTimeForOffering(OFFERING3).getMillis(), is(OBS_TIME.getMillis()));
+
+        // the last value of the existing dataset changed
+        assertThat(cacheFeeder.updateCacheIncrementally(cache), is(true));
+        assertThat(getCache().getMaxPhenomenonTimeForOffering(OFFERING3).getMillis(), is(later.getMillis()));
+    }
+
+    @Test
+    public void testDeletedDatasetRelationsAreRemoved() throws Exception {
+        insertObservation(FEATURE4, OBS_TIME);
+        assertThat(cacheFeeder.updateCacheIncrementally(cache), is(true));
+        assertThat(getCache().getProceduresForFeatureOfInterest(FEATURE4), contains(PROCEDURE3));
+
+        deleteDataset(FEATURE4);
+        assertThat(cacheFeeder.updateCacheIncrementally(cache), is(true));
+        assertThat(getCache().getFeaturesOfInterestForOffering(OFFERING3), hasSize(1));
+        assertThat(getCache().getProceduresForFeatureOfInterest(FEATURE4), empty());
+        assertThat(getCache().getProceduresForFeatureOfInterest(FEATURE3), contains(PROCEDURE3));
+        assertThat(getCache().getOfferingsForProcedure(PROCEDURE3), contains(OFFERING3));
+    }
+
+    private void insertObservation(String feature, DateTime time) throws OwsExceptionReport, ConverterException {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(PROCEDURE3);
+        req.setOfferings(Lists.newArrayList(OFFERING3));
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(PROCEDURE3, OBSPROP3, TEMP_UNIT, OFFERING3, feature,
+                    OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        obs.setResultTime(new TimeInstant(time));
+        SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<BigDecimal>();
+        obsVal.setPhenomenonTime(new TimeInstant(time));
+        obsVal.setValue(new QuantityValue(Double.valueOf(OBS_VAL), TEMP_UNIT));
+        obs.setValue(obsVal);
+        req.setObservation(Lists.newArrayList(obs));
+        // the cache is not notified about the insertion
+        insertObservationDAO.insertObservation(req);
+    }
+
+    private void deleteDataset(String feature) throws OwsExceptionReport {
+        Session session = null;
+        Transaction transaction = null;
+        try {
+            session = getSession();
+            transaction = session.beginTransaction();
+            for (DatasetEntity dataset : daoFactory.getSeriesDAO().getSeries(PROCEDURE3, OBSPROP3, OFFERING3,
+                    Lists.newArrayList(feature), session)) {
+                dataset.setDeleted(true);
+                session.update(dataset);
+            }
+            transaction.commit();
+        } finally {
+            returnSession(session);
+        }
+    }
+
+}
@@ -28,20 +28,46 @@
  */
 package org.n52.sos.ds.hibernate;
 
+import static org.junit.Assert.fail;
+
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DatasetEntity;
 import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.MultiObservationValues;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.om.SingleObservationValue;
 import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.om.values.SweDataArrayValue;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
 import org.n52.shetland.ogc.sos.response.InsertObservationResponse;
+import org.n52.shetland.ogc.swe.SweDataArray;
+import org.n52.shetland.ogc.swe.SweDataRecord;
+import org.n52.shetland.ogc.swe.SweField;
+import org.n52.shetland.ogc.swe.simpleType.SweCount;
+import org.n52.shetland.ogc.swe.simpleType.SweQuantity;
+import org.n52.shetland.ogc.swe.simpleType.SweTime;
+import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.ds.hibernate.util.HibernateMetadataCache;
 import org.n52.sos.event.events.ObservationInsertion;
 import org.n52.svalbard.encode.exception.EncodingException;
@@ -50,6 +76,10 @@ import com.google.common.collect.Lists;
 
 public class InsertObservationInsertDAOTest extends AbstractObservationInsertDAOTest {
 
+    private static final int CONCURRENT_REQUESTS_PER_DATASET = 20;
+
+    private static final int BULK_OBSERVATIONS = 50;
+
     @Before
     public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
         super.setUp();
@@ -198,5 +228,289 @@ public class InsertObservationInsertDAOTest extends AbstractObservationInsertDAO
         assertInsertionAftermathBeforeAndAfterCacheReload();
     }
 
+    @Test
+    public void testCheckForDuplicatedObservations() throws Exception {
+        insertObservationDAO.setCheckForDuplicatedObservations(true);
+        insertObservationDAO.insertObservation(createBulkRequest(PROCEDURE3, OBSPROP3, OFFERING3, FEATURE3, OBS_TIME));
+        // overlapping time window, only the first observation is new
+        InsertObservationRequest duplicated = createBulkRequest(PROCEDURE3, OBSPROP3, OFFERING3, FEATURE3,
+                OBS_TIME.minusMinutes(1));
+        try {
+            insertObservationDAO.insertObservation(duplicated);
+            fail("Duplicated observations were inserted!");
+        } catch (OwsExceptionReport owse) {
+            assertThat(owse.getMessage(), containsString("already exists in the database"));
+        }
+    }
+
+    @Test
+    public void testCheckForDuplicatedMultiValueObservations() throws Exception {
+        insertObservationDAO.setCheckForDuplicatedObservations(true);
+        insertObservationDAO.insertObservation(createBulkRequest(PROCEDURE3, OBSPROP3, OFFERING3, FEATURE3, OBS_TIME));
+        // the second value has the time of an inserted observation
+        InsertObservationRequest duplicated = createMultiValueRequest(PROCEDURE3, OBSPROP3, OFFERING3, FEATURE3,
+                OBS_TIME.minusMinutes(1), OBS_TIME);
+        try {
+            insertObservationDAO.insertObservation(duplicated);
+            fail("Duplicated observations were inserted!");
+        } catch (OwsExceptionReport owse) {
+            assertThat(owse.getMessage(), containsString("already exists in the database"));
+        }
+    }
+
+    @Test
+    public void testConcurrentInsertObservation() throws Exception {
+        String[][] datasets = new String[][] { { PROCEDURE1, OBSPROP1, OFFERING1, FEATURE3 + "_1" },
+                { PROCEDURE2, OBSPROP2, OFFERING2, FEATURE3 + "_2" },
+                { PROCEDURE3, OBSPROP3, OFFERING3, FEATURE3 + "_3" } };
+        RecordingInsertObservationHandler handler = new RecordingInsertObservationHandler(2);
+        handler.initForTesting(daoFactory, this);
+        handler.setCacheController(contentCacheController);
+        handler.init();
+        handler.setConcurrentInsertion(true);
+        insertObservations(handler, datasets, datasets.length, OBS_TIME);
+        // requests for different datasets are inserted at the same time
+        assertThat(handler.getMaxActive(), is(greaterThan(1)));
+        // requests for the same dataset are inserted one after another
+        assertThat(handler.getMaxActivePerDataset(), is(1));
+        updateCache();
+        for (String[] dataset : datasets) {
+            checkObservation(dataset[2], dataset[0], dataset[1], OBS_TIME, dataset[0], dataset[1], dataset[3],
+                    OBS_VAL, TEMP_UNIT);
+            checkObservation(dataset[2], dataset[0], dataset[1],
+                    OBS_TIME.plusMinutes(CONCURRENT_REQUESTS_PER_DATASET - 1), dataset[0], dataset[1], dataset[3],
+                    OBS_VAL, TEMP_UNIT);
+        }
+    }
+
+    @Test
+    public void testDeferredDatasetUpdateUpdatesDatasetOnce() throws Exception {
+        String immediateFeature = FEATURE3 + "_immediate";
+        String deferredFeature = FEATURE3 + "_deferred";
+        DateTime start = OBS_TIME.plusMinutes(BULK_OBSERVATIONS);
+        InsertObservationRequest immediateRequest =
+                createBulkRequest(PROCEDURE3, OBSPROP3, OFFERING3, immediateFeature, start);
+        InsertObservationRequest deferredRequest =
+                createBulkRequest(PROCEDURE3, OBSPROP3, OFFERING3, deferredFeature, start);
+
+        // the datasets exist and are initialized
+        insertObservationDAO.insertObservation(
+                createBulkRequest(PROCEDURE3, OBSPROP3, OFFERING3, immediateFeature, OBS_TIME));
+        insertObservationDAO.insertObservation(
+                createBulkRequest(PROCEDURE3, OBSPROP3, OFFERING3, deferredFeature, OBS_TIME));
+
+        // the last value changes several times within the requests
+        assertThat(countDatasetUpdates(immediateRequest), is(greaterThan(1L)));
+        insertObservationDAO.setDeferredDatasetUpdate(true);
+        assertThat(countDatasetUpdates(deferredRequest), is(1L));
+
+        Session session = null;
+        try {
+            session = getSession();
+            DatasetEntity immediateDataset = daoFactory.getSeriesDAO()
+                    .getSeries(PROCEDURE3, OBSPROP3, OFFERING3, Lists.newArrayList(immediateFeature), session)
+                    .iterator().next();
+            DatasetEntity deferredDataset = daoFactory.getSeriesDAO()
+                    .getSeries(PROCEDURE3, OBSPROP3, OFFERING3, Lists.newArrayList(deferredFeature), session)
+                    .iterator().next();
+            assertThat(deferredDataset.getFirstValueAt().getTime(), is(OBS_TIME.getMillis()));
+            assertThat(deferredDataset.getLastValueAt().getTime(),
+                    is(start.plusMinutes(BULK_OBSERVATIONS - 1).getMillis()));
+            assertThat(deferredDataset.getFirstValueAt().getTime(),
+                    is(immediateDataset.getFirstValueAt().getTime()));
+            assertThat(deferredDataset.getLastValueAt().getTime(), is(immediateDataset.getLastValueAt().getTime()));
+            assertThat(deferredDataset.getFirstQuantityValue().compareTo(immediateDataset.getFirstQuantityValue()),
+                    is(0));
+            assertThat(deferredDataset.getLastQuantityValue().compareTo(immediateDataset.getLastQuantityValue()),
+                    is(0));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    private long countDatasetUpdates(InsertObservationRequest request) throws OwsExceptionReport {
+        Session session = null;
+        Statistics statistics;
+        try {
+            session = getSession();
+            statistics = session.getSessionFactory().getStatistics();
+        } finally {
+            returnSession(session);
+        }
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            insertObservationDAO.insertObservation(request);
+            return statistics.getEntityStatistics(DatasetEntity.class.getName()).getUpdateCount();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    private void insertObservations(InsertObservationHandler handler, String[][] datasets, int threads,
+            DateTime start) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<InsertObservationResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS_PER_DATASET; i++) {
+                for (String[] dataset : datasets) {
+                    InsertObservationRequest req =
+                            createRequest(dataset[0], dataset[1], dataset[2], dataset[3], start.plusMinutes(i));
+                    futures.add(executor.submit(() -> handler.insertObservation(req)));
+                }
+            }
+            for (Future<InsertObservationResponse> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private InsertObservationRequest createBulkRequest(String procedure, String obsProp, String offering,
+            String feature, DateTime start) throws OwsExceptionReport, ConverterException {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(procedure);
+        req.setOfferings(Lists.newArrayList(offering));
+        Session session = null;
+        try {
+            session = getSession();
+            List<OmObservation> observations = new ArrayList<>();
+            for (int i = 0; i < BULK_OBSERVATIONS; i++) {
+                // not ordered by time, each observation has another value
+                DateTime time = start.plusMinutes((i * 7) % BULK_OBSERVATIONS);
+                OmObservation obs = new OmObservation();
+                obs.setObservationConstellation(getOmObsConst(procedure, obsProp, TEMP_UNIT, offering, feature,
+                        OmConstants.OBS_TYPE_MEASUREMENT, session));
+                obs.setResultTime(new TimeInstant(time));
+                SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<BigDecimal>();
+                obsVal.setPhenomenonTime(new TimeInstant(time));
+                obsVal.setValue(new QuantityValue(Double.valueOf(i), TEMP_UNIT));
+                obs.setValue(obsVal);
+                observations.add(obs);
+            }
+            req.setObservation(observations);
+        } finally {
+            returnSession(session);
+        }
+        return req;
+    }
+
+    private InsertObservationRequest createMultiValueRequest(String procedure, String obsProp, String offering,
+            String feature, DateTime... times) throws OwsExceptionReport, ConverterException, EncodingException {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(procedure);
+        req.setOfferings(Lists.newArrayList(offering));
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(procedure, obsProp, TEMP_UNIT, offering, feature,
+                    OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        SweDataRecord dataRecord = new SweDataRecord();
+        SweTime phenomenonTime = new SweTime();
+        phenomenonTime.setUom(OmConstants.PHEN_UOM_ISO8601);
+        phenomenonTime.setDefinition(OmConstants.PHENOMENON_TIME);
+        dataRecord.addField(new SweField("phenomenonTime", phenomenonTime));
+        SweTime resultTime = new SweTime();
+        resultTime.setUom(OmConstants.PHEN_UOM_ISO8601);
+        resultTime.setDefinition(OmConstants.RESULT_TIME);
+        dataRecord.addField(new SweField("resultTime", resultTime));
+        SweQuantity temp = new SweQuantity();
+        temp.setDefinition(obsProp);
+        temp.setUom(TEMP_UNIT);
+        dataRecord.addField(new SweField("temperature", temp));
+        dataRecord.setXml(createDataRecordString(dataRecord));
+        SweDataArray dataArray = new SweDataArray();
+        dataArray.setElementCount(new SweCount().setValue(times.length));
+        dataArray.setElementType(dataRecord);
+        dataArray.setEncoding(getTextEncoding());
+        for (DateTime time : times) {
+            dataArray.add(CollectionHelper.list(time.toString(), time.toString(), Double.toString(OBS_VAL)));
+        }
+        SweDataArrayValue dataArrayValue = new SweDataArrayValue();
+        dataArrayValue.setValue(dataArray);
+        MultiObservationValues<SweDataArray> obsVal = new MultiObservationValues<>();
+        obsVal.setPhenomenonTime(new TimePeriod(times[0], times[times.length - 1]));
+        obsVal.setValue(dataArrayValue);
+        obs.setValue(obsVal);
+        req.setObservation(Lists.newArrayList(obs));
+        return req;
+    }
+
+    private InsertObservationRequest createRequest(String procedure, String obsProp, String offering, String feature,
+            DateTime time) throws OwsExceptionReport, ConverterException {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(procedure);
+        req.setOfferings(Lists.newArrayList(offering));
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(procedure, obsProp, TEMP_UNIT, offering, feature,
+                    OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        obs.setResultTime(new TimeInstant(time));
+        SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<BigDecimal>();
+        obsVal.setPhenomenonTime(new TimeInstant(time));
+        obsVal.setValue(new QuantityValue(Double.valueOf(OBS_VAL), TEMP_UNIT));
+        obs.setValue(obsVal);
+        req.setObservation(Lists.newArrayList(obs));
+        return req;
+    }
+
+    /**
+     * Records how many requests are inserted at the same time, overall and per dataset. Each request waits until
+     * the given number of requests has entered, so requests for different datasets are bound to overlap.
+     */
+    private static class RecordingInsertObservationHandler extends InsertObservationHandler {
+
+        private final Map<String, AtomicInteger> activePerDataset = new ConcurrentHashMap<>();
+
+        private final AtomicInteger active = new AtomicInteger();
+
+        private final AtomicInteger maxActive = new AtomicInteger();
+
+        private final AtomicInteger maxActivePerDataset = new AtomicInteger();
+
+        private final CountDownLatch entered;
+
+        RecordingInsertObservationHandler(int concurrent) {
+            this.entered = new CountDownLatch(concurrent);
+        }
+
+        @Override
+        Set<String> insertObservationInTransaction(InsertObservationRequest request) throws OwsExceptionReport {
+            AtomicInteger dataset =
+                    activePerDataset.computeIfAbsent(request.getAssignedSensorId(), k -> new AtomicInteger());
+            maxActivePerDataset.accumulateAndGet(dataset.incrementAndGet(), Math::max);
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                entered.countDown();
+                entered.await(10, TimeUnit.SECONDS);
+                return super.insertObservationInTransaction(request);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                active.decrementAndGet();
+                dataset.decrementAndGet();
+            }
+        }
+
+        int getMaxActive() {
+            return maxActive.get();
+        }
+
+        int getMaxActivePerDataset() {
+            return maxActivePerDataset.get();
+        }
+
+    }
 
 }
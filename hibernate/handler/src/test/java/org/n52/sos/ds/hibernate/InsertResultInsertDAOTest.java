@@ -28,22 +28,31 @@
  */
 package org.n52.sos.ds.hibernate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.hibernate.Session;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DatasetEntity;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.sos.SosResultEncoding;
 import org.n52.shetland.ogc.sos.SosResultStructure;
+import org.n52.shetland.ogc.sos.request.GetResultRequest;
 import org.n52.shetland.ogc.sos.request.InsertResultRequest;
 import org.n52.shetland.ogc.sos.request.InsertResultTemplateRequest;
 import org.n52.shetland.ogc.sos.response.InsertResultResponse;
 import org.n52.shetland.ogc.sos.response.InsertResultTemplateResponse;
 import org.n52.shetland.ogc.swe.SweConstants;
+import org.n52.shetland.ogc.swe.SweDataArray;
 import org.n52.shetland.ogc.swe.SweDataRecord;
 import org.n52.shetland.ogc.swe.SweField;
 import org.n52.shetland.ogc.swe.encoding.SweTextEncoding;
@@ -53,6 +62,7 @@ import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.ds.hibernate.util.HibernateMetadataCache;
 import org.n52.sos.event.events.ResultInsertion;
 import org.n52.sos.event.events.ResultTemplateInsertion;
+import org.n52.sos.service.profile.DefaultProfileHandler;
 import org.n52.svalbard.encode.exception.EncodingException;
 
 import net.opengis.swe.x20.DataRecordDocument;
@@ -93,6 +103,142 @@ public class InsertResultInsertDAOTest extends AbstractObservationInsertDAOTest
         checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME3, PROCEDURE3, OBSPROP3, FEATURE3, VAL3, TEMP_UNIT);
     }
 
+    @Test
+    public void testInsertResultPipelined()
+            throws OwsExceptionReport, InterruptedException, EncodingException, ConverterException {
+        insertResultDAO.setPipelineChunkSize(1);
+        insertResultTemplate(RESULT_TEMPLATE, PROCEDURE3, OFFERING3, OBSPROP3, FEATURE3);
+        InsertResultRequest req = new InsertResultRequest();
+        req.setTemplateIdentifier(RESULT_TEMPLATE);
+        req.setResultValues(makeResultValueString(CollectionHelper.list(TIME1, TIME2, TIME3),
+                CollectionHelper.list(VAL1, VAL2, VAL3)));
+        InsertResultResponse resp = insertResultDAO.insertResult(req);
+        // the chunks are combined into one observation, as if parsed at once
+        assertThat(resp.getObservations().size(), is(1));
+        SweDataArray values = (SweDataArray) resp.getObservations().get(0).getValue().getValue().getValue();
+        assertThat(values.getValues().size(), is(3));
+        this.serviceEventBus.submit(new ResultInsertion(req, resp));
+        assertInsertionAftermathBeforeAndAfterCacheReload();
+
+        checkObservation(OFFERING1, PROCEDURE3, OBSPROP3, TIME1, PROCEDURE3, OBSPROP3, FEATURE3, VAL1, TEMP_UNIT);
+        checkObservation(OFFERING2, PROCEDURE3, OBSPROP3, TIME2, PROCEDURE3, OBSPROP3, FEATURE3, VAL2, TEMP_UNIT);
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME3, PROCEDURE3, OBSPROP3, FEATURE3, VAL3, TEMP_UNIT);
+    }
+
+    @Test
+    public void testInsertResultConcurrently() throws Exception {
+        insertResultDAO.setConcurrentInsertion(true);
+        insertResultDAO.setPipelineChunkSize(1);
+        String otherTemplate = RESULT_TEMPLATE + "_other";
+        insertResultTemplate(RESULT_TEMPLATE, PROCEDURE3, OFFERING3, OBSPROP3, FEATURE3);
+        insertResultTemplate(otherTemplate, PROCEDURE1, OFFERING1, OBSPROP1, FEATURE3);
+        List<InsertResultRequest> requests = CollectionHelper.list(
+                createInsertResultRequest(RESULT_TEMPLATE, CollectionHelper.list(TIME1, TIME2),
+                        CollectionHelper.list(VAL1, VAL2)),
+                createInsertResultRequest(RESULT_TEMPLATE, CollectionHelper.list(TIME3),
+                        CollectionHelper.list(VAL3)),
+                createInsertResultRequest(otherTemplate, CollectionHelper.list(TIME1, TIME2, TIME3),
+                        CollectionHelper.list(VAL1, VAL2, VAL3)));
+        ExecutorService executor = Executors.newFixedThreadPool(requests.size());
+        try {
+            List<Future<InsertResultResponse>> futures = new ArrayList<>();
+            for (InsertResultRequest req : requests) {
+                futures.add(executor.submit(() -> insertResultDAO.insertResult(req)));
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                this.serviceEventBus.submit(new ResultInsertion(requests.get(i), futures.get(i).get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME1, PROCEDURE3, OBSPROP3, FEATURE3, VAL1, TEMP_UNIT);
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME3, PROCEDURE3, OBSPROP3, FEATURE3, VAL3, TEMP_UNIT);
+        checkObservation(OFFERING1, PROCEDURE1, OBSPROP1, TIME2, PROCEDURE1, OBSPROP1, FEATURE3, VAL2, TEMP_UNIT);
+        checkObservation(OFFERING1, PROCEDURE1, OBSPROP1, TIME3, PROCEDURE1, OBSPROP1, FEATURE3, VAL3, TEMP_UNIT);
+    }
+
+    @Test
+    public void testInsertResultConcurrentlyForSameDataset() throws Exception {
+        insertResultDAO.setConcurrentInsertion(true);
+        String otherTemplate = RESULT_TEMPLATE + "_same_dataset";
+        insertResultTemplate(RESULT_TEMPLATE, PROCEDURE3, OFFERING3, OBSPROP3, FEATURE3);
+        insertResultTemplate(otherTemplate, PROCEDURE3, OFFERING3, OBSPROP3, FEATURE3);
+        List<InsertResultRequest> requests = CollectionHelper.list(
+                createInsertResultRequest(RESULT_TEMPLATE, CollectionHelper.list(TIME1, TIME2),
+                        CollectionHelper.list(VAL1, VAL2)),
+                createInsertResultRequest(otherTemplate, CollectionHelper.list(TIME3),
+                        CollectionHelper.list(VAL3)));
+        ExecutorService executor = Executors.newFixedThreadPool(requests.size());
+        try {
+            List<Future<InsertResultResponse>> futures = new ArrayList<>();
+            for (InsertResultRequest req : requests) {
+                futures.add(executor.submit(() -> insertResultDAO.insertResult(req)));
+            }
+            for (Future<InsertResultResponse> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // both templates lock the same dataset, no first or last value is lost
+        Session session = null;
+        try {
+            session = getSession();
+            DatasetEntity dataset = daoFactory.getSeriesDAO()
+                    .getSeries(PROCEDURE3, OBSPROP3, OFFERING3, CollectionHelper.list(FEATURE3), session)
+                    .iterator().next();
+            assertThat(dataset.getFirstValueAt().getTime(), is(TIME1.getMillis()));
+            assertThat(dataset.getLastValueAt().getTime(), is(TIME3.getMillis()));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void testGetResultCountsScrolledObservations()
+            throws OwsExceptionReport, InterruptedException, EncodingException, ConverterException {
+        insertResultTemplate(RESULT_TEMPLATE, PROCEDURE3, OFFERING3, OBSPROP3, FEATURE3);
+        InsertResultRequest req = new InsertResultRequest();
+        req.setTemplateIdentifier(RESULT_TEMPLATE);
+        req.setResultValues(makeResultValueString(CollectionHelper.list(TIME1, TIME2, TIME3),
+                CollectionHelper.list(VAL1, VAL2, VAL3)));
+        InsertResultResponse resp = insertResultDAO.insertResult(req);
+        this.serviceEventBus.submit(new ResultInsertion(req, resp));
+
+        GetResultHandler getResultDAO = new GetResultHandler();
+        getResultDAO.setConnectionProvider(this);
+        getResultDAO.setDaoFactory(daoFactory);
+        getResultDAO.setFeatureQueryHandler(daoFactory.getFeatureQueryHandler());
+        getResultDAO.setGeometryHandler(daoFactory.getGeometryHandler());
+        getResultDAO.setProfileHandler(new DefaultProfileHandler());
+        GetResultRequest getResultRequest = new GetResultRequest();
+        getResultRequest.setService(SosConstants.SOS);
+        getResultRequest.setVersion(Sos2Constants.SERVICEVERSION);
+        getResultRequest.setOffering(OFFERING3);
+        getResultRequest.setObservedProperty(OBSPROP3);
+
+        String[] blocks = getResultDAO.getResult(getResultRequest).getResultValues().split(BLOCK_SEPARATOR);
+        assertThat(blocks.length, is(4));
+        assertThat(blocks[0], is("3"));
+        List<Double> values = new ArrayList<>();
+        for (int i = 1; i < blocks.length; i++) {
+            String[] tokens = blocks[i].split(TOKEN_SEPARATOR);
+            assertThat(tokens.length, is(2));
+            values.add(Double.valueOf(tokens[1]));
+        }
+        assertThat(values, containsInAnyOrder(VAL1, VAL2, VAL3));
+    }
+
+    private InsertResultRequest createInsertResultRequest(String template, List<DateTime> times,
+            List<Double> values) {
+        InsertResultRequest req = new InsertResultRequest();
+        req.setTemplateIdentifier(template);
+        req.setResultValues(makeResultValueString(times, values));
+        return req;
+    }
+
     private void insertResultTemplate(String identifier, String procedureId, String offeringId, String obsPropId,
             String featureId) throws OwsExceptionReport, ConverterException, EncodingException {
         InsertResultTemplateRequest req = new InsertResultTemplateRequest();
@@ -31,14 +31,19 @@ package org.n52.sos.request.operator;
 import java.util.Collections;
 import java.util.Set;
 
+import javax.inject.Inject;
+
 import org.n52.janmayen.http.MediaType;
 import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
 import org.n52.shetland.ogc.ows.exception.MissingParameterValueException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.n52.shetland.ogc.sos.Sos1Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.sos.request.DescribeSensorRequest;
 import org.n52.shetland.ogc.sos.response.DescribeSensorResponse;
+import org.n52.sos.cache.DescribeSensorResponseCache;
 import org.n52.sos.ds.AbstractDescribeSensorHandler;
 
 /**
@@ -55,6 +60,8 @@ public class SosDescribeSensorOperatorV100 extends
     private static final Set<String> CONFORMANCE_CLASSES =
             Collections.singleton("http://www.opengis.net/spec/SOS/1.0/conf/core");
 
+    private DescribeSensorResponseCache responseCache;
+
     public SosDescribeSensorOperatorV100() {
         super(OPERATION_NAME, DescribeSensorRequest.class);
     }
@@ -67,6 +74,19 @@ public class SosDescribeSensorOperatorV100 extends
         return Collections.emptySet();
     }
 
+    @Inject
+    public void setResponseCache(DescribeSensorResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public OwsServiceResponse receiveRequest(OwsServiceRequest request) throws OwsExceptionReport {
+        if (responseCache == null) {
+            return super.receiveRequest(request);
+        }
+        return responseCache.get(request, getContentCacheController(), super::receiveRequest);
+    }
+
     @Override
     public DescribeSensorResponse receive(DescribeSensorRequest sosRequest) throws OwsExceptionReport {
         DescribeSensorResponse response = getOperationHandler().getSensorDescription(sosRequest);
@@ -31,11 +31,16 @@ package org.n52.sos.request.operator;
 import java.util.Collections;
 import java.util.Set;
 
+import javax.inject.Inject;
+
 import org.n52.shetland.ogc.sos.Sos1Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesResponse;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.cache.GetCapabilitiesResponseCache;
 import org.n52.sos.ds.AbstractGetCapabilitiesHandler;
 
 /**
@@ -50,6 +55,8 @@ public class SosGetCapabilitiesOperatorV100 extends
 
     private static final String OPERATION_NAME = SosConstants.Operations.GetCapabilities.name();
 
+    private GetCapabilitiesResponseCache responseCache;
+
     public SosGetCapabilitiesOperatorV100() {
         super(OPERATION_NAME, GetCapabilitiesRequest.class);
     }
@@ -62,6 +69,19 @@ public class SosGetCapabilitiesOperatorV100 extends
         return Collections.emptySet();
     }
 
+    @Inject
+    public void setResponseCache(GetCapabilitiesResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public OwsServiceResponse receiveRequest(OwsServiceRequest request) throws OwsExceptionReport {
+        if (responseCache == null) {
+            return super.receiveRequest(request);
+        }
+        return responseCache.get(request, getContentCacheController(), super::receiveRequest);
+    }
+
     @Override
     public GetCapabilitiesResponse receive(GetCapabilitiesRequest sosRequest) throws OwsExceptionReport {
         return getOperationHandler().getCapabilities(sosRequest);
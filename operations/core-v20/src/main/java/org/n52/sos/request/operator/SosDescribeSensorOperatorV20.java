@@ -51,6 +51,7 @@ import org.n52.shetland.ogc.gml.CodeType;
 import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
 import org.n52.shetland.ogc.ows.exception.MissingParameterValueException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
 import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.n52.shetland.ogc.sensorML.AbstractProcess;
 import org.n52.shetland.ogc.sensorML.AbstractSensorML;
@@ -76,6 +77,7 @@ import org.n52.shetland.ogc.swe.SweField;
 import org.n52.shetland.ogc.swe.SweSimpleDataRecord;
 import org.n52.shetland.ogc.swe.simpleType.SweText;
 import org.n52.shetland.util.CollectionHelper;
+import org.n52.sos.cache.DescribeSensorResponseCache;
 import org.n52.sos.ds.AbstractDescribeSensorHandler;
 import org.n52.sos.util.SosHelper;
 import org.n52.sos.wsdl.WSDLConstants;
@@ -113,6 +115,8 @@ public class SosDescribeSensorOperatorV20 extends
 
     private boolean encodeFullChildrenInDescribeSensor;
 
+    private DescribeSensorResponseCache responseCache;
+
     public SosDescribeSensorOperatorV20() {
         super(OPERATION_NAME, DescribeSensorRequest.class);
         postProcessor = new PostProcessor();
@@ -158,6 +162,19 @@ public class SosDescribeSensorOperatorV20 extends
         return Collections.emptySet();
     }
 
+    @Inject
+    public void setResponseCache(DescribeSensorResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public OwsServiceResponse receiveRequest(OwsServiceRequest request) throws OwsExceptionReport {
+        if (responseCache == null) {
+            return super.receiveRequest(request);
+        }
+        return responseCache.get(request, getContentCacheController(), super::receiveRequest);
+    }
+
     @Override
     public DescribeSensorResponse receive(DescribeSensorRequest request) throws OwsExceptionReport {
         return getOperationHandler().getSensorDescription(request);
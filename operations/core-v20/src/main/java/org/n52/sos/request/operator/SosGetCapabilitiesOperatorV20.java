@@ -31,12 +31,17 @@ package org.n52.sos.request.operator;
 import java.util.Collections;
 import java.util.Set;
 
+import javax.inject.Inject;
+
 import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesRequest;
 import org.n52.shetland.ogc.ows.service.GetCapabilitiesResponse;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
+import org.n52.sos.cache.GetCapabilitiesResponseCache;
 import org.n52.sos.ds.AbstractGetCapabilitiesHandler;
 import org.n52.sos.wsdl.WSDLConstants;
 import org.n52.sos.wsdl.WSDLOperation;
@@ -53,6 +58,8 @@ public class SosGetCapabilitiesOperatorV20 extends
     private static final Set<String> CONFORMANCE_CLASSES = Collections
             .singleton(ConformanceClasses.SOS_V2_CORE_PROFILE);
 
+    private GetCapabilitiesResponseCache responseCache;
+
     public SosGetCapabilitiesOperatorV20() {
         super(OPERATION_NAME, GetCapabilitiesRequest.class);
     }
@@ -65,6 +72,19 @@ public class SosGetCapabilitiesOperatorV20 extends
         return Collections.emptySet();
     }
 
+    @Inject
+    public void setResponseCache(GetCapabilitiesResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public OwsServiceResponse receiveRequest(OwsServiceRequest request) throws OwsExceptionReport {
+        if (responseCache == null) {
+            return super.receiveRequest(request);
+        }
+        return responseCache.get(request, getContentCacheController(), super::receiveRequest);
+    }
+
     @Override
     public GetCapabilitiesResponse receive(GetCapabilitiesRequest request) throws OwsExceptionReport {
         return getOperationHandler().getCapabilities(request);
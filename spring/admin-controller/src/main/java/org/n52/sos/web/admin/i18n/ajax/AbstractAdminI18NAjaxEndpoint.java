@@ -42,6 +42,7 @@ import org.n52.iceland.i18n.metadata.AbstractI18NMetadata;
 import org.n52.janmayen.Json;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.cache.SosContentCache;
+import org.n52.sos.cache.SosContentCacheUpdate;
 import org.n52.sos.cache.SosWritableContentCache;
 import org.n52.sos.exception.NoSuchIdentifierException;
 import org.n52.sos.web.admin.AbstractAdminController;
@@ -176,13 +177,37 @@ public abstract class AbstractAdminI18NAjaxEndpoint<T extends AbstractI18NMetada
     protected abstract T create(String id);
 
     protected ContentCacheUpdate getContentCacheUpdate(final T i18n) {
-        return new ContentCacheUpdate() {
-            @Override public void execute() {
-                SosWritableContentCache cache = (SosWritableContentCache) getCache();
-                // ignore no longer available locales to skip a complete update
-                cache.addSupportedLanguage(i18n.getLocales());
-            }
-        };
+        return new I18NCacheUpdate<>(this, i18n);
+    }
+
+    /**
+     * Applies the metadata to the cache handed out by the cache controller.
+     * This is not necessarily the published cache, e.g. a copy in copy-on-write
+     * mode, so implementations must only modify the passed cache.
+     *
+     * @param cache
+     *            the cache to update
+     * @param i18n
+     *            the saved metadata
+     */
+    protected void updateCache(SosWritableContentCache cache, T i18n) {
+        // ignore no longer available locales to skip a complete update
+        cache.addSupportedLanguage(i18n.getLocales());
+    }
+
+    private static final class I18NCacheUpdate<T extends AbstractI18NMetadata> extends SosContentCacheUpdate {
+        private final AbstractAdminI18NAjaxEndpoint<T> endpoint;
+        private final T i18n;
+
+        I18NCacheUpdate(AbstractAdminI18NAjaxEndpoint<T> endpoint, T i18n) {
+            this.endpoint = endpoint;
+            this.i18n = i18n;
+        }
+
+        @Override
+        public void execute() {
+            endpoint.updateCache(getCache(), i18n);
+        }
     }
 
 }
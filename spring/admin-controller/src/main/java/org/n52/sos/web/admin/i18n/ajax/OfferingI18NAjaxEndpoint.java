@@ -28,7 +28,6 @@
  */
 package org.n52.sos.web.admin.i18n.ajax;
 
-import org.n52.iceland.cache.ContentCacheUpdate;
 import org.n52.iceland.i18n.metadata.I18NOfferingMetadata;
 import org.n52.sos.cache.SosContentCache;
 import org.n52.sos.cache.SosWritableContentCache;
@@ -57,17 +56,10 @@ public class OfferingI18NAjaxEndpoint
     }
 
     @Override
-    protected ContentCacheUpdate getContentCacheUpdate(
-            final I18NOfferingMetadata i18n) {
-        return new ContentCacheUpdate() {
-            @Override
-            public void execute() {
-                SosWritableContentCache cache = (SosWritableContentCache) getCache();
-                cache.addSupportedLanguage(i18n.getLocales());
-                cache.setI18nNameForOffering(i18n.getIdentifier(), i18n.getName());
-                cache.setI18nDescriptionForOffering(i18n.getIdentifier(), i18n.getDescription());
-            }
-        };
+    protected void updateCache(SosWritableContentCache cache, I18NOfferingMetadata i18n) {
+        super.updateCache(cache, i18n);
+        cache.setI18nNameForOffering(i18n.getIdentifier(), i18n.getName());
+        cache.setI18nDescriptionForOffering(i18n.getIdentifier(), i18n.getDescription());
     }
 
 }